@@ -0,0 +1,107 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсчёт и группировка - типичные сценарии агрегации на ассоциативном массиве. Каждая операция обрабатывает
+ * один ключ из заранее сгенерированного потока, в котором небольшая часть ключей встречается часто.
+ * <ul>
+ *     <li>countGetPut - подсчёт через get и put (два поиска);</li>
+ *     <li>countGetOrDefault, countMerge, countCompute - подсчёт методами Map;</li>
+ *     <li>groupComputeIfAbsent - получение или создание накопителя группы;</li>
+ *     <li>distinctPutIfAbsent - выделение уникальных ключей;</li>
+ *     <li>copyPutAll - копирование заполненного ассоциативного массива в пустой методом putAll.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AggregationBenchmark {
+
+    private static final int STREAM_LENGTH = 1 << 22;
+
+    @Param({"1024", "1048576"})
+    private int distinctKeys;
+
+    @Param({"CUSTOM_HASH_MAP", "HASH_MAP"})
+    private MapImplementation mapImplementation;
+
+    private Integer[] stream;
+    private int cursor;
+    private Map<Integer, Integer> counts;
+    private Map<Integer, long[]> groups;
+    private Map<Integer, Integer> source;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        stream = new Integer[STREAM_LENGTH];
+        SplittableRandom random = new SplittableRandom(7);
+        int hotKeys = Math.max(1, distinctKeys / 64);
+        for (int index = 0; index < STREAM_LENGTH; index++) {
+            int key = random.nextInt(4) == 0 ? random.nextInt(distinctKeys) : random.nextInt(hotKeys);
+            stream[index] = key * 0x9E3779B9;
+        }
+        counts = mapImplementation.create(distinctKeys);
+        groups = mapImplementation.create(distinctKeys);
+        source = mapImplementation.create(distinctKeys);
+        for (int key = 0; key < distinctKeys; key++) {
+            source.put(key * 0x9E3779B9, key);
+        }
+    }
+
+    private Integer nextKey() {
+        int index = cursor;
+        cursor = index + 1 == stream.length ? 0 : index + 1;
+        return stream[index];
+    }
+
+    @Benchmark
+    public Integer countGetPut() {
+        Integer key = nextKey();
+        Integer count = counts.get(key);
+        return counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    @Benchmark
+    public Integer countGetOrDefault() {
+        Integer key = nextKey();
+        return counts.put(key, counts.getOrDefault(key, 0) + 1);
+    }
+
+    @Benchmark
+    public Integer countMerge() {
+        return counts.merge(nextKey(), 1, Integer::sum);
+    }
+
+    @Benchmark
+    public Integer countCompute() {
+        return counts.compute(nextKey(), (key, count) -> count == null ? 1 : count + 1);
+    }
+
+    @Benchmark
+    public long groupComputeIfAbsent() {
+        return ++groups.computeIfAbsent(nextKey(), key -> new long[1])[0];
+    }
+
+    @Benchmark
+    public Integer distinctPutIfAbsent() {
+        Integer key = nextKey();
+        return counts.putIfAbsent(key, key);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Integer, Integer> copyPutAll() {
+        Map<Integer, Integer> copy = mapImplementation.create(0);
+        copy.putAll(source);
+        return copy;
+    }
+}
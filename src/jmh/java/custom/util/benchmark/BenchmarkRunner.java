@@ -0,0 +1,34 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа target/benchmarks.jar. Принимает стандартные параметры командной строки JMH и всегда
+ * подключает GC-профайлер, чтобы рядом с пропускной способностью выводилась скорость аллокаций
+ * (gc.alloc.rate.norm - байт на операцию).
+ * <p>
+ * Примеры запуска:
+ * <pre>
+ * mvn -Pbenchmark package -DskipTests
+ * java -jar target/benchmarks.jar MapOperationsBenchmark.getHit -p size=1048576 -p keyType=INTEGER
+ * java -jar target/benchmarks.jar MapFillBenchmark -rf json -rff fill.json
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,114 @@
+package custom.util.benchmark;
+
+import custom.util.CustomCache;
+import custom.util.CustomCache.EvictionPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Воспроизведение трассы обращений к кэшу CustomCache с политиками LRU и W-TinyLFU. Каждая операция - одно
+ * обращение трассы: get, а при промахе put. Помимо пропускной способности выводятся счётчики hits и misses
+ * (hit ratio = hits / (hits + misses)).
+ * <ul>
+ *     <li>ZIPF - ключи с распределением Ципфа (параметр 0.99) среди {@value #KEY_SPACE} ключей;</li>
+ *     <li>ZIPF_WITH_SCANS - то же распределение, прерываемое проходами по ещё не встречавшимся ключам
+ *     длиной в несколько размеров кэша, как при выгрузке отчёта или пакетной обработке.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheTraceBenchmark {
+
+    private static final int KEY_SPACE = 1 << 20;
+    private static final int TRACE_LENGTH = 1 << 22;
+
+    public enum Trace {
+        ZIPF,
+        ZIPF_WITH_SCANS
+    }
+
+    @Param({"1000", "10000"})
+    private int maximumSize;
+
+    @Param
+    private EvictionPolicy policy;
+
+    @Param
+    private Trace trace;
+
+    private CustomCache<Integer, Integer> cache;
+    private Integer[] keys;
+    private int cursor;
+
+    /**
+     * Счётчики попаданий и промахов, выводимые рядом с результатами.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class HitCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        keys = new Integer[TRACE_LENGTH];
+        SplittableRandom random = new SplittableRandom(7);
+        double[] cumulative = zipfDistribution(0.99);
+        int scanKey = KEY_SPACE;
+        for (int index = 0; index < TRACE_LENGTH; ) {
+            if (trace == Trace.ZIPF_WITH_SCANS && index % (50 * maximumSize) == 0 && index > 0) {
+                for (int end = Math.min(TRACE_LENGTH, index + 3 * maximumSize); index < end; index++) {
+                    keys[index] = scanKey++;
+                }
+                continue;
+            }
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            keys[index++] = rank < 0 ? -rank - 1 : rank;
+        }
+        cache = new CustomCache<>(maximumSize, policy);
+        for (Integer key : keys) access(key);
+    }
+
+    private static double[] zipfDistribution(double skew) {
+        double[] cumulative = new double[KEY_SPACE];
+        double sum = 0;
+        for (int rank = 0; rank < KEY_SPACE; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < KEY_SPACE; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private boolean access(Integer key) {
+        if (cache.get(key) != null) return true;
+        cache.put(key, key);
+        return false;
+    }
+
+    @Benchmark
+    public boolean replay(HitCounters counters) {
+        int index = cursor;
+        cursor = index + 1 == keys.length ? 0 : index + 1;
+        boolean hit = access(keys[index]);
+        if (hit) counters.hits++;
+        else counters.misses++;
+        return hit;
+    }
+}
@@ -0,0 +1,39 @@
+package custom.util.benchmark;
+
+/**
+ * Ключ с намеренно плохим хэш-кодом: группы из {@link #GROUP_SIZE} последовательных значений
+ * возвращают одинаковый hashCode(), что моделирует ключи с большим количеством коллизий.
+ */
+public final class CollidingKey implements Comparable<CollidingKey> {
+
+    /**
+     * Количество ключей, разделяющих один хэш-код.
+     */
+    public static final int GROUP_SIZE = 16;
+
+    private final int value;
+
+    public CollidingKey(int value) {
+        this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value / GROUP_SIZE;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return this == object || object instanceof CollidingKey other && other.value == this.value;
+    }
+
+    @Override
+    public int compareTo(CollidingKey other) {
+        return Integer.compare(this.value, other.value);
+    }
+
+    @Override
+    public String toString() {
+        return "CollidingKey-" + value;
+    }
+}
@@ -0,0 +1,58 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерение поиска при атаке коллизиями: все ключи являются строками с одинаковым хэш-кодом, составленными
+ * из блоков "Aa" и "BB" ("Aa".hashCode() == "BB".hashCode()). Без преобразования бакета в дерево поиск
+ * выполняется за O(n) от количества ключей, с деревом - за O(log n).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionFloodBenchmark {
+
+    /**
+     * Количество блоков в ключе. Количество ключей равно 2^blocks.
+     */
+    @Param({"8", "12", "16"})
+    private int blocks;
+
+    @Param({"CUSTOM_HASH_MAP", "HASH_MAP"})
+    private MapImplementation implementation;
+
+    private Map<String, String> map;
+    private String[] keys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        int count = 1 << blocks;
+        keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder key = new StringBuilder(blocks * 2);
+            for (int block = 0; block < blocks; block++) {
+                key.append((i >>> block & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = key.toString();
+        }
+        KeyType.shuffled(keys);
+        map = implementation.create(count);
+        for (String key : keys) {
+            map.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public String getHit() {
+        String key = keys[cursor];
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return map.get(key);
+    }
+}
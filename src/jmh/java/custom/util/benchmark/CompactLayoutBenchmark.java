@@ -0,0 +1,99 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение компактного размещения CompactHashMap (плотные массивы в порядке добавления и разреженный индекс)
+ * с узлами CustomHashMap и LinkedHashMap на таблице из size пар:
+ * <ul>
+ *     <li>iterateEntrySet и forEach - полный обход таблицы;</li>
+ *     <li>getHit - поиск существующего ключа в случайном порядке.</li>
+ * </ul>
+ * Вспомогательный счётчик retainedBytesPerEntry - прирост занятой кучи после заполнения таблицы (после сборки
+ * мусора), делённый на size. Ключи создаются заранее и не входят в оценку, значения - те же объекты, что и ключи.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CompactLayoutBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int size;
+
+    @Param({"CUSTOM_HASH_MAP", "LINKED_HASH_MAP", "COMPACT_HASH_MAP"})
+    private MapImplementation implementation;
+
+    private Map<Integer, Integer> map;
+    private Integer[] keys;
+    private long retainedBytesPerEntry;
+    private int cursor;
+
+    /**
+     * Оценка памяти на пару, записываемая в первом вызове каждой итерации.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerEntry;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytesPerEntry = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void fill() {
+        keys = new Integer[size];
+        Object[] shuffled = KeyType.shuffled(KeyType.INTEGER.keys(0, size));
+        for (int index = 0; index < size; index++) keys[index] = (Integer) shuffled[index];
+        long before = usedHeap();
+        map = implementation.create(size);
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        retainedBytesPerEntry = (usedHeap() - before) / size;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int attempt = 0; attempt < 3; attempt++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void record(Footprint footprint) {
+        if (footprint.retainedBytesPerEntry == 0) footprint.retainedBytesPerEntry = retainedBytesPerEntry;
+    }
+
+    @Benchmark
+    public long iterateEntrySet(Footprint footprint) {
+        record(footprint);
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            sum += entry.getKey() ^ entry.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long forEach(Footprint footprint) {
+        record(footprint);
+        long[] sum = new long[1];
+        map.forEach((key, value) -> sum[0] += key ^ value);
+        return sum[0];
+    }
+
+    @Benchmark
+    public Integer getHit(Footprint footprint) {
+        record(footprint);
+        int index = cursor;
+        cursor = index + 1 == keys.length ? 0 : index + 1;
+        return map.get(keys[index]);
+    }
+}
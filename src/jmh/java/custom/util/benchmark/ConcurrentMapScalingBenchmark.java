@@ -0,0 +1,90 @@
+package custom.util.benchmark;
+
+import custom.util.CustomConcurrentHashMap;
+import custom.util.CustomHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерение масштабируемости потокобезопасных Map: все потоки работают с одним заполненным экземпляром,
+ * выполняя get и put (перезапись) в пропорции readPercent. Количество потоков задаётся параметром JMH -t,
+ * для построения зависимости от числа ядер бенчмарк запускается последовательно:
+ * <pre>
+ * for t in 1 2 4 8; do java -jar target/benchmarks.jar ConcurrentMapScalingBenchmark -t $t -rf json -rff t$t.json; done
+ * </pre>
+ * Результат - суммарная пропускная способность всех потоков. Для сравнения измеряется CustomHashMap,
+ * обёрнутый в Collections.synchronizedMap (одна блокировка на весь ассоциативный массив).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMapScalingBenchmark {
+
+    public enum ConcurrentImplementation {
+        CUSTOM_CONCURRENT_HASH_MAP {
+            @Override
+            Map<Integer, Integer> create() {
+                return new CustomConcurrentHashMap<>();
+            }
+        },
+        CONCURRENT_HASH_MAP {
+            @Override
+            Map<Integer, Integer> create() {
+                return new ConcurrentHashMap<>();
+            }
+        },
+        SYNCHRONIZED_CUSTOM_HASH_MAP {
+            @Override
+            Map<Integer, Integer> create() {
+                return Collections.synchronizedMap(new CustomHashMap<>());
+            }
+        };
+
+        abstract Map<Integer, Integer> create();
+    }
+
+    @Param({"65536", "1048576"})
+    private int size;
+
+    @Param({"100", "90", "50"})
+    private int readPercent;
+
+    @Param
+    private ConcurrentImplementation implementation;
+
+    private Map<Integer, Integer> map;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        map = implementation.create();
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+            map.put(i, i);
+        }
+    }
+
+    /**
+     * Состояние отдельного потока: собственный генератор случайных чисел, чтобы потоки не конкурировали за него.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public Integer mixed(ThreadRandom state) {
+        Integer key = keys[state.random.nextInt(keys.length)];
+        if (state.random.nextInt(100) < readPercent) return map.get(key);
+        return map.put(key, key);
+    }
+}
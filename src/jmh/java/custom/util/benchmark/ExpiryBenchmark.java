@@ -0,0 +1,96 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.ExpiringHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость удаления пар по истечении срока в таблице сессий постоянного размера. Сроки действия пар равномерно
+ * распределены на десять минут, время задаётся управляемым источником. Каждый шаг продвигает время на STEP_MILLIS
+ * миллисекунд, удаляет пары с истёкшим сроком и добавляет их ключи обратно с полным сроком, поэтому размер таблицы
+ * остаётся постоянным, а на шаг приходится около size * STEP_MILLIS / 600000 удалений.
+ * <ul>
+ *     <li>TIMING_WHEEL - ExpiringHashMap: cleanUp просматривает только наступившие интервалы колеса таймеров;</li>
+ *     <li>FULL_SWEEP - CustomHashMap, значения которой хранят срок действия, и периодический обход
+ *     entrySet().removeIf, как при очистке по расписанию.</li>
+ * </ul>
+ * Бенчмарк put измеряет добавление пары с записью в колесо по сравнению с put в CustomHashMap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ExpiryBenchmark {
+
+    private static final long TTL_RANGE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final long STEP_MILLIS = 10;
+
+    public enum Strategy {
+        TIMING_WHEEL, FULL_SWEEP
+    }
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param
+    private Strategy strategy;
+
+    private long now;
+    private final List<Integer> expired = new ArrayList<>();
+    private ExpiringHashMap<Integer, Integer> expiring;
+    private CustomHashMap<Integer, Long> deadlines;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        SplittableRandom random = new SplittableRandom(42);
+        if (strategy == Strategy.TIMING_WHEEL) {
+            expiring = new ExpiringHashMap<>(Duration.ofNanos(TTL_RANGE_NANOS), (key, value) -> expired.add(key),
+                    () -> now);
+            for (int key = 0; key < size; key++) {
+                expiring.put(key, key, Duration.ofNanos(1 + random.nextLong(TTL_RANGE_NANOS)));
+            }
+        } else {
+            deadlines = new CustomHashMap<>();
+            for (int key = 0; key < size; key++) deadlines.put(key, now + 1 + random.nextLong(TTL_RANGE_NANOS));
+        }
+    }
+
+    @Benchmark
+    public int expireStep() {
+        now += TimeUnit.MILLISECONDS.toNanos(STEP_MILLIS);
+        expired.clear();
+        if (strategy == Strategy.TIMING_WHEEL) {
+            expiring.cleanUp();
+            for (Integer key : expired) expiring.put(key, key);
+        } else {
+            long time = now;
+            deadlines.entrySet().removeIf(entry -> {
+                if (entry.getValue() > time) return false;
+                expired.add(entry.getKey());
+                return true;
+            });
+            for (Integer key : expired) deadlines.put(key, time + TTL_RANGE_NANOS);
+        }
+        return expired.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object put() {
+        Integer key = cursor;
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        if (strategy == Strategy.TIMING_WHEEL) return expiring.put(key, key);
+        Map<Integer, Long> map = deadlines;
+        return map.put(key, now + TTL_RANGE_NANOS);
+    }
+}
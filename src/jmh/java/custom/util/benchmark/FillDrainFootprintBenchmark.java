@@ -0,0 +1,83 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цикл пакетного обработчика, многократно заполняющего и опустошающего CustomHashMap: добавление peakSize ключей,
+ * удаление всех ключей, кроме residentSize, и очистка. Время измеряется на один цикл, а вспомогательный счётчик
+ * residentBytes показывает оценку памяти (MapStatistics), занятой CustomHashMap после удаления:
+ * <ul>
+ *     <li>NONE - уменьшение хэш-таблицы выключено, память пиковой хэш-таблицы удерживается;</li>
+ *     <li>SHRINK - автоматическое уменьшение с нижним порогом loadFactor / 8;</li>
+ *     <li>TRIM - явный вызов trimToSize() после удаления.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FillDrainFootprintBenchmark {
+
+    public enum ShrinkPolicy {
+        NONE, SHRINK, TRIM
+    }
+
+    @Param({"1048576"})
+    private int peakSize;
+
+    @Param({"1024"})
+    private int residentSize;
+
+    @Param
+    private ShrinkPolicy shrinkPolicy;
+
+    private Integer[] keys;
+    private CustomHashMap<Integer, Integer> map;
+
+    /**
+     * Оценка памяти после удаления, снимаемая в первом цикле каждой итерации.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long residentBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            residentBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        keys = new Integer[peakSize];
+        for (int index = 0; index < peakSize; index++) {
+            keys[index] = index * 0x9E3779B9;
+        }
+        map = new CustomHashMap<>();
+        if (shrinkPolicy == ShrinkPolicy.SHRINK) map.setShrinkLoadFactor(0.75f / 8);
+    }
+
+    @Benchmark
+    public int fillDrainClear(Footprint footprint) {
+        CustomHashMap<Integer, Integer> target = map;
+        for (Integer key : keys) {
+            target.put(key, key);
+        }
+        for (int index = residentSize; index < keys.length; index++) {
+            target.remove(keys[index]);
+        }
+        if (shrinkPolicy == ShrinkPolicy.TRIM) target.trimToSize();
+        if (footprint.residentBytes == 0) {
+            footprint.residentBytes = (long) (target.statistics().estimatedBytesPerEntry() * target.size());
+        }
+        int size = target.size();
+        target.clear();
+        return size;
+    }
+}
@@ -0,0 +1,111 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.FrozenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск в таблице, заполняемой один раз и затем только читаемой: CustomHashMap против её неизменяемой копии
+ * FrozenHashMap (минимальная совершенная хэш-функция). Ключи запрашиваются в случайном порядке, поэтому при больших
+ * размерах время определяется промахами кэша процессора: у CustomHashMap это ячейка хэш-таблицы и узел цепочки,
+ * у FrozenHashMap - смещение группы и ячейка массивов.
+ * <p>
+ * Вспомогательный счётчик tableBytes бенчмарка getHit показывает оценку памяти, занятой таблицей, без учёта самих
+ * ключей и значений (MapStatistics для CustomHashMap, estimatedBytesPerEntry для FrozenHashMap).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FrozenLookupBenchmark {
+
+    public enum Layout {
+        CUSTOM_HASH_MAP, FROZEN
+    }
+
+    @Param({"65536", "1048576", "10000000"})
+    private int size;
+
+    @Param
+    private Layout layout;
+
+    private Integer[] hits;
+    private Integer[] misses;
+    private Map<Integer, Integer> map;
+    private long tableBytes;
+    private int cursor;
+
+    /**
+     * Оценка памяти таблицы, записываемая в первом вызове каждой итерации.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long tableBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tableBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        SplittableRandom random = new SplittableRandom(42);
+        CustomHashMap<Integer, Integer> source = new CustomHashMap<>();
+        while (source.size() < size) {
+            int key = random.nextInt();
+            source.put(key, key);
+        }
+        hits = source.keySet().toArray(new Integer[0]);
+        misses = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            int key;
+            do {
+                key = random.nextInt();
+            } while (source.containsKey(key));
+            misses[i] = key;
+        }
+        shuffle(hits, random);
+        if (layout == Layout.FROZEN) {
+            FrozenHashMap<Integer, Integer> frozen = source.freeze();
+            tableBytes = (long) (frozen.estimatedBytesPerEntry() * size);
+            map = frozen;
+        } else {
+            tableBytes = (long) (source.statistics().estimatedBytesPerEntry() * size);
+            map = source;
+        }
+    }
+
+    private static void shuffle(Integer[] keys, SplittableRandom random) {
+        for (int i = keys.length - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            Integer key = keys[i];
+            keys[i] = keys[other];
+            keys[other] = key;
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == size ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public Integer getHit(Footprint footprint) {
+        if (footprint.tableBytes == 0) footprint.tableBytes = tableBytes;
+        return map.get(hits[next()]);
+    }
+
+    @Benchmark
+    public Integer getMiss() {
+        return map.get(misses[next()]);
+    }
+}
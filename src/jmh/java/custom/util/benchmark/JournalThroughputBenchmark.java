@@ -0,0 +1,93 @@
+package custom.util.benchmark;
+
+import custom.util.JournaledHashMap;
+import custom.util.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Пропускная способность изменений JournaledHashMap (операций в секунду) для каждой политики записи журнала:
+ * <ul>
+ *     <li>put - одиночные put с заменой значения, каждая операция фиксируется отдельно;</li>
+ *     <li>putAllBatch - putAll из BATCH_SIZE пар, вся пачка фиксируется одной группой (group commit),
+ *     результат приводится к операциям через OperationsPerInvocation.</li>
+ * </ul>
+ * Порог сжатия по умолчанию, поэтому в измерение входит и создание снимков фоновым потоком. Результат EVERY_OPERATION
+ * определяется задержкой fsync накопителя.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class JournalThroughputBenchmark {
+
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param
+    private JournaledHashMap.SyncPolicy policy;
+
+    private Path directory;
+    private JournaledHashMap<Long, String> map;
+    private Long[] keys;
+    private String[] values;
+    private Long[] batchKeys;
+    private String[] batchValues;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        map = JournaledHashMap.open(directory, Serializer.LONG, Serializer.STRING, policy);
+        keys = new Long[KEY_RANGE];
+        values = new String[KEY_RANGE];
+        for (int i = 0; i < KEY_RANGE; i++) {
+            keys[i] = i * 0x9E3779B97F4A7C15L;
+            values[i] = "value" + i;
+        }
+        batchKeys = new Long[BATCH_SIZE];
+        batchValues = new String[BATCH_SIZE];
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        map.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (index + 1) & (KEY_RANGE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public String put() {
+        int index = next();
+        return map.put(keys[index], values[index]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int putAllBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int index = next();
+            batchKeys[i] = keys[index];
+            batchValues[i] = values[index];
+        }
+        map.putAll(batchKeys, batchValues);
+        return map.size();
+    }
+}
@@ -0,0 +1,86 @@
+package custom.util.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Перечисление типов ключей, на которых измеряются реализации Map.
+ */
+public enum KeyType {
+    /**
+     * Последовательные Integer - хорошо распределённые хэш-коды.
+     */
+    INTEGER {
+        @Override
+        public Object key(int index) {
+            return index;
+        }
+    },
+    /**
+     * Строки вида "key-N" - хэш-код вычисляется по содержимому.
+     */
+    STRING {
+        @Override
+        public Object key(int index) {
+            return "key-" + index;
+        }
+    },
+    /**
+     * Integer, различающиеся только старшими битами: без размытия хэш-кода попадают в один бакет.
+     */
+    SKEWED {
+        @Override
+        public Object key(int index) {
+            return Integer.reverse(index);
+        }
+    },
+    /**
+     * Ключи, группы которых имеют одинаковый хэш-код (см. {@link CollidingKey}).
+     */
+    COLLIDING {
+        @Override
+        public Object key(int index) {
+            return new CollidingKey(index);
+        }
+    };
+
+    /**
+     * Создаёт ключ с указанным порядковым номером. Разные номера дают неравные ключи.
+     *
+     * @param index порядковый номер ключа
+     * @return ключ
+     */
+    public abstract Object key(int index);
+
+    /**
+     * Создаёт массив ключей с номерами из диапазона [from, from + count).
+     *
+     * @param from  номер первого ключа
+     * @param count количество ключей
+     * @return массив ключей
+     */
+    public Object[] keys(int from, int count) {
+        Object[] keys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(from + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Перемешивает массив ключей с фиксированным зерном, чтобы порядок обращений не совпадал
+     * с порядком вставки и был одинаковым между запусками.
+     *
+     * @param keys массив ключей
+     * @return тот же массив, перемешанный на месте
+     */
+    public static Object[] shuffled(Object[] keys) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+}
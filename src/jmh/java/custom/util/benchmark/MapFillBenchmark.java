@@ -0,0 +1,44 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерение заполнения пустого Map с размером хэш-таблицы по умолчанию. При заполнении выполняются
+ * все перехэширования, поэтому бенчмарк отражает стоимость роста хэш-таблицы.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapFillBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "10000000"})
+    private int size;
+
+    @Param
+    private MapImplementation implementation;
+
+    @Param
+    private KeyType keyType;
+
+    private Object[] keys;
+
+    @Setup(Level.Trial)
+    public void prepareKeys() {
+        keys = keyType.keys(0, size);
+    }
+
+    @Benchmark
+    public Map<Object, Object> fill() {
+        Map<Object, Object> map = implementation.create(size);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+}
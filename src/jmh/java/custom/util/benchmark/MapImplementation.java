@@ -0,0 +1,74 @@
+package custom.util.benchmark;
+
+import custom.util.CompactHashMap;
+import custom.util.CustomConcurrentHashMap;
+import custom.util.CustomHashMap;
+import custom.util.RobinHoodHashMap;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Перечисление сравниваемых реализаций Map. Используется как параметр бенчмарков (@Param),
+ * что позволяет запускать один и тот же сценарий для каждой реализации.
+ */
+public enum MapImplementation {
+    CUSTOM_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new CustomHashMap<>();
+        }
+    },
+    CUSTOM_HASH_MAP_INCREMENTAL_RESIZE {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new CustomHashMap<>(CustomHashMap.INIT_BUCKET_ARRAY_CAPACITY, 0.75f, true);
+        }
+    },
+    ROBIN_HOOD_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new RobinHoodHashMap<>();
+        }
+    },
+    COMPACT_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new CompactHashMap<>();
+        }
+    },
+    HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new HashMap<>();
+        }
+    },
+    LINKED_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new LinkedHashMap<>();
+        }
+    },
+    CUSTOM_CONCURRENT_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new CustomConcurrentHashMap<>();
+        }
+    },
+    CONCURRENT_HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int expectedSize) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Создаёт пустой экземпляр реализации с размером хэш-таблицы по умолчанию.
+     *
+     * @param expectedSize ожидаемое количество пар ключ-значение (используется реализациями, которым он нужен)
+     * @return пустой экземпляр Map
+     */
+    public abstract <K, V> Map<K, V> create(int expectedSize);
+}
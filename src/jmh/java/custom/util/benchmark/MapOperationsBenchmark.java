@@ -0,0 +1,100 @@
+package custom.util.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерение основных операций над заполненным Map: поиск существующего и отсутствующего ключа,
+ * перезапись значения, удаление с повторной вставкой, containsValue и обход keySet()/entrySet().
+ * Каждая операция вызывается для следующего ключа по кругу, чтобы не измерять обращение к одному бакету.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapOperationsBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "10000000"})
+    private int size;
+
+    @Param
+    private MapImplementation implementation;
+
+    @Param
+    private KeyType keyType;
+
+    private Map<Object, Object> map;
+    private Object[] keys;
+    private Object[] missingKeys;
+    private Object presentValue;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        keys = KeyType.shuffled(keyType.keys(0, size));
+        missingKeys = keyType.keys(size, Math.min(size, 1 << 16));
+        map = implementation.create(size);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        presentValue = keys[keys.length - 1];
+    }
+
+    private int next(int length) {
+        int index = cursor;
+        cursor = index + 1 == length ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return map.get(keys[next(keys.length)]);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return map.get(missingKeys[next(missingKeys.length)]);
+    }
+
+    @Benchmark
+    public Object putOverwrite() {
+        Object key = keys[next(keys.length)];
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public Object removeAndPut() {
+        Object key = keys[next(keys.length)];
+        Object value = map.remove(key);
+        map.put(key, value);
+        return value;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean containsValue() {
+        return map.containsValue(presentValue);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void iterateKeySet(Blackhole blackhole) {
+        for (Object key : map.keySet()) {
+            blackhole.consume(key);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void iterateEntrySet(Blackhole blackhole) {
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
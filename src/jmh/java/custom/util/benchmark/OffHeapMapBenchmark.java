@@ -0,0 +1,79 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.OffHeapHashMap;
+import custom.util.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение OffHeapHashMap и CustomHashMap с большим количеством пар ключ-значение типа Long.
+ * <ul>
+ *     <li>getHit и putOverwrite - пропускная способность; putOverwrite создаёт объекты Long, вызывая сборки
+ *     молодого поколения на фоне заполненного ассоциативного массива (см. gc.count и gc.time GC-профайлера).</li>
+ *     <li>fullGc - продолжительность полной сборки мусора (System.gc()) при живом ассоциативном массиве:
+ *     для CustomHashMap она растёт с количеством узлов в куче, для OffHeapHashMap остаётся постоянной.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class OffHeapMapBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param({"true", "false"})
+    private boolean offHeap;
+
+    private Map<Long, Long> map;
+    private long[] keys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        map = offHeap ? new OffHeapHashMap<>(Serializer.LONG, Serializer.LONG) : new CustomHashMap<>();
+        keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (i * 0x9E3779B97F4A7C15L) >>> 1;
+            map.put(keys[i], (long) i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void release() {
+        if (map instanceof OffHeapHashMap<Long, Long> offHeapMap) offHeapMap.close();
+    }
+
+    private long nextKey() {
+        int index = cursor;
+        cursor = index + 1 == keys.length ? 0 : index + 1;
+        return keys[index];
+    }
+
+    @Benchmark
+    public Long getHit() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public Long putOverwrite() {
+        long key = nextKey();
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int fullGc() {
+        System.gc();
+        return map.size();
+    }
+}
@@ -0,0 +1,77 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Масштабируемость параллельного обхода заполненного ассоциативного массива в зависимости от количества ядер:
+ * <ul>
+ *     <li>sequentialStream, parallelStream - сумма значений через Stream API (Spliterator по бакетам);</li>
+ *     <li>reduceValuesSequential, reduceValuesParallel - массовая операция CustomHashMap.reduceValues
+ *     с порогами Long.MAX_VALUE и 1 (для HashMap измеряется только Stream API).</li>
+ * </ul>
+ * Количество потоков общего ForkJoinPool задаётся системным свойством, для построения зависимости от числа
+ * ядер бенчмарк запускается последовательно:
+ * <pre>
+ * for p in 1 2 4 8; do java -jar target/benchmarks.jar ParallelBulkBenchmark \
+ *     -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=$p -rf json -rff p$p.json; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ParallelBulkBenchmark {
+
+    @Param({"1048576"})
+    private int size;
+
+    private CustomHashMap<Integer, Long> customHashMap;
+    private Map<Integer, Long> hashMap;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        customHashMap = new CustomHashMap<>();
+        hashMap = new HashMap<>();
+        for (int key = 0; key < size; key++) {
+            customHashMap.put(key * 0x9E3779B9, (long) key);
+            hashMap.put(key * 0x9E3779B9, (long) key);
+        }
+    }
+
+    @Benchmark
+    public long customSequentialStream() {
+        return customHashMap.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long customParallelStream() {
+        return customHashMap.values().parallelStream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public Long customReduceValuesSequential() {
+        return customHashMap.reduceValues(Long.MAX_VALUE, Long::sum);
+    }
+
+    @Benchmark
+    public Long customReduceValuesParallel() {
+        return customHashMap.reduceValues(1, Long::sum);
+    }
+
+    @Benchmark
+    public long hashMapSequentialStream() {
+        return hashMap.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long hashMapParallelStream() {
+        return hashMap.values().parallelStream().mapToLong(Long::longValue).sum();
+    }
+}
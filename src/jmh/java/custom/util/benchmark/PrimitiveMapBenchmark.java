@@ -0,0 +1,140 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.IntObjectHashMap;
+import custom.util.LongLongHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ассоциативных массивов с примитивными ключами и значениями с CustomHashMap и HashMap
+ * при ключах-идентификаторах типа int и long.
+ * <p>
+ * Бенчмарки fill* заполняют предварительно увеличенный экземпляр, поэтому перехэширование не выполняется,
+ * и gc.alloc.rate.norm, делённый на size, даёт объём памяти на одну пару ключ-значение (включая
+ * упаковку ключей в Integer/Long там, где она требуется). Бенчмарки get* и count* измеряют пропускную
+ * способность поиска и подсчёта на заполненном экземпляре.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveMapBenchmark {
+
+    @Param({"65536", "1048576"})
+    private int size;
+
+    private int[] ids;
+    private long[] longIds;
+    private final Object value = new Object();
+    private IntObjectHashMap<Object> intObjectMap;
+    private CustomHashMap<Integer, Object> customMap;
+    private HashMap<Integer, Object> hashMap;
+    private LongLongHashMap longLongMap;
+    private HashMap<Long, Long> boxedLongMap;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new int[size];
+        longIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = random.nextInt(1, Integer.MAX_VALUE);
+            longIds[i] = random.nextLong(1, Long.MAX_VALUE);
+        }
+        intObjectMap = fillIntObject();
+        customMap = fillCustom();
+        hashMap = fillHashMap();
+        longLongMap = new LongLongHashMap();
+        boxedLongMap = new HashMap<>();
+        for (long id : longIds) {
+            longLongMap.put(id, id);
+            boxedLongMap.put(id, id);
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == size ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public IntObjectHashMap<Object> fillIntObject() {
+        IntObjectHashMap<Object> map = new IntObjectHashMap<>((int) (size / 0.75f) + 1);
+        for (int id : ids) {
+            map.put(id, value);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public CustomHashMap<Integer, Object> fillCustom() {
+        CustomHashMap<Integer, Object> map = new CustomHashMap<>((int) (size / 0.75f) + 1);
+        for (int id : ids) {
+            map.put(id, value);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public HashMap<Integer, Object> fillHashMap() {
+        HashMap<Integer, Object> map = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int id : ids) {
+            map.put(id, value);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getIntObject() {
+        return intObjectMap.get(ids[next()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getCustom() {
+        return customMap.get(ids[next()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getHashMap() {
+        return hashMap.get(ids[next()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long countLongLong() {
+        return longLongMap.addTo(longIds[next()], 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Long countBoxedHashMap() {
+        return boxedLongMap.merge(longIds[next()], 1L, Long::sum);
+    }
+}
@@ -0,0 +1,70 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерение распределения времени отдельной операции put при непрерывном заполнении CustomHashMap.
+ * В режиме SampleTime JMH выводит перцентили (p0.99, p0.9999, p1.0), по которым видно, сколько длится
+ * put, вызвавший перехэширование, с постепенным перехэшированием и без него.
+ * Когда CustomHashMap достигает size пар ключ-значение, заполнение начинается заново с новым экземпляром.
+ * <p>
+ * putWithIteration после каждой ITERATION_PERIOD-й операции put начинает обход keySet(). Создание итератора
+ * завершает незаконченный перенос бакетов, поэтому при постепенном перехэшировании самая долгая операция (p1.0)
+ * этого бенчмарка сравнима с put, вызвавшим перехэширование без него: пауза переносится из put в первый обход.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PutLatencyBenchmark {
+
+    @Param({"1048576", "16777216"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean incrementalResize;
+
+    /**
+     * Количество операций put между началами обхода в putWithIteration.
+     */
+    private static final int ITERATION_PERIOD = 4096;
+
+    private Map<Integer, Integer> map;
+    private Integer[] keys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void prepareKeys() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        map = newMap();
+    }
+
+    private Map<Integer, Integer> newMap() {
+        return new CustomHashMap<>(CustomHashMap.INIT_BUCKET_ARRAY_CAPACITY, 0.75f, incrementalResize);
+    }
+
+    @Benchmark
+    public Integer put() {
+        if (cursor == keys.length) {
+            cursor = 0;
+            map = newMap();
+        }
+        Integer key = keys[cursor++];
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public boolean putWithIteration() {
+        put();
+        return (cursor & (ITERATION_PERIOD - 1)) == 0 && map.keySet().iterator().hasNext();
+    }
+}
@@ -0,0 +1,82 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.ReferenceHashMap;
+import custom.util.ReferenceHashMap.Equivalence;
+import custom.util.ReferenceHashMap.Strength;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы слабых ссылок на ключи и разбора очереди ссылок:
+ * <ul>
+ *     <li>get - поиск в таблице из size долгоживущих ключей (разыменование ссылки при сравнении ключей);</li>
+ *     <li>churn - добавление пары с новым ключом-объектом при удержании сильными ссылками только последних
+ *     size ключей, как у таблицы, привязанной к объектам запросов. Для CUSTOM_HASH_MAP ключ, вышедший из окна,
+ *     удаляется явно, для остальных - очищается сборщиком мусора и удаляется при разборе очереди.</li>
+ * </ul>
+ * Сравниваются CustomHashMap (сильные ссылки), ReferenceHashMap со слабыми ключами и {@link WeakHashMap},
+ * разбирающая очередь целиком при каждой операции.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReferencePurgeBenchmark {
+
+    public enum Implementation {
+        CUSTOM_HASH_MAP, REFERENCE_WEAK_KEYS, WEAK_HASH_MAP
+    }
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param
+    private Implementation implementation;
+
+    private Map<Object, Object> map;
+    private Object[] keys;
+    private Object[] window;
+    private int cursor;
+    private int windowCursor;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        map = switch (implementation) {
+            case CUSTOM_HASH_MAP -> new CustomHashMap<>();
+            case REFERENCE_WEAK_KEYS -> new ReferenceHashMap<>(Strength.WEAK, Strength.STRONG, Equivalence.IDENTITY);
+            case WEAK_HASH_MAP -> new WeakHashMap<>();
+        };
+        keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new Object();
+            map.put(keys[i], i);
+        }
+        window = new Object[size];
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public Object get() {
+        return map.get(keys[random.nextInt(size)]);
+    }
+
+    @Benchmark
+    public Object churn() {
+        Object key = new Object();
+        int index = windowCursor;
+        windowCursor = index + 1 == size ? 0 : index + 1;
+        Object expired = window[index];
+        window[index] = key;
+        if (expired != null && implementation == Implementation.CUSTOM_HASH_MAP) map.remove(expired);
+        cursor++;
+        return map.put(key, cursor);
+    }
+}
@@ -0,0 +1,62 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.SegmentedHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределение времени отдельной операции put при непрерывном заполнении, как в {@link PutLatencyBenchmark}:
+ * CustomHashMap с одной хэш-таблицей против SegmentedHashMap из segmentCount сегментов, каждый из которых
+ * увеличивается отдельно. Перцентиль p1.0 - самое долгое перехэширование: для SegmentedHashMap оно переносит
+ * около 1/segmentCount пар и выделяет массив в segmentCount раз меньше.
+ * Когда ассоциативный массив достигает size пар ключ-значение, заполнение начинается заново с новым экземпляром.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class SegmentResizeBenchmark {
+
+    @Param({"16777216", "67108864"})
+    private int size;
+
+    /**
+     * Количество сегментов; 0 - CustomHashMap без сегментов.
+     */
+    @Param({"0", "64", "1024"})
+    private int segmentCount;
+
+    private static final Boolean VALUE = Boolean.TRUE;
+
+    private Map<Integer, Boolean> map;
+    private Integer[] keys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void prepareKeys() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        map = newMap();
+    }
+
+    private Map<Integer, Boolean> newMap() {
+        return segmentCount == 0 ? new CustomHashMap<>() : new SegmentedHashMap<>(segmentCount);
+    }
+
+    @Benchmark
+    public Boolean put() {
+        if (cursor == keys.length) {
+            cursor = 0;
+            map = null;
+            map = newMap();
+        }
+        return map.put(keys[cursor++], VALUE);
+    }
+}
@@ -0,0 +1,88 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.HashingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск имён полей, выделенных разбором входного буфера: буфер содержит имена, разделённые запятыми, как строка
+ * заголовка CSV или запроса, и каждая операция ищет одно имя по его смещению и длине в буфере.
+ * <ul>
+ *     <li>STRING_KEYS - создание new String(buffer, offset, length) и get в CustomHashMap со строковыми ключами;</li>
+ *     <li>BYTE_SLICE - get(buffer, offset, length) в CustomHashMap с ключами byte[] и стратегией
+ *     {@link HashingStrategy#BYTE_ARRAY}, без создания объекта-ключа;</li>
+ *     <li>SEEDED_BYTE_SLICE - то же со стратегией {@link HashingStrategy#seededByteArray(long)}.</li>
+ * </ul>
+ * Аллокации сравниваются по gc.alloc.rate.norm GC-профайлера (см. BenchmarkRunner): для STRING_KEYS это строка
+ * и её массив байт на каждый поиск, для поиска по участку - 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SliceLookupBenchmark {
+
+    private static final int TOKENS = 1 << 16;
+
+    public enum Lookup {
+        STRING_KEYS, BYTE_SLICE, SEEDED_BYTE_SLICE
+    }
+
+    @Param({"1024", "65536"})
+    private int distinctNames;
+
+    @Param
+    private Lookup lookup;
+
+    private CustomHashMap<String, Integer> stringMap;
+    private CustomHashMap<byte[], Integer> byteMap;
+    private byte[] buffer;
+    private int[] offsets;
+    private int[] lengths;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        HashingStrategy<byte[]> strategy = lookup == Lookup.SEEDED_BYTE_SLICE
+                ? HashingStrategy.seededByteArray(new SplittableRandom().nextLong())
+                : HashingStrategy.BYTE_ARRAY;
+        stringMap = new CustomHashMap<>();
+        byteMap = new CustomHashMap<>(strategy);
+        for (int index = 0; index < distinctNames; index++) {
+            String name = name(index);
+            stringMap.put(name, index);
+            byteMap.put(name.getBytes(StandardCharsets.US_ASCII), index);
+        }
+        SplittableRandom random = new SplittableRandom(11);
+        StringBuilder text = new StringBuilder();
+        offsets = new int[TOKENS];
+        lengths = new int[TOKENS];
+        for (int token = 0; token < TOKENS; token++) {
+            String name = name(random.nextInt(distinctNames));
+            offsets[token] = text.length();
+            lengths[token] = name.length();
+            text.append(name).append(',');
+        }
+        buffer = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String name(int index) {
+        return "field_" + Integer.toHexString(index * 0x9E3779B9);
+    }
+
+    @Benchmark
+    public Integer get() {
+        int token = cursor;
+        cursor = token + 1 == TOKENS ? 0 : token + 1;
+        if (lookup == Lookup.STRING_KEYS) {
+            return stringMap.get(new String(buffer, offsets[token], lengths[token], StandardCharsets.US_ASCII));
+        }
+        return byteMap.get(buffer, offsets[token], lengths[token]);
+    }
+}
@@ -0,0 +1,88 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.PersistentHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикация согласованных снимков конфигурации: один поток-писатель изменяет одну пару ключ-значение и публикует
+ * новый снимок через volatile-поле, три потока-читателя выполняют get в последнем опубликованном снимке.
+ * <ul>
+ *     <li>COPY_ON_WRITE - писатель копирует CustomHashMap целиком (putAll в заранее увеличенную CustomHashMap)
+ *     и изменяет копию, то есть тратит O(n) времени и памяти на каждый снимок;</li>
+ *     <li>PERSISTENT - писатель получает новый PersistentHashMap методом with, копируя только путь к изменённой
+ *     паре, а остальные узлы разделяются с предыдущим снимком.</li>
+ * </ul>
+ * Время измеряется отдельно для писателя (update) и читателей (read).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotPublishBenchmark {
+
+    public enum Strategy {
+        COPY_ON_WRITE, PERSISTENT
+    }
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param
+    private Strategy strategy;
+
+    private Integer[] keys;
+    private volatile Map<Integer, Integer> snapshot;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        keys = new Integer[size];
+        CustomHashMap<Integer, Integer> source = new CustomHashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = i * 0x9E3779B9;
+            source.put(keys[i], i);
+        }
+        snapshot = strategy == Strategy.PERSISTENT ? PersistentHashMap.copyOf(source) : source;
+    }
+
+    /**
+     * Состояние отдельного потока: собственный генератор случайных чисел, чтобы потоки не конкурировали за него.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Group("snapshots")
+    @GroupThreads(1)
+    public Map<Integer, Integer> update(ThreadRandom state) {
+        Integer key = keys[state.random.nextInt(size)];
+        Integer value = state.random.nextInt();
+        Map<Integer, Integer> current = snapshot;
+        Map<Integer, Integer> next;
+        if (strategy == Strategy.PERSISTENT) {
+            next = ((PersistentHashMap<Integer, Integer>) current).with(key, value);
+        } else {
+            CustomHashMap<Integer, Integer> copy = new CustomHashMap<>((int) (size / 0.75f) + 1);
+            copy.putAll(current);
+            copy.put(key, value);
+            next = copy;
+        }
+        snapshot = next;
+        return next;
+    }
+
+    @Benchmark
+    @Group("snapshots")
+    @GroupThreads(3)
+    public Integer read(ThreadRandom state) {
+        return snapshot.get(keys[state.random.nextInt(size)]);
+    }
+}
@@ -0,0 +1,91 @@
+package custom.util.benchmark;
+
+import custom.util.CustomHashMap;
+import custom.util.MappedHashMap;
+import custom.util.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время до первого успешного поиска после запуска: от начала загрузки данных до возврата значения get.
+ * <ul>
+ *     <li>rebuildFromDump - чтение дампа (последовательность пар long/UTF) и заполнение CustomHashMap по одной паре
+ *     с перехэшированиями, как при прогреве из выгрузки базы данных;</li>
+ *     <li>openMapped - открытие снимка MappedHashMap и поиск непосредственно в отображённом файле;</li>
+ *     <li>loadEager - открытие снимка и перенос в CustomHashMap заранее выбранного размера одним проходом.</li>
+ * </ul>
+ * Файлы создаются перед измерением и находятся в страничном кэше ОС, то есть измеряется запуск с «тёплым» диском.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class SnapshotStartupBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private Path directory;
+    private Path dump;
+    private Path snapshot;
+    private Long probeKey;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        dump = directory.resolve("dump.bin");
+        snapshot = directory.resolve("snapshot.bin");
+        Map<Long, String> source = new CustomHashMap<>();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dump)))) {
+            output.writeInt(size);
+            for (long i = 0; i < size; i++) {
+                long key = i * 0x9E3779B97F4A7C15L;
+                String value = "value" + i;
+                output.writeLong(key);
+                output.writeUTF(value);
+                source.put(key, value);
+            }
+        }
+        MappedHashMap.save(source, snapshot, Serializer.LONG, Serializer.STRING);
+        probeKey = (size - 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(dump);
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public String rebuildFromDump() throws IOException {
+        Map<Long, String> map = new CustomHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(dump)))) {
+            for (int i = input.readInt(); i > 0; i--) {
+                map.put(input.readLong(), input.readUTF());
+            }
+        }
+        return map.get(probeKey);
+    }
+
+    @Benchmark
+    public String openMapped() throws IOException {
+        try (MappedHashMap<Long, String> map = MappedHashMap.open(snapshot, Serializer.LONG, Serializer.STRING)) {
+            return map.get(probeKey);
+        }
+    }
+
+    @Benchmark
+    public String loadEager() throws IOException {
+        try (MappedHashMap<Long, String> map = MappedHashMap.open(snapshot, Serializer.LONG, Serializer.STRING)) {
+            return map.toCustomHashMap().get(probeKey);
+        }
+    }
+}
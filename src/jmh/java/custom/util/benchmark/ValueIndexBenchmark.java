@@ -0,0 +1,104 @@
+package custom.util.benchmark;
+
+import custom.util.BidirectionalHashMap;
+import custom.util.CustomHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по значению в таблице из size пар с различными значениями:
+ * <ul>
+ *     <li>containsValue - значение присутствует с вероятностью 1/2;</li>
+ *     <li>keysForValue - поиск ключей по значению: обход entrySet для FULL_SCAN, getKeysForValue для
+ *     REVERSE_INDEX;</li>
+ *     <li>overwrite - замена значения существующего ключа, для REVERSE_INDEX включающая обновление индекса.</li>
+ * </ul>
+ * Объём памяти обратного индекса на пару оценивается по gc.alloc.rate.norm бенчмарка fill (заполнение таблицы),
+ * делённому на size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ValueIndexBenchmark {
+
+    public enum Lookup {
+        FULL_SCAN, REVERSE_INDEX
+    }
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param
+    private Lookup lookup;
+
+    private CustomHashMap<Integer, Long> map;
+    private Long[] probes;
+    private int cursor;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        map = create();
+        probes = new Long[1 << 16];
+        random = new SplittableRandom(5);
+        for (int index = 0; index < probes.length; index++) probes[index] = value(random.nextInt(2 * size));
+    }
+
+    private CustomHashMap<Integer, Long> create() {
+        CustomHashMap<Integer, Long> created = lookup == Lookup.REVERSE_INDEX
+                ? new BidirectionalHashMap<>()
+                : new CustomHashMap<>();
+        for (int key = 0; key < size; key++) created.put(key, value(key));
+        return created;
+    }
+
+    private static Long value(int key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private Long nextProbe() {
+        int index = cursor;
+        cursor = index + 1 == probes.length ? 0 : index + 1;
+        return probes[index];
+    }
+
+    @Benchmark
+    public boolean containsValue() {
+        return map.containsValue(nextProbe());
+    }
+
+    @Benchmark
+    public Collection<Integer> keysForValue() {
+        Long value = nextProbe();
+        if (lookup == Lookup.REVERSE_INDEX) return ((BidirectionalHashMap<Integer, Long>) map).getKeysForValue(value);
+        List<Integer> keys = new ArrayList<>(1);
+        for (Map.Entry<Integer, Long> entry : map.entrySet()) {
+            if (entry.getValue().equals(value)) keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public Long overwrite() {
+        int key = random.nextInt(size);
+        return map.put(key, value(key + (cursor++ & 1) * size));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Map<Integer, Long> fill() {
+        return create();
+    }
+}
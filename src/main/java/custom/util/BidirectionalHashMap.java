@@ -0,0 +1,266 @@
+package custom.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CustomHashMap с обратным индексом значение -> ключи, в которой {@link #containsValue(Object)} и поиск ключей
+ * по значению ({@link #getKeysForValue(Object)}) выполняются за O(1) в среднем вместо обхода всей хэш-таблицы.
+ * <p>
+ * Индекс - отдельная CustomHashMap, ключами которой являются значения. Значению, связанному с единственным ключом,
+ * в индексе соответствует сам ключ, а значению нескольких ключей - группа ключей (CustomHashMap с ключами группы),
+ * поэтому удаление пары из индекса не зависит от количества ключей с тем же значением. Индекс обновляется
+ * при добавлении, замене значения (в том числе через {@link Map.Entry#setValue(Object)}), удалении и очистке.
+ * Значения должны корректно реализовывать hashCode и equals и не изменяться, пока хранятся в BidirectionalHashMap.
+ * <p>
+ * Обратный индекс требует по одному узлу индекса и слоту его хэш-таблицы на каждое различное значение, то есть
+ * около 40 байт на пару ключ-значение с различными значениями, а также группу на каждое значение, связанное
+ * с несколькими ключами. Замена значения и удаление пары выполняют дополнительный поиск в индексе.
+ * Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class BidirectionalHashMap<K, V> extends CustomHashMap<K, V> {
+
+    /**
+     * Представление ключа null в индексе, значения которого не могут быть null.
+     */
+    private static final Object NULL_KEY = new Object();
+
+    private final CustomHashMap<V, Object> index;
+    private Map<V, Set<K>> inverse;
+
+    /**
+     * Конструктор, для создания объекта BidirectionalHashMap с возможностью указать изначальный размер хэш-таблицы
+     * и значение коэффициента заполнения. Хэш-таблица индекса создаётся с теми же параметрами.
+     *
+     * @param capacity размер хэш-таблицы
+     * @param load     коэффициент заполнения
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения не положителен
+     */
+    public BidirectionalHashMap(int capacity, float load) {
+        super(capacity, load);
+        this.index = new CustomHashMap<>(capacity, load);
+    }
+
+    /**
+     * Конструктор, для создания объекта BidirectionalHashMap с возможностью указать изначальный размер хэш-таблицы.
+     *
+     * @param capacity размер хэш-таблицы
+     */
+    public BidirectionalHashMap(int capacity) {
+        super(capacity);
+        this.index = new CustomHashMap<>(capacity);
+    }
+
+    /**
+     * Конструктор, для создания объекта BidirectionalHashMap по умолчанию.
+     */
+    public BidirectionalHashMap() {
+        this(INIT_BUCKET_ARRAY_CAPACITY);
+    }
+
+    /**
+     * Возвращает true, если хотя бы один ключ связан со значением value. Выполняется поиском в обратном индексе.
+     *
+     * @param value значение, наличие которого проверяется
+     * @return true - если значение содержится в BidirectionalHashMap
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        return index.containsKey(value);
+    }
+
+    /**
+     * Возвращает ключи, связанные со значением value. Результат - неизменяемая копия, не отражающая последующие
+     * изменения BidirectionalHashMap; время её создания пропорционально количеству найденных ключей.
+     *
+     * @param value значение
+     * @return ключи, связанные со значением, или пустое множество
+     */
+    public Set<K> getKeysForValue(V value) {
+        return keysOf(index.get(value));
+    }
+
+    /**
+     * Возвращает неизменяемое представление обратного индекса: значения BidirectionalHashMap, каждому из которых
+     * сопоставлено множество связанных с ним ключей (копия, как у {@link #getKeysForValue(Object)}). Размер
+     * представления - количество различных значений. Изменения BidirectionalHashMap отражаются в представлении.
+     *
+     * @return обратное представление
+     */
+    public Map<V, Set<K>> inverse() {
+        Map<V, Set<K>> view = inverse;
+        if (view == null) inverse = view = new Inverse();
+        return view;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        index.clear();
+    }
+
+    /*
+     * Узлы. Классы узлов внутренние, чтобы замена значения через Map.Entry#setValue обновляла индекс: ссылка
+     * на BidirectionalHashMap размещается в выравнивании узла и не увеличивает его.
+     */
+
+    @Override
+    Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        addToIndex(key, value);
+        return new IndexedNode(hash, key, value, next);
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        return new IndexedNode(node.hash, node.key, node.value, next);
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+        addToIndex(key, value);
+        return new IndexedTreeNode(hash, key, value, next);
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        return new IndexedTreeNode(node.hash, node.key, node.value, next);
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        removeFromIndex(node.key, node.value);
+    }
+
+    private void reindex(K key, V oldValue, V newValue) {
+        if (oldValue.equals(newValue)) return;
+        removeFromIndex(key, oldValue);
+        addToIndex(key, newValue);
+    }
+
+    private void addToIndex(K key, V value) {
+        Object indexed = key == null ? NULL_KEY : key;
+        Object current = index.putIfAbsent(value, indexed);
+        if (current instanceof KeyGroup group) group.put(indexed, Boolean.TRUE);
+        else if (current != null) {
+            KeyGroup group = new KeyGroup();
+            group.put(current, Boolean.TRUE);
+            group.put(indexed, Boolean.TRUE);
+            index.put(value, group);
+        }
+    }
+
+    private void removeFromIndex(K key, V value) {
+        Object indexed = key == null ? NULL_KEY : key;
+        Object current = index.get(value);
+        if (current instanceof KeyGroup group) {
+            group.remove(indexed);
+            if (group.size() == 1) index.put(value, group.keySet().iterator().next());
+        } else if (current != null) index.remove(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<K> keysOf(Object indexed) {
+        if (indexed == null) return Collections.emptySet();
+        if (!(indexed instanceof KeyGroup group)) {
+            return Collections.singleton(indexed == NULL_KEY ? null : (K) indexed);
+        }
+        CustomHashMap<K, Boolean> keys = new CustomHashMap<>();
+        keys.presize(group.size());
+        for (Object key : group.keySet()) keys.put(key == NULL_KEY ? null : (K) key, Boolean.TRUE);
+        return Collections.unmodifiableSet(keys.keySet());
+    }
+
+    /**
+     * Группа ключей, связанных с одним значением.
+     */
+    private static final class KeyGroup extends CustomHashMap<Object, Boolean> {
+        KeyGroup() {
+            super(4);
+        }
+    }
+
+    private final class IndexedNode extends Node<K, V> {
+        IndexedNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = super.setValue(value);
+            reindex(key, oldValue, value);
+            return oldValue;
+        }
+    }
+
+    private final class IndexedTreeNode extends TreeNode<K, V> {
+        IndexedTreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = super.setValue(value);
+            reindex(key, oldValue, value);
+            return oldValue;
+        }
+    }
+
+    private final class Inverse extends AbstractMap<V, Set<K>> {
+        private Set<Map.Entry<V, Set<K>>> entrySet;
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+
+        @Override
+        public boolean containsKey(Object value) {
+            return index.containsKey(value);
+        }
+
+        @Override
+        public Set<K> get(Object value) {
+            Object indexed = index.get(value);
+            return indexed == null ? null : keysOf(indexed);
+        }
+
+        @Override
+        public Set<Map.Entry<V, Set<K>>> entrySet() {
+            Set<Map.Entry<V, Set<K>>> view = entrySet;
+            if (view == null) {
+                entrySet = view = new AbstractSet<>() {
+                    @Override
+                    public int size() {
+                        return index.size();
+                    }
+
+                    @Override
+                    public Iterator<Map.Entry<V, Set<K>>> iterator() {
+                        Iterator<Map.Entry<V, Object>> entries = index.entrySet().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return entries.hasNext();
+                            }
+
+                            @Override
+                            public Map.Entry<V, Set<K>> next() {
+                                Map.Entry<V, Object> entry = entries.next();
+                                return new SimpleImmutableEntry<>(entry.getKey(), keysOf(entry.getValue()));
+                            }
+                        };
+                    }
+                };
+            }
+            return view;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package custom.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Вспомогательные операции над ByteBuffer для ассоциативных массивов, хранящих пары ключ-значение
+ * в сериализованном виде ({@link OffHeapHashMap}, {@link MappedHashMap}).
+ *
+ * @author Владислав Кильчевский
+ */
+final class Buffers {
+
+    /**
+     * Длина, до которой байты сравниваются в цикле без создания объектов.
+     */
+    private static final int SHORT_LENGTH = 32;
+
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private Buffers() {
+    }
+
+    /**
+     * Сериализует объект в буфер, начиная с позиции from. Если места недостаточно, создаёт буфер
+     * вдвое большего размера, копирует в него первые from байт и повторяет запись.
+     *
+     * @return буфер, содержащий сериализованный объект; позиция указывает на его конец
+     */
+    static <T> ByteBuffer serialize(Serializer<T> serializer, T object, ByteBuffer buffer, int from) {
+        while (true) {
+            buffer.clear().position(from);
+            try {
+                serializer.write(object, buffer);
+                return buffer;
+            } catch (BufferOverflowException e) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() << 1);
+                larger.put(0, buffer, 0, from);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Сравнивает length байт двух буферов, начиная с указанных индексов. Короткие последовательности
+     * сравниваются побайтно, длинные - векторизованным {@link ByteBuffer#mismatch(ByteBuffer)}.
+     */
+    static boolean equalBytes(ByteBuffer first, int firstIndex, ByteBuffer second, int secondIndex, int length) {
+        if (length > SHORT_LENGTH) {
+            return first.slice(firstIndex, length).mismatch(second.slice(secondIndex, length)) < 0;
+        }
+        for (int i = 0; i < length; i++) {
+            if (first.get(firstIndex + i) != second.get(secondIndex + i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Немедленно освобождает память direct или отображённого в память буфера. Последующее обращение
+     * к буферу недопустимо.
+     */
+    static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || !buffer.isDirect()) return;
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable ignored) {
+            // память будет освобождена сборщиком мусора вместе с объектом ByteBuffer
+        }
+    }
+
+    /**
+     * Находит Unsafe.invokeCleaner (модуль jdk.unsupported), позволяющий освободить память direct ByteBuffer
+     * немедленно, не дожидаясь сборки мусора. Если метод недоступен, память освобождается сборщиком мусора.
+     */
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
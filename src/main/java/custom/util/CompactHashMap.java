@@ -0,0 +1,664 @@
+package custom.util;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Реализация интерфейса Map с компактным размещением пар ключ-значение в порядке добавления. Данная реализация Map
+ * не потокобезопасна.
+ * <p>
+ * Хэш-коды, ключи и значения хранятся в трёх плотных параллельных массивах в порядке добавления пар, а поиск
+ * выполняется по отдельному разреженному индексу - хэш-таблице с открытой адресацией и линейным пробированием,
+ * ячейки которой содержат номера пар в плотных массивах. Пока индекс не больше 2^16 ячеек, он хранится
+ * в массиве char (2 байта на ячейку), иначе - в массиве int. Индекс заполнен не более чем на 2/3, поэтому на пару
+ * приходится 12 байт плотных массивов и 3-6 байт индекса вместо узла и ячейки хэш-таблицы {@link CustomHashMap}.
+ * <p>
+ * Удаление оставляет в плотных массивах дыру (значение null), а ячейка индекса продолжает ссылаться на неё, чтобы
+ * не прерывать пробирование. Когда плотные массивы заполнены, они перестраиваются: живые пары переносятся без дыр
+ * в прежнем порядке, а размер выбирается по количеству живых пар, поэтому после массового удаления перестройка
+ * может уменьшить массивы, но не меньше размера, заданного при создании.
+ * <p>
+ * Порядок обхода итераторами и {@link #forEach(BiConsumer)} - порядок добавления ключей; замена значения
+ * существующего ключа порядок не меняет, а удалённый и снова добавленный ключ переходит в конец. Обход - это
+ * последовательный просмотр массивов, не зависящий от перестроек. Семантика совпадает с {@link CustomHashMap}:
+ * допускается один ключ null, значения null не допускаются.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class CompactHashMap<K, V> implements Map<K, V> {
+
+    /**
+     * Количество пар ключ-значение, вмещаемое без перестройки, по умолчанию.
+     */
+    public static final int INIT_CAPACITY = 16;
+
+    /**
+     * Максимальный размер индекса.
+     */
+    private static final int MAXIMUM_INDEX_LENGTH = 1 << 30;
+
+    /**
+     * Наибольший размер индекса, хранящегося в массиве char: номера пар + 1 не превышают 2 / 3 * 2^16 < 2^16.
+     */
+    private static final int MAXIMUM_SMALL_INDEX_LENGTH = 1 << 16;
+
+    /**
+     * Хэш-коды ключей плотных массивов. Используются для перестройки индекса без повторного вычисления
+     * хэш-кодов и сравниваются перед вызовом equals.
+     */
+    private int[] hashes;
+    private Object[] keys;
+
+    /**
+     * Значения плотных массивов. Так как значения null не допускаются, null означает дыру на месте удалённой пары.
+     */
+    private Object[] values;
+
+    /**
+     * Индекс в виде массива char или null, если используется {@link #largeIndex}. Ячейка содержит номер пары
+     * в плотных массивах + 1; 0 - пустая ячейка.
+     */
+    private char[] smallIndex;
+    private int[] largeIndex;
+
+    /**
+     * Сдвиг, с помощью которого из умноженного на золотое сечение хэш-кода извлекается исходная ячейка индекса.
+     */
+    private int shift;
+
+    /**
+     * Количество занятых позиций плотных массивов, включая дыры. Новая пара записывается в позицию used.
+     */
+    private int used;
+    private int size;
+    private int modCount;
+
+    /**
+     * Размер плотных массивов, заданный при создании. Перестройка не делает массивы меньше.
+     */
+    private final int minimumCapacity;
+
+    private Set<K> keySet;
+    private Collection<V> valuesView;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Конструктор, для создания объекта CompactHashMap, вмещающего указанное количество пар ключ-значение
+     * без перестройки.
+     *
+     * @param capacity количество пар ключ-значение
+     * @throws IllegalArgumentException если количество пар отрицательно или больше максимального
+     */
+    public CompactHashMap(int capacity) {
+        if (capacity < 0 || capacity > capacityFor(MAXIMUM_INDEX_LENGTH)) {
+            throw new IllegalArgumentException("Недопустимый размер: " + capacity);
+        }
+        allocate(indexLengthFor(capacity));
+        this.minimumCapacity = values.length;
+    }
+
+    /**
+     * Конструктор, для создания объекта CompactHashMap по умолчанию.
+     */
+    public CompactHashMap() {
+        this(INIT_CAPACITY);
+    }
+
+    /**
+     * Возвращает наименьший размер индекса, при котором плотные массивы вмещают capacity пар.
+     */
+    private static int indexLengthFor(int capacity) {
+        return Math.max(4, CustomHashMap.tableSizeFor((int) Math.min(MAXIMUM_INDEX_LENGTH, capacity * 3L / 2 + 1)));
+    }
+
+    /**
+     * Возвращает размер плотных массивов для индекса указанного размера (2/3 индекса).
+     */
+    private static int capacityFor(int indexLength) {
+        return (int) (indexLength * 2L / 3);
+    }
+
+    private void allocate(int indexLength) {
+        int capacity = capacityFor(indexLength);
+        hashes = new int[capacity];
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        if (indexLength <= MAXIMUM_SMALL_INDEX_LENGTH) {
+            smallIndex = new char[indexLength];
+            largeIndex = null;
+        } else {
+            smallIndex = null;
+            largeIndex = new int[indexLength];
+        }
+        shift = Integer.numberOfLeadingZeros(indexLength - 1);
+        used = 0;
+    }
+
+    /**
+     * Определяет исходную ячейку индекса для хэш-кода (фибоначчиево хэширование, как в {@link RobinHoodHashMap}).
+     */
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    private int indexMask() {
+        return (smallIndex != null ? smallIndex.length : largeIndex.length) - 1;
+    }
+
+    /**
+     * Выполняет поиск пары с указанным ключом.
+     *
+     * @param key ключ
+     * @return номер пары в плотных массивах или -1, если ключ отсутствует
+     */
+    private int findEntry(Object key) {
+        return findEntry(key, CustomHashMap.hash(key));
+    }
+
+    private int findEntry(Object key, int hash) {
+        char[] small = smallIndex;
+        int[] large = largeIndex;
+        int[] hs = hashes;
+        Object[] ks = keys, vs = values;
+        int mask = indexMask();
+        for (int slot = home(hash); ; slot = (slot + 1) & mask) {
+            int entry = (small != null ? small[slot] : large[slot]) - 1;
+            if (entry < 0) return -1;
+            if (hs[entry] == hash && vs[entry] != null && Objects.equals(ks[entry], key)) return entry;
+        }
+    }
+
+    /**
+     * Записывает номер пары в первую свободную ячейку индекса, начиная с исходной.
+     */
+    private void indexEntry(int hash, int entry) {
+        int mask = indexMask();
+        int slot = home(hash);
+        if (smallIndex != null) {
+            while (smallIndex[slot] != 0) slot = (slot + 1) & mask;
+            smallIndex[slot] = (char) (entry + 1);
+        } else {
+            while (largeIndex[slot] != 0) slot = (slot + 1) & mask;
+            largeIndex[slot] = entry + 1;
+        }
+    }
+
+    /**
+     * Переносит живые пары в новые плотные массивы без дыр, сохраняя их порядок, и заново строит индекс
+     * по сохранённым хэш-кодам. Размер выбирается так, чтобы после перестройки оставалось место не меньше
+     * чем для size / 2 новых пар: без дыр массивы удваиваются, а если дыр не меньше половины, размер сохраняется.
+     */
+    private void rebuild() {
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys, oldValues = values;
+        int oldUsed = used;
+        long needed = Math.max(minimumCapacity, size + size / 2 + 1L);
+        if (needed > capacityFor(MAXIMUM_INDEX_LENGTH)) {
+            if (size == capacityFor(MAXIMUM_INDEX_LENGTH)) {
+                throw new IllegalStateException("Превышен максимальный размер хэш-таблицы");
+            }
+            needed = capacityFor(MAXIMUM_INDEX_LENGTH);
+        }
+        allocate(indexLengthFor((int) needed));
+        int entry = 0;
+        for (int position = 0; position < oldUsed; position++) {
+            if (oldValues[position] == null) continue;
+            hashes[entry] = oldHashes[position];
+            keys[entry] = oldKeys[position];
+            values[entry] = oldValues[position];
+            indexEntry(oldHashes[position], entry++);
+        }
+        used = entry;
+    }
+
+    /**
+     * Возвращает размер плотных массивов - количество пар, включая дыры, вмещаемое без перестройки.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если CompactHashMap не содержит пар ключ-значение.
+     *
+     * @return true, если CompactHashMap не содержит пар ключ-значение
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает true, если CompactHashMap содержит пару ключ-значение с указанным ключом. Для key допустимо null.
+     *
+     * @param key ключ, наличие которого проверяется
+     * @return true - если ключ содержится в CompactHashMap. В обратно случае false
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return findEntry(key) >= 0;
+    }
+
+    /**
+     * Возвращает true, если CompactHashMap содержит пару ключ-значение с указанным значением.
+     * Выполняет последовательный просмотр плотного массива значений.
+     *
+     * @param value значение, наличие которого проверяется
+     * @return true - если значение содержится в CompactHashMap. В обратно случае false
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) return false;
+        Object[] vs = values;
+        for (int entry = 0, end = used; entry < end; entry++) {
+            if (vs[entry] != null && vs[entry].equals(value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int entry = findEntry(key);
+        return entry < 0 ? null : (V) values[entry];
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение в конец порядка обхода или перезапись значения существующей пары
+     * без изменения её позиции.
+     *
+     * @param key   ключ, который должен быть ассоциирован с указанным значением
+     * @param value значение, которое должно быть ассоциировано с указанным ключом
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или null
+     * @throws NullPointerException если value равно null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        int hash = CustomHashMap.hash(key);
+        int entry = findEntry(key, hash);
+        if (entry >= 0) {
+            V old = (V) values[entry];
+            values[entry] = value;
+            return old;
+        }
+        if (used == values.length) rebuild();
+        entry = used++;
+        hashes[entry] = hash;
+        keys[entry] = key;
+        values[entry] = value;
+        indexEntry(hash, entry);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует. На месте пары остаётся
+     * дыра, которая устраняется при следующей перестройке.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int entry = findEntry(key);
+        if (entry < 0) return null;
+        V old = (V) values[entry];
+        removeEntry(entry);
+        return old;
+    }
+
+    private void removeEntry(int entry) {
+        keys[entry] = null;
+        values[entry] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Выполняет добавление всех пар ключ-значение указанного ассоциативного массива.
+     *
+     * @param map ассоциативный массив, пары ключ-значения которого долдны быть добавлены
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (map != null && map.size() > 0) {
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Удаляет все пары ключ-значение. Размер массивов сохраняется.
+     */
+    @Override
+    public void clear() {
+        if (used > 0) {
+            modCount++;
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(values, 0, used, null);
+            if (smallIndex != null) Arrays.fill(smallIndex, (char) 0);
+            else Arrays.fill(largeIndex, 0);
+            used = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Выполняет действие для каждой пары ключ-значение в порядке добавления последовательным просмотром массивов,
+     * без создания итератора и объектов пар.
+     *
+     * @param action действие
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        Object[] ks = keys, vs = values;
+        for (int entry = 0, end = used; entry < end; entry++) {
+            if (vs[entry] != null) action.accept((K) ks[entry], (V) vs[entry]);
+        }
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Заменяет значение каждой пары результатом функции, вызываемой в порядке добавления.
+     *
+     * @param function функция, возвращающая новое значение, не null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        int expectedModCount = modCount;
+        Object[] ks = keys, vs = values;
+        for (int entry = 0, end = used; entry < end; entry++) {
+            if (vs[entry] == null) continue;
+            V value = function.apply((K) ks[entry], (V) vs[entry]);
+            if (value == null) throw new NullPointerException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            vs[entry] = value;
+        }
+    }
+
+    /**
+     * Возвращает множество ключей, являющееся представлением CompactHashMap.
+     *
+     * @return Set ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySet;
+        return view != null ? view : (keySet = new KeySet());
+    }
+
+    /**
+     * Возвращает коллекцию значений, являющуюся представлением CompactHashMap.
+     *
+     * @return Collection значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        return view != null ? view : (valuesView = new Values());
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся представлением CompactHashMap.
+     * {@link Map.Entry#setValue(Object)} записывает значение в CompactHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> view = entrySet;
+        return view != null ? view : (entrySet = new EntrySet());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object == this) return true;
+        if (!(object instanceof Map<?, ?> other) || other.size() != size) return false;
+        for (int entry = 0; entry < used; entry++) {
+            if (values[entry] != null && !values[entry].equals(other.get(keys[entry]))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int entry = 0; entry < used; entry++) {
+            if (values[entry] != null) hashCode += Objects.hashCode(keys[entry]) ^ values[entry].hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int entry = 0; entry < used; entry++) {
+            if (values[entry] != null) joiner.add(keys[entry] + "=" + values[entry]);
+        }
+        return joiner.toString();
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsKey(object);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            int entry = findEntry(key);
+            if (entry < 0) return false;
+            removeEntry(entry);
+            return true;
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsValue(object);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+            int found = findEntry(entry.getKey());
+            return found >= 0 && values[found].equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!contains(object)) return false;
+            removeEntry(findEntry(((Map.Entry<?, ?>) object).getKey()));
+            return true;
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором entrySet(). Пара запоминает свою позицию в плотных массивах;
+     * если перестройка её переместила, setValue находит пару по ключу.
+     */
+    private final class DenseEntry implements Map.Entry<K, V> {
+        private final int position;
+        private final K key;
+        private V value;
+
+        DenseEntry(int position, K key, V value) {
+            this.position = position;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            int entry = position < used && values[position] != null && keys[position] == key
+                    ? position
+                    : findEntry(key);
+            if (entry < 0) throw new IllegalStateException("Пара ключ-значение удалена");
+            V old = this.value;
+            values[entry] = this.value = value;
+            return old;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(key, entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Итератор, просматривающий плотные массивы по порядку и пропускающий дыры. Удаление через итератор
+     * оставляет дыру и не перемещает пары.
+     */
+    private abstract class DenseIterator {
+        private int position;
+        private int remaining = size;
+        private int expectedModCount = modCount;
+        int lastEntry = -1;
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final int advance() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            Object[] vs = values;
+            while (vs[position] == null) position++;
+            return lastEntry = position++;
+        }
+
+        public final void remove() {
+            if (lastEntry < 0) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            removeEntry(lastEntry);
+            lastEntry = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class KeyIterator extends DenseIterator implements Iterator<K> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            return (K) keys[advance()];
+        }
+    }
+
+    private final class ValueIterator extends DenseIterator implements Iterator<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V) values[advance()];
+        }
+    }
+
+    private final class EntryIterator extends DenseIterator implements Iterator<Map.Entry<K, V>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            int entry = advance();
+            return new DenseEntry(entry, (K) keys[entry], (V) values[entry]);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package custom.util;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Ограниченный по размеру кэш на основе CustomHashMap. При превышении максимального количества (или суммарного
+ * веса) пар ключ-значение кэш удаляет пары, выбранные политикой вытеснения, вместо полной очистки.
+ * <p>
+ * Узлы хэш-таблицы дополнительно связаны в двусвязные списки ({@link CustomHashMap.LinkedNode}), упорядоченные
+ * по времени последнего обращения, поэтому обращение к паре и вытеснение выполняются за O(1).
+ * Поддерживаются политики:
+ * <ul>
+ *     <li>{@link EvictionPolicy#LRU} - вытесняется пара, к которой дольше всего не было обращений;</li>
+ *     <li>{@link EvictionPolicy#W_TINY_LFU} - новые пары попадают в небольшое LRU-окно (1% максимального веса),
+ *     а вытесненные из окна допускаются в основную область, только если частота обращений к ним, оцененная
+ *     {@link FrequencySketch}, выше, чем у кандидата на вытеснение из основной области. Основная область
+ *     разделена на испытательную очередь и защищённую очередь (80% основной области) для пар, к которым
+ *     обращались повторно. Такая политика устойчива к однократным проходам по большому числу ключей.</li>
+ * </ul>
+ * Обращением считаются get, getOrDefault, getAll, put, putIfAbsent и методы compute и merge. Методы containsKey,
+ * итераторы и представления порядок вытеснения не меняют. Вес пары вычисляется при добавлении и при замене
+ * значения методами put, compute и merge; замена значения через
+ * {@link java.util.Map.Entry#setValue(Object)} вес не пересчитывает. Порядок обхода итераторами совпадает с
+ * порядком CustomHashMap, а не с порядком вытеснения. Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class CustomCache<K, V> extends CustomHashMap<K, V> {
+
+    /**
+     * Политика вытеснения пар ключ-значение.
+     */
+    public enum EvictionPolicy {
+        LRU,
+        W_TINY_LFU
+    }
+
+    /*
+     * Очереди узлов. При политике LRU все узлы находятся в очереди WINDOW.
+     */
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final BiConsumer<? super K, ? super V> evictionListener;
+
+    /**
+     * Оценка частоты обращений к ключам, или null при политике LRU.
+     */
+    private final FrequencySketch sketch;
+
+    private final LinkedNode<K, V>[] heads;
+    private final LinkedNode<K, V>[] tails;
+    private final long[] queueWeights = new long[3];
+    private long evictionCount;
+
+    /**
+     * Конструктор, для создания кэша с политикой LRU, хранящего не более указанного количества пар ключ-значение.
+     *
+     * @param maximumSize максимальное количество пар ключ-значение
+     * @throws IllegalArgumentException если maximumSize отрицателен
+     */
+    public CustomCache(long maximumSize) {
+        this(maximumSize, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Конструктор, для создания кэша с указанной политикой вытеснения, хранящего не более указанного количества
+     * пар ключ-значение.
+     *
+     * @param maximumSize максимальное количество пар ключ-значение
+     * @param policy      политика вытеснения
+     * @throws IllegalArgumentException если maximumSize отрицателен
+     */
+    public CustomCache(long maximumSize, EvictionPolicy policy) {
+        this(maximumSize, policy, null, null);
+    }
+
+    /**
+     * Конструктор, для создания кэша, ограниченного суммарным весом пар ключ-значение. Вес пары вычисляется
+     * функцией weigher; если она не указана, вес каждой пары равен 1. Слушатель вытеснения вызывается
+     * для каждой вытесненной пары после её удаления; явное удаление методом remove слушатель не вызывает.
+     * Слушатель не должен изменять кэш.
+     *
+     * @param maximumWeight    максимальный суммарный вес пар ключ-значение
+     * @param policy           политика вытеснения
+     * @param weigher          функция вычисления неотрицательного веса пары или null
+     * @param evictionListener слушатель вытеснения или null
+     * @throws IllegalArgumentException если maximumWeight отрицателен
+     */
+    public CustomCache(long maximumWeight, EvictionPolicy policy, ToIntBiFunction<? super K, ? super V> weigher,
+                       BiConsumer<? super K, ? super V> evictionListener) {
+        if (maximumWeight < 0) throw new IllegalArgumentException("Недопустимый размер кэша: " + maximumWeight);
+        Objects.requireNonNull(policy);
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        LinkedNode<K, V>[] heads = (LinkedNode<K, V>[]) new LinkedNode[3];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        LinkedNode<K, V>[] tails = (LinkedNode<K, V>[]) new LinkedNode[3];
+        this.heads = heads;
+        this.tails = tails;
+        if (policy == EvictionPolicy.LRU) {
+            this.windowMaximum = maximumWeight;
+            this.protectedMaximum = 0;
+            this.sketch = null;
+        } else {
+            this.windowMaximum = maximumWeight == 0 ? 0 : Math.max(1, maximumWeight / 100);
+            long mainMaximum = maximumWeight - windowMaximum;
+            this.protectedMaximum = mainMaximum - mainMaximum / 5;
+            this.sketch = new FrequencySketch(maximumWeight);
+        }
+    }
+
+    /**
+     * Возвращает суммарный вес хранящихся пар ключ-значение. Если функция вычисления веса не указана,
+     * совпадает с {@link #size()}.
+     *
+     * @return суммарный вес пар ключ-значение
+     */
+    public long weightedSize() {
+        return queueWeights[WINDOW] + queueWeights[PROBATION] + queueWeights[PROTECTED];
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение, вытесненных с момента создания кэша.
+     *
+     * @return количество вытесненных пар ключ-значение
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом, и отмечает обращение к паре ключ-значение. Промах также
+     * учитывается в оценке частоты ключа, чтобы часто запрашиваемый ключ был допущен в кэш после добавления.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null, если ключ отсутствует
+     */
+    @Override
+    public V get(Object key) {
+        V value = super.get(key);
+        if (value == null && sketch != null) sketch.increment(hash(key));
+        return value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = super.getOrDefault(key, null);
+        if (value != null) return value;
+        if (sketch != null) sketch.increment(hash(key));
+        return defaultValue;
+    }
+
+    /**
+     * Хэш-таблица кэша, ограниченного количеством пар ключ-значение, не увеличивается заранее сверх
+     * максимального количества; кэш, ограниченный весом, не увеличивает её заранее.
+     */
+    @Override
+    void presize(long expectedSize) {
+        if (weigher == null) super.presize(Math.min(expectedSize, maximum));
+    }
+
+    /**
+     * Удаляет все пары ключ-значение. Накопленная оценка частоты обращений к ключам сохраняется.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        for (int queue = 0; queue < 3; queue++) {
+            heads[queue] = tails[queue] = null;
+            queueWeights[queue] = 0;
+        }
+    }
+
+    /*
+     * Узлы. Вес и очередь хранятся в классах-наследниках узлов CustomHashMap, поэтому узлы CustomHashMap
+     * и других наследников не увеличиваются.
+     */
+
+    @Override
+    Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        CacheNode<K, V> node = new CacheNode<>(hash, key, value, next);
+        onCreated(node);
+        return node;
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        CacheNode<K, V> replacement = new CacheNode<>(node.hash, node.key, node.value, next);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+        CacheTreeNode<K, V> node = new CacheTreeNode<>(hash, key, value, next);
+        onCreated(node);
+        return node;
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        CacheTreeNode<K, V> replacement = new CacheTreeNode<>(node.hash, node.key, node.value, next);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    private static final class CacheNode<K, V> extends LinkedNode<K, V> {
+        int weight;
+        byte queue;
+
+        CacheNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    private static final class CacheTreeNode<K, V> extends TreeNode<K, V> {
+        int weight;
+        byte queue;
+
+        CacheTreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    private static int weight(LinkedNode<?, ?> node) {
+        return node instanceof CacheTreeNode<?, ?> treeNode ? treeNode.weight : ((CacheNode<?, ?>) node).weight;
+    }
+
+    private static void setWeight(LinkedNode<?, ?> node, int weight) {
+        if (node instanceof CacheTreeNode<?, ?> treeNode) treeNode.weight = weight;
+        else ((CacheNode<?, ?>) node).weight = weight;
+    }
+
+    private static byte queue(LinkedNode<?, ?> node) {
+        return node instanceof CacheTreeNode<?, ?> treeNode ? treeNode.queue : ((CacheNode<?, ?>) node).queue;
+    }
+
+    private static void setQueue(LinkedNode<?, ?> node, byte queue) {
+        if (node instanceof CacheTreeNode<?, ?> treeNode) treeNode.queue = queue;
+        else ((CacheNode<?, ?>) node).queue = queue;
+    }
+
+    @Override
+    void afterNodeAccess(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        if (sketch != null) sketch.increment(linked.hash);
+        byte queue = queue(linked);
+        if (queue == PROBATION) {
+            unlink(linked);
+            linkLast(linked, PROTECTED);
+            while (queueWeights[PROTECTED] > protectedMaximum) {
+                LinkedNode<K, V> demoted = heads[PROTECTED];
+                unlink(demoted);
+                linkLast(demoted, PROBATION);
+            }
+        } else if (tails[queue] != linked) {
+            unlink(linked);
+            linkLast(linked, queue);
+        }
+    }
+
+    @Override
+    void afterNodeUpdate(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        if (weigher != null) {
+            int weight = weigh(linked.key, linked.value);
+            queueWeights[queue(linked)] += weight - weight(linked);
+            setWeight(linked, weight);
+        }
+        afterNodeAccess(linked);
+        evict(linked);
+    }
+
+    @Override
+    void afterNodeInsertion() {
+        evict(tails[WINDOW]);
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        unlink((LinkedNode<K, V>) node);
+    }
+
+    /**
+     * Вычисляет вес нового узла, учитывает обращение к его ключу и добавляет узел в конец окна.
+     */
+    private void onCreated(LinkedNode<K, V> node) {
+        setWeight(node, weigh(node.key, node.value));
+        if (sketch != null) sketch.increment(node.hash);
+        linkLast(node, WINDOW);
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null) return 1;
+        int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) throw new IllegalArgumentException("Недопустимый вес пары ключ-значение: " + weight);
+        return weight;
+    }
+
+    /**
+     * Вытесняет пары ключ-значение, пока суммарный вес превышает максимальный. Добавленная или изменённая пара,
+     * вес которой больше максимального, вытесняется первой, чтобы не вытеснять ради неё весь кэш.
+     * При политике W-TinyLFU затем обрабатываются пары, вытесненные из окна (см. {@link #admit(LinkedNode)}).
+     *
+     * @param recent добавленный или изменённый узел
+     */
+    private void evict(LinkedNode<K, V> recent) {
+        if (recent != null && weight(recent) > maximum) evictNode(recent);
+        if (sketch != null) {
+            while (queueWeights[WINDOW] > windowMaximum) {
+                LinkedNode<K, V> candidate = heads[WINDOW];
+                if (admit(candidate)) {
+                    unlink(candidate);
+                    linkLast(candidate, PROBATION);
+                } else evictNode(candidate);
+            }
+        }
+        while (weightedSize() > maximum) {
+            LinkedNode<K, V> victim = heads[PROBATION];
+            if (victim == null) victim = heads[PROTECTED];
+            if (victim == null) victim = heads[WINDOW];
+            evictNode(victim);
+        }
+    }
+
+    /**
+     * Решает, допускается ли пара, вытесненная из окна, в основную область. Если для кандидата в основной области
+     * нет места, он сравнивается с парами из начала испытательной (или защищённой) очереди: пока частота кандидата
+     * выше, они вытесняются, иначе кандидат отклоняется.
+     *
+     * @param candidate первый узел окна
+     * @return true, если кандидат должен быть перенесён в основную область
+     */
+    private boolean admit(LinkedNode<K, V> candidate) {
+        long mainMaximum = maximum - windowMaximum;
+        int candidateWeight = weight(candidate);
+        if (candidateWeight > mainMaximum) return false;
+        int candidateFrequency = sketch.frequency(candidate.hash);
+        while (queueWeights[PROBATION] + queueWeights[PROTECTED] + candidateWeight > mainMaximum) {
+            LinkedNode<K, V> victim = heads[PROBATION];
+            if (victim == null) victim = heads[PROTECTED];
+            if (sketch.frequency(victim.hash) >= candidateFrequency) return false;
+            evictNode(victim);
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет узел из хэш-таблицы и уведомляет слушателя вытеснения.
+     */
+    private void evictNode(LinkedNode<K, V> node) {
+        K key = node.key;
+        V value = node.value;
+        remove(key);
+        evictionCount++;
+        if (evictionListener != null) evictionListener.accept(key, value);
+    }
+
+    private void linkLast(LinkedNode<K, V> node, byte queue) {
+        LinkedNode<K, V> last = tails[queue];
+        setQueue(node, queue);
+        node.before = last;
+        node.after = null;
+        if (last == null) heads[queue] = node;
+        else last.after = node;
+        tails[queue] = node;
+        queueWeights[queue] += weight(node);
+    }
+
+    private void unlink(LinkedNode<K, V> node) {
+        byte queue = queue(node);
+        LinkedNode<K, V> before = node.before, after = node.after;
+        if (before == null) heads[queue] = after;
+        else before.after = after;
+        if (after == null) tails[queue] = before;
+        else after.before = before;
+        node.before = node.after = null;
+        queueWeights[queue] -= weight(node);
+    }
+
+    /**
+     * Ставит узел-замену (при преобразовании бакета в дерево и обратно) на место исходного узла в его очереди.
+     */
+    private void transferLinks(LinkedNode<K, V> source, LinkedNode<K, V> target) {
+        LinkedNode<K, V> before = target.before = source.before;
+        LinkedNode<K, V> after = target.after = source.after;
+        byte queue = queue(source);
+        setQueue(target, queue);
+        setWeight(target, weight(source));
+        if (before == null) heads[queue] = target;
+        else before.after = target;
+        if (after == null) tails[queue] = target;
+        else after.before = target;
+    }
+
+    /**
+     * Проверяет согласованность очередей с хэш-таблицей: каждый узел находится ровно в одной очереди, а веса
+     * очередей совпадают с суммой весов узлов. Используется в тестах.
+     *
+     * @return true, если очереди согласованы
+     */
+    boolean checkQueues() {
+        int count = 0;
+        for (byte queue = 0; queue < 3; queue++) {
+            long weight = 0;
+            LinkedNode<K, V> previous = null;
+            for (LinkedNode<K, V> node = heads[queue]; node != null; previous = node, node = node.after) {
+                if (queue(node) != queue || node.before != previous || !containsKey(node.key)) return false;
+                weight += weight(node);
+                count++;
+            }
+            if (tails[queue] != previous || queueWeights[queue] != weight) return false;
+        }
+        return count == size();
+    }
+}
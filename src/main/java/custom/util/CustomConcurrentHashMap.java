@@ -0,0 +1,1164 @@
+package custom.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасная реализация интерфейса ConcurrentMap, основанная на хэш-таблице с цепочками, как и
+ * {@link CustomHashMap}.
+ * <ul>
+ *     <li>Операции чтения (get, containsKey, итерация) не используют блокировок: бакеты читаются через
+ *     {@link VarHandle} с семантикой volatile, а поля value и next узлов объявлены volatile.</li>
+ *     <li>Операции изменения блокируют только первый узел изменяемого бакета, поэтому запись в разные бакеты
+ *     выполняется параллельно. Добавление в пустой бакет выполняется без блокировки через CAS.</li>
+ *     <li>Количество пар ключ-значение хранится в {@link LongAdder}, что исключает конкуренцию за один счётчик.</li>
+ *     <li>Перехэширование выполняется совместно: потоки, обратившиеся к бакету, уже перенесённому в новую
+ *     хэш-таблицу (помеченному {@link ForwardingNode}), присоединяются к переносу и обрабатывают свои диапазоны
+ *     бакетов. Операции чтения во время переноса переходят в новую хэш-таблицу по ForwardingNode.</li>
+ *     <li>putIfAbsent, computeIfAbsent, compute, merge, replace и remove(key, value) атомарны.</li>
+ * </ul>
+ * Итераторы представлений слабо согласованы: не выбрасывают ConcurrentModificationException и отражают
+ * состояние на момент создания или более позднее. В отличие от CustomHashMap, ключи и значения null не допускаются,
+ * так как для конкурентного доступа null не позволяет отличить отсутствие пары от её значения.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class CustomConcurrentHashMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_BUCKET_ARRAY_CAPACITY = 16;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Минимальное количество бакетов, переносимых потоком за один захват диапазона при перехэшировании.
+     */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * Количество бит sizeCtl, в которых хранится метка перехэширования, и количество бит под число участвующих потоков.
+     */
+    private static final int RESIZE_STAMP_BITS = 16;
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * Хэш-коды служебных узлов. Хэш-коды обычных узлов неотрицательны.
+     */
+    static final int MOVED = -1;
+    static final int RESERVED = -2;
+    private static final int HASH_BITS = 0x7fffffff;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private static final VarHandle TABLE_ELEMENT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle SIZE_CTL;
+    private static final VarHandle TRANSFER_INDEX;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SIZE_CTL = lookup.findVarHandle(CustomConcurrentHashMap.class, "sizeCtl", int.class);
+            TRANSFER_INDEX = lookup.findVarHandle(CustomConcurrentHashMap.class, "transferIndex", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Node<K, V>[] table;
+
+    /**
+     * Новая хэш-таблица, в которую выполняется перенос, или null.
+     */
+    private volatile Node<K, V>[] nextTable;
+
+    /**
+     * Управление созданием и ростом хэш-таблицы. До создания хэш-таблицы - её начальный размер (0 - по умолчанию),
+     * -1 - хэш-таблица создаётся, другое отрицательное значение - выполняется перехэширование (старшие биты содержат
+     * метку размера хэш-таблицы, младшие - количество участвующих потоков + 1), положительное значение после
+     * создания хэш-таблицы - количество элементов, по достижению которого происходит перехэширование.
+     */
+    private volatile int sizeCtl;
+
+    /**
+     * Верхняя граница (не включая) ещё не распределённых между потоками бакетов при перехэшировании.
+     */
+    private volatile int transferIndex;
+
+    private final LongAdder counter = new LongAdder();
+
+    private Set<K> keySet;
+    private Collection<V> values;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Конструктор, для создания объекта CustomConcurrentHashMap с возможностью указать изначальный размер хэш-таблиы.
+     * Хэш-таблица создаётся при первом добавлении.
+     *
+     * @param capacity размер хэш-таблицы
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен
+     */
+    public CustomConcurrentHashMap(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        this.sizeCtl = CustomHashMap.tableSizeFor(capacity);
+    }
+
+    /**
+     * Конструктор, для создания объекта CustomConcurrentHashMap по умолчанию.
+     */
+    public CustomConcurrentHashMap() {
+        this(INIT_BUCKET_ARRAY_CAPACITY);
+    }
+
+    /**
+     * Узел цепочки бакета. Поля value и next объявлены volatile для чтения без блокировок.
+     */
+    static class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public final K getKey() {
+            return key;
+        }
+
+        @Override
+        public final V getValue() {
+            return value;
+        }
+
+        @Override
+        public final V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public final int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public final boolean equals(Object object) {
+            return object instanceof Map.Entry<?, ?> entry
+                    && key.equals(entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public final String toString() {
+            return key + "=" + value;
+        }
+
+        /**
+         * Выполняет поиск узла с указанными хэш-кодом и ключом в цепочке, начинающейся с данного узла.
+         */
+        Node<K, V> find(int hash, Object key) {
+            for (Node<K, V> node = this; node != null; node = node.next) {
+                if (node.hash == hash && key.equals(node.key)) return node;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Служебный узел, которым помечается бакет, перенесённый в новую хэш-таблицу при перехэшировании.
+     */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V>[] nextTable;
+
+        ForwardingNode(Node<K, V>[] nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+
+        @Override
+        Node<K, V> find(int hash, Object key) {
+            Node<K, V>[] tab = nextTable;
+            while (true) {
+                Node<K, V> node = tabAt(tab, (tab.length - 1) & hash);
+                if (node == null) return null;
+                if (node instanceof ForwardingNode<K, V> forwarding) {
+                    tab = forwarding.nextTable;
+                    continue;
+                }
+                return node.find(hash, key);
+            }
+        }
+    }
+
+    /**
+     * Служебный узел, занимающий пустой бакет на время вычисления значения в computeIfAbsent и compute.
+     */
+    static final class ReservationNode<K, V> extends Node<K, V> {
+        ReservationNode() {
+            super(RESERVED, null, null, null);
+        }
+
+        @Override
+        Node<K, V> find(int hash, Object key) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int index) {
+        return (Node<K, V>) TABLE_ELEMENT.getAcquire(tab, index);
+    }
+
+    static <K, V> boolean casTabAt(Node<K, V>[] tab, int index, Node<K, V> expected, Node<K, V> node) {
+        return TABLE_ELEMENT.compareAndSet(tab, index, expected, node);
+    }
+
+    static <K, V> void setTabAt(Node<K, V>[] tab, int index, Node<K, V> node) {
+        TABLE_ELEMENT.setRelease(tab, index, node);
+    }
+
+    /**
+     * Высчитывает размытый хэш-код ключа (как {@link CustomHashMap}) с обнулённым знаковым битом:
+     * отрицательные хэш-коды зарезервированы для служебных узлов.
+     */
+    static int spread(Object key) {
+        return CustomHashMap.hash(key) & HASH_BITS;
+    }
+
+    /**
+     * Метка перехэширования хэш-таблицы размера n. При сдвиге на RESIZE_STAMP_SHIFT даёт отрицательное число.
+     */
+    static int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node<K, V>[] initTable() {
+        Node<K, V>[] tab;
+        int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) Thread.yield();
+            else if (SIZE_CTL.compareAndSet(this, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = sc > 0 ? sc : INIT_BUCKET_ARRAY_CAPACITY;
+                        tab = (Node<K, V>[]) new Node[n];
+                        table = tab;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение. Во время конкурентных изменений значение является оценкой.
+     *
+     * @return количество пар ключ-значение, не превышающее Integer.MAX_VALUE
+     */
+    @Override
+    public int size() {
+        long count = mappingCount();
+        return count > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение типа long. Во время конкурентных изменений значение является оценкой.
+     *
+     * @return количество пар ключ-значение
+     */
+    public long mappingCount() {
+        long count = counter.sum();
+        return count < 0 ? 0 : count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mappingCount() == 0;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует. Не использует блокировок.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     * @throws NullPointerException если key равен null
+     */
+    @Override
+    public V get(Object key) {
+        int hash = spread(Objects.requireNonNull(key));
+        Node<K, V>[] tab = table;
+        Node<K, V> node;
+        if (tab == null || (node = tabAt(tab, (tab.length - 1) & hash)) == null) return null;
+        if (node.hash == hash) {
+            if (key.equals(node.key)) return node.value;
+        } else if (node.hash < 0) {
+            Node<K, V> found = node.find(hash, key);
+            return found == null ? null : found.value;
+        }
+        while ((node = node.next) != null) {
+            if (node.hash == hash && key.equals(node.key)) return node.value;
+        }
+        return null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Возвращает true, если CustomConcurrentHashMap содержит указанное значение. Выполняет полный просмотр.
+     *
+     * @param value значение, наличие которого проверяется
+     * @return true - если значение содержится в CustomConcurrentHashMap
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        Objects.requireNonNull(value);
+        for (Traverser<K, V> traverser = new Traverser<>(table); ; ) {
+            Node<K, V> node = traverser.advance();
+            if (node == null) return false;
+            V current = node.value;
+            if (current == value || current != null && value.equals(current)) return true;
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    private V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) throw new NullPointerException();
+        int hash = spread(key);
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index, firstHash;
+            if (tab == null || tab.length == 0) tab = initTable();
+            else if ((first = tabAt(tab, index = (tab.length - 1) & hash)) == null) {
+                if (casTabAt(tab, index, null, new Node<>(hash, key, value, null))) break;
+            } else if ((firstHash = first.hash) == MOVED) tab = helpTransfer(tab, first);
+            else if (onlyIfAbsent && firstHash == hash && key.equals(first.key) && first.value != null) {
+                return first.value;
+            } else {
+                V oldValue = null;
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (firstHash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        binCount = 1;
+                        for (Node<K, V> node = first; ; binCount++) {
+                            if (node.hash == hash && key.equals(node.key)) {
+                                oldValue = node.value;
+                                if (!onlyIfAbsent) node.value = value;
+                                break;
+                            }
+                            Node<K, V> previous = node;
+                            if ((node = node.next) == null) {
+                                previous.next = new Node<>(hash, key, value, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldValue != null) return oldValue;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return null;
+    }
+
+    /**
+     * Выполняет добавление всех пар ключ-значение указанного ассоциативного массива.
+     *
+     * @param map ассоциативный массив, пары ключ-значения которого долдны быть добавлены
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            putVal(entry.getKey(), entry.getValue(), false);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        return replaceNode(key, null, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Objects.requireNonNull(key);
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null) throw new NullPointerException();
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null || value == null) throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Заменяет значение или удаляет пару ключ-значение (если value равно null) при условии, что текущее значение
+     * равно expected (или expected равно null).
+     *
+     * @return прежнее значение или null, если пара отсутствует или условие не выполнено
+     */
+    private V replaceNode(Object key, V value, Object expected) {
+        int hash = spread(key);
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index;
+            if (tab == null || tab.length == 0 || (first = tabAt(tab, index = (tab.length - 1) & hash)) == null) break;
+            if (first.hash == MOVED) {
+                tab = helpTransfer(tab, first);
+                continue;
+            }
+            V oldValue = null;
+            boolean validated = false;
+            synchronized (first) {
+                if (tabAt(tab, index) == first) {
+                    if (first.hash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                    validated = true;
+                    for (Node<K, V> node = first, previous = null; node != null; previous = node, node = node.next) {
+                        if (node.hash == hash && key.equals(node.key)) {
+                            V current = node.value;
+                            if (expected == null || expected == current || expected.equals(current)) {
+                                oldValue = current;
+                                if (value != null) node.value = value;
+                                else if (previous != null) previous.next = node.next;
+                                else setTabAt(tab, index, node.next);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (validated) {
+                if (oldValue != null && value == null) addCount(-1L, -1);
+                return oldValue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Атомарно вычисляет и добавляет значение для отсутствующего ключа. Функция вызывается не более одного раза,
+     * пока бакет заблокирован, поэтому она должна быть короткой и не должна изменять данный CustomConcurrentHashMap.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) throw new NullPointerException();
+        int hash = spread(key);
+        V value = null;
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index, firstHash;
+            if (tab == null || tab.length == 0) tab = initTable();
+            else if ((first = tabAt(tab, index = (tab.length - 1) & hash)) == null) {
+                Node<K, V> reservation = new ReservationNode<>();
+                synchronized (reservation) {
+                    if (casTabAt(tab, index, null, reservation)) {
+                        binCount = 1;
+                        Node<K, V> node = null;
+                        try {
+                            if ((value = mappingFunction.apply(key)) != null) node = new Node<>(hash, key, value, null);
+                        } finally {
+                            setTabAt(tab, index, node);
+                        }
+                    }
+                }
+                if (binCount != 0) break;
+            } else if ((firstHash = first.hash) == MOVED) tab = helpTransfer(tab, first);
+            else if (firstHash == hash && key.equals(first.key) && (value = first.value) != null) return value;
+            else {
+                boolean added = false;
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (firstHash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        binCount = 1;
+                        for (Node<K, V> node = first; ; binCount++) {
+                            if (node.hash == hash && key.equals(node.key)) {
+                                value = node.value;
+                                break;
+                            }
+                            Node<K, V> previous = node;
+                            if ((node = node.next) == null) {
+                                if ((value = mappingFunction.apply(key)) != null) {
+                                    previous.next = new Node<>(hash, key, value, null);
+                                    added = true;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (!added) return value;
+                    break;
+                }
+            }
+        }
+        if (value != null) addCount(1L, binCount);
+        return value;
+    }
+
+    /**
+     * Атомарно вычисляет новое значение для присутствующего ключа. Если функция возвращает null, пара удаляется.
+     */
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) throw new NullPointerException();
+        int hash = spread(key);
+        V value = null;
+        int delta = 0;
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index;
+            if (tab == null || tab.length == 0) tab = initTable();
+            else if ((first = tabAt(tab, index = (tab.length - 1) & hash)) == null) break;
+            else if (first.hash == MOVED) tab = helpTransfer(tab, first);
+            else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (first.hash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        binCount = 1;
+                        for (Node<K, V> node = first, previous = null; node != null;
+                             previous = node, node = node.next, binCount++) {
+                            if (node.hash == hash && key.equals(node.key)) {
+                                value = remappingFunction.apply(key, node.value);
+                                if (value != null) node.value = value;
+                                else {
+                                    delta = -1;
+                                    if (previous != null) previous.next = node.next;
+                                    else setTabAt(tab, index, node.next);
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) break;
+            }
+        }
+        if (delta != 0) addCount(delta, binCount);
+        return value;
+    }
+
+    /**
+     * Атомарно вычисляет новое значение для ключа по текущему значению (или null). Если функция возвращает null,
+     * пара удаляется или не добавляется.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) throw new NullPointerException();
+        int hash = spread(key);
+        V value = null;
+        int delta = 0;
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index;
+            if (tab == null || tab.length == 0) tab = initTable();
+            else if ((first = tabAt(tab, index = (tab.length - 1) & hash)) == null) {
+                Node<K, V> reservation = new ReservationNode<>();
+                synchronized (reservation) {
+                    if (casTabAt(tab, index, null, reservation)) {
+                        binCount = 1;
+                        Node<K, V> node = null;
+                        try {
+                            if ((value = remappingFunction.apply(key, null)) != null) {
+                                delta = 1;
+                                node = new Node<>(hash, key, value, null);
+                            }
+                        } finally {
+                            setTabAt(tab, index, node);
+                        }
+                    }
+                }
+                if (binCount != 0) break;
+            } else if (first.hash == MOVED) tab = helpTransfer(tab, first);
+            else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (first.hash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        binCount = 1;
+                        for (Node<K, V> node = first, previous = null; ; binCount++) {
+                            if (node.hash == hash && key.equals(node.key)) {
+                                value = remappingFunction.apply(key, node.value);
+                                if (value != null) node.value = value;
+                                else {
+                                    delta = -1;
+                                    if (previous != null) previous.next = node.next;
+                                    else setTabAt(tab, index, node.next);
+                                }
+                                break;
+                            }
+                            previous = node;
+                            if ((node = node.next) == null) {
+                                if ((value = remappingFunction.apply(key, null)) != null) {
+                                    delta = 1;
+                                    previous.next = new Node<>(hash, key, value, null);
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) break;
+            }
+        }
+        if (delta != 0) addCount(delta, binCount);
+        return value;
+    }
+
+    /**
+     * Атомарно объединяет указанное значение с текущим значением ключа или добавляет его, если ключ отсутствует.
+     * Если функция возвращает null, пара удаляется.
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null || remappingFunction == null) throw new NullPointerException();
+        int hash = spread(key);
+        V result = null;
+        int delta = 0;
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> first;
+            int index;
+            if (tab == null || tab.length == 0) tab = initTable();
+            else if ((first = tabAt(tab, index = (tab.length - 1) & hash)) == null) {
+                if (casTabAt(tab, index, null, new Node<>(hash, key, value, null))) {
+                    delta = 1;
+                    result = value;
+                    break;
+                }
+            } else if (first.hash == MOVED) tab = helpTransfer(tab, first);
+            else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (first.hash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        binCount = 1;
+                        for (Node<K, V> node = first, previous = null; ; binCount++) {
+                            if (node.hash == hash && key.equals(node.key)) {
+                                result = remappingFunction.apply(node.value, value);
+                                if (result != null) node.value = result;
+                                else {
+                                    delta = -1;
+                                    if (previous != null) previous.next = node.next;
+                                    else setTabAt(tab, index, node.next);
+                                }
+                                break;
+                            }
+                            previous = node;
+                            if ((node = node.next) == null) {
+                                delta = 1;
+                                result = value;
+                                previous.next = new Node<>(hash, key, value, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) break;
+            }
+        }
+        if (delta != 0) addCount(delta, binCount);
+        return result;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение. Пары, добавленные конкурентно, могут сохраниться.
+     */
+    @Override
+    public void clear() {
+        long delta = 0L;
+        int index = 0;
+        Node<K, V>[] tab = table;
+        while (tab != null && index < tab.length) {
+            Node<K, V> first = tabAt(tab, index);
+            if (first == null) index++;
+            else if (first.hash == MOVED) {
+                tab = helpTransfer(tab, first);
+                index = 0;
+            } else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        for (Node<K, V> node = first.hash < 0 ? null : first; node != null; node = node.next) delta--;
+                        setTabAt(tab, index++, null);
+                    }
+                }
+            }
+        }
+        if (delta != 0L) addCount(delta, -1);
+    }
+
+    /**
+     * Увеличивает счётчик пар ключ-значение и, если добавление могло превысить порог, запускает перехэширование
+     * или присоединяется к выполняемому. Как и в ConcurrentHashMap, после добавления в пустой бакет или в бакет
+     * из одного узла порог не проверяется, чтобы не суммировать ячейки счётчика при каждой вставке: хэш-таблица
+     * увеличивается при первом добавлении в бакет из двух и более узлов после превышения порога.
+     *
+     * @param delta изменение количества пар
+     * @param check количество узлов бакета до добавления; если не больше 1, порог не проверяется
+     */
+    private void addCount(long delta, int check) {
+        counter.add(delta);
+        if (check <= 1) return;
+        long count = counter.sum();
+        Node<K, V>[] tab, next;
+        int sc;
+        while (count >= (long) (sc = sizeCtl) && (tab = table) != null && tab.length < MAXIMUM_CAPACITY) {
+            int stamp = resizeStamp(tab.length) << RESIZE_STAMP_SHIFT;
+            if (sc < 0) {
+                if (sc == stamp + MAX_RESIZERS || sc == stamp + 1 || (next = nextTable) == null || transferIndex <= 0) {
+                    break;
+                }
+                if (SIZE_CTL.compareAndSet(this, sc, sc + 1)) transfer(tab, next);
+            } else if (SIZE_CTL.compareAndSet(this, sc, stamp + 2)) transfer(tab, null);
+            count = counter.sum();
+        }
+    }
+
+    /**
+     * Присоединяет текущий поток к выполняемому перехэшированию, обнаруженному по ForwardingNode.
+     *
+     * @return хэш-таблица, в которой следует повторить операцию
+     */
+    private Node<K, V>[] helpTransfer(Node<K, V>[] tab, Node<K, V> first) {
+        Node<K, V>[] next;
+        int sc;
+        if (tab != null && first instanceof ForwardingNode<K, V> forwarding && (next = forwarding.nextTable) != null) {
+            int stamp = resizeStamp(tab.length) << RESIZE_STAMP_SHIFT;
+            while (next == nextTable && table == tab && (sc = sizeCtl) < 0) {
+                if (sc == stamp + MAX_RESIZERS || sc == stamp + 1 || transferIndex <= 0) break;
+                if (SIZE_CTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, next);
+                    break;
+                }
+            }
+            return next;
+        }
+        return table;
+    }
+
+    /**
+     * Переносит бакеты в новую хэш-таблицу удвоенного размера. Потоки захватывают диапазоны бакетов, уменьшая
+     * transferIndex, и помечают перенесённые бакеты ForwardingNode. Узлы переносимой цепочки копируются
+     * (кроме её хвоста, целиком попадающего в один бакет), так как читатели могут продолжать обход старой цепочки.
+     * Последний завершивший работу поток повторно проверяет все бакеты и публикует новую хэш-таблицу.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void transfer(Node<K, V>[] tab, Node<K, V>[] nextTab) {
+        int n = tab.length;
+        int stride = NCPU > 1 ? (n >>> 3) / NCPU : n;
+        if (stride < MIN_TRANSFER_STRIDE) stride = MIN_TRANSFER_STRIDE;
+        if (nextTab == null) {
+            try {
+                nextTab = (Node<K, V>[]) new Node[n << 1];
+            } catch (OutOfMemoryError error) {
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        ForwardingNode<K, V> forwarding = new ForwardingNode<>(nextTab);
+        boolean advance = true;
+        boolean finishing = false;
+        for (int index = 0, bound = 0; ; ) {
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--index >= bound || finishing) advance = false;
+                else if ((nextIndex = transferIndex) <= 0) {
+                    index = -1;
+                    advance = false;
+                } else if (TRANSFER_INDEX.compareAndSet(this, nextIndex,
+                        nextBound = nextIndex > stride ? nextIndex - stride : 0)) {
+                    bound = nextBound;
+                    index = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            Node<K, V> first;
+            if (index < 0) {
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                int sc = sizeCtl;
+                if (SIZE_CTL.compareAndSet(this, sc, sc - 1)) {
+                    if (sc - 2 != resizeStamp(n) << RESIZE_STAMP_SHIFT) return;
+                    finishing = advance = true;
+                    index = n;
+                }
+            } else if ((first = tabAt(tab, index)) == null) advance = casTabAt(tab, index, null, forwarding);
+            else if (first.hash == MOVED) advance = true;
+            else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        if (first.hash < 0) throw new IllegalStateException("Рекурсивное изменение");
+                        int runBit = first.hash & n;
+                        Node<K, V> lastRun = first;
+                        for (Node<K, V> node = first.next; node != null; node = node.next) {
+                            int bit = node.hash & n;
+                            if (bit != runBit) {
+                                runBit = bit;
+                                lastRun = node;
+                            }
+                        }
+                        Node<K, V> lo = runBit == 0 ? lastRun : null;
+                        Node<K, V> hi = runBit == 0 ? null : lastRun;
+                        for (Node<K, V> node = first; node != lastRun; node = node.next) {
+                            if ((node.hash & n) == 0) lo = new Node<>(node.hash, node.key, node.value, lo);
+                            else hi = new Node<>(node.hash, node.key, node.value, hi);
+                        }
+                        setTabAt(nextTab, index, lo);
+                        setTabAt(nextTab, index + n, hi);
+                        setTabAt(tab, index, forwarding);
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает множество ключей, являющееся представлением CustomConcurrentHashMap.
+     *
+     * @return Set ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySet;
+        return view != null ? view : (keySet = new AbstractSet<>() {
+            @Override
+            public int size() {
+                return CustomConcurrentHashMap.this.size();
+            }
+
+            @Override
+            public Iterator<K> iterator() {
+                return new BaseIterator<>() {
+                    @Override
+                    K extract(Node<K, V> node) {
+                        return node.key;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return containsKey(object);
+            }
+
+            @Override
+            public boolean remove(Object object) {
+                return CustomConcurrentHashMap.this.remove(object) != null;
+            }
+
+            @Override
+            public void clear() {
+                CustomConcurrentHashMap.this.clear();
+            }
+        });
+    }
+
+    /**
+     * Возвращает коллекцию значений, являющуюся представлением CustomConcurrentHashMap.
+     *
+     * @return Collection значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = values;
+        return view != null ? view : (values = new AbstractCollection<>() {
+            @Override
+            public int size() {
+                return CustomConcurrentHashMap.this.size();
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return new BaseIterator<>() {
+                    @Override
+                    V extract(Node<K, V> node) {
+                        return node.value;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return containsValue(object);
+            }
+
+            @Override
+            public void clear() {
+                CustomConcurrentHashMap.this.clear();
+            }
+        });
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся представлением CustomConcurrentHashMap.
+     * {@link Map.Entry#setValue(Object)} записывает значение в CustomConcurrentHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> view = entrySet;
+        return view != null ? view : (entrySet = new AbstractSet<>() {
+            @Override
+            public int size() {
+                return CustomConcurrentHashMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new BaseIterator<>() {
+                    @Override
+                    Map.Entry<K, V> extract(Node<K, V> node) {
+                        return new WriteThroughEntry(node.key, node.value);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                if (!(object instanceof Map.Entry<?, ?> entry) || entry.getKey() == null) return false;
+                V value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object object) {
+                return object instanceof Map.Entry<?, ?> entry && entry.getKey() != null && entry.getValue() != null
+                        && CustomConcurrentHashMap.this.remove(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void clear() {
+                CustomConcurrentHashMap.this.clear();
+            }
+        });
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object == this) return true;
+        if (!(object instanceof Map<?, ?> other)) return false;
+        for (Traverser<K, V> traverser = new Traverser<>(table); ; ) {
+            Node<K, V> node = traverser.advance();
+            if (node == null) break;
+            V value = node.value;
+            Object otherValue = other.get(node.key);
+            if (otherValue == null || otherValue != value && !otherValue.equals(value)) return false;
+        }
+        for (Map.Entry<?, ?> entry : other.entrySet()) {
+            Object key = entry.getKey(), value = entry.getValue(), current;
+            if (key == null || value == null || (current = get(key)) == null || !value.equals(current)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Traverser<K, V> traverser = new Traverser<>(table); ; ) {
+            Node<K, V> node = traverser.advance();
+            if (node == null) return hashCode;
+            hashCode += node.key.hashCode() ^ node.value.hashCode();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Traverser<K, V> traverser = new Traverser<>(table); ; ) {
+            Node<K, V> node = traverser.advance();
+            if (node == null) return joiner.toString();
+            joiner.add(node.key + "=" + node.value);
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором entrySet(). setValue записывает значение в CustomConcurrentHashMap.
+     */
+    private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            V old = super.setValue(value);
+            put(getKey(), value);
+            return old;
+        }
+    }
+
+    /**
+     * Обход всех узлов хэш-таблицы без блокировок. Встретив ForwardingNode, обходит соответствующие бакеты новой
+     * хэш-таблицы (индексы index и index + n), сохраняя позицию в старой хэш-таблице в стеке, поэтому каждый узел,
+     * присутствовавший в течение всего обхода, возвращается ровно один раз.
+     */
+    static class Traverser<K, V> {
+        private Node<K, V>[] tab;
+        private Node<K, V> next;
+        private TableStack<K, V> stack;
+        private TableStack<K, V> spare;
+        private int index;
+        private int baseIndex;
+        private final int baseLimit;
+        private final int baseSize;
+
+        Traverser(Node<K, V>[] tab) {
+            this.tab = tab;
+            this.baseSize = this.baseLimit = tab == null ? 0 : tab.length;
+        }
+
+        /**
+         * Возвращает следующий узел или null, если обход завершён.
+         */
+        final Node<K, V> advance() {
+            Node<K, V> node = next;
+            if (node != null) node = node.next;
+            while (true) {
+                Node<K, V>[] current;
+                int i, n;
+                if (node != null) return next = node;
+                if (baseIndex >= baseLimit || (current = tab) == null || (n = current.length) <= (i = index) || i < 0) {
+                    return next = null;
+                }
+                if ((node = tabAt(current, i)) != null && node.hash < 0) {
+                    if (node instanceof ForwardingNode<K, V> forwarding) {
+                        tab = forwarding.nextTable;
+                        node = null;
+                        pushState(current, i, n);
+                        continue;
+                    }
+                    node = null;
+                }
+                if (stack != null) recoverState(n);
+                else if ((index = i + baseSize) >= n) index = ++baseIndex;
+            }
+        }
+
+        private void pushState(Node<K, V>[] current, int i, int n) {
+            TableStack<K, V> state = spare;
+            if (state != null) spare = state.next;
+            else state = new TableStack<>();
+            state.tab = current;
+            state.length = n;
+            state.index = i;
+            state.next = stack;
+            stack = state;
+        }
+
+        private void recoverState(int n) {
+            TableStack<K, V> state;
+            int length;
+            while ((state = stack) != null && (index += (length = state.length)) >= n) {
+                n = length;
+                index = state.index;
+                tab = state.tab;
+                state.tab = null;
+                TableStack<K, V> next = state.next;
+                state.next = spare;
+                stack = next;
+                spare = state;
+            }
+            if (state == null && (index += baseSize) >= n) index = ++baseIndex;
+        }
+    }
+
+    /**
+     * Сохранённая позиция обхода хэш-таблицы, из которой Traverser перешёл в новую хэш-таблицу.
+     */
+    static final class TableStack<K, V> {
+        int length;
+        int index;
+        Node<K, V>[] tab;
+        TableStack<K, V> next;
+    }
+
+    /**
+     * Слабо согласованный итератор представлений. remove удаляет последнюю возвращённую пару по ключу.
+     */
+    private abstract class BaseIterator<E> implements Iterator<E> {
+        private final Traverser<K, V> traverser = new Traverser<>(table);
+        private Node<K, V> nextNode = traverser.advance();
+        private Node<K, V> lastReturned;
+
+        abstract E extract(Node<K, V> node);
+
+        @Override
+        public final boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public final E next() {
+            Node<K, V> node = nextNode;
+            if (node == null) throw new NoSuchElementException();
+            lastReturned = node;
+            nextNode = traverser.advance();
+            return extract(node);
+        }
+
+        @Override
+        public final void remove() {
+            Node<K, V> node = lastReturned;
+            if (node == null) throw new IllegalStateException();
+            lastReturned = null;
+            replaceNode(node.key, null, null);
+        }
+    }
+}
@@ -1,6 +1,17 @@
 package custom.util;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Реализация интерфейса Map, основанная на хэш-таблице. Данная реализация Map не потокобезопасна.
@@ -21,31 +32,171 @@ public class CustomHashMap<K, V> implements Map<K, V> {
      * Значение коэффициента заполнения хэш-таблицы по умолчанию.
      */
     private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Максимальный размер хэш-таблицы. Размер хэш-таблицы всегда является степенью двойки.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Количество бакетов старой хэш-таблицы, переносимых каждой операцией в режиме постепенного перехэширования.
+     */
+    static final int MIGRATION_STEP = 16;
+
+    /**
+     * Длина цепочки, при превышении которой бакет преобразуется в красно-чёрное дерево.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * Количество узлов, при котором бакет-дерево при перехэшировании преобразуется обратно в цепочку.
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * Минимальный размер хэш-таблицы для преобразования бакетов в деревья. В меньшей хэш-таблице длинная цепочка
+     * приводит к перехэшированию, а не к построению дерева.
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
+    /*
+     * Оценки размеров объектов для MapStatistics#estimatedBytesPerEntry: 64-битная JVM со сжатыми ссылками,
+     * заголовок объекта 12 байт, выравнивание 8 байт.
+     */
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int NODE_BYTES = 32;
+    private static final int LINKED_NODE_BYTES = 48;
+    private static final int TREE_NODE_BYTES = 64;
     private Node<K, V>[] table;
     private int size;
     private int tableCapacity;
 
+    /**
+     * Количество структурных изменений CustomHashMap (добавление и удаление пар ключ-значение, очистка).
+     * Используется итераторами представлений для обнаружения конкурентной модификации.
+     */
+    private int modCount;
+
+    private Set<K> keySet;
+    private Collection<V> values;
+    private Set<Map.Entry<K, V>> entrySet;
+
     private final float loadFactor;
 
+    /**
+     * Режим постепенного перехэширования. Если true, при перехэшировании старая и новая хэш-таблицы
+     * сосуществуют, а перенос бакетов распределяется между последующими операциями put, get и remove.
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * Стратегия хэширования и сравнения ключей или null, если используются hashCode и equals самих ключей
+     * (см. {@link #CustomHashMap(HashingStrategy)}).
+     */
+    private final HashingStrategy<? super K> strategy;
+
+    /**
+     * Старая хэш-таблица, бакеты которой ещё не перенесены в table, или null, если перенос не выполняется.
+     * Непустой бакет oldTable означает, что его узлы ещё не перенесены; перенесённые бакеты обнуляются.
+     */
+    private Node<K, V>[] oldTable;
+
+    /**
+     * Индекс бакета oldTable, с которого продолжится последовательный перенос.
+     */
+    private int migrationIndex;
+
     /**
      * Отражает количество элементов, по пдостижению которого происходит перехэширование.
      * Целочисленное значение вычисляется по формуле: tableCapacity * loadFactor.
      */
     private int growBorder;
 
+    /**
+     * Размер хэш-таблицы, заданный при создании. Автоматическое уменьшение и очистка не делают хэш-таблицу меньше.
+     */
+    private final int minimumCapacity;
+
+    /**
+     * Нижний порог коэффициента заполнения (см. {@link #setShrinkLoadFactor(float)}); 0 - уменьшение выключено.
+     */
+    private float shrinkLoadFactor;
+
+    /**
+     * Количество элементов, при снижении ниже которого удаление уменьшает хэш-таблицу:
+     * tableCapacity * shrinkLoadFactor, либо 0, если хэш-таблица не больше minimumCapacity.
+     */
+    private int shrinkBorder;
+
+    /**
+     * Счётчики статистики или null, если сбор статистики выключен (см. {@link #setStatisticsEnabled(boolean)}).
+     */
+    private MapStatistics.Counters counters;
+
     /**
      * Конструктор, для создания объекта CustomHashMap с возможностью указать изначальный размер хэш-таблиы,
-     * а также определить значение коэффициента заполнения.
+     * а также определить значение коэффициента заполнения. Размер хэш-таблицы округляется вверх до степени двойки.
      *
      * @param capacity размер хэш-таблицы
      * @param load     коэффициент заполнения
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения не положителен
      */
     public CustomHashMap(int capacity, float load) {
-        this.table = (Node<K, V>[]) new Node[capacity];
+        this(capacity, load, false);
+    }
+
+    /**
+     * Конструктор, для создания объекта CustomHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * значение коэффициента заполнения, а также включить режим постепенного перехэширования.
+     * В этом режиме операция put, вызвавшая рост хэш-таблицы, лишь выделяет новую хэш-таблицу, а перенос узлов
+     * выполняется по {@value #MIGRATION_STEP} бакетов за каждую последующую операцию put, get или remove.
+     * Это исключает длительные паузы перехэширования в put, get и remove больших CustomHashMap ценой небольшого
+     * замедления операций на время переноса.
+     * <p>
+     * Обход не выполняется по двум хэш-таблицам сразу, так как get и remove переносят бакеты во время обхода.
+     * Поэтому создание итератора или Spliterator представлений, массовые операции (forEach, reduce, search)
+     * и toString, вызванные до окончания переноса, переносят все оставшиеся бакеты за один проход: пауза
+     * перехэширования в таком случае не исчезает, а приходится на первый обход после роста хэш-таблицы
+     * (см. бенчмарк PutLatencyBenchmark.putWithIteration).
+     *
+     * @param capacity          размер хэш-таблицы
+     * @param load              коэффициент заполнения
+     * @param incrementalResize true - для включения режима постепенного перехэширования
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения не положителен
+     */
+    public CustomHashMap(int capacity, float load, boolean incrementalResize) {
+        this(capacity, load, incrementalResize, null);
+    }
+
+    /**
+     * Конструктор, для создания объекта CustomHashMap, ключи которой хэшируются и сравниваются стратегией
+     * (см. {@link HashingStrategy}), например массивов byte[] по содержимому. Если стратегия поддерживает участки
+     * массивов, доступен поиск по участку массива без создания объекта-ключа: {@link #get(byte[], int, int)},
+     * {@link #get(char[], int, int)}. Бакеты такой CustomHashMap не преобразуются в деревья, так как дерево
+     * упорядочивает ключи по compareTo, не согласованному со стратегией: при большом количестве коллизий следует
+     * использовать стратегию с сильной хэш-функцией, например {@link HashingStrategy#seededByteArray(long)}.
+     *
+     * @param capacity          размер хэш-таблицы
+     * @param load              коэффициент заполнения
+     * @param incrementalResize true - для включения режима постепенного перехэширования
+     * @param strategy          стратегия хэширования и сравнения ключей или null для hashCode и equals ключей
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения не положителен
+     */
+    public CustomHashMap(int capacity, float load, boolean incrementalResize, HashingStrategy<? super K> strategy) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        capacity = tableSizeFor(capacity);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] table = (Node<K, V>[]) new Node[capacity];
+        this.table = table;
         this.tableCapacity = capacity;
         this.loadFactor = load;
-        this.growBorder = (int) (capacity * this.loadFactor);
+        this.incrementalResize = incrementalResize;
+        this.strategy = strategy;
+        this.minimumCapacity = capacity;
         this.size = 0;
+        updateBorders();
     }
 
     /**
@@ -66,6 +217,18 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         this(INIT_BUCKET_ARRAY_CAPACITY);
     }
 
+    /**
+     * Конструктор, для создания объекта CustomHashMap со стратегией хэширования и сравнения ключей
+     * (см. {@link #CustomHashMap(int, float, boolean, HashingStrategy)}). Размер хэш-таблицы и коэффициент
+     * заполнения инициализируются значениями по умолчанию.
+     *
+     * @param strategy стратегия хэширования и сравнения ключей
+     * @throws NullPointerException если стратегия равна null
+     */
+    public CustomHashMap(HashingStrategy<? super K> strategy) {
+        this(INIT_BUCKET_ARRAY_CAPACITY, DEFAULT_LOAD_FACTOR, false, Objects.requireNonNull(strategy));
+    }
+
     /**
      * Реализация интерфейса Map.Entry<K, V>, экземпляры которого хранят пары ключ=значение,
      * хэш-код ключа, высчитываемый при добавлении, а также ссылку на следующий элемент списка.
@@ -96,8 +259,14 @@ public class CustomHashMap<K, V> implements Map<K, V> {
             return this.value;
         }
 
+        /**
+         * Заменяет значение узла. Вызывается как при замене значения методами CustomHashMap, так и через
+         * {@link Map.Entry#setValue(Object)}, поэтому наследник, которому нужно отслеживать любую замену значения,
+         * может переопределить этот метод в своём классе узла.
+         */
         @Override
-        public final V setValue(V value) {
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
             V old = this.value;
             this.value = value;
             return old;
@@ -105,7 +274,7 @@ public class CustomHashMap<K, V> implements Map<K, V> {
 
         @Override
         public int hashCode() {
-            return (this.key == null ? 0 : this.key.hashCode() + this.value.hashCode());
+            return Objects.hashCode(this.key) ^ Objects.hashCode(this.value);
         }
 
         @Override
@@ -123,26 +292,756 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         }
     }
 
+    /**
+     * Узел, дополнительно связанный в двусвязный список через поля before и after. Сама CustomHashMap эти связи
+     * не использует: их поддерживают наследники, упорядочивающие узлы по времени доступа (см. {@link CustomCache})
+     * или по сроку действия (см. {@link ExpiringHashMap}). Дополнительные поля наследники хранят в собственных
+     * подклассах узлов.
+     *
+     * @param <K> тип ключа
+     * @param <V> тип, связанного с ключом значения
+     */
+    static class LinkedNode<K, V> extends Node<K, V> {
+        LinkedNode<K, V> before;
+        LinkedNode<K, V> after;
+
+        LinkedNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /**
+     * Узел бакета, преобразованного в красно-чёрное дерево. Узлы дерева упорядочены по хэш-коду, а при равенстве
+     * хэш-кодов - по compareTo, если ключи реализуют Comparable одного класса. Для ключей, порядок которых
+     * определить невозможно, поиск выполняется в обоих поддеревьях.
+     * Помимо связей дерева, узлы сохраняют двусвязный список через поля next и prev, поэтому итераторы и
+     * перехэширование обходят бакет-дерево так же, как обычную цепочку. Корень дерева всегда является первым
+     * узлом списка и хранится в бакете. Узел дерева наследует связи {@link LinkedNode}, чтобы преобразование
+     * бакета в дерево не выводило узлы наследников из их списков. Наследник, которому нужны дополнительные поля
+     * узла, может расширить и этот класс.
+     *
+     * @param <K> тип ключа
+     * @param <V> тип, связанного с ключом значения
+     */
+    static class TreeNode<K, V> extends LinkedNode<K, V> {
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        TreeNode<K, V> prev;
+        boolean red;
+
+        TreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+
+        /**
+         * Возвращает корень дерева, содержащего данный узел.
+         */
+        TreeNode<K, V> root() {
+            for (TreeNode<K, V> current = this, parent; ; current = parent) {
+                if ((parent = current.parent) == null) return current;
+            }
+        }
+
+        /**
+         * Делает указанный корень дерева первым узлом списка бакета.
+         */
+        static <K, V> void moveRootToFront(Node<K, V>[] tab, TreeNode<K, V> root) {
+            int index = root.hash & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>) tab[index];
+            if (root == first) return;
+            tab[index] = root;
+            TreeNode<K, V> rootPrev = root.prev;
+            Node<K, V> rootNext = root.next;
+            if (rootNext != null) ((TreeNode<K, V>) rootNext).prev = rootPrev;
+            if (rootPrev != null) rootPrev.next = rootNext;
+            if (first != null) first.prev = root;
+            root.next = first;
+            root.prev = null;
+        }
+
+        /**
+         * Выполняет поиск узла с указанными хэш-кодом и ключом в поддереве данного узла.
+         *
+         * @param hash     хэш-код ключа
+         * @param key      ключ
+         * @param keyClass класс ключа, если он реализует Comparable самого себя, или null, если ещё не определён
+         * @return найденный узел или null
+         */
+        TreeNode<K, V> find(int hash, Object key, Class<?> keyClass) {
+            TreeNode<K, V> current = this;
+            do {
+                int currentHash, direction;
+                K currentKey;
+                TreeNode<K, V> left = current.left, right = current.right, found;
+                if ((currentHash = current.hash) > hash) current = left;
+                else if (currentHash < hash) current = right;
+                else if ((currentKey = current.key) == key || key != null && key.equals(currentKey)) return current;
+                else if (left == null) current = right;
+                else if (right == null) current = left;
+                else if ((keyClass != null || (keyClass = comparableClassFor(key)) != null)
+                        && (direction = compareComparables(keyClass, key, currentKey)) != 0) {
+                    current = direction < 0 ? left : right;
+                } else if ((found = right.find(hash, key, keyClass)) != null) return found;
+                else current = left;
+            } while (current != null);
+            return null;
+        }
+
+        /**
+         * Выполняет поиск узла с указанными хэш-кодом и ключом во всём дереве.
+         */
+        TreeNode<K, V> getTreeNode(int hash, Object key) {
+            return (parent != null ? root() : this).find(hash, key, null);
+        }
+
+        /**
+         * Строит дерево из списка узлов, начинающегося с данного узла, и сохраняет его корень в бакете.
+         */
+        void treeify(Node<K, V>[] tab) {
+            TreeNode<K, V> root = null;
+            for (TreeNode<K, V> node = this, next; node != null; node = next) {
+                next = (TreeNode<K, V>) node.next;
+                node.left = node.right = null;
+                if (root == null) {
+                    node.parent = null;
+                    node.red = false;
+                    root = node;
+                    continue;
+                }
+                K key = node.key;
+                int hash = node.hash;
+                Class<?> keyClass = null;
+                for (TreeNode<K, V> current = root; ; ) {
+                    int direction, currentHash;
+                    K currentKey = current.key;
+                    if ((currentHash = current.hash) > hash) direction = -1;
+                    else if (currentHash < hash) direction = 1;
+                    else if (keyClass == null && (keyClass = comparableClassFor(key)) == null
+                            || (direction = compareComparables(keyClass, key, currentKey)) == 0) {
+                        direction = tieBreakOrder(key, currentKey);
+                    }
+                    TreeNode<K, V> parent = current;
+                    if ((current = direction <= 0 ? current.left : current.right) == null) {
+                        node.parent = parent;
+                        if (direction <= 0) parent.left = node;
+                        else parent.right = node;
+                        root = balanceInsertion(root, node);
+                        break;
+                    }
+                }
+            }
+            moveRootToFront(tab, root);
+        }
+
+        /**
+         * Преобразует список узлов дерева, начинающийся с данного узла, в обычную цепочку.
+         *
+         * @return первый узел цепочки
+         */
+        Node<K, V> untreeify(CustomHashMap<K, V> map) {
+            Node<K, V> head = null, tail = null;
+            for (Node<K, V> node = this; node != null; node = node.next) {
+                Node<K, V> replacement = map.replacementNode(node, null);
+                if (tail == null) head = replacement;
+                else tail.next = replacement;
+                tail = replacement;
+            }
+            return head;
+        }
+
+        /**
+         * Добавляет в дерево узел с указанными хэш-кодом, ключом и значением, если узел с таким ключом отсутствует.
+         *
+         * @return существующий узел с указанным ключом или null, если был добавлен новый узел
+         */
+        TreeNode<K, V> putTreeVal(CustomHashMap<K, V> map, Node<K, V>[] tab, int hash, K key, V value) {
+            Class<?> keyClass = null;
+            boolean searched = false;
+            TreeNode<K, V> root = parent != null ? root() : this;
+            for (TreeNode<K, V> current = root; ; ) {
+                int direction, currentHash;
+                K currentKey;
+                if ((currentHash = current.hash) > hash) direction = -1;
+                else if (currentHash < hash) direction = 1;
+                else if ((currentKey = current.key) == key || key != null && key.equals(currentKey)) return current;
+                else if (keyClass == null && (keyClass = comparableClassFor(key)) == null
+                        || (direction = compareComparables(keyClass, key, currentKey)) == 0) {
+                    if (!searched) {
+                        TreeNode<K, V> found, child;
+                        searched = true;
+                        if ((child = current.left) != null && (found = child.find(hash, key, keyClass)) != null
+                                || (child = current.right) != null && (found = child.find(hash, key, keyClass)) != null) {
+                            return found;
+                        }
+                    }
+                    direction = tieBreakOrder(key, currentKey);
+                }
+                TreeNode<K, V> parent = current;
+                if ((current = direction <= 0 ? current.left : current.right) == null) {
+                    Node<K, V> parentNext = parent.next;
+                    TreeNode<K, V> node = map.newTreeNode(hash, key, value, parentNext);
+                    if (direction <= 0) parent.left = node;
+                    else parent.right = node;
+                    parent.next = node;
+                    node.parent = node.prev = parent;
+                    if (parentNext != null) ((TreeNode<K, V>) parentNext).prev = node;
+                    moveRootToFront(tab, balanceInsertion(root, node));
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Удаляет данный узел из дерева и списка бакета. Если дерево становится слишком маленьким,
+         * бакет преобразуется обратно в цепочку.
+         * <p>
+         * При удалении через итератор movable равно false: корень не переносится в начало списка, а бакет
+         * не преобразуется в цепочку, так как обе операции меняют порядок и состав узлов списка, по которому
+         * идёт итератор, и заменяют узлы, уже возвращённые им как пары ключ-значение.
+         *
+         * @param movable true - если допускается перестройка списка бакета
+         */
+        void removeTreeNode(CustomHashMap<K, V> map, Node<K, V>[] tab, boolean movable) {
+            int index = hash & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>) tab[index], root = first, rootLeft;
+            TreeNode<K, V> successor = (TreeNode<K, V>) next, predecessor = prev;
+            if (predecessor == null) tab[index] = first = successor;
+            else predecessor.next = successor;
+            if (successor != null) successor.prev = predecessor;
+            if (first == null) return;
+            if (root.parent != null) root = root.root();
+            if (movable && (root.right == null || (rootLeft = root.left) == null || rootLeft.left == null)) {
+                tab[index] = first.untreeify(map);
+                return;
+            }
+            TreeNode<K, V> node = this, left = this.left, right = this.right, replacement;
+            if (left != null && right != null) {
+                TreeNode<K, V> heir = right, heirLeft;
+                while ((heirLeft = heir.left) != null) heir = heirLeft;
+                boolean color = heir.red;
+                heir.red = node.red;
+                node.red = color;
+                TreeNode<K, V> heirRight = heir.right;
+                TreeNode<K, V> nodeParent = node.parent;
+                if (heir == right) {
+                    node.parent = heir;
+                    heir.right = node;
+                } else {
+                    TreeNode<K, V> heirParent = heir.parent;
+                    if ((node.parent = heirParent) != null) {
+                        if (heir == heirParent.left) heirParent.left = node;
+                        else heirParent.right = node;
+                    }
+                    if ((heir.right = right) != null) right.parent = heir;
+                }
+                node.left = null;
+                if ((node.right = heirRight) != null) heirRight.parent = node;
+                if ((heir.left = left) != null) left.parent = heir;
+                if ((heir.parent = nodeParent) == null) root = heir;
+                else if (node == nodeParent.left) nodeParent.left = heir;
+                else nodeParent.right = heir;
+                replacement = heirRight != null ? heirRight : node;
+            } else if (left != null) replacement = left;
+            else if (right != null) replacement = right;
+            else replacement = node;
+            if (replacement != node) {
+                TreeNode<K, V> nodeParent = replacement.parent = node.parent;
+                if (nodeParent == null) (root = replacement).red = false;
+                else if (node == nodeParent.left) nodeParent.left = replacement;
+                else nodeParent.right = replacement;
+                node.left = node.right = node.parent = null;
+            }
+            TreeNode<K, V> balancedRoot = node.red ? root : balanceDeletion(root, replacement);
+            if (replacement == node) {
+                TreeNode<K, V> nodeParent = node.parent;
+                node.parent = null;
+                if (nodeParent != null) {
+                    if (node == nodeParent.left) nodeParent.left = null;
+                    else if (node == nodeParent.right) nodeParent.right = null;
+                }
+            }
+            if (movable) moveRootToFront(tab, balancedRoot);
+        }
+
+        /**
+         * Переносит узлы дерева бакета старой хэш-таблицы в хэш-таблицу удвоенного размера аналогично
+         * цепочке: узлы разделяются на два списка, каждый из которых снова становится деревом или,
+         * если он достаточно мал, обычной цепочкой.
+         */
+        void split(CustomHashMap<K, V> map, Node<K, V>[] newTable, int index, int oldCapacity) {
+            TreeNode<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+            int loCount = 0, hiCount = 0;
+            for (TreeNode<K, V> node = this, next; node != null; node = next) {
+                next = (TreeNode<K, V>) node.next;
+                node.next = null;
+                if ((node.hash & oldCapacity) == 0) {
+                    if ((node.prev = loTail) == null) loHead = node;
+                    else loTail.next = node;
+                    loTail = node;
+                    loCount++;
+                } else {
+                    if ((node.prev = hiTail) == null) hiHead = node;
+                    else hiTail.next = node;
+                    hiTail = node;
+                    hiCount++;
+                }
+            }
+            if (loHead != null) {
+                if (loCount <= UNTREEIFY_THRESHOLD) newTable[index] = loHead.untreeify(map);
+                else {
+                    newTable[index] = loHead;
+                    if (hiHead != null) loHead.treeify(newTable);
+                }
+            }
+            if (hiHead != null) {
+                if (hiCount <= UNTREEIFY_THRESHOLD) newTable[index + oldCapacity] = hiHead.untreeify(map);
+                else {
+                    newTable[index + oldCapacity] = hiHead;
+                    if (loHead != null) hiHead.treeify(newTable);
+                }
+            }
+        }
+
+        static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> node) {
+            TreeNode<K, V> right, parent, rightLeft;
+            if (node != null && (right = node.right) != null) {
+                if ((rightLeft = node.right = right.left) != null) rightLeft.parent = node;
+                if ((parent = right.parent = node.parent) == null) (root = right).red = false;
+                else if (parent.left == node) parent.left = right;
+                else parent.right = right;
+                right.left = node;
+                node.parent = right;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> node) {
+            TreeNode<K, V> left, parent, leftRight;
+            if (node != null && (left = node.left) != null) {
+                if ((leftRight = node.left = left.right) != null) leftRight.parent = node;
+                if ((parent = left.parent = node.parent) == null) (root = left).red = false;
+                else if (parent.right == node) parent.right = left;
+                else parent.left = left;
+                left.right = node;
+                node.parent = left;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> node) {
+            node.red = true;
+            for (TreeNode<K, V> parent, grand, grandLeft, grandRight; ; ) {
+                if ((parent = node.parent) == null) {
+                    node.red = false;
+                    return node;
+                }
+                if (!parent.red || (grand = parent.parent) == null) return root;
+                if (parent == (grandLeft = grand.left)) {
+                    if ((grandRight = grand.right) != null && grandRight.red) {
+                        grandRight.red = false;
+                        parent.red = false;
+                        grand.red = true;
+                        node = grand;
+                    } else {
+                        if (node == parent.right) {
+                            root = rotateLeft(root, node = parent);
+                            grand = (parent = node.parent) == null ? null : parent.parent;
+                        }
+                        if (parent != null) {
+                            parent.red = false;
+                            if (grand != null) {
+                                grand.red = true;
+                                root = rotateRight(root, grand);
+                            }
+                        }
+                    }
+                } else {
+                    if (grandLeft != null && grandLeft.red) {
+                        grandLeft.red = false;
+                        parent.red = false;
+                        grand.red = true;
+                        node = grand;
+                    } else {
+                        if (node == parent.left) {
+                            root = rotateRight(root, node = parent);
+                            grand = (parent = node.parent) == null ? null : parent.parent;
+                        }
+                        if (parent != null) {
+                            parent.red = false;
+                            if (grand != null) {
+                                grand.red = true;
+                                root = rotateLeft(root, grand);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> node) {
+            for (TreeNode<K, V> parent, sibling; ; ) {
+                if (node == null || node == root) return root;
+                if ((parent = node.parent) == null) {
+                    node.red = false;
+                    return node;
+                }
+                if (node.red) {
+                    node.red = false;
+                    return root;
+                }
+                if (parent.left == node) {
+                    if ((sibling = parent.right) != null && sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        root = rotateLeft(root, parent);
+                        sibling = (parent = node.parent) == null ? null : parent.right;
+                    }
+                    if (sibling == null) {
+                        node = parent;
+                        continue;
+                    }
+                    TreeNode<K, V> siblingLeft = sibling.left, siblingRight = sibling.right;
+                    if ((siblingRight == null || !siblingRight.red) && (siblingLeft == null || !siblingLeft.red)) {
+                        sibling.red = true;
+                        node = parent;
+                        continue;
+                    }
+                    if (siblingRight == null || !siblingRight.red) {
+                        if (siblingLeft != null) siblingLeft.red = false;
+                        sibling.red = true;
+                        root = rotateRight(root, sibling);
+                        sibling = (parent = node.parent) == null ? null : parent.right;
+                    }
+                    if (sibling != null) {
+                        sibling.red = parent != null && parent.red;
+                        if ((siblingRight = sibling.right) != null) siblingRight.red = false;
+                    }
+                    if (parent != null) {
+                        parent.red = false;
+                        root = rotateLeft(root, parent);
+                    }
+                } else {
+                    if ((sibling = parent.left) != null && sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        root = rotateRight(root, parent);
+                        sibling = (parent = node.parent) == null ? null : parent.left;
+                    }
+                    if (sibling == null) {
+                        node = parent;
+                        continue;
+                    }
+                    TreeNode<K, V> siblingLeft = sibling.left, siblingRight = sibling.right;
+                    if ((siblingLeft == null || !siblingLeft.red) && (siblingRight == null || !siblingRight.red)) {
+                        sibling.red = true;
+                        node = parent;
+                        continue;
+                    }
+                    if (siblingLeft == null || !siblingLeft.red) {
+                        if (siblingRight != null) siblingRight.red = false;
+                        sibling.red = true;
+                        root = rotateLeft(root, sibling);
+                        sibling = (parent = node.parent) == null ? null : parent.left;
+                    }
+                    if (sibling != null) {
+                        sibling.red = parent != null && parent.red;
+                        if ((siblingLeft = sibling.left) != null) siblingLeft.red = false;
+                    }
+                    if (parent != null) {
+                        parent.red = false;
+                        root = rotateRight(root, parent);
+                    }
+                }
+                node = root;
+            }
+        }
+
+        /**
+         * Проверяет структурные инварианты дерева: согласованность связей, порядок хэш-кодов
+         * и правила раскраски красно-чёрного дерева.
+         *
+         * @return true, если инварианты соблюдены
+         */
+        static <K, V> boolean checkInvariants(TreeNode<K, V> node) {
+            TreeNode<K, V> parent = node.parent, left = node.left, right = node.right,
+                    prev = node.prev, next = (TreeNode<K, V>) node.next;
+            if (prev != null && prev.next != node) return false;
+            if (next != null && next.prev != node) return false;
+            if (parent != null && node != parent.left && node != parent.right) return false;
+            if (left != null && (left.parent != node || left.hash > node.hash)) return false;
+            if (right != null && (right.parent != node || right.hash < node.hash)) return false;
+            if (node.red && (left != null && left.red || right != null && right.red)) return false;
+            if (left != null && !checkInvariants(left)) return false;
+            return right == null || checkInvariants(right);
+        }
+    }
+
+    /**
+     * Возвращает класс ключа, если он реализует Comparable самого себя (например, {@code class C implements
+     * Comparable<C>}), иначе null.
+     */
+    static Class<?> comparableClassFor(Object key) {
+        if (!(key instanceof Comparable)) return null;
+        Class<?> keyClass = key.getClass();
+        if (keyClass == String.class) return keyClass;
+        for (java.lang.reflect.Type type : keyClass.getGenericInterfaces()) {
+            if (type instanceof java.lang.reflect.ParameterizedType parameterized
+                    && parameterized.getRawType() == Comparable.class) {
+                java.lang.reflect.Type[] arguments = parameterized.getActualTypeArguments();
+                if (arguments.length == 1 && arguments[0] == keyClass) return keyClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Сравнивает ключи через compareTo, если другой ключ принадлежит классу keyClass, иначе возвращает 0.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Class<?> keyClass, Object key, Object other) {
+        return other == null || other.getClass() != keyClass ? 0 : ((Comparable) key).compareTo(other);
+    }
+
+    /**
+     * Определяет порядок ключей с равными хэш-кодами, которые нельзя сравнить через compareTo.
+     * Порядок не обязан быть согласован с equals - он лишь позволяет вставить узел в дерево.
+     */
+    static int tieBreakOrder(Object key, Object other) {
+        int order;
+        if (key == null || other == null
+                || (order = key.getClass().getName().compareTo(other.getClass().getName())) == 0) {
+            order = System.identityHashCode(key) <= System.identityHashCode(other) ? -1 : 1;
+        }
+        return order;
+    }
+
     /**
      * Механизм перехэширования  хэш-таблиы.
      * При условии, что текущее количество элементов в CustomHashMap достигло значения growBorder, определяемого как:
      * размер хэш-таблицы * коэффициент заполнения, просиходит создание нового экземпляра хэш-таблицы с увеличенной
-     * в 2 раза размерностью, вычислением нового значения для поля growBorder, а также перемещением элементов
-     * одновременно с пересчётом хэш-кода ключей.
+     * в 2 раза размерностью, вычислением нового значения для поля growBorder, а также перемещением элементов.
+     * Узлы не пересоздаются: каждая цепочка разделяется по сохранённому в узле хэш-коду на две части,
+     * одна из которых остаётся в бакете с прежним индексом, а другая переходит в бакет с индексом index + oldCapacity.
+     * В режиме постепенного перехэширования перенос узлов откладывается (см. {@link #migrateBuckets(int)}).
      */
     private void growMapIfAchieveBorder() {
-        if (size == growBorder) {
-            Node<K, V>[] temp = table;
-            size = 0;
-            tableCapacity = tableCapacity * 2;
-            growBorder = (int) (tableCapacity * loadFactor);
-            table = (Node<K, V>[]) new Node[tableCapacity];
-            for (Node<K, V> node : temp) {
-                for (; node != null; node = node.next) {
-                    putMapping(node.getKey(), node.getValue());
+        if (size >= growBorder) resize();
+    }
+
+    /**
+     * Удваивает размер хэш-таблицы (см. {@link #growMapIfAchieveBorder()}).
+     */
+    private void resize() {
+        int oldCapacity = tableCapacity;
+        if (oldCapacity >= MAXIMUM_CAPACITY) {
+            growBorder = Integer.MAX_VALUE;
+            return;
+        }
+        MapStatistics.Counters counters = this.counters;
+        long start = counters == null ? 0L : System.nanoTime();
+        MapResizeEvent event = new MapResizeEvent();
+        event.begin();
+        finishMigration();
+        Node<K, V>[] previous = table;
+        tableCapacity = oldCapacity << 1;
+        updateBorders();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] grown = (Node<K, V>[]) new Node[tableCapacity];
+        table = grown;
+        if (incrementalResize) {
+            oldTable = previous;
+            migrationIndex = 0;
+        } else {
+            for (int index = 0; index < oldCapacity; index++) {
+                Node<K, V> head = previous[index];
+                if (head != null) {
+                    previous[index] = null;
+                    splitBucket(head, index, oldCapacity, table);
                 }
             }
         }
+        if (counters != null) counters.recordResize(System.nanoTime() - start);
+        event.complete(this, oldCapacity, tableCapacity, size, incrementalResize);
+    }
+
+    /**
+     * Уменьшает хэш-таблицу до указанного размера. Цепочки бакетов index, index + capacity, index + 2 * capacity
+     * и т.д. объединяются в бакет index; бакеты-деревья предварительно преобразуются в цепочки, а получившиеся
+     * длинные цепочки снова преобразуются в деревья. Уменьшение выполняется сразу, в том числе в режиме
+     * постепенного перехэширования, и считается структурным изменением CustomHashMap.
+     *
+     * @param capacity новый размер хэш-таблицы - степень двойки, меньшая текущего размера
+     */
+    private void shrink(int capacity) {
+        int oldCapacity = tableCapacity;
+        MapStatistics.Counters counters = this.counters;
+        long start = counters == null ? 0L : System.nanoTime();
+        MapResizeEvent event = new MapResizeEvent();
+        event.begin();
+        finishMigration();
+        Node<K, V>[] previous = table;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] tab = (Node<K, V>[]) new Node[capacity];
+        for (int index = 0; index < oldCapacity; index++) {
+            Node<K, V> head = previous[index];
+            if (head == null) continue;
+            if (head instanceof TreeNode<K, V> treeHead) head = treeHead.untreeify(this);
+            Node<K, V> tail = head;
+            while (tail.next != null) tail = tail.next;
+            int newIndex = index & (capacity - 1);
+            tail.next = tab[newIndex];
+            tab[newIndex] = head;
+        }
+        table = tab;
+        tableCapacity = capacity;
+        updateBorders();
+        modCount++;
+        if (capacity >= MIN_TREEIFY_CAPACITY) {
+            for (Node<K, V> head : tab) {
+                int length = 0;
+                for (Node<K, V> node = head; node != null && length < TREEIFY_THRESHOLD; node = node.next) length++;
+                if (length >= TREEIFY_THRESHOLD) treeifyBucket(head.hash);
+            }
+        }
+        if (counters != null) counters.recordResize(System.nanoTime() - start);
+        event.complete(this, oldCapacity, capacity, size, false);
+    }
+
+    /**
+     * Уменьшает хэш-таблицу, если после удаления количество элементов опустилось ниже shrinkBorder. Новый размер
+     * выбирается так, чтобы коэффициент заполнения стал меньше половины loadFactor: между уменьшением и следующим
+     * ростом хэш-таблицы должно произойти не меньше tableCapacity * loadFactor / 2 добавлений.
+     */
+    private void shrinkIfBelowBorder() {
+        if (size < shrinkBorder) shrink(Math.max(minimumCapacity, capacityFor(2L * size, loadFactor)));
+    }
+
+    /**
+     * Пересчитывает growBorder и shrinkBorder для текущего размера хэш-таблицы.
+     */
+    private void updateBorders() {
+        growBorder = computeGrowBorder(tableCapacity);
+        shrinkBorder = tableCapacity > minimumCapacity ? (int) (tableCapacity * shrinkLoadFactor) : 0;
+    }
+
+    /**
+     * Переносит в table очередные бакеты старой хэш-таблицы, просматривая не более указанного количества бакетов.
+     * По завершении переноса старая хэш-таблица освобождается.
+     *
+     * @param bucketCount максимальное количество просматриваемых бакетов старой хэш-таблицы
+     */
+    private void migrateBuckets(int bucketCount) {
+        Node<K, V>[] old = oldTable;
+        int index = migrationIndex;
+        int end = (int) Math.min(old.length, (long) index + bucketCount);
+        for (; index < end; index++) {
+            Node<K, V> head = old[index];
+            if (head != null) {
+                old[index] = null;
+                splitBucket(head, index, old.length, table);
+            }
+        }
+        migrationIndex = index;
+        if (index == old.length) oldTable = null;
+    }
+
+    /**
+     * Выполняет шаг постепенного перехэширования перед изменением бакета с указанным хэш-кодом: бакет старой
+     * хэш-таблицы, соответствующий хэш-коду, переносится вне очереди, чтобы изменение выполнялось только в table.
+     *
+     * @param keyHash хэш-код ключа изменяемого бакета
+     */
+    private void migrateBeforeUpdate(int keyHash) {
+        Node<K, V>[] old = oldTable;
+        if (old == null) return;
+        int index = keyHash & (old.length - 1);
+        Node<K, V> head = old[index];
+        if (head != null) {
+            old[index] = null;
+            splitBucket(head, index, old.length, table);
+        }
+        migrateBuckets(MIGRATION_STEP);
+    }
+
+    /**
+     * Завершает выполняемое постепенное перехэширование, перенося все оставшиеся бакеты старой хэш-таблицы.
+     */
+    private void finishMigration() {
+        if (oldTable != null) migrateBuckets(oldTable.length);
+    }
+
+    /**
+     * Возвращает true, если выполняется постепенное перехэширование и часть узлов находится в старой хэш-таблице.
+     *
+     * @return true, если перенос узлов в новую хэш-таблицу не завершён
+     */
+    boolean isResizeInProgress() {
+        return oldTable != null;
+    }
+
+    /**
+     * Переносит цепочку узлов бакета старой хэш-таблицы в хэш-таблицу удвоенного размера с сохранением
+     * порядка узлов. Бит хэш-кода, соответствующий oldCapacity, определяет, остаётся ли узел в бакете index
+     * или переходит в бакет index + oldCapacity. Бакет-дерево разделяется методом {@link TreeNode#split}.
+     *
+     * @param head        первый узел цепочки
+     * @param index       индекс бакета в старой хэш-таблице
+     * @param oldCapacity размер старой хэш-таблицы
+     * @param newTable    новая хэш-таблица
+     */
+    private void splitBucket(Node<K, V> head, int index, int oldCapacity, Node<K, V>[] newTable) {
+        if (head instanceof TreeNode<K, V> treeHead) {
+            treeHead.split(this, newTable, index, oldCapacity);
+            return;
+        }
+        if (head.next == null) {
+            newTable[head.hash & (newTable.length - 1)] = head;
+            return;
+        }
+        Node<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+        for (Node<K, V> node = head, next; node != null; node = next) {
+            next = node.next;
+            if ((node.hash & oldCapacity) == 0) {
+                if (loTail == null) loHead = node;
+                else loTail.next = node;
+                loTail = node;
+            } else {
+                if (hiTail == null) hiHead = node;
+                else hiTail.next = node;
+                hiTail = node;
+            }
+        }
+        if (loTail != null) {
+            loTail.next = null;
+            newTable[index] = loHead;
+        }
+        if (hiTail != null) {
+            hiTail.next = null;
+            newTable[index + oldCapacity] = hiHead;
+        }
+    }
+
+    /**
+     * Вычисляет значение growBorder для хэш-таблицы указанного размера.
+     *
+     * @param capacity размер хэш-таблицы
+     * @return количество элементов, по достижению которого происходит перехэширование
+     */
+    private int computeGrowBorder(int capacity) {
+        return capacity >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * loadFactor);
+    }
+
+    /**
+     * Возвращает наименьшую степень двойки, не меньшую указанного размера хэш-таблицы.
+     *
+     * @param capacity требуемый размер хэш-таблицы
+     * @return размер хэш-таблицы, являющийся степенью двойки
+     */
+    static int tableSizeFor(int capacity) {
+        if (capacity <= 1) return 1;
+        if (capacity >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+        return Integer.highestOneBit(capacity - 1) << 1;
     }
 
     /**
@@ -174,7 +1073,7 @@ public class CustomHashMap<K, V> implements Map<K, V> {
      */
     @Override
     public boolean containsKey(Object key) {
-        return get(key) != null;
+        return getNode(key) != null;
     }
 
     /**
@@ -186,11 +1085,13 @@ public class CustomHashMap<K, V> implements Map<K, V> {
      */
     @Override
     public boolean containsValue(Object value) {
-        if (table != null) {
-            for (Node<K, V> node : table) {
-                for (; node != null; node = node.next) {
-                    if (Objects.equals(node.getValue(), value)) return true;
-                }
+        return containsValue(table, value) || oldTable != null && containsValue(oldTable, value);
+    }
+
+    private static <K, V> boolean containsValue(Node<K, V>[] tab, Object value) {
+        for (Node<K, V> node : tab) {
+            for (; node != null; node = node.next) {
+                if (Objects.equals(node.getValue(), value)) return true;
             }
         }
         return false;
@@ -204,167 +1105,1255 @@ public class CustomHashMap<K, V> implements Map<K, V> {
      */
     @Override
     public V get(Object key) {
-        int keyHashCode = hash(key);
-        int indexOfBucket = computeBucketIndex(keyHashCode);
-        if (table[indexOfBucket] == null) return null;
-        for (Node<K, V> current = table[indexOfBucket]; current != null; current = current.next) {
-            if (Objects.equals(current.getKey(), key)) return current.getValue();
-        }
-        return null;
+        MapStatistics.Counters counters = this.counters;
+        Node<K, V> node = counters == null ? getNode(key) : getNodeCounted(key, counters);
+        if (node == null) return null;
+        afterNodeAccess(node);
+        return node.getValue();
     }
 
     /**
-     * Выполняет добавление пары ключ-значение, если пары с указанным ключом не существует. В противном случае
-     * выполняется обновление пары ключ-значение в виде перезаписи существующего значения, указанным.
+     * Выполняет поиск узла с указанным ключом. Перед вызовом equals сравниваются сохранённые в узлах хэш-коды.
      *
-     * @param key   ключ, который должен быть ассоциирован с указанным значением
-     * @param value значение, которое должно быть ассоциировано с указанным ключом
-     * @return возвращает null, если указанная пара ключ-значение отсутствует. Значение, которое ранее
-     * ассоциировалось с указанным ключом, если указанный ключ присутсвует.
+     * @param key ключ искомого узла
+     * @return узел с указанным ключом или null, если такой узел отсутствует
      */
-    @Override
-    public V put(K key, V value) {
-        if (value == null) throw new NullPointerException();
-        int oldSize = size;
-        V oldValue = putMapping(key, value);
-        if (size > oldSize) growMapIfAchieveBorder();
-        return oldValue;
-    }
-
-    private V putMapping(K key, V value) {
-        int keyHashCode = hash(key);
-        int indexOfBucket = computeBucketIndex(keyHashCode);
-        Node<K, V> newNode = new Node<>(keyHashCode, key, value, null);
-        if (table[indexOfBucket] == null) {
-            table[indexOfBucket] = newNode;
-            this.size++;
-            return null;
-        }
-
-        Node<K, V> current;
-        for (current = table[indexOfBucket]; current != null; current = current.next) {
-            if (Objects.equals(current.getKey(), key)) return current.setValue(value);
-            if (current.next == null) break;
+    private Node<K, V> getNode(Object key) {
+        int keyHashCode = hashOf(key);
+        Node<K, V> head = bucketHead(keyHashCode);
+        if (head instanceof TreeNode<K, V> treeHead) return treeHead.getTreeNode(keyHashCode, key);
+        for (Node<K, V> current = head; current != null; current = current.next) {
+            if (current.hash == keyHashCode && keyEquals(current.key, key)) return current;
         }
-
-        assert current != null;
-        current.next = newNode;
-        this.size++;
         return null;
     }
 
     /**
-     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     * Выполняет поиск узла аналогично {@link #getNode(Object)}, учитывая в счётчиках статистики результат поиска
+     * и количество просмотренных узлов цепочки. Длина поиска в бакете-дереве не учитывается: она ограничена
+     * логарифмом количества узлов.
      *
-     * @param key ключ пары ключ-значение, которая должна быть удалена
-     * @return возвращает null, если пара ключ-значение с указанным ключом отсутствует. Значение, удалённой
-     * пары ключ-значение.
+     * @param key      ключ искомого узла
+     * @param counters счётчики статистики
+     * @return узел с указанным ключом или null, если такой узел отсутствует
      */
-    @Override
-    public V remove(Object key) {
-        int keyHashCode = hash(key);
-        int indexOfBucket = computeBucketIndex(keyHashCode);
-        Node<K, V> current;
-        if ((current = table[indexOfBucket]) == null) return null;
-
-        if (Objects.equals(current.getKey(), key)) {
-            V oldValue = current.getValue();
-            table[indexOfBucket] = current.next;
-            size--;
-            return oldValue;
+    private Node<K, V> getNodeCounted(Object key, MapStatistics.Counters counters) {
+        int keyHashCode = hashOf(key);
+        Node<K, V> head = bucketHead(keyHashCode);
+        Node<K, V> found = null;
+        if (head instanceof TreeNode<K, V> treeHead) found = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            int probes = 0;
+            for (Node<K, V> current = head; current != null; current = current.next) {
+                probes++;
+                if (current.hash == keyHashCode && keyEquals(current.key, key)) {
+                    found = current;
+                    break;
+                }
+            }
+            counters.recordProbes(probes);
+            if (probes >= LongChainScanEvent.THRESHOLD) {
+                LongChainScanEvent.emit(this, "get", key, keyHashCode, computeBucketIndex(keyHashCode), probes);
+            }
         }
+        counters.recordLookup(found != null);
+        return found;
+    }
 
-        for (; current != null; current = current.next) {
-            Node<K, V> verifiable = current.next;
-            if (Objects.equals(verifiable.getKey(), key)) {
-                V oldValue = verifiable.getValue();
-                current.next = verifiable.next;
-                size--;
-                return oldValue;
+    /**
+     * Возвращает значение, связанное с ключом, содержимое которого совпадает с участком массива байт, не создавая
+     * объект-ключ. Хэш-код и сравнение участка выполняет стратегия, заданная при создании CustomHashMap.
+     * Поиск учитывается как обращение get, но не в счётчиках статистики.
+     *
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return значение или null, если ключ отсутствует
+     * @throws UnsupportedOperationException если стратегия не задана или не поддерживает участки массивов байт
+     */
+    public V get(byte[] array, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, array.length);
+        HashingStrategy<? super K> strategy = requireStrategy();
+        int keyHashCode = spread(strategy.hashCode(array, offset, length));
+        for (Node<K, V> node = bucketHead(keyHashCode); node != null; node = node.next) {
+            if (node.hash == keyHashCode && node.key != null && strategy.equals(node.key, array, offset, length)) {
+                afterNodeAccess(node);
+                return node.getValue();
             }
         }
         return null;
     }
 
+    /**
+     * Возвращает значение, связанное с ключом, содержимое которого совпадает с участком массива символов,
+     * не создавая объект-ключ (см. {@link #get(byte[], int, int)}).
+     *
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return значение или null, если ключ отсутствует
+     * @throws UnsupportedOperationException если стратегия не задана или не поддерживает участки массивов символов
+     */
+    public V get(char[] array, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, array.length);
+        HashingStrategy<? super K> strategy = requireStrategy();
+        int keyHashCode = spread(strategy.hashCode(array, offset, length));
+        for (Node<K, V> node = bucketHead(keyHashCode); node != null; node = node.next) {
+            if (node.hash == keyHashCode && node.key != null && strategy.equals(node.key, array, offset, length)) {
+                afterNodeAccess(node);
+                return node.getValue();
+            }
+        }
+        return null;
+    }
+
+    private HashingStrategy<? super K> requireStrategy() {
+        if (strategy == null) throw new UnsupportedOperationException("Стратегия хэширования не задана");
+        return strategy;
+    }
+
+    /**
+     * Возвращает первый узел бакета с указанным хэш-кодом. Во время постепенного перехэширования выполняет
+     * очередной шаг переноса и ищет бакет сначала в старой хэш-таблице.
+     *
+     * @param keyHashCode хэш-код ключа
+     * @return первый узел бакета или null
+     */
+    private Node<K, V> bucketHead(int keyHashCode) {
+        Node<K, V>[] old = oldTable;
+        if (old == null) return table[computeBucketIndex(keyHashCode)];
+        migrateBuckets(MIGRATION_STEP);
+        Node<K, V> head = old[keyHashCode & (old.length - 1)];
+        return head != null ? head : table[computeBucketIndex(keyHashCode)];
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение, если пары с указанным ключом не существует. В противном случае
+     * выполняется обновление пары ключ-значение в виде перезаписи существующего значения, указанным.
+     *
+     * @param key   ключ, который должен быть ассоциирован с указанным значением
+     * @param value значение, которое должно быть ассоциировано с указанным ключом
+     * @return возвращает null, если указанная пара ключ-значение отсутствует. Значение, которое ранее
+     * ассоциировалось с указанным ключом, если указанный ключ присутсвует.
+     */
+    @Override
+    public V put(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        return putMapping(hashOf(key), key, value, false);
+    }
+
+    /**
+     * Добавляет пару ключ-значение или, если onlyIfAbsent равен false, заменяет значение существующей пары
+     * за один просмотр бакета.
+     *
+     * @param keyHashCode  хэш-код ключа
+     * @param key          ключ
+     * @param value        значение, не null
+     * @param onlyIfAbsent true - не заменять значение существующей пары
+     * @return прежнее значение или null, если пара была добавлена
+     */
+    private V putMapping(int keyHashCode, K key, V value, boolean onlyIfAbsent) {
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], existing = null, tail = null;
+        int chainLength = 0;
+        if (head instanceof TreeNode<K, V> treeHead) {
+            existing = treeHead.putTreeVal(this, table, keyHashCode, key, value);
+            if (existing == null) {
+                completeInsertion();
+                return null;
+            }
+        } else {
+            for (existing = head; existing != null; tail = existing, existing = existing.next, chainLength++) {
+                if (existing.hash == keyHashCode && keyEquals(existing.key, key)) break;
+            }
+            if (existing == null) {
+                linkNode(indexOfBucket, tail, chainLength, keyHashCode, key, value);
+                return null;
+            }
+        }
+        if (onlyIfAbsent) {
+            afterNodeAccess(existing);
+            return existing.value;
+        }
+        return updateValue(existing, value);
+    }
+
+    private V updateValue(Node<K, V> node, V value) {
+        V oldValue = node.setValue(value);
+        afterNodeUpdate(node);
+        return oldValue;
+    }
+
+    /**
+     * Добавляет новый узел в конец цепочки бакета, в котором ключ не найден, и при необходимости преобразует
+     * цепочку в дерево и увеличивает хэш-таблицу.
+     *
+     * @param indexOfBucket индекс бакета в table
+     * @param tail          последний узел цепочки или null, если бакет пуст
+     * @param chainLength   количество узлов цепочки
+     */
+    private void linkNode(int indexOfBucket, Node<K, V> tail, int chainLength, int keyHashCode, K key, V value) {
+        Node<K, V> node = newNode(keyHashCode, key, value, null);
+        if (tail == null) table[indexOfBucket] = node;
+        else tail.next = node;
+        if (chainLength >= TREEIFY_THRESHOLD) {
+            LongChainScanEvent.emit(this, "put", key, keyHashCode, indexOfBucket, chainLength);
+            treeifyBucket(keyHashCode);
+        }
+        completeInsertion();
+    }
+
+    /**
+     * Учитывает добавленный узел: увеличивает количество пар ключ-значение, при достижении growBorder
+     * выполняет перехэширование и уведомляет наследников.
+     */
+    private void completeInsertion() {
+        size++;
+        modCount++;
+        growMapIfAchieveBorder();
+        afterNodeInsertion();
+    }
+
+    /**
+     * Удаляет найденный узел из бакета table.
+     *
+     * @param indexOfBucket индекс бакета
+     * @param previous      предыдущий узел цепочки или null, если узел первый (для бакета-дерева не используется)
+     * @param node          удаляемый узел
+     * @param movable       false - при удалении через итератор (см. {@link TreeNode#removeTreeNode})
+     */
+    private void unlinkNode(int indexOfBucket, Node<K, V> previous, Node<K, V> node, boolean movable) {
+        beforeNodeRemoval(node);
+        if (node instanceof TreeNode<K, V> treeNode) treeNode.removeTreeNode(this, table, movable);
+        else if (previous == null) table[indexOfBucket] = node.next;
+        else previous.next = node.next;
+        size--;
+        modCount++;
+        afterNodeRemoval(node);
+    }
+
+    /**
+     * Добавляет пару ключ-значение, только если указанный ключ отсутствует. Выполняется за один просмотр бакета.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return текущее значение ключа или null, если пара была добавлена
+     * @throws NullPointerException если value равно null
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        return putMapping(hashOf(key), key, value, true);
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом, или defaultValue, если ключ отсутствует.
+     *
+     * @param key          ключ
+     * @param defaultValue значение по умолчанию
+     * @return значение ключа или defaultValue
+     */
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        MapStatistics.Counters counters = this.counters;
+        Node<K, V> node = counters == null ? getNode(key) : getNodeCounted(key, counters);
+        if (node == null) return defaultValue;
+        afterNodeAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Возвращает значение ключа, а если ключ отсутствует - вычисляет его функцией и добавляет пару ключ-значение
+     * в найденный при поиске бакет без повторного поиска. Если функция вернула null, пара не добавляется.
+     *
+     * @param key             ключ
+     * @param mappingFunction функция вычисления значения
+     * @return текущее или вычисленное значение, либо null
+     * @throws ConcurrentModificationException если функция структурно изменила CustomHashMap
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int keyHashCode = hashOf(key);
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], node, tail = null;
+        int chainLength = 0;
+        if (head instanceof TreeNode<K, V> treeHead) node = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            for (node = head; node != null; tail = node, node = node.next, chainLength++) {
+                if (node.hash == keyHashCode && keyEquals(node.key, key)) break;
+            }
+        }
+        if (node != null) {
+            afterNodeAccess(node);
+            return node.value;
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        if (value == null) return null;
+        insertAbsent(indexOfBucket, tail, chainLength, keyHashCode, key, value);
+        return value;
+    }
+
+    /**
+     * Если ключ присутствует, заменяет его значение результатом функции, а если функция вернула null - удаляет
+     * пару ключ-значение. Выполняется за один просмотр бакета.
+     *
+     * @param key               ключ
+     * @param remappingFunction функция вычисления нового значения по ключу и текущему значению
+     * @return новое значение или null
+     * @throws ConcurrentModificationException если функция структурно изменила CustomHashMap
+     */
+    @Override
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int keyHashCode = hashOf(key);
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], node, previous = null;
+        if (head instanceof TreeNode<K, V> treeHead) node = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            for (node = head; node != null; previous = node, node = node.next) {
+                if (node.hash == keyHashCode && keyEquals(node.key, key)) break;
+            }
+        }
+        if (node == null) return null;
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, node.value);
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        return remap(indexOfBucket, previous, node, value);
+    }
+
+    /**
+     * Вычисляет новое значение ключа по текущему значению (null, если ключ отсутствует). Если функция вернула
+     * null, пара ключ-значение удаляется, иначе добавляется или обновляется. Выполняется за один просмотр бакета.
+     *
+     * @param key               ключ
+     * @param remappingFunction функция вычисления нового значения
+     * @return новое значение или null
+     * @throws ConcurrentModificationException если функция структурно изменила CustomHashMap
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int keyHashCode = hashOf(key);
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], node, previous = null;
+        int chainLength = 0;
+        if (head instanceof TreeNode<K, V> treeHead) node = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            for (node = head; node != null; previous = node, node = node.next, chainLength++) {
+                if (node.hash == keyHashCode && keyEquals(node.key, key)) break;
+            }
+        }
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, node == null ? null : node.value);
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        if (node != null) return remap(indexOfBucket, previous, node, value);
+        if (value != null) insertAbsent(indexOfBucket, previous, chainLength, keyHashCode, key, value);
+        return value;
+    }
+
+    /**
+     * Если ключ отсутствует, добавляет пару ключ-значение, иначе заменяет значение результатом функции от текущего
+     * и указанного значений, а если функция вернула null - удаляет пару. Выполняется за один просмотр бакета.
+     *
+     * @param key               ключ
+     * @param value             значение, добавляемое или объединяемое с текущим, не null
+     * @param remappingFunction функция объединения значений
+     * @return новое значение или null
+     * @throws ConcurrentModificationException если функция структурно изменила CustomHashMap
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) throw new NullPointerException();
+        Objects.requireNonNull(remappingFunction);
+        int keyHashCode = hashOf(key);
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], node, previous = null;
+        int chainLength = 0;
+        if (head instanceof TreeNode<K, V> treeHead) node = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            for (node = head; node != null; previous = node, node = node.next, chainLength++) {
+                if (node.hash == keyHashCode && keyEquals(node.key, key)) break;
+            }
+        }
+        if (node == null) {
+            insertAbsent(indexOfBucket, previous, chainLength, keyHashCode, key, value);
+            return value;
+        }
+        int expectedModCount = modCount;
+        V merged = remappingFunction.apply(node.value, value);
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        return remap(indexOfBucket, previous, node, merged);
+    }
+
+    /**
+     * Добавляет пару ключ-значение, отсутствие которой установлено предшествующим просмотром бакета.
+     * В бакет-дерево узел добавляется методом {@link TreeNode#putTreeVal}.
+     */
+    private void insertAbsent(int indexOfBucket, Node<K, V> tail, int chainLength, int keyHashCode, K key, V value) {
+        if (table[indexOfBucket] instanceof TreeNode<K, V> treeHead) {
+            treeHead.putTreeVal(this, table, keyHashCode, key, value);
+            completeInsertion();
+        } else linkNode(indexOfBucket, tail, chainLength, keyHashCode, key, value);
+    }
+
+    /**
+     * Заменяет значение найденного узла или удаляет узел, если новое значение равно null.
+     *
+     * @return новое значение
+     */
+    private V remap(int indexOfBucket, Node<K, V> previous, Node<K, V> node, V value) {
+        if (value == null) {
+            unlinkNode(indexOfBucket, previous, node, true);
+            shrinkIfBelowBorder();
+        } else updateValue(node, value);
+        return value;
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return возвращает null, если пара ключ-значение с указанным ключом отсутствует. Значение, удалённой
+     * пары ключ-значение.
+     */
+    @Override
+    public V remove(Object key) {
+        Node<K, V> removed = removeNode(key, true);
+        if (removed == null) return null;
+        shrinkIfBelowBorder();
+        return removed.getValue();
+    }
+
+    /**
+     * Удаляет из хэш-таблицы узел с указанным ключом. Хэш-таблица не уменьшается, поэтому метод используется
+     * итераторами представлений.
+     *
+     * @param key     ключ пары ключ-значение, которая должна быть удалена
+     * @param movable false - при удалении через итератор: бакет-дерево не перестраивается
+     * @return удалённый узел или null, если пара ключ-значение с указанным ключом отсутствует
+     */
+    private Node<K, V> removeNode(Object key, boolean movable) {
+        int keyHashCode = hashOf(key);
+        migrateBeforeUpdate(keyHashCode);
+        int indexOfBucket = computeBucketIndex(keyHashCode);
+        Node<K, V> head = table[indexOfBucket], node, previous = null;
+        if (head instanceof TreeNode<K, V> treeHead) node = treeHead.getTreeNode(keyHashCode, key);
+        else {
+            for (node = head; node != null; previous = node, node = node.next) {
+                if (node.hash == keyHashCode && keyEquals(node.key, key)) break;
+            }
+        }
+        if (node != null) unlinkNode(indexOfBucket, previous, node, movable);
+        return node;
+    }
+
     /**
      * Выполняет добавление ассоциативного массива пар ключ-значение, если пар с указанным ключом не существует. В противном случае
      * выполняется обновление пар ключ-значение в виде перезаписи существующих значений, представленными в указанном
      * ассоциативном массиве.
+     * Хэш-таблица заранее увеличивается один раз до размера, достаточного для size() + map.size() пар
+     * ключ-значение. Если map является CustomHashMap, сохранённые в её узлах хэш-коды используются повторно.
      *
      * @param map   ассоциативный массив, пары ключ-значения которого долдны быть добавлены
      */
     @Override
     public void putAll(Map<? extends K, ? extends V> map) {
         if (map != null && map.size() > 0) {
+            presize((long) size + map.size());
+            boolean sameStrategy = map instanceof CustomHashMap<?, ?> source && source.strategy == strategy;
             for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-                put(entry.getKey(), entry.getValue());
+                V value = entry.getValue();
+                if (value == null) throw new NullPointerException();
+                int keyHashCode = entry instanceof Node<?, ?> node && sameStrategy ? node.hash : hashOf(entry.getKey());
+                putMapping(keyHashCode, entry.getKey(), value, false);
             }
         }
     }
 
     /**
-     * Удаляет все элементы хэш-таблицы.
+     * Добавляет пары ключ-значение из двух массивов одинаковой длины: keys[i] связывается с values[i].
+     * Хэш-таблица заранее увеличивается один раз. Значения проверяются до изменения CustomHashMap.
+     *
+     * @param keys   ключи
+     * @param values значения, не null
+     * @throws IllegalArgumentException если длины массивов различаются
+     * @throws NullPointerException     если массив или одно из значений равно null
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Длины массивов различаются: " + keys.length + " и " + values.length);
+        }
+        for (V value : values) {
+            if (value == null) throw new NullPointerException();
+        }
+        presize((long) size + keys.length);
+        for (int index = 0; index < keys.length; index++) {
+            K key = keys[index];
+            putMapping(hashOf(key), key, values[index], false);
+        }
+    }
+
+    /**
+     * Возвращает пары ключ-значение для указанных ключей, присутствующих в CustomHashMap. Отсутствующие ключи
+     * в результат не попадают. Каждый найденный ключ учитывается как обращение get.
+     *
+     * @param keys ключи
+     * @return новая CustomHashMap, размер хэш-таблицы которой выбран по количеству ключей
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        CustomHashMap<K, V> result = new CustomHashMap<>(capacityFor(keys.size(), DEFAULT_LOAD_FACTOR),
+                DEFAULT_LOAD_FACTOR, false, strategy);
+        MapStatistics.Counters counters = this.counters;
+        for (K key : keys) {
+            Node<K, V> node = counters == null ? getNode(key) : getNodeCounted(key, counters);
+            if (node == null) continue;
+            afterNodeAccess(node);
+            result.putMapping(node.hash, node.key, node.value, false);
+        }
+        return result;
+    }
+
+    /**
+     * Создаёт неизменяемую копию CustomHashMap с поиском за одну пробу (см. {@link FrozenHashMap}).
+     * Предназначена для таблиц, которые заполняются при запуске и затем только читаются. Последующие изменения
+     * CustomHashMap на копию не влияют.
+     *
+     * @return неизменяемая копия
+     */
+    public FrozenHashMap<K, V> freeze() {
+        if (strategy != null) throw new UnsupportedOperationException("FrozenHashMap не поддерживает стратегии");
+        return FrozenHashMap.copyOf(this);
+    }
+
+    /**
+     * Увеличивает хэш-таблицу так, чтобы добавление указанного количества пар ключ-значение не вызывало
+     * перехэширования. Пустая хэш-таблица заменяется новой, заполненная - удваивается нужное число раз.
+     *
+     * @param expectedSize ожидаемое количество пар ключ-значение
+     */
+    void presize(long expectedSize) {
+        if (expectedSize < growBorder) return;
+        int capacity = capacityFor(expectedSize, loadFactor);
+        if (size == 0 && oldTable == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Node<K, V>[] presized = (Node<K, V>[]) new Node[capacity];
+            table = presized;
+            tableCapacity = capacity;
+            updateBorders();
+            return;
+        }
+        while (tableCapacity < capacity) resize();
+    }
+
+    /**
+     * Увеличивает хэш-таблицу так, чтобы добавление пар ключ-значение до указанного количества не вызывало
+     * перехэширования.
+     *
+     * @param expectedSize ожидаемое количество пар ключ-значение
+     * @throws IllegalArgumentException если expectedSize отрицательно
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Недопустимое количество элементов: " + expectedSize);
+        int capacity = tableCapacity;
+        presize(expectedSize);
+        if (tableCapacity != capacity) modCount++;
+    }
+
+    /**
+     * Уменьшает хэш-таблицу до наименьшего размера, вмещающего текущие пары ключ-значение без перехэширования,
+     * освобождая память, занятую после массового удаления. Размер, заданный при создании, не учитывается.
+     */
+    public void trimToSize() {
+        int capacity = capacityFor(size, loadFactor);
+        if (capacity < tableCapacity) shrink(capacity);
+    }
+
+    /**
+     * Задаёт нижний порог коэффициента заполнения: если после удаления пары ключ-значение количество пар
+     * опускается ниже tableCapacity * shrinkLoadFactor, хэш-таблица уменьшается так, чтобы коэффициент заполнения
+     * стал меньше loadFactor / 2, но не меньше размера, заданного при создании. Порог должен быть меньше
+     * loadFactor / 2, иначе рост хэш-таблицы сразу вызывал бы её уменьшение; разница между порогами определяет
+     * гистерезис. Удаление через итератор хэш-таблицу не уменьшает. По умолчанию порог равен 0 (уменьшение выключено).
+     *
+     * @param shrinkLoadFactor нижний порог коэффициента заполнения, например loadFactor / 8; 0 - выключить
+     * @throws IllegalArgumentException если порог отрицателен или не меньше loadFactor / 2
+     */
+    public void setShrinkLoadFactor(float shrinkLoadFactor) {
+        if (!(shrinkLoadFactor >= 0 && shrinkLoadFactor < loadFactor / 2)) {
+            throw new IllegalArgumentException("Недопустимый нижний порог коэффициента заполнения: " + shrinkLoadFactor);
+        }
+        this.shrinkLoadFactor = shrinkLoadFactor;
+        updateBorders();
+    }
+
+    /**
+     * Возвращает нижний порог коэффициента заполнения (см. {@link #setShrinkLoadFactor(float)}).
+     *
+     * @return нижний порог коэффициента заполнения; 0, если уменьшение выключено
+     */
+    public float getShrinkLoadFactor() {
+        return shrinkLoadFactor;
+    }
+
+    /**
+     * Возвращает размер хэш-таблицы, достаточный для хранения указанного количества пар ключ-значение
+     * без перехэширования.
+     */
+    private static int capacityFor(long expectedSize, float loadFactor) {
+        return tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, (long) (expectedSize / loadFactor) + 1));
+    }
+
+    /**
+     * Удаляет все элементы хэш-таблицы. Если хэш-таблица заполнена не меньше чем на четверть от loadFactor,
+     * она обнуляется за время, пропорциональное количеству элементов, и сохраняет размер для повторного заполнения.
+     * Иначе (например, после массового удаления или в CustomHashMap, созданной с большим запасом) хэш-таблица
+     * не просматривается, а заменяется новой, вмещающей прежнее количество элементов без перехэширования, но
+     * не меньшей размера, заданного при создании. Память нового массива обнуляет JVM при выделении, поэтому
+     * при большом размере, заданном при создании, очистка почти пустой CustomHashMap всё равно стоит времени,
+     * пропорционального этому размеру.
      */
     @Override
     public void clear() {
         if (table != null && size > 0) {
+            modCount++;
+            oldTable = null;
+            if (size < growBorder >>> 2) {
+                tableCapacity = Math.max(minimumCapacity, capacityFor(size, loadFactor));
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Node<K, V>[] shrunk = (Node<K, V>[]) new Node[tableCapacity];
+                table = shrunk;
+                updateBorders();
+            } else Arrays.fill(table, null);
             size = 0;
-            Arrays.fill(table, null);
         }
     }
 
     /**
-     * Возвращает множество хранящихся в Map ключей.
+     * Возвращает множество хранящихся в Map ключей. Множество является представлением CustomHashMap:
+     * изменения CustomHashMap отражаются в нём, а удаление ключа из множества удаляет пару ключ-значение.
+     * Добавление элементов в множество не поддерживается.
      * @return возвращает Set ключей, представленных в Map
      */
     @Override
     public Set<K> keySet() {
-        Set<K> keySet = new HashSet<>();
-        if (size > 0) {
-            for (Node<K, V> node : table) {
-                for (; node != null; node = node.next) {
-                    keySet.add(node.getKey());
-                }
-            }
-        }
-        return keySet;
+        Set<K> view = keySet;
+        return view != null ? view : (keySet = new KeySet());
     }
 
     /**
-     * Возвращает множество хранящихся в Map значений.
+     * Возвращает коллекцию хранящихся в Map значений. Коллекция является представлением CustomHashMap:
+     * изменения CustomHashMap отражаются в ней, а удаление значения через итератор удаляет пару ключ-значение.
+     * Добавление элементов в коллекцию не поддерживается.
      * @return возвращает Collection значений, представленных в Map
      */
     @Override
     public Collection<V> values() {
-        Collection<V> values = new ArrayList<>();
-        if (size > 0) {
-            for (Node<K, V> node : table) {
-                for (; node != null; node = node.next) {
-                    values.add(node.getValue());
-                }
-            }
-        }
-        return values;
+        Collection<V> view = values;
+        return view != null ? view : (values = new Values());
     }
+
     /**
-     * Возвращает множество хранящихся в Map пар ключ-значение.
+     * Возвращает множество хранящихся в Map пар ключ-значение. Множество является представлением CustomHashMap:
+     * изменения CustomHashMap отражаются в нём, {@link Map.Entry#setValue(Object)} записывает значение в CustomHashMap,
+     * а удаление пары из множества удаляет её из CustomHashMap. Добавление элементов в множество не поддерживается.
      * @return Set пар ключ-значение, представленных в Map
      */
     @Override
     public Set<Entry<K, V>> entrySet() {
-        Set<Map.Entry<K, V>> entrySet = new HashSet<>();
-        if (size > 0) {
-            for (Node<K, V> node : table) {
-                for (; node != null; node = node.next) {
-                    entrySet.add(node);
+        Set<Map.Entry<K, V>> view = entrySet;
+        return view != null ? view : (entrySet = new EntrySet());
+    }
+
+    /**
+     * Представление ключей CustomHashMap.
+     */
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CustomHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            finishMigration();
+            return new KeySpliterator(0, table.length, size, modCount, true);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsKey(object);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            if (removeNode(key, true) == null) return false;
+            shrinkIfBelowBorder();
+            return true;
+        }
+    }
+
+    /**
+     * Представление значений CustomHashMap.
+     */
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CustomHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            finishMigration();
+            return new ValueSpliterator(0, table.length, size, modCount, true);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsValue(object);
+        }
+    }
+
+    /**
+     * Представление пар ключ-значение CustomHashMap. Элементами множества являются сами узлы хэш-таблицы.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CustomHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> spliterator() {
+            finishMigration();
+            return new EntrySpliterator(0, table.length, size, modCount, true);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+            Node<K, V> node = getNode(entry.getKey());
+            return node != null && node.value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!contains(object) || removeNode(((Map.Entry<?, ?>) object).getKey(), true) == null) return false;
+            shrinkIfBelowBorder();
+            return true;
+        }
+    }
+
+    /**
+     * Итератор, обходящий бакеты хэш-таблицы и цепочки узлов в них без создания промежуточных коллекций.
+     * Выбрасывает ConcurrentModificationException, если CustomHashMap была структурно изменена не через
+     * этот итератор после его создания.
+     */
+    private abstract class HashIterator {
+        private Node<K, V> next;
+        private Node<K, V> current;
+        private int expectedModCount;
+        private int index;
+
+        HashIterator() {
+            finishMigration();
+            expectedModCount = modCount;
+            if (size > 0) advanceToNextBucket();
+        }
+
+        private void advanceToNextBucket() {
+            Node<K, V>[] tab = table;
+            while (index < tab.length && (next = tab[index++]) == null) ;
+        }
+
+        public final boolean hasNext() {
+            return next != null;
+        }
+
+        final Node<K, V> nextNode() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            Node<K, V> node = next;
+            if (node == null) throw new NoSuchElementException();
+            current = node;
+            if ((next = node.next) == null) advanceToNextBucket();
+            return node;
+        }
+
+        public final void remove() {
+            Node<K, V> node = current;
+            if (node == null) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            current = null;
+            removeNode(node.getKey(), false);
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class KeyIterator extends HashIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().getKey();
+        }
+    }
+
+    private final class ValueIterator extends HashIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            return nextNode().getValue();
+        }
+    }
+
+    private final class EntryIterator extends HashIterator implements Iterator<Map.Entry<K, V>> {
+        @Override
+        public Map.Entry<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    /**
+     * Включает или выключает сбор статистики: подсчёт результатов get, длины просмотренных цепочек,
+     * количества и продолжительности перехэширований. При выключении накопленные счётчики сбрасываются.
+     * Выключенный сбор статистики стоит операции get одной проверки поля на null.
+     *
+     * @param enabled true - для включения сбора статистики
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        if (!enabled) counters = null;
+        else if (counters == null) counters = new MapStatistics.Counters();
+    }
+
+    /**
+     * Возвращает true, если сбор статистики включён.
+     *
+     * @return true, если сбор статистики включён
+     */
+    public boolean isStatisticsEnabled() {
+        return counters != null;
+    }
+
+    /**
+     * Возвращает накапливаемые счётчики статистики без обхода хэш-таблицы или null, если сбор статистики выключен.
+     * Используется {@link MapStatisticsBean}.
+     */
+    MapStatistics.Counters statisticsCounters() {
+        return counters;
+    }
+
+    /**
+     * Обнуляет накопленные счётчики статистики, если сбор статистики включён.
+     */
+    public void resetStatistics() {
+        if (counters != null) counters = new MapStatistics.Counters();
+    }
+
+    /**
+     * Возвращает снимок состояния хэш-таблицы. Снимок строится обходом всех бакетов, то есть за время,
+     * пропорциональное размеру хэш-таблицы, и не изменяет CustomHashMap (в том числе не продвигает
+     * постепенное перехэширование: бакеты старой хэш-таблицы учитываются как есть).
+     *
+     * @return снимок состояния хэш-таблицы
+     */
+    public MapStatistics statistics() {
+        long[] histogram = new long[MapStatistics.HISTOGRAM_LENGTH];
+        int maxChainLength = 0, treeBuckets = 0;
+        long bytes = 0;
+        for (Node<K, V>[] tab : Arrays.asList(table, oldTable)) {
+            if (tab == null) continue;
+            bytes += ARRAY_HEADER_BYTES + (long) tab.length * REFERENCE_BYTES;
+            for (Node<K, V> head : tab) {
+                if (head == null && tab == oldTable) continue;
+                if (head instanceof TreeNode) treeBuckets++;
+                int length = 0;
+                for (Node<K, V> node = head; node != null; node = node.next) {
+                    length++;
+                    bytes += node instanceof TreeNode ? TREE_NODE_BYTES
+                            : node instanceof LinkedNode ? LINKED_NODE_BYTES : NODE_BYTES;
+                }
+                histogram[Math.min(length, MapStatistics.HISTOGRAM_LENGTH - 1)]++;
+                maxChainLength = Math.max(maxChainLength, length);
+            }
+        }
+        int currentSize = size;
+        double bytesPerEntry = currentSize == 0 ? 0 : (double) bytes / currentSize;
+        return new MapStatistics(currentSize, tableCapacity, loadFactor, histogram, maxChainLength, treeBuckets,
+                bytesPerEntry, counters);
+    }
+
+    /**
+     * Регистрирует {@link MapStatisticsMXBean} этой CustomHashMap в платформенном MBeanServer под именем
+     * {@code custom.util:type=CustomHashMap,name=<name>}. Зарегистрированный MXBean удерживает CustomHashMap
+     * от сборки мусора, поэтому его следует удалить методом MBeanServer.unregisterMBean, когда CustomHashMap
+     * больше не нужна.
+     *
+     * @param name имя CustomHashMap, отличающее её от других зарегистрированных экземпляров
+     * @return имя зарегистрированного MXBean
+     * @throws JMException если имя некорректно или уже занято
+     */
+    public ObjectName registerMXBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("custom.util:type=CustomHashMap,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MapStatisticsBean(this), objectName);
+        return objectName;
+    }
+
+    /*
+     * Массовые операции в стиле ConcurrentHashMap. Параметр parallelismThreshold - количество пар ключ-значение,
+     * начиная с которого операция выполняется параллельно: Long.MAX_VALUE - всегда последовательно, 1 - с
+     * максимальным параллелизмом. Параллельная операция делит хэш-таблицу на диапазоны бакетов, обрабатываемые
+     * задачами общего ForkJoinPool, поэтому функции могут вызываться одновременно из нескольких потоков.
+     * CustomHashMap не должна изменяться во время массовой операции, иначе по её завершении будет выброшено
+     * ConcurrentModificationException. Массовые операции не считаются обращениями к парам ключ-значение.
+     */
+
+    /**
+     * Выполняет действие для каждой пары ключ-значение.
+     *
+     * @param parallelismThreshold количество пар ключ-значение, начиная с которого операция выполняется параллельно
+     * @param action               действие
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        bulk(parallelismThreshold, (tab, low, high) -> {
+            for (int index = low; index < high; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) action.accept(node.key, node.value);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Возвращает результат свёртки преобразованных пар ключ-значение. Результаты преобразования, равные null,
+     * пропускаются.
+     *
+     * @param parallelismThreshold количество пар ключ-значение, начиная с которого операция выполняется параллельно
+     * @param transformer          преобразование пары ключ-значение
+     * @param reducer              ассоциативная и коммутативная функция свёртки
+     * @param <U>                  тип результата преобразования
+     * @return результат свёртки или null, если нет ни одного результата преобразования
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        return bulk(parallelismThreshold, (tab, low, high) -> {
+            U result = null;
+            for (int index = low; index < high; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    U transformed = transformer.apply(node.key, node.value);
+                    if (transformed != null) result = result == null ? transformed : reducer.apply(result, transformed);
+                }
+            }
+            return result;
+        }, (left, right) -> left == null ? right : right == null ? left : reducer.apply(left, right));
+    }
+
+    /**
+     * Возвращает результат свёртки всех значений.
+     *
+     * @param parallelismThreshold количество пар ключ-значение, начиная с которого операция выполняется параллельно
+     * @param reducer              ассоциативная и коммутативная функция свёртки
+     * @return результат свёртки или null, если CustomHashMap пуста
+     */
+    public V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+        Objects.requireNonNull(reducer);
+        return bulk(parallelismThreshold, (tab, low, high) -> {
+            V result = null;
+            for (int index = low; index < high; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    result = result == null ? node.value : reducer.apply(result, node.value);
+                }
+            }
+            return result;
+        }, (left, right) -> left == null ? right : right == null ? left : reducer.apply(left, right));
+    }
+
+    /**
+     * Возвращает результат функции поиска, отличный от null, для какой-либо пары ключ-значение. После того как
+     * результат найден, остальные задачи прекращают обход при переходе к следующему бакету. При параллельном
+     * выполнении найденная пара не обязательно первая в порядке обхода.
+     *
+     * @param parallelismThreshold количество пар ключ-значение, начиная с которого операция выполняется параллельно
+     * @param searchFunction       функция, возвращающая результат для подходящей пары или null
+     * @param <U>                  тип результата поиска
+     * @return найденный результат или null
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        AtomicReference<U> found = new AtomicReference<>();
+        bulk(parallelismThreshold, (tab, low, high) -> {
+            for (int index = low; index < high && found.get() == null; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    U result = searchFunction.apply(node.key, node.value);
+                    if (result != null) {
+                        found.compareAndSet(null, result);
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+        return found.get();
+    }
+
+    /**
+     * Обработка диапазона бакетов [low, high) хэш-таблицы.
+     */
+    @FunctionalInterface
+    private interface BucketRangeFunction<K, V, R> {
+        R apply(Node<K, V>[] tab, int low, int high);
+    }
+
+    /**
+     * Выполняет массовую операцию: последовательно или задачами общего ForkJoinPool, результаты которых
+     * объединяются функцией combiner.
+     */
+    private <R> R bulk(long parallelismThreshold, BucketRangeFunction<K, V, R> leaf, BinaryOperator<R> combiner) {
+        finishMigration();
+        int expectedModCount = modCount;
+        Node<K, V>[] tab = table;
+        int batch = batchFor(parallelismThreshold);
+        R result = batch == 0 ? leaf.apply(tab, 0, tab.length)
+                : ForkJoinPool.commonPool().invoke(new BulkTask<>(tab, 0, tab.length, batch, leaf, combiner));
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        return result;
+    }
+
+    /**
+     * Возвращает количество задач, на которое делится массовая операция (0 - выполнять последовательно):
+     * не больше учетверённого параллелизма общего ForkJoinPool и не больше size / parallelismThreshold.
+     */
+    private int batchFor(long parallelismThreshold) {
+        long count = size;
+        if (parallelismThreshold == Long.MAX_VALUE || count <= 1 || count < parallelismThreshold) return 0;
+        int maximum = ForkJoinPool.getCommonPoolParallelism() << 2;
+        return parallelismThreshold <= 0 || (count /= parallelismThreshold) >= maximum ? maximum : (int) count;
+    }
+
+    /**
+     * Задача массовой операции над диапазоном бакетов. Пока batch больше нуля, диапазон делится пополам:
+     * левая половина выполняется асинхронно, правая - в текущем потоке.
+     */
+    private static final class BulkTask<K, V, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<K, V>[] tab;
+        private final int low;
+        private final int high;
+        private final int batch;
+        private final BucketRangeFunction<K, V, R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        BulkTask(Node<K, V>[] tab, int low, int high, int batch, BucketRangeFunction<K, V, R> leaf,
+                 BinaryOperator<R> combiner) {
+            this.tab = tab;
+            this.low = low;
+            this.high = high;
+            this.batch = batch;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (batch == 0 || high - low <= 1) return leaf.apply(tab, low, high);
+            int middle = (low + high) >>> 1;
+            BulkTask<K, V, R> left = new BulkTask<>(tab, low, middle, batch >>> 1, leaf, combiner);
+            left.fork();
+            R right = new BulkTask<>(tab, middle, high, batch >>> 1, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * Spliterator, обходящий диапазон бакетов [index, fence) хэш-таблицы. Разделение делит диапазон бакетов
+     * пополам, поэтому параллельные потоки (parallelStream) обрабатывают части хэш-таблицы независимо.
+     * Spliterator всей хэш-таблицы сообщает точный размер (SIZED); после разделения размер частей оценивается
+     * как половина размера родителя. Выбрасывает ConcurrentModificationException, если CustomHashMap была
+     * структурно изменена во время обхода.
+     *
+     * @param <T> тип элементов: ключи, значения или пары ключ-значение
+     */
+    private abstract class HashSpliterator<T> implements Spliterator<T> {
+        private final Node<K, V>[] tab = table;
+        private final int expectedModCount;
+        private boolean sized;
+        private int index;
+        private final int fence;
+        private long estimate;
+        private Node<K, V> current;
+
+        HashSpliterator(int index, int fence, long estimate, int expectedModCount, boolean sized) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+            this.sized = sized;
+        }
+
+        abstract T element(Node<K, V> node);
+
+        abstract Spliterator<T> split(int index, int fence, long estimate, int expectedModCount);
+
+        /**
+         * Характеристики элементов без учёта SIZED.
+         */
+        abstract int elementCharacteristics();
+
+        @Override
+        public final Spliterator<T> trySplit() {
+            int low = index, middle = (low + fence) >>> 1;
+            if (low >= middle || current != null) return null;
+            index = middle;
+            estimate >>>= 1;
+            sized = false;
+            return split(low, middle, estimate, expectedModCount);
+        }
+
+        @Override
+        public final boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            while (current != null || index < fence) {
+                if (current == null) current = tab[index++];
+                else {
+                    Node<K, V> node = current;
+                    current = node.next;
+                    action.accept(element(node));
+                    if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                    return true;
                 }
             }
+            return false;
+        }
+
+        @Override
+        public final void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            Node<K, V> node = current;
+            current = null;
+            for (int bucket = index; ; ) {
+                for (; node != null; node = node.next) action.accept(element(node));
+                if (bucket >= fence) break;
+                node = tab[bucket++];
+            }
+            index = fence;
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public final long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public final int characteristics() {
+            return sized ? elementCharacteristics() | Spliterator.SIZED : elementCharacteristics();
+        }
+    }
+
+    private final class KeySpliterator extends HashSpliterator<K> {
+        KeySpliterator(int index, int fence, long estimate, int expectedModCount, boolean sized) {
+            super(index, fence, estimate, expectedModCount, sized);
+        }
+
+        @Override
+        K element(Node<K, V> node) {
+            return node.key;
+        }
+
+        @Override
+        Spliterator<K> split(int index, int fence, long estimate, int expectedModCount) {
+            return new KeySpliterator(index, fence, estimate, expectedModCount, false);
+        }
+
+        @Override
+        int elementCharacteristics() {
+            return Spliterator.DISTINCT;
+        }
+    }
+
+    private final class ValueSpliterator extends HashSpliterator<V> {
+        ValueSpliterator(int index, int fence, long estimate, int expectedModCount, boolean sized) {
+            super(index, fence, estimate, expectedModCount, sized);
+        }
+
+        @Override
+        V element(Node<K, V> node) {
+            return node.value;
+        }
+
+        @Override
+        Spliterator<V> split(int index, int fence, long estimate, int expectedModCount) {
+            return new ValueSpliterator(index, fence, estimate, expectedModCount, false);
+        }
+
+        @Override
+        int elementCharacteristics() {
+            return Spliterator.NONNULL;
+        }
+    }
+
+    private final class EntrySpliterator extends HashSpliterator<Map.Entry<K, V>> {
+        EntrySpliterator(int index, int fence, long estimate, int expectedModCount, boolean sized) {
+            super(index, fence, estimate, expectedModCount, sized);
+        }
+
+        @Override
+        Map.Entry<K, V> element(Node<K, V> node) {
+            return node;
+        }
+
+        @Override
+        Spliterator<Map.Entry<K, V>> split(int index, int fence, long estimate, int expectedModCount) {
+            return new EntrySpliterator(index, fence, estimate, expectedModCount, false);
+        }
+
+        @Override
+        int elementCharacteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
         }
-        return entrySet;
     }
 
     @Override
     public String toString() {
+        finishMigration();
         StringBuilder sb = new StringBuilder();
         for (int index = 0; index < this.table.length; index++) {
             if (table[index] == null) sb.append("Бакет-").append(index).append(" пустой\n");
@@ -382,20 +2371,161 @@ public class CustomHashMap<K, V> implements Map<K, V> {
     }
 
     /**
-     * Высчитывает целочисленный уникальный код предоставленного ключа и размывает его значение для минимизации коллизий.
+     * Преобразует цепочку бакета с указанным хэш-кодом в красно-чёрное дерево. Если хэш-таблица меньше
+     * {@value #MIN_TREEIFY_CAPACITY}, вместо этого выполняется перехэширование. Бакеты CustomHashMap со стратегией
+     * хэширования остаются цепочками.
+     *
+     * @param keyHash хэш-код ключа бакета
+     */
+    private void treeifyBucket(int keyHash) {
+        if (tableCapacity < MIN_TREEIFY_CAPACITY) {
+            resize();
+            return;
+        }
+        if (strategy != null) return;
+        int index = computeBucketIndex(keyHash);
+        TreeNode<K, V> head = null, tail = null;
+        for (Node<K, V> node = table[index]; node != null; node = node.next) {
+            TreeNode<K, V> treeNode = replacementTreeNode(node, null);
+            if (tail == null) head = treeNode;
+            else {
+                treeNode.prev = tail;
+                tail.next = treeNode;
+            }
+            tail = treeNode;
+        }
+        table[index] = head;
+        if (head != null) head.treeify(table);
+    }
+
+    /*
+     * Фабричные методы узлов. Все узлы CustomHashMap создаются через них, поэтому наследники могут
+     * использовать собственные классы узлов с дополнительными связями.
+     */
+
+    Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        return new Node<>(hash, key, value, next);
+    }
+
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        return new Node<>(node.hash, node.key, node.value, next);
+    }
+
+    TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+        return new TreeNode<>(hash, key, value, next);
+    }
+
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        return new TreeNode<>(node.hash, node.key, node.value, next);
+    }
+
+    /*
+     * Обратные вызовы для наследников, отслеживающих обращения к узлам. В CustomHashMap они ничего не делают.
+     */
+
+    /**
+     * Вызывается после успешного поиска узла методами get, getOrDefault, getAll, а также putIfAbsent
+     * и computeIfAbsent, не изменившими значение.
+     */
+    void afterNodeAccess(Node<K, V> node) {
+    }
+
+    /**
+     * Вызывается после замены значения существующего узла методами put, compute и merge.
+     */
+    void afterNodeUpdate(Node<K, V> node) {
+    }
+
+    /**
+     * Вызывается после добавления нового узла, когда перехэширование уже выполнено.
+     * Наследник может удалить в этом методе лишние пары ключ-значение.
+     */
+    void afterNodeInsertion() {
+    }
+
+    /**
+     * Вызывается перед удалением узла из хэш-таблицы. Исключение, выброшенное наследником, отменяет удаление.
+     */
+    void beforeNodeRemoval(Node<K, V> node) {
+    }
+
+    /**
+     * Вызывается после удаления узла из хэш-таблицы.
+     */
+    void afterNodeRemoval(Node<K, V> node) {
+    }
+
+    /**
+     * Проверяет инварианты всех бакетов-деревьев хэш-таблицы. Используется в тестах.
+     *
+     * @return true, если инварианты всех деревьев соблюдены
+     */
+    boolean checkTreeBuckets() {
+        finishMigration();
+        for (Node<K, V> head : table) {
+            if (head instanceof TreeNode<K, V> first && (first.prev != null || first.root().red
+                    || !TreeNode.checkInvariants(first.root()))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает количество бакетов, преобразованных в красно-чёрные деревья. Используется в тестах.
+     */
+    int treeBucketCount() {
+        finishMigration();
+        int count = 0;
+        for (Node<K, V> head : table) {
+            if (head instanceof TreeNode) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Высчитывает хэш-код предоставленного ключа и размывает его значение для минимизации коллизий:
+     * старшие 16 бит хэш-кода смешиваются с младшими, так как индекс бакета определяется младшими битами.
      * @param key ключ, хэш-код которого должен быть высчитан
-     * @return целочисленный уникальный код key
+     * @return размытый хэш-код key
      */
-    private static int hash(Object key) {
-        return key == null ? 0 : key.hashCode() * 17 * 31;
+    static int hash(Object key) {
+        int h;
+        return key == null ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+    }
+
+    /**
+     * Высчитывает размытый хэш-код ключа аналогично {@link #hash(Object)}, используя стратегию хэширования,
+     * если она задана.
+     * @param key ключ, хэш-код которого должен быть высчитан
+     * @return размытый хэш-код key
+     */
+    @SuppressWarnings("unchecked")
+    final int hashOf(Object key) {
+        HashingStrategy<? super K> strategy = this.strategy;
+        if (strategy == null) return hash(key);
+        return key == null ? 0 : spread(strategy.hashCode((K) key));
+    }
+
+    /**
+     * Сравнивает ключ узла с искомым ключом методом equals или стратегией хэширования, если она задана.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean keyEquals(K nodeKey, Object key) {
+        HashingStrategy<? super K> strategy = this.strategy;
+        if (strategy == null) return Objects.equals(nodeKey, key);
+        return nodeKey == key || nodeKey != null && key != null && strategy.equals(nodeKey, (K) key);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
     }
 
     /**
      * Определяет индекс бакета в хэ-таблице на основании предоставленного хэш-кода.
+     * Так как размер хэш-таблицы является степенью двойки, индекс вычисляется битовой маской.
      * @param keyHash хэш-код ключа для определения индекса бакета
      * @return индекс бакета в хэш-таблице, на основании предоставленного хэш-кода
      */
     private int computeBucketIndex(int keyHash) {
-        return keyHash == 0 ? 0 : keyHash % this.tableCapacity;
+        return keyHash & (this.tableCapacity - 1);
     }
-}
\ No newline at end of file
+}
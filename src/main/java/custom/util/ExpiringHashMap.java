@@ -0,0 +1,493 @@
+package custom.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * CustomHashMap, пары ключ-значение которой имеют срок действия. Срок задаётся при записи пары: методом
+ * {@link #put(Object, Object, Duration)} или, для остальных изменяющих методов, сроком по умолчанию, указанным
+ * при создании. Замена значения (put, compute, merge) назначает паре новый срок.
+ * <p>
+ * Пары с истёкшим сроком удаляются двумя способами:
+ * <ul>
+ *     <li>лениво: get, getOrDefault, containsKey и getAll не возвращают пару с истёкшим сроком и сразу удаляют её,
+ *     а putIfAbsent и computeIfAbsent считают такой ключ отсутствующим;</li>
+ *     <li>заранее: узлы связаны через поля before и after ({@link CustomHashMap.LinkedNode}) в иерархическое
+ *     колесо таймеров из шести уровней по 64 интервала (1 мс, 67 мс, 4,3 с, 4,6 мин, 4,9 ч и 13 сут). Каждая
+ *     операция продвигает колесо до текущего времени: просматриваются только наступившие интервалы, пары с истёкшим
+ *     сроком удаляются, а остальные переносятся на более точный уровень. Каждый узел переносится не более пяти раз,
+ *     поэтому затраты на удаление по сроку - O(1) в среднем на пару, без полного обхода хэш-таблицы.</li>
+ * </ul>
+ * Колесо продвигается в начале каждого изменяющего и читающего метода и методом {@link #cleanUp()}, поэтому пара
+ * с истёкшим сроком может оставаться в хэш-таблице не дольше одного интервала первого уровня (около 1 мс) после
+ * последней операции. Такие пары учитываются в size, итераторах и представлениях, а put, compute, computeIfPresent,
+ * merge и remove считают их существующими.
+ * <p>
+ * Время берётся из источника, возвращающего наносекунды (по умолчанию {@link System#nanoTime()}); в тестах
+ * можно передать управляемый источник. Слушатель удаления вызывается для каждой пары, удалённой по истечении срока,
+ * после её удаления. Явное удаление методом remove и очистка слушатель не вызывают. Слушатель не должен изменять
+ * ExpiringHashMap. Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class ExpiringHashMap<K, V> extends CustomHashMap<K, V> {
+
+    /**
+     * Сдвиги, задающие длительность интервала каждого уровня колеса в наносекундах: 2^20 (1 мс), 2^26, 2^32,
+     * 2^38, 2^44 и 2^50. Уровень i охватывает 64 интервала, то есть время до начала интервала уровня i + 1.
+     */
+    private static final int[] SHIFTS = {20, 26, 32, 38, 44, 50};
+
+    /**
+     * Количество интервалов каждого уровня. Последний уровень - единственный интервал для пар со сроком больше
+     * 2^50 нс (около 13 суток), он просматривается раз в 13 суток.
+     */
+    private static final int[] BUCKETS = {64, 64, 64, 64, 64, 1};
+
+    private final long defaultTtl;
+    private final BiConsumer<? super K, ? super V> removalListener;
+    private final LongSupplier clock;
+    private final long origin;
+
+    /**
+     * Интервалы колеса: кольцевые списки узлов с узлом-заглавием.
+     */
+    private final LinkedNode<K, V>[][] wheel;
+
+    /**
+     * Узел-заглавие списка узлов, извлечённых из наступивших интервалов и ожидающих удаления или переноса.
+     */
+    private final LinkedNode<K, V> due = sentinel();
+
+    /**
+     * Время последнего продвижения колеса, в наносекундах от создания ExpiringHashMap.
+     */
+    private long nanos;
+
+    /**
+     * Срок действия, назначаемый записываемым парам.
+     */
+    private long writeTtl;
+    private boolean advancing;
+    private final ArrayList<LinkedNode<K, V>> expiredAccesses = new ArrayList<>();
+    private long expiredCount;
+
+    /**
+     * Конструктор, для создания ExpiringHashMap с указанным сроком действия пар по умолчанию.
+     *
+     * @param defaultTtl срок действия пар, записываемых без явного срока
+     * @throws IllegalArgumentException если defaultTtl не положителен
+     */
+    public ExpiringHashMap(Duration defaultTtl) {
+        this(defaultTtl, null, System::nanoTime);
+    }
+
+    /**
+     * Конструктор, для создания ExpiringHashMap со слушателем удаления и источником времени. Срок
+     * {@link java.time.temporal.ChronoUnit#FOREVER} означает, что пары без явного срока не истекают.
+     *
+     * @param defaultTtl      срок действия пар, записываемых без явного срока
+     * @param removalListener слушатель удаления пар с истёкшим сроком или null
+     * @param clock           источник времени в наносекундах, значения которого не убывают
+     * @throws IllegalArgumentException если defaultTtl не положителен
+     */
+    public ExpiringHashMap(Duration defaultTtl, BiConsumer<? super K, ? super V> removalListener, LongSupplier clock) {
+        this.defaultTtl = this.writeTtl = toNanos(defaultTtl);
+        this.removalListener = removalListener;
+        this.clock = Objects.requireNonNull(clock);
+        this.origin = clock.getAsLong();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        LinkedNode<K, V>[][] wheel = (LinkedNode<K, V>[][]) new LinkedNode[SHIFTS.length][];
+        for (int level = 0; level < SHIFTS.length; level++) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            LinkedNode<K, V>[] buckets = (LinkedNode<K, V>[]) new LinkedNode[BUCKETS[level]];
+            for (int bucket = 0; bucket < BUCKETS[level]; bucket++) buckets[bucket] = sentinel();
+            wheel[level] = buckets;
+        }
+        this.wheel = wheel;
+    }
+
+    private static long toNanos(Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("Недопустимый срок действия: " + ttl);
+        try {
+            return ttl.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static <K, V> LinkedNode<K, V> sentinel() {
+        LinkedNode<K, V> sentinel = new LinkedNode<>(0, null, null, null);
+        sentinel.before = sentinel.after = sentinel;
+        return sentinel;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение, удалённых по истечении срока с момента создания.
+     *
+     * @return количество удалённых по сроку пар ключ-значение
+     */
+    public long expiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Продвигает колесо до текущего времени, удаляя пары с истёкшим сроком.
+     */
+    public void cleanUp() {
+        advance();
+    }
+
+    /**
+     * Добавляет пару ключ-значение с указанным сроком действия или заменяет значение существующего ключа,
+     * назначая паре новый срок.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @param ttl   срок действия пары
+     * @return предыдущее значение ключа или null
+     * @throws IllegalArgumentException если ttl не положителен
+     */
+    public V put(K key, V value, Duration ttl) {
+        long ttlNanos = toNanos(ttl);
+        advance();
+        writeTtl = ttlNanos;
+        try {
+            return super.put(key, value);
+        } finally {
+            writeTtl = defaultTtl;
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        advance();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        advance();
+        super.putAll(map);
+    }
+
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        advance();
+        super.putAll(keys, values);
+    }
+
+    @Override
+    public V get(Object key) {
+        advance();
+        V value = super.get(key);
+        return expireAccessed() ? null : value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        advance();
+        V value = super.getOrDefault(key, defaultValue);
+        return expireAccessed() ? defaultValue : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        advance();
+        Map<K, V> result = super.getAll(keys);
+        for (LinkedNode<K, V> node : expiredAccesses) result.remove(node.key);
+        expireAccessed();
+        return result;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        advance();
+        V existing = super.putIfAbsent(key, value);
+        return expireAccessed() ? super.putIfAbsent(key, value) : existing;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        advance();
+        V existing = super.computeIfAbsent(key, mappingFunction);
+        return expireAccessed() ? super.computeIfAbsent(key, mappingFunction) : existing;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        advance();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        advance();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        advance();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public V remove(Object key) {
+        advance();
+        return super.remove(key);
+    }
+
+    /**
+     * Удаляет все пары ключ-значение без уведомления слушателя удаления.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        for (LinkedNode<K, V>[] buckets : wheel) {
+            for (LinkedNode<K, V> bucket : buckets) bucket.before = bucket.after = bucket;
+        }
+        expiredAccesses.clear();
+    }
+
+    /*
+     * Узлы. Срок действия хранится в классах-наследниках узлов CustomHashMap, поэтому узлы других наследников
+     * (CustomCache) не увеличиваются.
+     */
+
+    @Override
+    Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        ExpiringNode<K, V> node = new ExpiringNode<>(hash, key, value, next);
+        node.deadline = deadline();
+        schedule(node);
+        return node;
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        ExpiringNode<K, V> replacement = new ExpiringNode<>(node.hash, node.key, node.value, next);
+        replacement.deadline = deadline((LinkedNode<K, V>) node);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+        ExpiringTreeNode<K, V> node = new ExpiringTreeNode<>(hash, key, value, next);
+        node.deadline = deadline();
+        schedule(node);
+        return node;
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        ExpiringTreeNode<K, V> replacement = new ExpiringTreeNode<>(node.hash, node.key, node.value, next);
+        replacement.deadline = deadline((LinkedNode<K, V>) node);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    @Override
+    void afterNodeAccess(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        if (deadline(linked) <= nanos) expiredAccesses.add(linked);
+    }
+
+    @Override
+    void afterNodeUpdate(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        unlink(linked);
+        setDeadline(linked, deadline());
+        schedule(linked);
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        unlink((LinkedNode<K, V>) node);
+    }
+
+    private static final class ExpiringNode<K, V> extends LinkedNode<K, V> {
+        long deadline;
+
+        ExpiringNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    private static final class ExpiringTreeNode<K, V> extends TreeNode<K, V> {
+        long deadline;
+
+        ExpiringTreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    private static long deadline(LinkedNode<?, ?> node) {
+        return node instanceof ExpiringTreeNode<?, ?> treeNode ? treeNode.deadline : ((ExpiringNode<?, ?>) node).deadline;
+    }
+
+    private static void setDeadline(LinkedNode<?, ?> node, long deadline) {
+        if (node instanceof ExpiringTreeNode<?, ?> treeNode) treeNode.deadline = deadline;
+        else ((ExpiringNode<?, ?>) node).deadline = deadline;
+    }
+
+    /**
+     * Возвращает срок действия записываемой пары, отсчитанный от времени последнего продвижения колеса.
+     * При переполнении пара не истекает.
+     */
+    private long deadline() {
+        long deadline = nanos + writeTtl;
+        return deadline < nanos ? Long.MAX_VALUE : deadline;
+    }
+
+    /*
+     * Колесо таймеров.
+     */
+
+    /**
+     * Продвигает колесо до текущего времени: на каждом уровне, начиная с первого, обрабатывает интервалы,
+     * начавшиеся с предыдущего продвижения. Уровень, интервал которого не сменился, и все следующие уровни
+     * не просматриваются.
+     */
+    private void advance() {
+        if (advancing) return;
+        long previous = nanos;
+        long now = clock.getAsLong() - origin;
+        if (now <= previous) return;
+        nanos = now;
+        advancing = true;
+        try {
+            for (int level = 0; level < SHIFTS.length; level++) {
+                long previousTicks = previous >>> SHIFTS[level];
+                long delta = (now >>> SHIFTS[level]) - previousTicks;
+                if (delta <= 0) break;
+                expire(level, previousTicks, delta);
+            }
+        } finally {
+            advancing = false;
+        }
+    }
+
+    /**
+     * Обрабатывает наступившие интервалы уровня. Узлы интервала сначала переносятся в список due, поэтому узлы,
+     * снова попавшие в тот же интервал, и узлы-замены при преобразовании бакета-дерева обрабатываются корректно.
+     */
+    private void expire(int level, long previousTicks, long delta) {
+        LinkedNode<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int step = 0; step < steps; step++) {
+            LinkedNode<K, V> bucket = buckets[(start + step) & mask];
+            if (bucket.after == bucket) continue;
+            due.after = bucket.after;
+            due.before = bucket.before;
+            due.after.before = due;
+            due.before.after = due;
+            bucket.before = bucket.after = bucket;
+            for (LinkedNode<K, V> node = due.after; node != due; node = due.after) {
+                unlink(node);
+                if (deadline(node) <= nanos) expireNode(node);
+                else schedule(node);
+            }
+        }
+    }
+
+    /**
+     * Добавляет узел в интервал колеса, соответствующий его сроку действия: в уровень, интервалы которого
+     * ещё не превышают оставшееся время.
+     */
+    private void schedule(LinkedNode<K, V> node) {
+        long deadline = deadline(node);
+        long remaining = deadline - nanos;
+        LinkedNode<K, V> bucket = wheel[SHIFTS.length - 1][0];
+        for (int level = 0; level < SHIFTS.length - 1; level++) {
+            if (remaining < 1L << SHIFTS[level + 1]) {
+                bucket = wheel[level][(int) (deadline >>> SHIFTS[level]) & (BUCKETS[level] - 1)];
+                break;
+            }
+        }
+        LinkedNode<K, V> last = bucket.before;
+        node.before = last;
+        node.after = bucket;
+        last.after = node;
+        bucket.before = node;
+    }
+
+    private void unlink(LinkedNode<K, V> node) {
+        LinkedNode<K, V> before = node.before, after = node.after;
+        if (before == null) return;
+        before.after = after;
+        after.before = before;
+        node.before = node.after = null;
+    }
+
+    /**
+     * Ставит узел-замену (при преобразовании бакета в дерево и обратно) на место исходного узла в его интервале.
+     */
+    private void transferLinks(LinkedNode<K, V> source, LinkedNode<K, V> target) {
+        LinkedNode<K, V> before = target.before = source.before;
+        LinkedNode<K, V> after = target.after = source.after;
+        if (before == null) return;
+        before.after = target;
+        after.before = target;
+        source.before = source.after = null;
+    }
+
+    /**
+     * Удаляет пары, истёкший срок которых обнаружен при поиске, и возвращает true, если такие пары были.
+     */
+    private boolean expireAccessed() {
+        if (expiredAccesses.isEmpty()) return false;
+        for (LinkedNode<K, V> node : expiredAccesses) expireNode(node);
+        expiredAccesses.clear();
+        return true;
+    }
+
+    /**
+     * Удаляет узел из хэш-таблицы и уведомляет слушателя удаления. Узел, уже удалённый ранее (например, ключ,
+     * повторяющийся в getAll, обнаруживается истёкшим дважды), не учитывается повторно.
+     */
+    private void expireNode(LinkedNode<K, V> node) {
+        K key = node.key;
+        V value = node.value;
+        if (super.remove(key) == null) return;
+        expiredCount++;
+        if (removalListener != null) removalListener.accept(key, value);
+    }
+
+    /**
+     * Проверяет согласованность колеса с хэш-таблицей: каждый узел хэш-таблицы находится ровно в одном интервале
+     * и связи интервалов согласованы. Используется в тестах.
+     *
+     * @return true, если колесо согласовано
+     */
+    boolean checkWheel() {
+        int count = 0;
+        for (LinkedNode<K, V>[] buckets : wheel) {
+            for (LinkedNode<K, V> bucket : buckets) {
+                LinkedNode<K, V> previous = bucket;
+                for (LinkedNode<K, V> node = bucket.after; node != bucket; previous = node, node = node.after) {
+                    if (node.before != previous || !entrySet().contains(node)) return false;
+                    count++;
+                }
+                if (bucket.before != previous) return false;
+            }
+        }
+        return count == size();
+    }
+}
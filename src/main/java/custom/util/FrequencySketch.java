@@ -0,0 +1,120 @@
+package custom.util;
+
+/**
+ * Приближённый счётчик частоты обращений к ключам (count-min sketch) для политики допуска W-TinyLFU
+ * ({@link CustomCache}).
+ * <p>
+ * Счётчики 4-битные, по 16 в одном long. Частота ключа оценивается минимумом из четырёх счётчиков, выбираемых
+ * разными хэш-функциями, поэтому коллизии могут лишь завысить оценку. Счётчики насыщаются на значении 15.
+ * Чтобы оценка отражала недавнюю популярность, после каждых sampleSize увеличений все счётчики делятся пополам.
+ *
+ * @author Владислав Кильчевский
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * Маска сброса: сдвиг long вправо на 1 бит переносит младший бит каждого счётчика в старший бит соседнего,
+     * маска обнуляет эти биты.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * Маска младших битов всех 16 счётчиков long.
+     */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * Максимальное количество long в таблице счётчиков.
+     */
+    private static final int MAXIMUM_TABLE_LENGTH = 1 << 22;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Создаёт счётчик, рассчитанный на указанное количество различных ключей.
+     *
+     * @param expectedKeys ожидаемое количество различных ключей
+     */
+    FrequencySketch(long expectedKeys) {
+        int length = (int) Math.min(MAXIMUM_TABLE_LENGTH, Math.max(expectedKeys, 16));
+        length = CustomHashMap.tableSizeFor(length);
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(expectedKeys, 16));
+    }
+
+    /**
+     * Возвращает оценку частоты обращений к ключу с указанным хэш-кодом (от 0 до 15).
+     *
+     * @param hash хэш-код ключа
+     * @return оценка частоты
+     */
+    int frequency(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < 4; row++) {
+            int index = indexOf(spread, row);
+            int count = (int) ((table[index] >>> ((start + row) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Увеличивает счётчики ключа с указанным хэш-кодом, если они не насыщены.
+     *
+     * @param hash хэш-код ключа
+     */
+    void increment(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            added |= incrementAt(indexOf(spread, row), start + row);
+        }
+        if (added && ++additions == sampleSize) reset();
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) == mask) return false;
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    /**
+     * Делит все счётчики пополам. Количество увеличений уменьшается с учётом потерянных при делении остатков.
+     */
+    private void reset() {
+        int odd = 0;
+        for (int index = 0; index < table.length; index++) {
+            odd += Long.bitCount(table[index] & ONE_MASK);
+            table[index] = (table[index] >>> 1) & RESET_MASK;
+        }
+        additions = (additions - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int spread, int row) {
+        long hash = (spread + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    /**
+     * Дополнительно перемешивает биты хэш-кода, так как CustomHashMap.hash оставляет младшие биты
+     * последовательных целых ключей последовательными.
+     */
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,402 @@
+package custom.util;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Неизменяемый ассоциативный массив для таблиц, которые заполняются один раз и затем только читаются.
+ * Создаётся методами {@link #copyOf(Map)} и {@link CustomHashMap#freeze()}.
+ * <p>
+ * Пары ключ-значение хранятся в трёх параллельных массивах (хэш-коды, ключи, значения) длиной, равной количеству
+ * пар, без объектов-узлов и без свободных ячеек. Ячейка пары определяется минимальной совершенной хэш-функцией,
+ * построенной по схеме CHD (hash and displace): размытый {@link CustomHashMap#hash(Object)} хэш-код распределяет
+ * ключи по группам в среднем из {@value #AVERAGE_BUCKET_SIZE} ключей, и для каждой группы при построении
+ * подбирается смещение, при котором все ключи группы попадают в ещё свободные ячейки. Группы из одного ключа
+ * хранят номер ячейки непосредственно (отрицательным смещением), поэтому построение всегда завершается.
+ * Группы распределяются по ячейкам с запасом в 1%, и около 1% ключей, получивших ячейку за пределами массивов,
+ * переносятся в свободные ячейки через небольшой массив переадресации. Вспомогательные массивы занимают около
+ * двух байт на пару ключ-значение.
+ * <p>
+ * Поиск читает смещение группы и сравнивает хэш-код и ключ единственной ячейки, то есть выполняет одну пробу
+ * независимо от заполнения. Исключение - ключи с совпадающими хэш-кодами: совершенная хэш-функция не может их
+ * различить, поэтому в ячейке хранится первый из них, а остальные помещаются в дополнительную CustomHashMap,
+ * которая просматривается только при промахе.
+ * <p>
+ * Семантика совпадает с {@link CustomHashMap}: допускается один ключ null, значения null не допускаются.
+ * Изменяющие методы выбрасывают UnsupportedOperationException. Операции чтения потокобезопасны.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public final class FrozenHashMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Среднее количество ключей в группе. Меньшее значение ускоряет построение ценой большего массива смещений.
+     */
+    static final int AVERAGE_BUCKET_SIZE = 2;
+
+    /**
+     * Доля занятых ячеек среди ячеек, между которыми распределяются группы. Оставшиеся 1% ячеек избавляют
+     * последние группы от перебора сотен тысяч смещений, а ключи, попавшие за пределы массивов, переносятся
+     * в свободные ячейки внутри них (см. {@link #remap}).
+     */
+    private static final double SLOT_LOAD = 0.99;
+
+    /**
+     * Количество смещений, перебираемых для одной группы, прежде чем построение начинается заново с другим зерном.
+     */
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Смещения групп: неотрицательное значение d выбирает ячейку функцией от хэш-кода и d,
+     * отрицательное - ячейку -d - 1 единственного ключа группы.
+     */
+    private final int[] displacements;
+
+    /**
+     * Ячейки внутри массивов, в которые перенесены ключи, получившие ячейку за их пределами:
+     * remap[slot - size] для ячейки slot, не меньшей количества ячеек.
+     */
+    private final int[] remap;
+    private final int[] hashes;
+    private final Object[] keys;
+    private final Object[] values;
+    private final long seed;
+
+    /**
+     * Ключи, хэш-код которых совпадает с хэш-кодом ключа, уже занявшего ячейку, или null, если таких ключей нет.
+     */
+    private final CustomHashMap<K, V> overflow;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    private FrozenHashMap(int[] displacements, int[] remap, int[] hashes, Object[] keys, Object[] values, long seed,
+                          CustomHashMap<K, V> overflow) {
+        this.displacements = displacements;
+        this.remap = remap;
+        this.hashes = hashes;
+        this.keys = keys;
+        this.values = values;
+        this.seed = seed;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Создаёт FrozenHashMap, содержащий все пары ключ-значение map. Построение выполняется за ожидаемое время,
+     * пропорциональное количеству пар (плюс сортировка хэш-кодов).
+     *
+     * @param map исходный ассоциативный массив, не содержащий значений null
+     * @return неизменяемый ассоциативный массив
+     * @throws NullPointerException            если map содержит значение null
+     * @throws ConcurrentModificationException если map изменился во время копирования
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> FrozenHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof FrozenHashMap) return (FrozenHashMap<K, V>) map;
+        int size = map.size();
+        Object[] allKeys = new Object[size];
+        Object[] allValues = new Object[size];
+        long[] order = new long[size];
+        int copied = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            if (copied == size) throw new ConcurrentModificationException();
+            allKeys[copied] = entry.getKey();
+            allValues[copied] = Objects.requireNonNull(entry.getValue());
+            order[copied] = (long) CustomHashMap.hash(allKeys[copied]) << 32 | copied;
+            copied++;
+        }
+        if (copied != size) throw new ConcurrentModificationException();
+        Arrays.sort(order);
+
+        CustomHashMap<K, V> overflow = null;
+        int[] hashes = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int hash = (int) (order[i] >>> 32);
+            int index = (int) order[i];
+            if (count > 0 && hashes[count - 1] == hash) {
+                if (Objects.equals(allKeys[(int) order[count - 1]], allKeys[index])) continue;
+                if (overflow == null) overflow = new CustomHashMap<>();
+                overflow.putIfAbsent((K) allKeys[index], (V) allValues[index]);
+            } else {
+                hashes[count] = hash;
+                order[count++] = order[i];
+            }
+        }
+        hashes = Arrays.copyOf(hashes, count);
+
+        int range = count == 0 ? 0 : Math.max(count, (int) Math.ceil(count / SLOT_LOAD));
+        for (long seed = SEED_STEP; ; seed += SEED_STEP) {
+            int[] displacements = displace(hashes, range, seed);
+            if (displacements == null) continue;
+            int[] slots = new int[count];
+            boolean[] taken = new boolean[count];
+            int[] remap = new int[range - count];
+            for (int i = 0; i < count; i++) {
+                slots[i] = slot(displacements, range, seed, hashes[i]);
+                if (slots[i] < count) taken[slots[i]] = true;
+            }
+            int[] sortedHashes = new int[count];
+            Object[] keys = new Object[count];
+            Object[] values = new Object[count];
+            for (int i = 0, free = 0; i < count; i++) {
+                int slot = slots[i];
+                if (slot >= count) {
+                    while (taken[free]) free++;
+                    taken[free] = true;
+                    remap[slot - count] = free;
+                    slot = free;
+                }
+                int index = (int) order[i];
+                sortedHashes[slot] = hashes[i];
+                keys[slot] = allKeys[index];
+                values[slot] = allValues[index];
+            }
+            return new FrozenHashMap<>(displacements, remap, sortedHashes, keys, values, seed, overflow);
+        }
+    }
+
+    /**
+     * Подбирает смещения групп для попарно различных хэш-кодов. Группы обрабатываются в порядке убывания размера,
+     * так как большим группам труднее найти свободные ячейки, пока таблица почти пуста.
+     *
+     * @param range количество ячеек, среди которых выбираются ячейки групп
+     * @return массив смещений или null, если для какой-либо группы смещение не найдено
+     */
+    private static int[] displace(int[] hashes, int range, long seed) {
+        int count = hashes.length;
+        int bucketCount = Math.max(1, (count + AVERAGE_BUCKET_SIZE - 1) / AVERAGE_BUCKET_SIZE);
+        int[] bucketStarts = new int[bucketCount + 1];
+        int[] buckets = new int[count];
+        for (int hash : hashes) bucketStarts[bucket(mix(seed + hash), bucketCount) + 1]++;
+        int maxBucketSize = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[bucket + 1]);
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        int[] cursors = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int hash : hashes) buckets[cursors[bucket(mix(seed + hash), bucketCount)]++] = hash;
+
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        int[] bucketOrder = new int[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            sizeStarts[maxBucketSize - (bucketStarts[bucket + 1] - bucketStarts[bucket]) + 1]++;
+        }
+        for (int i = 0; i <= maxBucketSize; i++) sizeStarts[i + 1] += sizeStarts[i];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketOrder[sizeStarts[maxBucketSize - (bucketStarts[bucket + 1] - bucketStarts[bucket])]++] = bucket;
+        }
+
+        int[] displacements = new int[bucketCount];
+        long[] taken = new long[(range + 63) >>> 6];
+        int[] slots = new int[maxBucketSize];
+        int freeCursor = 0;
+        for (int bucket : bucketOrder) {
+            int start = bucketStarts[bucket], length = bucketStarts[bucket + 1] - start;
+            if (length == 0) break;
+            if (length == 1) {
+                while ((taken[freeCursor >>> 6] & 1L << freeCursor) != 0) freeCursor++;
+                taken[freeCursor >>> 6] |= 1L << freeCursor;
+                displacements[bucket] = -freeCursor - 1;
+                continue;
+            }
+            int displacement = 0;
+            for (; displacement < MAX_DISPLACEMENT; displacement++) {
+                int placed = 0;
+                for (; placed < length; placed++) {
+                    int slot = displacedSlot(mix(seed + buckets[start + placed]), displacement, range);
+                    if ((taken[slot >>> 6] & 1L << slot) != 0) break;
+                    taken[slot >>> 6] |= 1L << slot;
+                    slots[placed] = slot;
+                }
+                if (placed == length) break;
+                for (int i = 0; i < placed; i++) taken[slots[i] >>> 6] &= ~(1L << slots[i]);
+            }
+            if (displacement == MAX_DISPLACEMENT) return null;
+            displacements[bucket] = displacement;
+        }
+        return displacements;
+    }
+
+    /**
+     * Перемешивание 64 бит (финализатор MurmurHash3), из которого берутся номер группы и ячейки.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB93FE53A87C7L;
+        return x ^ (x >>> 33);
+    }
+
+    /**
+     * Отображает 32 бита в диапазон [0, range) умножением вместо деления.
+     */
+    private static int reduce(int bits, int range) {
+        return (int) (((bits & 0xFFFFFFFFL) * range) >>> 32);
+    }
+
+    private static int bucket(long mixed, int bucketCount) {
+        return reduce((int) (mixed >>> 32), bucketCount);
+    }
+
+    private static int displacedSlot(long mixed, int displacement, int range) {
+        return reduce((int) mix(mixed + displacement * SEED_STEP), range);
+    }
+
+    private static int slot(int[] displacements, int range, long seed, int hash) {
+        long mixed = mix(seed + hash);
+        int displacement = displacements[bucket(mixed, displacements.length)];
+        return displacement < 0 ? -displacement - 1 : displacedSlot(mixed, displacement, range);
+    }
+
+    /**
+     * Выполняет поиск ячейки с указанным ключом среди ключей с попарно различными хэш-кодами.
+     *
+     * @return индекс ячейки или -1
+     */
+    private int findSlot(Object key) {
+        int count = hashes.length;
+        if (count == 0) return -1;
+        int hash = CustomHashMap.hash(key);
+        int slot = slot(displacements, count + remap.length, seed, hash);
+        if (slot >= count) slot = remap[slot - count];
+        return hashes[slot] == hash && Objects.equals(keys[slot], key) ? slot : -1;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    @Override
+    public int size() {
+        return hashes.length + (overflow == null ? 0 : overflow.size());
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует. Для key допустимо null.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = findSlot(key);
+        if (slot >= 0) return (V) values[slot];
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0 || overflow != null && overflow.containsKey(key);
+    }
+
+    /**
+     * Возвращает true, если FrozenHashMap содержит указанное значение. Выполняет последовательный просмотр
+     * массива значений.
+     *
+     * @param value значение, наличие которого проверяется
+     * @return true - если значение содержится в FrozenHashMap. В обратно случае false
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) return false;
+        for (Object current : values) {
+            if (current.equals(value)) return true;
+        }
+        return overflow != null && overflow.containsValue(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (int slot = 0; slot < keys.length; slot++) action.accept((K) keys[slot], (V) values[slot]);
+        if (overflow != null) overflow.forEach(action);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Возвращает оценку памяти на одну пару ключ-значение в байтах: массивы ячеек, массив смещений
+     * и дополнительную CustomHashMap, без учёта самих ключей и значений. Оценка сопоставима
+     * с {@link MapStatistics#estimatedBytesPerEntry()}.
+     *
+     * @return оценка памяти на одну пару ключ-значение или 0 для пустого FrozenHashMap
+     */
+    public double estimatedBytesPerEntry() {
+        int size = size();
+        if (size == 0) return 0;
+        double bytes = 5 * ARRAY_HEADER_BYTES + (long) (displacements.length + remap.length) * Integer.BYTES
+                + (long) hashes.length * (Integer.BYTES + 2 * REFERENCE_BYTES);
+        if (overflow != null) bytes += overflow.statistics().estimatedBytesPerEntry() * overflow.size();
+        return bytes / size;
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся неизменяемым представлением FrozenHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> entries = entrySet;
+        if (entries == null) entrySet = entries = new AbstractSet<>() {
+            @Override
+            public int size() {
+                return FrozenHashMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+                Object value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<>() {
+                    private int slot;
+                    private final Iterator<Map.Entry<K, V>> rest =
+                            overflow == null ? Collections.emptyIterator() : overflow.entrySet().iterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < keys.length || rest.hasNext();
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<K, V> next() {
+                        if (slot == keys.length) {
+                            Map.Entry<K, V> entry = rest.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(entry);
+                        }
+                        int current = slot++;
+                        return new AbstractMap.SimpleImmutableEntry<>((K) keys[current], (V) values[current]);
+                    }
+                };
+            }
+        };
+        return entries;
+    }
+}
@@ -0,0 +1,233 @@
+package custom.util;
+
+import java.util.Arrays;
+
+/**
+ * Стратегия вычисления хэш-кода и сравнения ключей {@link CustomHashMap}, заменяющая hashCode и equals самих
+ * ключей (см. {@link CustomHashMap#CustomHashMap(HashingStrategy)}). Позволяет использовать в качестве ключей
+ * массивы byte[] и последовательности символов, сравнивая их по содержимому, а также искать ключ по участку
+ * массива методами {@link CustomHashMap#get(byte[], int, int)} и {@link CustomHashMap#get(char[], int, int)}
+ * без создания объекта-ключа.
+ * <p>
+ * Стратегия должна быть согласованной: равные ключи имеют равные хэш-коды, а хэш-код и сравнение участка массива
+ * совпадают с хэш-кодом и сравнением ключа с тем же содержимым. Ключ null стратегии не передаётся: CustomHashMap
+ * обрабатывает его сама.
+ *
+ * @param <T> тип ключей
+ * @author Владислав Кильчевский
+ */
+public interface HashingStrategy<T> {
+
+    /**
+     * Вычисляет хэш-код ключа.
+     *
+     * @param key ключ, не null
+     * @return хэш-код
+     */
+    int hashCode(T key);
+
+    /**
+     * Сравнивает два ключа.
+     *
+     * @param first  первый ключ, не null
+     * @param second второй ключ, не null
+     * @return true, если ключи равны
+     */
+    boolean equals(T first, T second);
+
+    /**
+     * Вычисляет хэш-код ключа, содержимое которого совпадает с участком массива байт.
+     *
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return хэш-код
+     * @throws UnsupportedOperationException если стратегия не поддерживает поиск по участку массива байт
+     */
+    default int hashCode(byte[] array, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Сравнивает ключ с участком массива байт.
+     *
+     * @param key    ключ, не null
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return true, если содержимое ключа совпадает с участком
+     * @throws UnsupportedOperationException если стратегия не поддерживает поиск по участку массива байт
+     */
+    default boolean equals(T key, byte[] array, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Вычисляет хэш-код ключа, содержимое которого совпадает с участком массива символов.
+     *
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return хэш-код
+     * @throws UnsupportedOperationException если стратегия не поддерживает поиск по участку массива символов
+     */
+    default int hashCode(char[] array, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Сравнивает ключ с участком массива символов.
+     *
+     * @param key    ключ, не null
+     * @param array  массив
+     * @param offset начало участка
+     * @param length длина участка
+     * @return true, если содержимое ключа совпадает с участком
+     * @throws UnsupportedOperationException если стратегия не поддерживает поиск по участку массива символов
+     */
+    default boolean equals(T key, char[] array, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Сравнение ссылок (==) и {@link System#identityHashCode(Object)}, как в {@link java.util.IdentityHashMap}.
+     */
+    HashingStrategy<Object> IDENTITY = new HashingStrategy<>() {
+        @Override
+        public int hashCode(Object key) {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object first, Object second) {
+            return first == second;
+        }
+    };
+
+    /**
+     * Содержимое массивов byte[]: хэш-код совпадает с {@link Arrays#hashCode(byte[])}.
+     */
+    HashingStrategy<byte[]> BYTE_ARRAY = new HashingStrategy<>() {
+        @Override
+        public int hashCode(byte[] key) {
+            return Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(byte[] first, byte[] second) {
+            return Arrays.equals(first, second);
+        }
+
+        @Override
+        public int hashCode(byte[] array, int offset, int length) {
+            int hash = 1;
+            for (int index = offset, end = offset + length; index < end; index++) hash = 31 * hash + array[index];
+            return hash;
+        }
+
+        @Override
+        public boolean equals(byte[] key, byte[] array, int offset, int length) {
+            return Arrays.equals(key, 0, key.length, array, offset, offset + length);
+        }
+    };
+
+    /**
+     * Содержимое последовательностей символов любых классов (String, StringBuilder, CharBuffer): хэш-код совпадает
+     * с {@link String#hashCode()}, поэтому для ключей String используется кэшированный хэш-код строки.
+     */
+    HashingStrategy<CharSequence> CHAR_SEQUENCE = new HashingStrategy<>() {
+        @Override
+        public int hashCode(CharSequence key) {
+            if (key instanceof String string) return string.hashCode();
+            int hash = 0;
+            for (int index = 0, length = key.length(); index < length; index++) hash = 31 * hash + key.charAt(index);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(CharSequence first, CharSequence second) {
+            return CharSequence.compare(first, second) == 0;
+        }
+
+        @Override
+        public int hashCode(char[] array, int offset, int length) {
+            int hash = 0;
+            for (int index = offset, end = offset + length; index < end; index++) hash = 31 * hash + array[index];
+            return hash;
+        }
+
+        @Override
+        public boolean equals(CharSequence key, char[] array, int offset, int length) {
+            if (key.length() != length) return false;
+            for (int index = 0; index < length; index++) {
+                if (key.charAt(index) != array[offset + index]) return false;
+            }
+            return true;
+        }
+    };
+
+    /**
+     * Возвращает стратегию для массивов byte[] с сильной хэш-функцией, зависящей от зерна ({@link SeededHash}).
+     * В отличие от {@link #BYTE_ARRAY}, ключи с одинаковым хэш-кодом нельзя подобрать без знания зерна, поэтому
+     * стратегия подходит для ключей из недоверенных источников. Зерно следует выбирать случайно при запуске.
+     *
+     * @param seed зерно хэш-функции
+     * @return стратегия для массивов byte[]
+     */
+    static HashingStrategy<byte[]> seededByteArray(long seed) {
+        SeededHash function = new SeededHash(seed);
+        return new HashingStrategy<>() {
+            @Override
+            public int hashCode(byte[] key) {
+                return function.hash(key, 0, key.length);
+            }
+
+            @Override
+            public boolean equals(byte[] first, byte[] second) {
+                return Arrays.equals(first, second);
+            }
+
+            @Override
+            public int hashCode(byte[] array, int offset, int length) {
+                return function.hash(array, offset, length);
+            }
+
+            @Override
+            public boolean equals(byte[] key, byte[] array, int offset, int length) {
+                return BYTE_ARRAY.equals(key, array, offset, length);
+            }
+        };
+    }
+
+    /**
+     * Возвращает стратегию для последовательностей символов с сильной хэш-функцией, зависящей от зерна
+     * ({@link SeededHash}). Сравнение такое же, как у {@link #CHAR_SEQUENCE}.
+     *
+     * @param seed зерно хэш-функции
+     * @return стратегия для последовательностей символов
+     */
+    static HashingStrategy<CharSequence> seededCharSequence(long seed) {
+        SeededHash function = new SeededHash(seed);
+        return new HashingStrategy<>() {
+            @Override
+            public int hashCode(CharSequence key) {
+                return function.hash(key);
+            }
+
+            @Override
+            public boolean equals(CharSequence first, CharSequence second) {
+                return CHAR_SEQUENCE.equals(first, second);
+            }
+
+            @Override
+            public int hashCode(char[] array, int offset, int length) {
+                return function.hash(array, offset, length);
+            }
+
+            @Override
+            public boolean equals(CharSequence key, char[] array, int offset, int length) {
+                return CHAR_SEQUENCE.equals(key, array, offset, length);
+            }
+        };
+    }
+}
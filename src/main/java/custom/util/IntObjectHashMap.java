@@ -0,0 +1,411 @@
+package custom.util;
+
+import java.util.*;
+
+/**
+ * Ассоциативный массив с ключами примитивного типа int, основанный на хэш-таблице с открытой адресацией.
+ * Данная реализация не потокобезопасна.
+ * Ключи хранятся в массиве int, значения - в параллельном массиве Object, поэтому методы
+ * {@link #get(int)}, {@link #put(int, Object)} и {@link #remove(int)} не упаковывают ключи в Integer
+ * и не создают объектов-узлов. Пустая ячейка обозначается ключом 0, а пара с ключом 0 хранится отдельно.
+ * Значения null не допускаются.
+ * <p>
+ * Для совместимости с кодом, ожидающим {@link Map}, предусмотрено представление {@link #asMap()}.
+ *
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class IntObjectHashMap<V> {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_CAPACITY = 16;
+
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private Object[] values;
+    private boolean hasZeroKey;
+    private V zeroValue;
+    private int size;
+    private int modCount;
+    private final float loadFactor;
+    private int growBorder;
+    private int shift;
+    private Map<Integer, V> mapView;
+
+    /**
+     * Конструктор, для создания объекта IntObjectHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * а также определить значение коэффициента заполнения.
+     *
+     * @param capacity размер хэш-таблицы
+     * @param load     коэффициент заполнения, от 0 (не включая) до 1 (не включая)
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения вне диапазона
+     */
+    public IntObjectHashMap(int capacity, float load) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0 && load < 1)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        this.loadFactor = load;
+        allocate(Math.max(2, CustomHashMap.tableSizeFor(capacity)));
+    }
+
+    /**
+     * Конструктор, для создания объекта IntObjectHashMap с возможностью указать изначальный размер хэш-таблиы.
+     *
+     * @param capacity размер хэш-таблицы
+     */
+    public IntObjectHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Конструктор, для создания объекта IntObjectHashMap по умолчанию.
+     */
+    public IntObjectHashMap() {
+        this(INIT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+        growBorder = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * loadFactor);
+    }
+
+    private int home(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private int findSlot(int key) {
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            int current = ks[slot];
+            if (current == key) return slot;
+            if (current == 0) return -1;
+        }
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если IntObjectHashMap не содержит пар ключ-значение.
+     *
+     * @return true, если IntObjectHashMap не содержит пар ключ-значение
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает true, если IntObjectHashMap содержит пару ключ-значение с указанным ключом.
+     *
+     * @param key ключ, наличие которого проверяется
+     * @return true - если ключ содержится в IntObjectHashMap
+     */
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0) return zeroValue;
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или defaultValue, если ключ отсутствует.
+     *
+     * @param key          ключ, значение которого должно быть возвращено
+     * @param defaultValue значение, возвращаемое при отсутствии ключа
+     * @return значение или defaultValue
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение или перезапись значения существующей пары.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или null
+     * @throws NullPointerException если value равно null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new NullPointerException();
+        if (key == 0) {
+            V old = zeroValue;
+            zeroValue = value;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+            }
+            return old;
+        }
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int slot = home(key);
+        for (int current; (current = ks[slot]) != 0; slot = (slot + 1) & mask) {
+            if (current == key) {
+                V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+        }
+        ks[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        if (size >= growBorder) resize();
+        return null;
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) return null;
+            V old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            modCount++;
+            return old;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        V old = (V) values[slot];
+        removeSlot(slot, null);
+        return old;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение.
+     */
+    public void clear() {
+        if (size > 0) {
+            size = 0;
+            modCount++;
+            hasZeroKey = false;
+            zeroValue = null;
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Освобождает ячейку, сдвигая назад последующие пары ключ-значение той же группы пробирования,
+     * чтобы поиск не прерывался на образовавшейся пустой ячейке.
+     *
+     * @param slot     освобождаемая ячейка
+     * @param iterator итератор, через который выполняется удаление, или null
+     */
+    private void removeSlot(int slot, SlotIterator iterator) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int mask = ks.length - 1;
+        for (int last = slot, next = slot; ; last = next) {
+            int current;
+            for (next = (next + 1) & mask; ; next = (next + 1) & mask) {
+                if ((current = ks[next]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = null;
+                    size--;
+                    modCount++;
+                    return;
+                }
+                int home = home(current);
+                if (last <= next ? last >= home || home > next : last >= home && home > next) break;
+            }
+            if (iterator != null) iterator.onShift(next, last);
+            ks[last] = current;
+            vs[last] = vs[next];
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        if (oldKeys.length >= MAXIMUM_CAPACITY) throw new IllegalStateException("Превышен максимальный размер хэш-таблицы");
+        allocate(oldKeys.length << 1);
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        for (int index = 0; index < oldKeys.length; index++) {
+            int key = oldKeys[index];
+            if (key == 0) continue;
+            int slot = home(key);
+            while (ks[slot] != 0) slot = (slot + 1) & mask;
+            ks[slot] = key;
+            values[slot] = oldValues[index];
+        }
+    }
+
+    /**
+     * Возвращает представление IntObjectHashMap в виде {@code Map<Integer, V>}. Изменения представления
+     * отражаются в IntObjectHashMap и наоборот. Обращение через представление упаковывает ключи в Integer.
+     *
+     * @return представление в виде Map
+     */
+    public Map<Integer, V> asMap() {
+        Map<Integer, V> view = mapView;
+        return view != null ? view : (mapView = new MapView());
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private final class MapView extends AbstractMap<Integer, V> {
+        private Set<Map.Entry<Integer, V>> entrySet;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer intKey && IntObjectHashMap.this.containsKey(intKey);
+        }
+
+        @Override
+        public V get(Object key) {
+            return key instanceof Integer intKey ? IntObjectHashMap.this.get(intKey) : null;
+        }
+
+        @Override
+        public V put(Integer key, V value) {
+            return IntObjectHashMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return key instanceof Integer intKey ? IntObjectHashMap.this.remove(intKey) : null;
+        }
+
+        @Override
+        public void clear() {
+            IntObjectHashMap.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, V>> entrySet() {
+            Set<Map.Entry<Integer, V>> view = entrySet;
+            return view != null ? view : (entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Integer, V>> iterator() {
+                    return new EntryIterator();
+                }
+            });
+        }
+    }
+
+    /**
+     * Итератор, обходящий ячейки от последней к первой, а затем пару с ключом 0. Обратный сдвиг при удалении
+     * через итератор перемещает пары только в уже пройденные ячейки, кроме переноса через границу массива:
+     * такие пары запоминаются и возвращаются после обхода массива.
+     */
+    private abstract class SlotIterator {
+        private int position = keys.length;
+        private int remaining = size;
+        private int expectedModCount = modCount;
+        private ArrayList<Object> wrapped;
+        private int wrappedIndex;
+        private int lastSlot = -1;
+        private boolean canRemove;
+        int currentKey;
+        V currentValue;
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        final void advance() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            canRemove = true;
+            while (--position >= 0) {
+                if (keys[position] != 0) {
+                    lastSlot = position;
+                    currentKey = keys[position];
+                    currentValue = (V) values[position];
+                    return;
+                }
+            }
+            position = -1;
+            lastSlot = -1;
+            if (wrapped != null && wrappedIndex < wrapped.size()) {
+                currentKey = (Integer) wrapped.get(wrappedIndex++);
+                currentValue = (V) wrapped.get(wrappedIndex++);
+            } else {
+                currentKey = 0;
+                currentValue = zeroValue;
+            }
+        }
+
+        void onShift(int from, int to) {
+            if (from < position && to >= position) {
+                if (wrapped == null) wrapped = new ArrayList<>(2);
+                wrapped.add(keys[from]);
+                wrapped.add(values[from]);
+            }
+        }
+
+        public final void remove() {
+            if (!canRemove) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            canRemove = false;
+            if (lastSlot >= 0) removeSlot(lastSlot, this);
+            else IntObjectHashMap.this.remove(currentKey);
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class EntryIterator extends SlotIterator implements Iterator<Map.Entry<Integer, V>> {
+        @Override
+        public Map.Entry<Integer, V> next() {
+            advance();
+            int key = currentKey;
+            return new AbstractMap.SimpleEntry<>(key, currentValue) {
+                @Override
+                public V setValue(V value) {
+                    IntObjectHashMap.this.put(key, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,741 @@
+package custom.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * CustomHashMap, сохраняющая каждое изменение в журнал упреждающей записи (write-ahead log), чтобы после
+ * аварийного завершения процесса состояние восстанавливалось при следующем открытии методом
+ * {@link #open(Path, Serializer, Serializer, SyncPolicy)}.
+ * <p>
+ * Каталог содержит файлы поколений: snapshot-N.bin - полный снимок пар ключ-значение на момент начала поколения N
+ * и journal-N.log - записи изменений поколения N. Запись журнала: длина (int), CRC32 (int) и тело: операция
+ * (PUT, REMOVE или CLEAR), длина ключа (int, -1 для null), байты ключа, для PUT длина и байты значения.
+ * Добавление пары, замена значения (методами put, compute, merge, replaceAll и через
+ * {@link Map.Entry#setValue(Object)}), удаление (в том числе через итераторы и представления) и clear записываются
+ * в журнал.
+ * <p>
+ * Политика {@link SyncPolicy} определяет, когда записи попадают в файл и когда выполняется fsync. Записи,
+ * накопленные за время между сбросами, записываются в файл одним вызовом и фиксируются одним fsync (group commit);
+ * putAll и replaceAll всегда фиксируются одной группой.
+ * <p>
+ * Когда журнал текущего поколения становится больше порога сжатия и предыдущего снимка, начинается новое
+ * поколение: ссылки на пары ключ-значение копируются в массивы (O(n) в вызывающем потоке), а сериализация снимка,
+ * его fsync, атомарное переименование и удаление файлов старых поколений выполняются фоновым потоком.
+ * При восстановлении читается последний полностью записанный снимок, хэш-таблица заранее увеличивается
+ * до количества пар в нём, и затем воспроизводятся журналы этого и последующих поколений. Оборванная запись
+ * в конце журнала (несовпадение длины или CRC32) и все записи после неё отбрасываются.
+ * <p>
+ * Ключи и значения должны быть неизменяемыми, так как снимок сериализуется фоновым потоком после возврата
+ * управления. Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class JournaledHashMap<K, V> extends CustomHashMap<K, V> implements AutoCloseable {
+
+    /**
+     * Политика записи журнала на диск.
+     */
+    public enum SyncPolicy {
+        /**
+         * Каждое изменение записывается в файл и фиксируется fsync до возврата из изменяющего метода.
+         */
+        EVERY_OPERATION,
+        /**
+         * Изменения накапливаются в памяти и записываются с fsync фоновым потоком раз в syncIntervalMillis.
+         * При аварийном завершении теряются изменения последнего интервала.
+         */
+        INTERVAL,
+        /**
+         * Каждое изменение записывается в файл до возврата из изменяющего метода, а момент записи на диск
+         * выбирает операционная система. Переживает аварийное завершение процесса, но не операционной системы.
+         */
+        OS
+    }
+
+    /**
+     * Интервал сброса журнала по умолчанию для политики INTERVAL.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+    /**
+     * Размер журнала по умолчанию, после которого начинается новое поколение со снимком.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    private static final int RECORD_HEADER = 8;
+    private static final int SNAPSHOT_MAGIC = 0x434A534E;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Количество накопленных байт, при котором записи политики INTERVAL записываются в файл, не дожидаясь
+     * фонового потока.
+     */
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final SyncPolicy policy;
+    private final long compactionThreshold;
+
+    /**
+     * Защищает pending и запись в journal от одновременного доступа изменяющего и фонового потоков.
+     */
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 12);
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private FileChannel journal;
+    private long generation;
+    private long journalBytes;
+    private long snapshotBytes;
+
+    /**
+     * Глубина вложенности пакетных операций, фиксируемых одной группой.
+     */
+    private int batchDepth;
+    private boolean replaying;
+    private boolean closed;
+
+    private final ScheduledExecutorService flusher;
+    private ExecutorService compactor;
+    private Future<?> compaction;
+
+    /**
+     * Ошибка фонового потока, выбрасываемая при следующем изменении.
+     */
+    private volatile IOException failure;
+
+    private JournaledHashMap(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                             SyncPolicy policy, long syncIntervalMillis, long compactionThreshold) {
+        this.directory = directory;
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.policy = Objects.requireNonNull(policy);
+        this.compactionThreshold = compactionThreshold;
+        if (policy == SyncPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(daemon("journal-flusher"));
+            flusher.scheduleWithFixedDelay(this::syncInBackground, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else flusher = null;
+    }
+
+    /**
+     * Открывает или создаёт JournaledHashMap в каталоге directory с интервалом сброса и порогом сжатия
+     * по умолчанию.
+     *
+     * @see #open(Path, Serializer, Serializer, SyncPolicy, long, long)
+     */
+    public static <K, V> JournaledHashMap<K, V> open(Path directory, Serializer<K> keySerializer,
+                                                     Serializer<V> valueSerializer, SyncPolicy policy)
+            throws IOException {
+        return open(directory, keySerializer, valueSerializer, policy, DEFAULT_SYNC_INTERVAL_MILLIS,
+                DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Открывает или создаёт JournaledHashMap в каталоге directory, восстанавливая состояние из последнего снимка
+     * и журналов. Изменения после открытия записываются в журнал нового поколения.
+     *
+     * @param directory           каталог файлов журнала, создаётся при отсутствии
+     * @param keySerializer       сериализатор ключей
+     * @param valueSerializer     сериализатор значений
+     * @param policy              политика записи журнала на диск
+     * @param syncIntervalMillis  интервал сброса журнала для политики INTERVAL
+     * @param compactionThreshold размер журнала в байтах, после которого создаётся снимок
+     * @return восстановленный JournaledHashMap
+     * @throws IOException              при ошибке чтения или записи файлов
+     * @throws IllegalArgumentException если интервал или порог не положительны
+     */
+    public static <K, V> JournaledHashMap<K, V> open(Path directory, Serializer<K> keySerializer,
+                                                     Serializer<V> valueSerializer, SyncPolicy policy,
+                                                     long syncIntervalMillis, long compactionThreshold)
+            throws IOException {
+        if (syncIntervalMillis <= 0) throw new IllegalArgumentException("Недопустимый интервал: " + syncIntervalMillis);
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Недопустимый порог сжатия: " + compactionThreshold);
+        }
+        Files.createDirectories(directory);
+        JournaledHashMap<K, V> map = new JournaledHashMap<>(directory, keySerializer, valueSerializer, policy,
+                syncIntervalMillis, compactionThreshold);
+        try {
+            map.recover();
+        } catch (IOException | RuntimeException e) {
+            map.halt();
+            throw e;
+        }
+        return map;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private Path snapshotFile(long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private Path journalFile(long generation) {
+        return directory.resolve("journal-" + generation + ".log");
+    }
+
+    /**
+     * Возвращает поколения файлов с указанным префиксом и расширением в порядке возрастания.
+     */
+    private long[] generations(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .mapToLong(Long::parseLong)
+                    .sorted()
+                    .toArray();
+        }
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(".tmp")) Files.delete(file);
+            }
+        }
+        long[] snapshots = generations("snapshot-", ".bin");
+        long[] journals = generations("journal-", ".log");
+        long base = snapshots.length == 0 ? Long.MIN_VALUE : snapshots[snapshots.length - 1];
+        replaying = true;
+        try {
+            if (snapshots.length > 0) {
+                readSnapshot(snapshotFile(base));
+                snapshotBytes = Files.size(snapshotFile(base));
+            }
+            for (long journalGeneration : journals) {
+                if (journalGeneration >= base) replay(journalFile(journalGeneration));
+            }
+        } finally {
+            replaying = false;
+        }
+        long last = Math.max(journals.length == 0 ? 0 : journals[journals.length - 1], Math.max(base, 0));
+        generation = last + 1;
+        journal = FileChannel.open(journalFile(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private void readSnapshot(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Файл не является снимком JournaledHashMap: " + file);
+            }
+            long count = input.readLong();
+            presize(count);
+            for (long i = 0; i < count; i++) {
+                K key = readObject(input, keySerializer);
+                V value = readObject(input, valueSerializer);
+                put(key, value);
+            }
+        }
+    }
+
+    private static <T> T readObject(DataInputStream input, Serializer<T> serializer) throws IOException {
+        int length = input.readInt();
+        if (length < 0) return null;
+        return serializer.read(ByteBuffer.wrap(input.readNBytes(length)));
+    }
+
+    /**
+     * Воспроизводит записи журнала и усекает файл после последней целой записи.
+     */
+    private void replay(Path file) throws IOException {
+        long valid = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                int length, checksum;
+                try {
+                    length = input.readInt();
+                    checksum = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0) break;
+                byte[] body = input.readNBytes(length);
+                if (body.length < length) break;
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) break;
+                apply(ByteBuffer.wrap(body));
+                valid += RECORD_HEADER + length;
+            }
+        }
+        if (valid < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    private void apply(ByteBuffer body) {
+        byte operation = body.get();
+        if (operation == CLEAR) {
+            clear();
+            return;
+        }
+        K key = readObject(body, keySerializer);
+        if (operation == PUT) put(key, readObject(body, valueSerializer));
+        else remove(key);
+    }
+
+    private static <T> T readObject(ByteBuffer body, Serializer<T> serializer) {
+        int length = body.getInt();
+        if (length < 0) return null;
+        ByteBuffer slice = body.slice(body.position(), length);
+        body.position(body.position() + length);
+        return serializer.read(slice);
+    }
+
+    /*
+     * Запись изменений. Новые узлы создаются только при добавлении пары, поэтому добавление записывается
+     * в фабричных методах узлов, а удаление - в обратном вызове CustomHashMap. Любая замена значения, в том числе
+     * через Map.Entry#setValue, проходит через setValue узла, поэтому записывается в классах узлов JournaledHashMap.
+     * Фиксация выполняется, когда изменение уже применено к хэш-таблице, чтобы снимок нового поколения его содержал.
+     * Закрытие и ошибка фоновой записи проверяются до изменения хэш-таблицы, чтобы она не расходилась с журналом.
+     */
+
+    @Override
+    Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        log(PUT, key, value);
+        return new JournaledNode(hash, key, value, next);
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        return new JournaledNode(node.hash, node.key, node.value, next);
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+        log(PUT, key, value);
+        return new JournaledTreeNode(hash, key, value, next);
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        return new JournaledTreeNode(node.hash, node.key, node.value, next);
+    }
+
+    @Override
+    void afterNodeInsertion() {
+        afterChange();
+    }
+
+    private void afterValueUpdate(K key, V value) {
+        log(PUT, key, value);
+        afterChange();
+    }
+
+    private final class JournaledNode extends Node<K, V> {
+        JournaledNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkOpen();
+            V oldValue = super.setValue(value);
+            afterValueUpdate(key, value);
+            return oldValue;
+        }
+    }
+
+    private final class JournaledTreeNode extends TreeNode<K, V> {
+        JournaledTreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkOpen();
+            V oldValue = super.setValue(value);
+            afterValueUpdate(key, value);
+            return oldValue;
+        }
+    }
+
+    @Override
+    void beforeNodeRemoval(Node<K, V> node) {
+        checkOpen();
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        log(REMOVE, node.key, null);
+        afterChange();
+    }
+
+    /**
+     * Удаляет все пары ключ-значение и записывает в журнал одну запись CLEAR.
+     */
+    @Override
+    public void clear() {
+        if (isEmpty()) return;
+        log(CLEAR, null, null);
+        super.clear();
+        afterChange();
+    }
+
+    /**
+     * Добавляет пары ключ-значение из map и фиксирует их в журнале одной группой.
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        beginBatch();
+        try {
+            super.putAll(map);
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Добавляет пары ключ-значение из двух массивов и фиксирует их в журнале одной группой.
+     */
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        beginBatch();
+        try {
+            super.putAll(keys, values);
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Заменяет значения всех пар ключ-значение и фиксирует замены в журнале одной группой.
+     */
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        beginBatch();
+        try {
+            super.replaceAll(function);
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void beginBatch() {
+        checkOpen();
+        batchDepth++;
+    }
+
+    private void endBatch() {
+        if (--batchDepth == 0) commit();
+    }
+
+    private void afterChange() {
+        if (!replaying && batchDepth == 0) commit();
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("JournaledHashMap закрыт");
+        IOException error = failure;
+        if (error != null) throw new UncheckedIOException("Ошибка фоновой записи журнала", error);
+    }
+
+    private void log(byte operation, K key, V value) {
+        if (replaying) return;
+        checkOpen();
+        ByteBuffer buffer = record;
+        buffer.clear().put(RECORD_HEADER, operation);
+        int end = RECORD_HEADER + 1;
+        if (operation != CLEAR) {
+            end = serialize(keySerializer, key, end);
+            if (operation == PUT) end = serialize(valueSerializer, value, end);
+        }
+        buffer = record;
+        crc.reset();
+        crc.update(buffer.slice(RECORD_HEADER, end - RECORD_HEADER));
+        buffer.putInt(0, end - RECORD_HEADER).putInt(4, (int) crc.getValue());
+        synchronized (lock) {
+            if (pending.remaining() < end) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() << 1, pending.position() + end));
+                pending = larger.put(pending.flip());
+            }
+            pending.put(buffer.slice(0, end));
+            journalBytes += end;
+        }
+    }
+
+    /**
+     * Сериализует объект вместе с длиной, начиная с позиции from буфера record.
+     *
+     * @return позиция после записанных байт
+     */
+    private <T> int serialize(Serializer<T> serializer, T object, int from) {
+        if (object == null) {
+            record = ensureCapacity(record, from + Integer.BYTES);
+            record.putInt(from, -1);
+            return from + Integer.BYTES;
+        }
+        record = Buffers.serialize(serializer, object, ensureCapacity(record, from + Integer.BYTES), from + Integer.BYTES);
+        int end = record.position();
+        record.putInt(from, end - from - Integer.BYTES);
+        return end;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        if (buffer.capacity() >= capacity) return buffer;
+        return ByteBuffer.allocate(Math.max(capacity, buffer.capacity() << 1)).put(0, buffer, 0, buffer.capacity());
+    }
+
+    /**
+     * Выполняет действия политики после изменения или пакета изменений и при необходимости начинает сжатие.
+     */
+    private void commit() {
+        try {
+            switch (policy) {
+                case EVERY_OPERATION -> {
+                    synchronized (lock) {
+                        writePending();
+                    }
+                    journal.force(false);
+                }
+                case OS -> {
+                    synchronized (lock) {
+                        writePending();
+                    }
+                }
+                case INTERVAL -> {
+                    synchronized (lock) {
+                        if (pending.position() >= MAX_PENDING_BYTES) writePending();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (journalBytes > Math.max(compactionThreshold, snapshotBytes)
+                && (compaction == null || compaction.isDone())) {
+            compaction = startCompaction();
+        }
+    }
+
+    /**
+     * Записывает накопленные записи в файл журнала. Вызывается под lock.
+     */
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) journal.write(pending);
+        pending.clear();
+    }
+
+    private void syncInBackground() {
+        FileChannel channel;
+        try {
+            synchronized (lock) {
+                if (pending.position() == 0) return;
+                channel = journal;
+                writePending();
+            }
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // журнал закрыт при смене поколения, его записи уже зафиксированы
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Записывает накопленные записи журнала и фиксирует их fsync независимо от политики.
+     *
+     * @throws IOException при ошибке записи
+     */
+    public void flush() throws IOException {
+        checkOpen();
+        synchronized (lock) {
+            writePending();
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Начинает новое поколение и ожидает записи его снимка. После этого файлы предыдущих поколений удалены.
+     *
+     * @throws IOException при ошибке записи
+     */
+    public void compact() throws IOException {
+        checkOpen();
+        awaitCompaction();
+        compaction = startCompaction();
+        awaitCompaction();
+    }
+
+    private void awaitCompaction() throws IOException {
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание сжатия журнала прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Фиксирует журнал текущего поколения, открывает журнал следующего и передаёт копию ссылок на пары
+     * ключ-значение фоновому потоку, записывающему снимок нового поколения.
+     */
+    private Future<?> startCompaction() {
+        Object[] keys = new Object[size()];
+        Object[] values = new Object[keys.length];
+        int count = 0;
+        for (Map.Entry<K, V> entry : entrySet()) {
+            keys[count] = entry.getKey();
+            values[count++] = entry.getValue();
+        }
+        long snapshotGeneration;
+        try {
+            synchronized (lock) {
+                writePending();
+                journal.force(false);
+                journal.close();
+                snapshotGeneration = ++generation;
+                journal = FileChannel.open(journalFile(snapshotGeneration), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                journalBytes = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (compactor == null) compactor = Executors.newSingleThreadExecutor(daemon("journal-compactor"));
+        return compactor.submit(() -> {
+            try {
+                writeSnapshot(snapshotGeneration, keys, values);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeSnapshot(long snapshotGeneration, Object[] keys, Object[] values) throws IOException {
+        Path file = snapshotFile(snapshotGeneration);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+             DataOutputStream data = new DataOutputStream(output)) {
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(SNAPSHOT_VERSION);
+            data.writeLong(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                buffer = writeObject(data, keySerializer, (K) keys[i], buffer);
+                buffer = writeObject(data, valueSerializer, (V) values[i], buffer);
+            }
+            data.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotBytes = Files.size(file);
+        for (long old : generations("snapshot-", ".bin")) {
+            if (old < snapshotGeneration) Files.deleteIfExists(snapshotFile(old));
+        }
+        for (long old : generations("journal-", ".log")) {
+            if (old < snapshotGeneration) Files.deleteIfExists(journalFile(old));
+        }
+    }
+
+    private static <T> ByteBuffer writeObject(DataOutputStream data, Serializer<T> serializer, T object,
+                                              ByteBuffer buffer) throws IOException {
+        if (object == null) {
+            data.writeInt(-1);
+            return buffer;
+        }
+        buffer = Buffers.serialize(serializer, object, buffer, 0);
+        data.writeInt(buffer.position());
+        data.write(buffer.array(), 0, buffer.position());
+        return buffer;
+    }
+
+    /**
+     * Возвращает номер текущего поколения журнала.
+     *
+     * @return номер поколения
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Записывает накопленные записи с fsync, дожидается записи снимка и закрывает журнал. Повторный вызов
+     * не имеет эффекта. После закрытия изменяющие методы выбрасывают IllegalStateException, чтение доступно.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            if (flusher != null) {
+                // прерывание потока во время записи закрыло бы FileChannel, поэтому ожидается завершение сброса
+                flusher.shutdown();
+                if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) throw new IOException("Сброс журнала не завершён");
+            }
+            awaitCompaction();
+            synchronized (lock) {
+                writePending();
+            }
+            journal.force(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание сброса журнала прервано");
+        } finally {
+            closed = true;
+            if (compactor != null) compactor.shutdown();
+            journal.close();
+        }
+    }
+
+    /**
+     * Закрывает файлы, не записывая накопленные записи и не дожидаясь фоновой записи снимка, как при аварийном
+     * завершении процесса. Используется в тестах восстановления.
+     */
+    void halt() {
+        closed = true;
+        if (flusher != null) flusher.shutdownNow();
+        if (compactor != null) compactor.shutdownNow();
+        synchronized (lock) {
+            try {
+                if (journal != null) journal.close();
+            } catch (IOException ignored) {
+                // как и при аварийном завершении, незаписанные данные теряются
+            }
+        }
+    }
+}
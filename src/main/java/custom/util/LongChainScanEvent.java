@@ -0,0 +1,64 @@
+package custom.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR, записываемое, когда поиск ключа в CustomHashMap просматривает цепочку из
+ * {@value #THRESHOLD} и более узлов. Такие цепочки возникают при плохо распределённых хэш-кодах ключей:
+ * класс и хэш-код ключа в событии указывают на источник проблемы.
+ * <p>
+ * Добавление (put) записывает событие всегда, так как длина цепочки при добавлении уже известна.
+ * Поиск (get) записывает событие только при включённом сборе статистики
+ * ({@link CustomHashMap#setStatisticsEnabled(boolean)}).
+ *
+ * @author Владислав Кильчевский
+ */
+@Name("custom.util.LongChainScan")
+@Label("Long Chain Scan")
+@Category({"Custom Collections", "CustomHashMap"})
+@Description("Просмотр длинной цепочки бакета CustomHashMap")
+final class LongChainScanEvent extends Event {
+
+    /**
+     * Количество просмотренных узлов, начиная с которого записывается событие.
+     */
+    static final int THRESHOLD = CustomHashMap.TREEIFY_THRESHOLD;
+
+    @Label("Map Identity")
+    @Description("System.identityHashCode ассоциативного массива")
+    int mapIdentity;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key Class")
+    String keyClass;
+
+    @Label("Key Hash")
+    int keyHash;
+
+    @Label("Bucket Index")
+    int bucketIndex;
+
+    @Label("Scanned Nodes")
+    int scannedNodes;
+
+    /**
+     * Записывает событие, если запись событий этого типа включена.
+     */
+    static void emit(Object map, String operation, Object key, int keyHash, int bucketIndex, int scannedNodes) {
+        LongChainScanEvent event = new LongChainScanEvent();
+        if (!event.shouldCommit()) return;
+        event.mapIdentity = System.identityHashCode(map);
+        event.operation = operation;
+        event.keyClass = key == null ? "null" : key.getClass().getName();
+        event.keyHash = keyHash;
+        event.bucketIndex = bucketIndex;
+        event.scannedNodes = scannedNodes;
+        event.commit();
+    }
+}
@@ -0,0 +1,435 @@
+package custom.util;
+
+import java.util.*;
+
+/**
+ * Ассоциативный массив с ключами и значениями примитивного типа long, основанный на хэш-таблице с открытой
+ * адресацией. Данная реализация не потокобезопасна.
+ * Ключи и значения хранятся в двух параллельных массивах long, поэтому операции не упаковывают ни ключи,
+ * ни значения. Пустая ячейка обозначается ключом 0, а пара с ключом 0 хранится отдельно.
+ * Так как у примитивного значения нет аналога null, методы, которым нечего вернуть, возвращают 0
+ * или переданное значение по умолчанию.
+ * <p>
+ * Для совместимости с кодом, ожидающим {@link Map}, предусмотрено представление {@link #asMap()}.
+ *
+ * @author Владислав Кильчевский
+ */
+public class LongLongHashMap {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_CAPACITY = 16;
+
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] values;
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private int size;
+    private int modCount;
+    private final float loadFactor;
+    private int growBorder;
+    private int shift;
+    private Map<Long, Long> mapView;
+
+    /**
+     * Конструктор, для создания объекта LongLongHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * а также определить значение коэффициента заполнения.
+     *
+     * @param capacity размер хэш-таблицы
+     * @param load     коэффициент заполнения, от 0 (не включая) до 1 (не включая)
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения вне диапазона
+     */
+    public LongLongHashMap(int capacity, float load) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0 && load < 1)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        this.loadFactor = load;
+        allocate(Math.max(2, CustomHashMap.tableSizeFor(capacity)));
+    }
+
+    /**
+     * Конструктор, для создания объекта LongLongHashMap с возможностью указать изначальный размер хэш-таблиы.
+     *
+     * @param capacity размер хэш-таблицы
+     */
+    public LongLongHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Конструктор, для создания объекта LongLongHashMap по умолчанию.
+     */
+    public LongLongHashMap() {
+        this(INIT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+        growBorder = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * loadFactor);
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private int findSlot(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            long current = ks[slot];
+            if (current == key) return slot;
+            if (current == 0) return -1;
+        }
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если LongLongHashMap не содержит пар ключ-значение.
+     *
+     * @return true, если LongLongHashMap не содержит пар ключ-значение
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает true, если LongLongHashMap содержит пару ключ-значение с указанным ключом.
+     *
+     * @param key ключ, наличие которого проверяется
+     * @return true - если ключ содержится в LongLongHashMap
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или 0, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или 0
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0L);
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или defaultValue, если ключ отсутствует.
+     *
+     * @param key          ключ, значение которого должно быть возвращено
+     * @param defaultValue значение, возвращаемое при отсутствии ключа
+     * @return значение или defaultValue
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) return hasZeroKey ? zeroValue : defaultValue;
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение или перезапись значения существующей пары.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или 0
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long old = zeroValue;
+            zeroValue = value;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+                return 0;
+            }
+            return old;
+        }
+        int slot = insertionSlot(key);
+        long old = values[slot];
+        values[slot] = value;
+        if (keys[slot] == key) return old;
+        keys[slot] = key;
+        size++;
+        modCount++;
+        if (size >= growBorder) resize();
+        return 0;
+    }
+
+    /**
+     * Прибавляет delta к значению, связанному с ключом key. Если ключ отсутствует, добавляет пару
+     * ключ-значение со значением delta. Выполняет один проход пробирования.
+     *
+     * @param key   ключ
+     * @param delta прибавляемая величина
+     * @return новое значение
+     */
+    public long addTo(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+                return zeroValue = delta;
+            }
+            return zeroValue += delta;
+        }
+        int slot = insertionSlot(key);
+        if (keys[slot] == key) return values[slot] += delta;
+        keys[slot] = key;
+        values[slot] = delta;
+        size++;
+        modCount++;
+        if (size >= growBorder) resize();
+        return delta;
+    }
+
+    /**
+     * Возвращает ячейку с указанным ключом или пустую ячейку, в которую он должен быть добавлен.
+     */
+    private int insertionSlot(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        int slot = home(key);
+        for (long current; (current = ks[slot]) != 0 && current != key; ) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или 0
+     */
+    public long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) return 0;
+            long old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            modCount++;
+            return old;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) return 0;
+        long old = values[slot];
+        removeSlot(slot, null);
+        return old;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение.
+     */
+    public void clear() {
+        if (size > 0) {
+            size = 0;
+            modCount++;
+            hasZeroKey = false;
+            zeroValue = 0;
+            Arrays.fill(keys, 0);
+        }
+    }
+
+    /**
+     * Освобождает ячейку, сдвигая назад последующие пары ключ-значение той же группы пробирования,
+     * чтобы поиск не прерывался на образовавшейся пустой ячейке.
+     *
+     * @param slot     освобождаемая ячейка
+     * @param iterator итератор, через который выполняется удаление, или null
+     */
+    private void removeSlot(int slot, EntryIterator iterator) {
+        long[] ks = keys, vs = values;
+        int mask = ks.length - 1;
+        for (int last = slot, next = slot; ; last = next) {
+            long current;
+            for (next = (next + 1) & mask; ; next = (next + 1) & mask) {
+                if ((current = ks[next]) == 0) {
+                    ks[last] = 0;
+                    size--;
+                    modCount++;
+                    return;
+                }
+                int home = home(current);
+                if (last <= next ? last >= home || home > next : last >= home && home > next) break;
+            }
+            if (iterator != null) iterator.onShift(next, last);
+            ks[last] = current;
+            vs[last] = vs[next];
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys, oldValues = values;
+        if (oldKeys.length >= MAXIMUM_CAPACITY) throw new IllegalStateException("Превышен максимальный размер хэш-таблицы");
+        allocate(oldKeys.length << 1);
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        for (int index = 0; index < oldKeys.length; index++) {
+            long key = oldKeys[index];
+            if (key == 0) continue;
+            int slot = home(key);
+            while (ks[slot] != 0) slot = (slot + 1) & mask;
+            ks[slot] = key;
+            values[slot] = oldValues[index];
+        }
+    }
+
+    /**
+     * Возвращает представление LongLongHashMap в виде {@code Map<Long, Long>}. Изменения представления
+     * отражаются в LongLongHashMap и наоборот. Обращение через представление упаковывает ключи и значения.
+     *
+     * @return представление в виде Map
+     */
+    public Map<Long, Long> asMap() {
+        Map<Long, Long> view = mapView;
+        return view != null ? view : (mapView = new MapView());
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private final class MapView extends AbstractMap<Long, Long> {
+        private Set<Map.Entry<Long, Long>> entrySet;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long longKey && LongLongHashMap.this.containsKey(longKey);
+        }
+
+        @Override
+        public Long get(Object key) {
+            if (!(key instanceof Long longKey) || !LongLongHashMap.this.containsKey(longKey)) return null;
+            return LongLongHashMap.this.get(longKey);
+        }
+
+        @Override
+        public Long put(Long key, Long value) {
+            boolean present = LongLongHashMap.this.containsKey(key);
+            long old = LongLongHashMap.this.put(key, value);
+            return present ? old : null;
+        }
+
+        @Override
+        public Long remove(Object key) {
+            if (!(key instanceof Long longKey) || !LongLongHashMap.this.containsKey(longKey)) return null;
+            return LongLongHashMap.this.remove(longKey);
+        }
+
+        @Override
+        public void clear() {
+            LongLongHashMap.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<Long, Long>> entrySet() {
+            Set<Map.Entry<Long, Long>> view = entrySet;
+            return view != null ? view : (entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Long, Long>> iterator() {
+                    return new EntryIterator();
+                }
+            });
+        }
+    }
+
+    /**
+     * Итератор, обходящий ячейки от последней к первой, а затем пару с ключом 0. Обратный сдвиг при удалении
+     * через итератор перемещает пары только в уже пройденные ячейки, кроме переноса через границу массива:
+     * такие пары запоминаются и возвращаются после обхода массива.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Long, Long>> {
+        private int position = keys.length;
+        private int remaining = size;
+        private int expectedModCount = modCount;
+        private long[] wrapped;
+        private int wrappedSize;
+        private int wrappedIndex;
+        private int lastSlot = -1;
+        private boolean canRemove;
+        private long currentKey;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Map.Entry<Long, Long> next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            canRemove = true;
+            long value;
+            while (--position >= 0) {
+                if (keys[position] != 0) {
+                    lastSlot = position;
+                    return entry(currentKey = keys[position], values[position]);
+                }
+            }
+            position = -1;
+            lastSlot = -1;
+            if (wrappedIndex < wrappedSize) {
+                currentKey = wrapped[wrappedIndex++];
+                value = wrapped[wrappedIndex++];
+            } else {
+                currentKey = 0;
+                value = zeroValue;
+            }
+            return entry(currentKey, value);
+        }
+
+        private Map.Entry<Long, Long> entry(long key, long value) {
+            return new AbstractMap.SimpleEntry<>(key, value) {
+                @Override
+                public Long setValue(Long value) {
+                    LongLongHashMap.this.put(key, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        void onShift(int from, int to) {
+            if (from < position && to >= position) {
+                if (wrapped == null) wrapped = new long[4];
+                else if (wrappedSize == wrapped.length) wrapped = Arrays.copyOf(wrapped, wrappedSize * 2);
+                wrapped[wrappedSize++] = keys[from];
+                wrapped[wrappedSize++] = values[from];
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            canRemove = false;
+            if (lastSlot >= 0) removeSlot(lastSlot, this);
+            else LongLongHashMap.this.remove(currentKey);
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package custom.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR, записываемое при каждом перехэшировании CustomHashMap. Продолжительность события - время
+ * перехэширования; в режиме постепенного перехэширования оно включает только выделение новой хэш-таблицы.
+ *
+ * @author Владислав Кильчевский
+ */
+@Name("custom.util.MapResize")
+@Label("Map Resize")
+@Category({"Custom Collections", "CustomHashMap"})
+@Description("Перехэширование CustomHashMap")
+final class MapResizeEvent extends Event {
+
+    @Label("Map Identity")
+    @Description("System.identityHashCode ассоциативного массива")
+    int mapIdentity;
+
+    @Label("Old Capacity")
+    int oldCapacity;
+
+    @Label("New Capacity")
+    int newCapacity;
+
+    @Label("Size")
+    int size;
+
+    @Label("Incremental")
+    boolean incremental;
+
+    /**
+     * Завершает измерение и записывает событие, если запись событий этого типа включена.
+     */
+    void complete(Object map, int oldCapacity, int newCapacity, int size, boolean incremental) {
+        end();
+        if (!shouldCommit()) return;
+        this.mapIdentity = System.identityHashCode(map);
+        this.oldCapacity = oldCapacity;
+        this.newCapacity = newCapacity;
+        this.size = size;
+        this.incremental = incremental;
+        commit();
+    }
+}
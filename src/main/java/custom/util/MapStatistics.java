@@ -0,0 +1,212 @@
+package custom.util;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый снимок состояния хэш-таблицы CustomHashMap (см. {@link CustomHashMap#statistics()}).
+ * <p>
+ * Структурные показатели (гистограмма длин цепочек, количество бакетов-деревьев, оценка памяти) вычисляются
+ * при создании снимка обходом хэш-таблицы. Счётчики обращений и перехэширований накапливаются только при
+ * включённом сборе статистики ({@link CustomHashMap#setStatisticsEnabled(boolean)}), иначе равны нулю.
+ *
+ * @author Владислав Кильчевский
+ */
+public final class MapStatistics {
+
+    /**
+     * Количество элементов гистограммы длин цепочек. Последний элемент учитывает бакеты с цепочками длиной
+     * {@code HISTOGRAM_LENGTH - 1} и более.
+     */
+    public static final int HISTOGRAM_LENGTH = 16;
+
+    private final int size;
+    private final int capacity;
+    private final float loadFactor;
+    private final long[] chainLengthHistogram;
+    private final int maxChainLength;
+    private final int treeBucketCount;
+    private final double estimatedBytesPerEntry;
+    private final boolean statisticsEnabled;
+    private final long hitCount;
+    private final long missCount;
+    private final int maxProbeLength;
+    private final long resizeCount;
+    private final long totalResizeNanos;
+
+    MapStatistics(int size, int capacity, float loadFactor, long[] chainLengthHistogram, int maxChainLength,
+                  int treeBucketCount, double estimatedBytesPerEntry, Counters counters) {
+        this.size = size;
+        this.capacity = capacity;
+        this.loadFactor = loadFactor;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.maxChainLength = maxChainLength;
+        this.treeBucketCount = treeBucketCount;
+        this.estimatedBytesPerEntry = estimatedBytesPerEntry;
+        this.statisticsEnabled = counters != null;
+        this.hitCount = counters == null ? 0 : counters.hits;
+        this.missCount = counters == null ? 0 : counters.misses;
+        this.maxProbeLength = counters == null ? 0 : counters.maxProbeLength;
+        this.resizeCount = counters == null ? 0 : counters.resizeCount;
+        this.totalResizeNanos = counters == null ? 0 : counters.resizeNanos;
+    }
+
+    /**
+     * Счётчики, накапливаемые CustomHashMap при включённом сборе статистики.
+     */
+    static final class Counters {
+        long hits;
+        long misses;
+        int maxProbeLength;
+        long resizeCount;
+        long resizeNanos;
+
+        void recordLookup(boolean hit) {
+            if (hit) hits++;
+            else misses++;
+        }
+
+        void recordProbes(int probes) {
+            if (probes > maxProbeLength) maxProbeLength = probes;
+        }
+
+        void recordResize(long nanos) {
+            resizeCount++;
+            resizeNanos += nanos;
+        }
+    }
+
+    /**
+     * @return количество пар ключ-значение
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return размер хэш-таблицы (количество бакетов)
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return коэффициент заполнения, заданный при создании CustomHashMap
+     */
+    public float loadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * @return фактическая заполненность хэш-таблицы: отношение количества пар ключ-значение к размеру хэш-таблицы
+     */
+    public double currentLoad() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * Возвращает гистограмму длин цепочек: элемент с индексом i - количество бакетов, содержащих i узлов
+     * (последний элемент - {@value #HISTOGRAM_LENGTH} - 1 узлов и более). Бакеты-деревья учитываются по
+     * количеству узлов.
+     *
+     * @return копия гистограммы длиной {@value #HISTOGRAM_LENGTH}
+     */
+    public long[] chainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    /**
+     * @return длина самой длинной цепочки (количество узлов в самом большом бакете)
+     */
+    public int maxChainLength() {
+        return maxChainLength;
+    }
+
+    /**
+     * @return количество бакетов, преобразованных в красно-чёрные деревья; ненулевое значение обычно указывает
+     * на плохо распределённые хэш-коды ключей
+     */
+    public int treeBucketCount() {
+        return treeBucketCount;
+    }
+
+    /**
+     * Возвращает оценку памяти на одну пару ключ-значение: хэш-таблица и узлы, без самих ключей и значений.
+     * Оценка рассчитана на 64-битную JVM со сжатыми ссылками.
+     *
+     * @return оценка в байтах или 0 для пустой CustomHashMap
+     */
+    public double estimatedBytesPerEntry() {
+        return estimatedBytesPerEntry;
+    }
+
+    /**
+     * @return true, если сбор статистики был включён на момент создания снимка
+     */
+    public boolean statisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * @return количество вызовов get, нашедших ключ
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return количество вызовов get, не нашедших ключ
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return доля успешных вызовов get или 0, если get не вызывался
+     */
+    public double hitRatio() {
+        return hitRatio(hitCount, missCount);
+    }
+
+    static double hitRatio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return наибольшее количество узлов цепочки, просмотренных одним вызовом get
+     */
+    public int maxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * @return количество перехэширований
+     */
+    public long resizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * @return суммарная продолжительность перехэширований в наносекундах
+     */
+    public long totalResizeNanos() {
+        return totalResizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "MapStatistics{size=" + size
+                + ", capacity=" + capacity
+                + ", currentLoad=" + String.format("%.3f", currentLoad())
+                + ", maxChainLength=" + maxChainLength
+                + ", treeBucketCount=" + treeBucketCount
+                + ", chainLengthHistogram=" + Arrays.toString(chainLengthHistogram)
+                + ", bytesPerEntry=" + String.format("%.1f", estimatedBytesPerEntry)
+                + ", hits=" + hitCount
+                + ", misses=" + missCount
+                + ", maxProbeLength=" + maxProbeLength
+                + ", resizeCount=" + resizeCount
+                + ", totalResizeNanos=" + totalResizeNanos
+                + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package custom.util;
+
+/**
+ * Реализация {@link MapStatisticsMXBean}, регистрируемая методом {@link CustomHashMap#registerMXBean(String)}.
+ * Счётчики читаются из {@link MapStatistics.Counters} без обхода хэш-таблицы, структурные атрибуты - из снимка
+ * {@link CustomHashMap#statistics()}, который используется повторно в течение {@link #SNAPSHOT_LIFETIME_NANOS}.
+ *
+ * @author Владислав Кильчевский
+ */
+final class MapStatisticsBean implements MapStatisticsMXBean {
+
+    /**
+     * Время, в течение которого снимок используется повторно: больше продолжительности одного опроса всех
+     * атрибутов и меньше обычного интервала опроса.
+     */
+    private static final long SNAPSHOT_LIFETIME_NANOS = 1_000_000_000L;
+
+    private final CustomHashMap<?, ?> map;
+
+    /**
+     * Последний снимок. Атрибуты могут читаться несколькими потоками JMX, поэтому снимок и время его создания
+     * публикуются одним объектом.
+     */
+    private volatile Snapshot snapshot;
+
+    private static final class Snapshot {
+        final MapStatistics statistics;
+        final long createdNanos;
+
+        Snapshot(MapStatistics statistics, long createdNanos) {
+            this.statistics = statistics;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    MapStatisticsBean(CustomHashMap<?, ?> map) {
+        this.map = map;
+    }
+
+    private MapStatistics statistics() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.createdNanos > SNAPSHOT_LIFETIME_NANOS) {
+            MapStatistics statistics = map.statistics();
+            current = new Snapshot(statistics, System.nanoTime());
+            snapshot = current;
+        }
+        return current.statistics;
+    }
+
+    @Override
+    public int getSize() {
+        return map.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return statistics().capacity();
+    }
+
+    @Override
+    public float getLoadFactor() {
+        return statistics().loadFactor();
+    }
+
+    @Override
+    public double getCurrentLoad() {
+        return statistics().currentLoad();
+    }
+
+    @Override
+    public long[] getChainLengthHistogram() {
+        return statistics().chainLengthHistogram();
+    }
+
+    @Override
+    public int getMaxChainLength() {
+        return statistics().maxChainLength();
+    }
+
+    @Override
+    public int getTreeBucketCount() {
+        return statistics().treeBucketCount();
+    }
+
+    @Override
+    public double getEstimatedBytesPerEntry() {
+        return statistics().estimatedBytesPerEntry();
+    }
+
+    @Override
+    public long getHitCount() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : counters.hits;
+    }
+
+    @Override
+    public long getMissCount() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : counters.misses;
+    }
+
+    @Override
+    public double getHitRatio() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : MapStatistics.hitRatio(counters.hits, counters.misses);
+    }
+
+    @Override
+    public int getMaxProbeLength() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : counters.maxProbeLength;
+    }
+
+    @Override
+    public long getResizeCount() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : counters.resizeCount;
+    }
+
+    @Override
+    public long getTotalResizeNanos() {
+        MapStatistics.Counters counters = map.statisticsCounters();
+        return counters == null ? 0 : counters.resizeNanos;
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return map.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        map.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public void resetStatistics() {
+        map.resetStatistics();
+    }
+}
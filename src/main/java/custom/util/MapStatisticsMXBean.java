@@ -0,0 +1,54 @@
+package custom.util;
+
+/**
+ * Управляющий интерфейс JMX для наблюдения за CustomHashMap (см. {@link CustomHashMap#registerMXBean(String)}).
+ * Атрибуты соответствуют показателям {@link MapStatistics}. Счётчики обращений и перехэширований читаются
+ * напрямую. Структурные атрибуты (размер хэш-таблицы, загрузка, гистограмма длин цепочек, бакеты-деревья,
+ * оценка памяти) берутся из одного снимка, который строится обходом хэш-таблицы за время, пропорциональное её
+ * размеру, и используется повторно в течение секунды, поэтому опрос всех атрибутов выполняет один обход.
+ * <p>
+ * CustomHashMap не потокобезопасна, а обход выполняется без синхронизации: значения, прочитанные через JMX
+ * во время изменения CustomHashMap другим потоком, приблизительны и могут быть несогласованы между собой.
+ * Чтение атрибутов CustomHashMap не изменяет.
+ *
+ * @author Владислав Кильчевский
+ */
+public interface MapStatisticsMXBean {
+
+    int getSize();
+
+    int getCapacity();
+
+    float getLoadFactor();
+
+    double getCurrentLoad();
+
+    long[] getChainLengthHistogram();
+
+    int getMaxChainLength();
+
+    int getTreeBucketCount();
+
+    double getEstimatedBytesPerEntry();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    int getMaxProbeLength();
+
+    long getResizeCount();
+
+    long getTotalResizeNanos();
+
+    boolean isStatisticsEnabled();
+
+    void setStatisticsEnabled(boolean enabled);
+
+    /**
+     * Обнуляет накопленные счётчики обращений и перехэширований.
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,377 @@
+package custom.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Неизменяемый ассоциативный массив, обслуживающий поиск непосредственно из файла снимка, отображённого в память
+ * ({@link FileChannel#map}). Снимок создаётся методом {@link #save(Map, Path, Serializer, Serializer)}.
+ * Открытие снимка не читает и не десериализует пары ключ-значение: операционная система подгружает страницы файла
+ * по мере обращения, а get десериализует только возвращаемое значение. Для переноса снимка в CustomHashMap
+ * предусмотрен {@link #toCustomHashMap()}, выполняющий один последовательный проход без перехэширования.
+ * <p>
+ * Формат файла (порядок байт BIG_ENDIAN):
+ * <ul>
+ *     <li>заголовок: сигнатура (int), версия (int), количество пар (long), размер хэш-таблицы (int),
+ *     максимальная длина записи (int);</li>
+ *     <li>хэш-таблица: размер хэш-таблицы + 1 смещений (long) начала записей каждого бакета в файле,
+ *     последнее смещение - конец данных;</li>
+ *     <li>записи, сгруппированные по бакетам: хэш-код (int), длина ключа (int), длина значения (int),
+ *     байты ключа, байты значения.</li>
+ * </ul>
+ * Бакет определяется так же, как в {@link CustomHashMap}: размытый {@link CustomHashMap#hash(Object)} хэш-код
+ * по маске размера хэш-таблицы. Поэтому хэш-коды ключей должны совпадать между запусками JVM (как у String,
+ * Integer и Long), а сериализованное представление ключа должно быть каноническим (см. {@link Serializer}).
+ * <p>
+ * Файл отображается участками по 1 ГиБ, перекрывающимися на максимальную длину записи, поэтому каждая запись
+ * целиком читается из одного участка. Операции чтения потокобезопасны. Отображение освобождается методом
+ * {@link #close()}. Ключи null не допускаются.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class MappedHashMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    private static final int MAGIC = 0x43484D53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_HEADER = 12;
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Размер буфера, которым записывается таблица смещений бакетов: таблица из 2^30 бакетов занимает 8 ГиБ
+     * и не помещается в один ByteBuffer.
+     */
+    private static final int TABLE_CHUNK_SIZE = 1 << 16;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private ByteBuffer[] regions;
+    private final long size;
+    private final int tableCapacity;
+    private final long dataStart;
+    private final long dataEnd;
+
+    /**
+     * Буфер каждого потока, в который сериализуется искомый ключ.
+     */
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+    private MappedHashMap(ByteBuffer[] regions, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this.regions = regions;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        ByteBuffer header = regions[0];
+        if (header.capacity() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Файл не является снимком MappedHashMap");
+        }
+        this.size = header.getLong(8);
+        this.tableCapacity = header.getInt(16);
+        this.dataStart = HEADER_SIZE + (tableCapacity + 1L) * Long.BYTES;
+        this.dataEnd = getLong(HEADER_SIZE + (long) tableCapacity * Long.BYTES);
+    }
+
+    /**
+     * Сохраняет пары ключ-значение ассоциативного массива в файл снимка. Файл записывается во временный файл
+     * рядом с целевым и затем переименовывается, поэтому читатели никогда не видят частично записанный снимок.
+     *
+     * @param map             сохраняемый ассоциативный массив, не содержащий ключей и значений null
+     * @param file            путь к файлу снимка
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @throws IOException при ошибке записи
+     */
+    public static <K, V> void save(Map<K, V> map, Path file, Serializer<K> keySerializer,
+                                   Serializer<V> valueSerializer) throws IOException {
+        int size = map.size();
+        int capacity = tableCapacityFor(size);
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        int[] hashes = new int[size];
+        int[] bucketStarts = new int[capacity + 1];
+        int count = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            keys[count] = Objects.requireNonNull(entry.getKey());
+            values[count] = Objects.requireNonNull(entry.getValue());
+            hashes[count] = CustomHashMap.hash(keys[count]);
+            bucketStarts[(hashes[count] & (capacity - 1)) + 1]++;
+            count++;
+        }
+        if (count != size) throw new ConcurrentModificationException();
+        for (int bucket = 0; bucket < capacity; bucket++) bucketStarts[bucket + 1] += bucketStarts[bucket];
+        int[] order = new int[size];
+        int[] cursors = Arrays.copyOf(bucketStarts, capacity);
+        for (int i = 0; i < size; i++) order[cursors[hashes[i] & (capacity - 1)]++] = i;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = HEADER_SIZE + (capacity + 1L) * Long.BYTES;
+            ByteBuffer table = ByteBuffer.allocate(TABLE_CHUNK_SIZE);
+            long tablePosition = HEADER_SIZE;
+            ByteBuffer output = ByteBuffer.allocateDirect(1 << 16);
+            ByteBuffer record = ByteBuffer.allocate(256);
+            int maxRecordLength = 0;
+            channel.position(position);
+            for (int bucket = 0, next = 0; bucket < capacity; bucket++) {
+                if (!table.hasRemaining()) tablePosition = writeAt(channel, table, tablePosition);
+                table.putLong(position);
+                for (; next < bucketStarts[bucket + 1]; next++) {
+                    int index = order[next];
+                    record = Buffers.serialize(keySerializer, cast(keys[index]), record, RECORD_HEADER);
+                    int keyLength = record.position() - RECORD_HEADER;
+                    record = Buffers.serialize(valueSerializer, cast(values[index]), record, RECORD_HEADER + keyLength);
+                    int length = record.position();
+                    record.putInt(0, hashes[index]).putInt(4, keyLength).putInt(8, length - RECORD_HEADER - keyLength);
+                    maxRecordLength = Math.max(maxRecordLength, length);
+                    if (output.remaining() < length) {
+                        flush(channel, output);
+                        if (output.capacity() < length) output = ByteBuffer.allocate(length);
+                    }
+                    output.put(record.flip());
+                    position += length;
+                }
+            }
+            flush(channel, output);
+            if (!table.hasRemaining()) tablePosition = writeAt(channel, table, tablePosition);
+            table.putLong(position);
+            writeAt(channel, table, tablePosition);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putLong(size).putInt(capacity).putInt(maxRecordLength);
+            writeAt(channel, header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object object) {
+        return (T) object;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer output) throws IOException {
+        output.flip();
+        while (output.hasRemaining()) channel.write(output);
+        output.clear();
+    }
+
+    /**
+     * Записывает содержимое буфера в файл с указанной позиции, не меняя позицию канала, и очищает буфер.
+     *
+     * @return позиция файла после записанных байтов
+     */
+    private static long writeAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+        return position;
+    }
+
+    /**
+     * Размер хэш-таблицы, при котором size пар не превышают порог заполнения CustomHashMap.
+     */
+    private static int tableCapacityFor(int size) {
+        return CustomHashMap.tableSizeFor((int) Math.min((long) (size / LOAD_FACTOR) + 1, CustomHashMap.MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Открывает файл снимка, отображая его в память. Пары ключ-значение не читаются.
+     *
+     * @param file            путь к файлу снимка
+     * @param keySerializer   сериализатор ключей, которым был сохранён снимок
+     * @param valueSerializer сериализатор значений, которым был сохранён снимок
+     * @return ассоциативный массив, обслуживающий поиск из файла
+     * @throws IOException              при ошибке чтения
+     * @throws IllegalArgumentException если файл не является снимком
+     */
+    public static <K, V> MappedHashMap<K, V> open(Path file, Serializer<K> keySerializer,
+                                                  Serializer<V> valueSerializer) throws IOException {
+        Objects.requireNonNull(keySerializer);
+        Objects.requireNonNull(valueSerializer);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) throw new IllegalArgumentException("Файл не является снимком MappedHashMap");
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) channel.read(header, header.position());
+            long overlap = Math.max(header.getInt(20), Long.BYTES);
+            ByteBuffer[] regions = new ByteBuffer[(int) ((length + REGION_MASK) >>> REGION_SHIFT)];
+            for (int region = 0; region < regions.length; region++) {
+                long start = (long) region << REGION_SHIFT;
+                regions[region] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(REGION_MASK + 1 + overlap, length - start));
+            }
+            return new MappedHashMap<>(regions, keySerializer, valueSerializer);
+        }
+    }
+
+    private ByteBuffer[] checkOpen() {
+        ByteBuffer[] mapped = regions;
+        if (mapped == null) throw new IllegalStateException("MappedHashMap закрыт");
+        return mapped;
+    }
+
+    private ByteBuffer region(long position) {
+        return checkOpen()[(int) (position >>> REGION_SHIFT)];
+    }
+
+    private static int local(long position) {
+        return (int) (position & REGION_MASK);
+    }
+
+    private long getLong(long position) {
+        return region(position).getLong(local(position));
+    }
+
+    private long bucketStart(int bucket) {
+        return getLong(HEADER_SIZE + (long) bucket * Long.BYTES);
+    }
+
+    private static int recordLength(ByteBuffer region, int offset) {
+        return RECORD_HEADER + region.getInt(offset + 4) + region.getInt(offset + 8);
+    }
+
+    private K readKey(ByteBuffer region, int offset) {
+        return keySerializer.read(region.slice(offset + RECORD_HEADER, region.getInt(offset + 4)));
+    }
+
+    private V readValue(ByteBuffer region, int offset) {
+        int keyLength = region.getInt(offset + 4);
+        return valueSerializer.read(region.slice(offset + RECORD_HEADER + keyLength, region.getInt(offset + 8)));
+    }
+
+    /**
+     * Выполняет поиск записи, сравнивая сериализованный ключ с байтами ключей записей бакета.
+     *
+     * @return позиция записи в файле или -1
+     */
+    @SuppressWarnings("unchecked")
+    private long findRecord(Object key) {
+        if (key == null) return -1;
+        ByteBuffer buffer;
+        try {
+            buffer = Buffers.serialize(keySerializer, (K) key, scratch.get(), 0);
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        scratch.set(buffer);
+        int keyLength = buffer.position();
+        int hash = CustomHashMap.hash(key);
+        int bucket = hash & (tableCapacity - 1);
+        for (long position = bucketStart(bucket), end = bucketStart(bucket + 1); position < end; ) {
+            ByteBuffer region = region(position);
+            int offset = local(position);
+            if (region.getInt(offset) == hash && region.getInt(offset + 4) == keyLength
+                    && Buffers.equalBytes(region, offset + RECORD_HEADER, buffer, 0, keyLength)) {
+                return position;
+            }
+            position += recordLength(region, offset);
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение, не превышающее Integer.MAX_VALUE
+     */
+    @Override
+    public int size() {
+        checkOpen();
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует.
+     * Десериализуется только возвращаемое значение.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    public V get(Object key) {
+        long position = findRecord(key);
+        return position < 0 ? null : readValue(region(position), local(position));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findRecord(key) >= 0;
+    }
+
+    /**
+     * Создаёт CustomHashMap, содержащий все пары ключ-значение снимка. Размер хэш-таблицы выбирается
+     * по количеству пар заранее, поэтому заполнение выполняется одним последовательным проходом по файлу
+     * без перехэширования.
+     *
+     * @return новый CustomHashMap
+     */
+    public CustomHashMap<K, V> toCustomHashMap() {
+        CustomHashMap<K, V> map = new CustomHashMap<>(tableCapacity);
+        for (long position = dataStart; position < dataEnd; ) {
+            ByteBuffer region = region(position);
+            int offset = local(position);
+            map.put(readKey(region, offset), readValue(region, offset));
+            position += recordLength(region, offset);
+        }
+        return map;
+    }
+
+    /**
+     * Освобождает отображение файла в память. Повторный вызов не имеет эффекта. Вызывающий код должен гарантировать,
+     * что другие потоки больше не обращаются к MappedHashMap.
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] mapped = regions;
+        if (mapped == null) return;
+        regions = null;
+        for (ByteBuffer region : mapped) Buffers.free(region);
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся неизменяемым представлением MappedHashMap.
+     * Записи обходятся в порядке следования в файле и десериализуются при обходе.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return MappedHashMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                checkOpen();
+                return new Iterator<>() {
+                    private long position = dataStart;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < dataEnd;
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (position >= dataEnd) throw new NoSuchElementException();
+                        ByteBuffer region = region(position);
+                        int offset = local(position);
+                        position += recordLength(region, offset);
+                        return new AbstractMap.SimpleImmutableEntry<>(readKey(region, offset), readValue(region, offset));
+                    }
+                };
+            }
+        };
+    }
+}
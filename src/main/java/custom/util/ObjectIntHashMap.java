@@ -0,0 +1,440 @@
+package custom.util;
+
+import java.util.*;
+
+/**
+ * Ассоциативный массив со значениями примитивного типа int, основанный на хэш-таблице с открытой адресацией.
+ * Данная реализация не потокобезопасна.
+ * Ключи хранятся в массиве Object, значения - в параллельном массиве int, поэтому методы
+ * {@link #getInt(Object)}, {@link #put(Object, int)} и {@link #addTo(Object, int)} не упаковывают значения
+ * в Integer и не создают объектов-узлов. Допускается один ключ null, который хранится отдельно.
+ * Так как у примитивного значения нет аналога null, методы, которым нечего вернуть, возвращают 0
+ * или переданное значение по умолчанию.
+ * <p>
+ * Для совместимости с кодом, ожидающим {@link Map}, предусмотрено представление {@link #asMap()}.
+ *
+ * @param <K> тип ключа
+ * @author Владислав Кильчевский
+ */
+public class ObjectIntHashMap<K> {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_CAPACITY = 16;
+
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Ключи занятых ячеек. Пустая ячейка содержит null.
+     */
+    private Object[] keys;
+    private int[] values;
+    private boolean hasNullKey;
+    private int nullKeyValue;
+    private int size;
+    private int modCount;
+    private final float loadFactor;
+    private int growBorder;
+    private int shift;
+    private Map<K, Integer> mapView;
+
+    /**
+     * Конструктор, для создания объекта ObjectIntHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * а также определить значение коэффициента заполнения.
+     *
+     * @param capacity размер хэш-таблицы
+     * @param load     коэффициент заполнения, от 0 (не включая) до 1 (не включая)
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения вне диапазона
+     */
+    public ObjectIntHashMap(int capacity, float load) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0 && load < 1)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        this.loadFactor = load;
+        allocate(Math.max(2, CustomHashMap.tableSizeFor(capacity)));
+    }
+
+    /**
+     * Конструктор, для создания объекта ObjectIntHashMap с возможностью указать изначальный размер хэш-таблиы.
+     *
+     * @param capacity размер хэш-таблицы
+     */
+    public ObjectIntHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Конструктор, для создания объекта ObjectIntHashMap по умолчанию.
+     */
+    public ObjectIntHashMap() {
+        this(INIT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+        growBorder = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * loadFactor);
+    }
+
+    private int home(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    private int findSlot(Object key) {
+        Object[] ks = keys;
+        int mask = ks.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            Object current = ks[slot];
+            if (current == null) return -1;
+            if (current == key || current.equals(key)) return slot;
+        }
+    }
+
+    /**
+     * Возвращает ячейку с указанным ключом или пустую ячейку, в которую он должен быть добавлен.
+     */
+    private int insertionSlot(Object key) {
+        Object[] ks = keys;
+        int mask = ks.length - 1;
+        int slot = home(key);
+        for (Object current; (current = ks[slot]) != null && current != key && !current.equals(key); ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если ObjectIntHashMap не содержит пар ключ-значение.
+     *
+     * @return true, если ObjectIntHashMap не содержит пар ключ-значение
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает true, если ObjectIntHashMap содержит пару ключ-значение с указанным ключом. Для key допустимо null.
+     *
+     * @param key ключ, наличие которого проверяется
+     * @return true - если ключ содержится в ObjectIntHashMap
+     */
+    public boolean containsKey(Object key) {
+        return key == null ? hasNullKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или 0, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или 0
+     */
+    public int getInt(Object key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или defaultValue, если ключ отсутствует.
+     *
+     * @param key          ключ, значение которого должно быть возвращено
+     * @param defaultValue значение, возвращаемое при отсутствии ключа
+     * @return значение или defaultValue
+     */
+    public int getOrDefault(Object key, int defaultValue) {
+        if (key == null) return hasNullKey ? nullKeyValue : defaultValue;
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение или перезапись значения существующей пары.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или 0
+     */
+    public int put(K key, int value) {
+        if (key == null) {
+            int old = hasNullKey ? nullKeyValue : 0;
+            nullKeyValue = value;
+            if (!hasNullKey) {
+                hasNullKey = true;
+                size++;
+                modCount++;
+            }
+            return old;
+        }
+        int slot = insertionSlot(key);
+        if (keys[slot] != null) {
+            int old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        if (size >= growBorder) resize();
+        return 0;
+    }
+
+    /**
+     * Прибавляет delta к значению, связанному с ключом key. Если ключ отсутствует, добавляет пару
+     * ключ-значение со значением delta. Выполняет один проход пробирования.
+     *
+     * @param key   ключ
+     * @param delta прибавляемая величина
+     * @return новое значение
+     */
+    public int addTo(K key, int delta) {
+        if (key == null) {
+            if (!hasNullKey) {
+                hasNullKey = true;
+                size++;
+                modCount++;
+                return nullKeyValue = delta;
+            }
+            return nullKeyValue += delta;
+        }
+        int slot = insertionSlot(key);
+        if (keys[slot] != null) return values[slot] += delta;
+        keys[slot] = key;
+        values[slot] = delta;
+        size++;
+        modCount++;
+        if (size >= growBorder) resize();
+        return delta;
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или 0
+     */
+    public int removeInt(Object key) {
+        if (key == null) {
+            if (!hasNullKey) return 0;
+            int old = nullKeyValue;
+            hasNullKey = false;
+            nullKeyValue = 0;
+            size--;
+            modCount++;
+            return old;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) return 0;
+        int old = values[slot];
+        removeSlot(slot, null);
+        return old;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение.
+     */
+    public void clear() {
+        if (size > 0) {
+            size = 0;
+            modCount++;
+            hasNullKey = false;
+            nullKeyValue = 0;
+            Arrays.fill(keys, null);
+        }
+    }
+
+    /**
+     * Освобождает ячейку, сдвигая назад последующие пары ключ-значение той же группы пробирования,
+     * чтобы поиск не прерывался на образовавшейся пустой ячейке.
+     *
+     * @param slot     освобождаемая ячейка
+     * @param iterator итератор, через который выполняется удаление, или null
+     */
+    private void removeSlot(int slot, EntryIterator iterator) {
+        Object[] ks = keys;
+        int[] vs = values;
+        int mask = ks.length - 1;
+        for (int last = slot, next = slot; ; last = next) {
+            Object current;
+            for (next = (next + 1) & mask; ; next = (next + 1) & mask) {
+                if ((current = ks[next]) == null) {
+                    ks[last] = null;
+                    size--;
+                    modCount++;
+                    return;
+                }
+                int home = home(current);
+                if (last <= next ? last >= home || home > next : last >= home && home > next) break;
+            }
+            if (iterator != null) iterator.onShift(next, last);
+            ks[last] = current;
+            vs[last] = vs[next];
+        }
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        if (oldKeys.length >= MAXIMUM_CAPACITY) throw new IllegalStateException("Превышен максимальный размер хэш-таблицы");
+        allocate(oldKeys.length << 1);
+        Object[] ks = keys;
+        int mask = ks.length - 1;
+        for (int index = 0; index < oldKeys.length; index++) {
+            Object key = oldKeys[index];
+            if (key == null) continue;
+            int slot = home(key);
+            while (ks[slot] != null) slot = (slot + 1) & mask;
+            ks[slot] = key;
+            values[slot] = oldValues[index];
+        }
+    }
+
+    /**
+     * Возвращает представление ObjectIntHashMap в виде {@code Map<K, Integer>}. Изменения представления
+     * отражаются в ObjectIntHashMap и наоборот. Обращение через представление упаковывает значения.
+     *
+     * @return представление в виде Map
+     */
+    public Map<K, Integer> asMap() {
+        Map<K, Integer> view = mapView;
+        return view != null ? view : (mapView = new MapView());
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private final class MapView extends AbstractMap<K, Integer> {
+        private Set<Map.Entry<K, Integer>> entrySet;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ObjectIntHashMap.this.containsKey(key);
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return ObjectIntHashMap.this.containsKey(key) ? ObjectIntHashMap.this.getInt(key) : null;
+        }
+
+        @Override
+        public Integer put(K key, Integer value) {
+            boolean present = ObjectIntHashMap.this.containsKey(key);
+            int old = ObjectIntHashMap.this.put(key, value);
+            return present ? old : null;
+        }
+
+        @Override
+        public Integer remove(Object key) {
+            return ObjectIntHashMap.this.containsKey(key) ? ObjectIntHashMap.this.removeInt(key) : null;
+        }
+
+        @Override
+        public void clear() {
+            ObjectIntHashMap.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<K, Integer>> entrySet() {
+            Set<Map.Entry<K, Integer>> view = entrySet;
+            return view != null ? view : (entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, Integer>> iterator() {
+                    return new EntryIterator();
+                }
+            });
+        }
+    }
+
+    /**
+     * Итератор, обходящий ячейки от последней к первой, а затем пару с ключом null. Обратный сдвиг при удалении
+     * через итератор перемещает пары только в уже пройденные ячейки, кроме переноса через границу массива:
+     * такие пары запоминаются и возвращаются после обхода массива.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, Integer>> {
+        private int position = keys.length;
+        private int remaining = size;
+        private int expectedModCount = modCount;
+        private ArrayList<Object> wrapped;
+        private int wrappedIndex;
+        private int lastSlot = -1;
+        private boolean canRemove;
+        private K currentKey;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, Integer> next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            canRemove = true;
+            while (--position >= 0) {
+                if (keys[position] != null) {
+                    lastSlot = position;
+                    return entry(currentKey = (K) keys[position], values[position]);
+                }
+            }
+            position = -1;
+            lastSlot = -1;
+            if (wrapped != null && wrappedIndex < wrapped.size()) {
+                currentKey = (K) wrapped.get(wrappedIndex++);
+                return entry(currentKey, (Integer) wrapped.get(wrappedIndex++));
+            }
+            currentKey = null;
+            return entry(null, nullKeyValue);
+        }
+
+        private Map.Entry<K, Integer> entry(K key, int value) {
+            return new AbstractMap.SimpleEntry<>(key, value) {
+                @Override
+                public Integer setValue(Integer value) {
+                    ObjectIntHashMap.this.put(key, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        void onShift(int from, int to) {
+            if (from < position && to >= position) {
+                if (wrapped == null) wrapped = new ArrayList<>(2);
+                wrapped.add(keys[from]);
+                wrapped.add(values[from]);
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            canRemove = false;
+            if (lastSlot >= 0) removeSlot(lastSlot, this);
+            else ObjectIntHashMap.this.removeInt(currentKey);
+            expectedModCount = modCount;
+        }
+    }
+}
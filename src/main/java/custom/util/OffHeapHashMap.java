@@ -0,0 +1,570 @@
+package custom.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Реализация интерфейса Map, хранящая пары ключ-значение вне кучи Java. Данная реализация не потокобезопасна.
+ * Устройство повторяет {@link CustomHashMap}: хэш-таблица размера степени двойки с цепочками, хэш-код ключа
+ * размывается {@link CustomHashMap#hash(Object)}, при достижении порога хэш-таблица удваивается.
+ * <ul>
+ *     <li>Хэш-таблица - direct ByteBuffer с адресами первых записей цепочек (long, 0 - пустой бакет).</li>
+ *     <li>Записи размещаются подряд в direct ByteBuffer-ах (слябах) растущего размера. Формат записи:
+ *     адрес следующей записи цепочки (long), хэш-код (int), длина ключа (int), длина значения (int),
+ *     ёмкость значения (int), байты ключа, байты значения. Записи выровнены по 8 байт.</li>
+ *     <li>Ключи и значения преобразуются в байты {@link Serializer}-ами. Поиск сравнивает байты ключа без
+ *     десериализации, поэтому сериализованное представление ключа должно быть каноническим.</li>
+ *     <li>При удалении или перемещении записи её место становится мусором. Когда мусор превышает половину
+ *     занятого места, живые записи переписываются в новые слябы (уплотнение).</li>
+ * </ul>
+ * Куча содержит лишь несколько объектов ByteBuffer независимо от количества пар ключ-значение, поэтому
+ * количество пар не влияет на продолжительность сборки мусора. get создаёт объект значения при каждом вызове.
+ * Память освобождается явно методом {@link #close()}, после которого любая операция выбрасывает
+ * IllegalStateException. Ключи и значения null не допускаются.
+ * <p>
+ * Java 17 предоставляет Foreign Memory API ({@code MemorySegment}) только как инкубаторный модуль, поэтому
+ * используются direct ByteBuffer; размер каждого буфера ограничен 1 ГиБ, а количество слябов не ограничено.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class OffHeapHashMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_BUCKET_ARRAY_CAPACITY = 16;
+
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Максимальный размер хэш-таблицы: 2^27 адресов занимают 1 ГиБ - предельный размер одного буфера.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    /**
+     * Смещения полей записи.
+     */
+    private static final int NEXT = 0;
+    private static final int HASH = 8;
+    private static final int KEY_LENGTH = 12;
+    private static final int VALUE_LENGTH = 16;
+    private static final int VALUE_CAPACITY = 20;
+    private static final int KEY = 24;
+
+    private static final int MIN_SLAB_SIZE = 1 << 16;
+    private static final int MAX_SLAB_SIZE = 1 << 30;
+
+    /**
+     * Адрес записи: номер сляба в старших 32 битах, смещение - в младших. Смещения начинаются с 8,
+     * поэтому 0 обозначает отсутствие записи.
+     */
+    private static final long NULL = 0L;
+    private static final int SLAB_HEADER = 8;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final float loadFactor;
+    private ByteBuffer table;
+    private int tableCapacity;
+    private int growBorder;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+    private int slabPosition;
+    private int nextSlabSize = MIN_SLAB_SIZE;
+    private long allocatedBytes;
+    private long garbageBytes;
+    private int size;
+    private int modCount;
+
+    /**
+     * Буфер в куче, в который сериализуются ключ и значение текущей операции.
+     */
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    /**
+     * Конструктор, для создания объекта OffHeapHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * а также определить значение коэффициента заполнения.
+     *
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param capacity        размер хэш-таблицы
+     * @param load            коэффициент заполнения
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения не положителен
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int capacity, float load) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.loadFactor = load;
+        allocateTable(Math.min(CustomHashMap.tableSizeFor(capacity), MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Конструктор, для создания объекта OffHeapHashMap с возможностью указать изначальный размер хэш-таблиы.
+     *
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param capacity        размер хэш-таблицы
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int capacity) {
+        this(keySerializer, valueSerializer, capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Конструктор, для создания объекта OffHeapHashMap по умолчанию.
+     *
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(keySerializer, valueSerializer, INIT_BUCKET_ARRAY_CAPACITY);
+    }
+
+    private void allocateTable(int capacity) {
+        table = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        tableCapacity = capacity;
+        growBorder = capacity >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * loadFactor);
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private long next(long address) {
+        return slab(address).getLong(offset(address) + NEXT);
+    }
+
+    private void setNext(long address, long next) {
+        slab(address).putLong(offset(address) + NEXT, next);
+    }
+
+    private long head(int bucket) {
+        return table.getLong(bucket << 3);
+    }
+
+    private void setHead(int bucket, long address) {
+        table.putLong(bucket << 3, address);
+    }
+
+    private static int recordSize(int keyLength, int valueCapacity) {
+        return (KEY + keyLength + valueCapacity + 7) & ~7;
+    }
+
+    private int recordSize(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        return recordSize(slab.getInt(offset + KEY_LENGTH), slab.getInt(offset + VALUE_CAPACITY));
+    }
+
+    private void checkOpen() {
+        if (table == null) throw new IllegalStateException("OffHeapHashMap закрыт");
+    }
+
+    /**
+     * Сериализует объект в scratch, начиная с позиции from, увеличивая scratch при необходимости.
+     *
+     * @return длина сериализованного представления
+     */
+    private <T> int serialize(Serializer<T> serializer, T object, int from) {
+        scratch = Buffers.serialize(serializer, object, scratch, from);
+        return scratch.position() - from;
+    }
+
+    /**
+     * Выполняет поиск записи с ключом, сериализованным в scratch с позиции 0.
+     *
+     * @return адрес записи или NULL
+     */
+    private long findEntry(int hash, int keyLength) {
+        for (long address = head(hash & (tableCapacity - 1)); address != NULL; address = next(address)) {
+            if (matches(address, hash, keyLength)) return address;
+        }
+        return NULL;
+    }
+
+    private boolean matches(long address, int hash, int keyLength) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        return slab.getInt(offset + HASH) == hash
+                && slab.getInt(offset + KEY_LENGTH) == keyLength
+                && Buffers.equalBytes(slab, offset + KEY, scratch, 0, keyLength);
+    }
+
+    private K readKey(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        return keySerializer.read(slab.slice(offset + KEY, slab.getInt(offset + KEY_LENGTH)));
+    }
+
+    private V readValue(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        int keyLength = slab.getInt(offset + KEY_LENGTH);
+        return valueSerializer.read(slab.slice(offset + KEY + keyLength, slab.getInt(offset + VALUE_LENGTH)));
+    }
+
+    /**
+     * Сериализует ключ для поиска. Возвращает -1, если ключ null или другого типа.
+     */
+    @SuppressWarnings("unchecked")
+    private int serializeLookupKey(Object key) {
+        if (key == null) return -1;
+        try {
+            return serialize(keySerializer, (K) key, 0);
+        } catch (ClassCastException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    @Override
+    public int size() {
+        checkOpen();
+        return size;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    public V get(Object key) {
+        checkOpen();
+        int keyLength = serializeLookupKey(key);
+        if (keyLength < 0) return null;
+        long address = findEntry(CustomHashMap.hash(key), keyLength);
+        return address == NULL ? null : readValue(address);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkOpen();
+        int keyLength = serializeLookupKey(key);
+        return keyLength >= 0 && findEntry(CustomHashMap.hash(key), keyLength) != NULL;
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение или перезапись значения существующей пары. Если новое значение
+     * помещается в место старого, оно перезаписывается на месте, иначе запись перемещается.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или null
+     * @throws NullPointerException если key или value равны null
+     */
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) throw new NullPointerException();
+        checkOpen();
+        int hash = CustomHashMap.hash(key);
+        int keyLength = serialize(keySerializer, key, 0);
+        int valueLength = serialize(valueSerializer, value, keyLength);
+        int bucket = hash & (tableCapacity - 1);
+        for (long address = head(bucket), previous = NULL; address != NULL; previous = address, address = next(address)) {
+            if (!matches(address, hash, keyLength)) continue;
+            V oldValue = readValue(address);
+            ByteBuffer slab = slab(address);
+            int offset = offset(address);
+            if (valueLength <= slab.getInt(offset + VALUE_CAPACITY)) {
+                slab.put(offset + KEY + keyLength, scratch, keyLength, valueLength);
+                slab.putInt(offset + VALUE_LENGTH, valueLength);
+            } else {
+                long next = next(address);
+                if (previous == NULL) setHead(bucket, next);
+                else setNext(previous, next);
+                garbageBytes += recordSize(address);
+                setHead(bucket, writeRecord(hash, keyLength, valueLength, head(bucket), false));
+            }
+            return oldValue;
+        }
+        if (size >= growBorder) {
+            resize();
+            bucket = hash & (tableCapacity - 1);
+        }
+        setHead(bucket, writeRecord(hash, keyLength, valueLength, head(bucket), true));
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Размещает запись с ключом и значением из scratch.
+     *
+     * @param allowCompaction допускается ли уплотнение (оно меняет адреса всех записей)
+     * @return адрес записи
+     */
+    private long writeRecord(int hash, int keyLength, int valueLength, long next, boolean allowCompaction) {
+        int recordSize = recordSize(keyLength, valueLength);
+        if (allowCompaction && garbageBytes >= MIN_SLAB_SIZE && garbageBytes > allocatedBytes >>> 1) {
+            compact();
+            next = head(hash & (tableCapacity - 1));
+        }
+        long address = allocate(recordSize);
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        slab.putLong(offset + NEXT, next);
+        slab.putInt(offset + HASH, hash);
+        slab.putInt(offset + KEY_LENGTH, keyLength);
+        slab.putInt(offset + VALUE_LENGTH, valueLength);
+        slab.putInt(offset + VALUE_CAPACITY, valueLength);
+        slab.put(offset + KEY, scratch, 0, keyLength + valueLength);
+        return address;
+    }
+
+    private long allocate(int recordSize) {
+        if (recordSize > MAX_SLAB_SIZE - SLAB_HEADER) {
+            throw new IllegalArgumentException("Пара ключ-значение превышает максимальный размер сляба: " + recordSize);
+        }
+        if (slabs.isEmpty() || slabs.get(slabs.size() - 1).capacity() - slabPosition < recordSize) {
+            int slabSize = nextSlabSize;
+            while (slabSize - SLAB_HEADER < recordSize) slabSize <<= 1;
+            slabs.add(ByteBuffer.allocateDirect(slabSize).order(ByteOrder.nativeOrder()));
+            slabPosition = SLAB_HEADER;
+            nextSlabSize = Math.min(slabSize << 1, MAX_SLAB_SIZE);
+        }
+        long address = ((long) (slabs.size() - 1) << 32) | slabPosition;
+        slabPosition += recordSize;
+        allocatedBytes += recordSize;
+        return address;
+    }
+
+    /**
+     * Переписывает живые записи в новые слябы без мусора и неиспользованной ёмкости значений,
+     * сохраняя порядок цепочек, и освобождает старые слябы.
+     */
+    private void compact() {
+        ArrayList<ByteBuffer> oldSlabs = new ArrayList<>(slabs);
+        long[] heads = new long[tableCapacity];
+        for (int bucket = 0; bucket < tableCapacity; bucket++) heads[bucket] = head(bucket);
+        slabs.clear();
+        allocatedBytes = 0;
+        garbageBytes = 0;
+        nextSlabSize = MIN_SLAB_SIZE;
+        for (int bucket = 0; bucket < tableCapacity; bucket++) {
+            long tail = NULL;
+            for (long address = heads[bucket]; address != NULL; ) {
+                ByteBuffer oldSlab = oldSlabs.get((int) (address >>> 32));
+                int oldOffset = offset(address);
+                int keyLength = oldSlab.getInt(oldOffset + KEY_LENGTH);
+                int valueLength = oldSlab.getInt(oldOffset + VALUE_LENGTH);
+                long moved = allocate(recordSize(keyLength, valueLength));
+                ByteBuffer slab = slab(moved);
+                int offset = offset(moved);
+                slab.put(offset, oldSlab, oldOffset, KEY + keyLength + valueLength);
+                slab.putLong(offset + NEXT, NULL);
+                slab.putInt(offset + VALUE_CAPACITY, valueLength);
+                if (tail == NULL) setHead(bucket, moved);
+                else setNext(tail, moved);
+                tail = moved;
+                address = oldSlab.getLong(oldOffset + NEXT);
+            }
+        }
+        oldSlabs.forEach(Buffers::free);
+    }
+
+    /**
+     * Удваивает хэш-таблицу, перенося цепочки разделением на младшую и старшую части, как в CustomHashMap.
+     * Записи не перемещаются, меняются только адреса следующих записей. Вызывается до размещения новой записи,
+     * поэтому ошибка выделения новой хэш-таблицы оставляет отображение без изменений.
+     */
+    private void resize() {
+        if (tableCapacity >= MAXIMUM_CAPACITY) {
+            growBorder = Integer.MAX_VALUE;
+            return;
+        }
+        ByteBuffer oldTable = table;
+        int oldCapacity = tableCapacity;
+        allocateTable(oldCapacity << 1);
+        for (int bucket = 0; bucket < oldCapacity; bucket++) {
+            long loHead = NULL, loTail = NULL, hiHead = NULL, hiTail = NULL;
+            for (long address = oldTable.getLong(bucket << 3); address != NULL; ) {
+                long next = next(address);
+                if ((slab(address).getInt(offset(address) + HASH) & oldCapacity) == 0) {
+                    if (loTail == NULL) loHead = address;
+                    else setNext(loTail, address);
+                    loTail = address;
+                } else {
+                    if (hiTail == NULL) hiHead = address;
+                    else setNext(hiTail, address);
+                    hiTail = address;
+                }
+                address = next;
+            }
+            if (loTail != NULL) {
+                setNext(loTail, NULL);
+                setHead(bucket, loHead);
+            }
+            if (hiTail != NULL) {
+                setNext(hiTail, NULL);
+                setHead(bucket + oldCapacity, hiHead);
+            }
+        }
+        Buffers.free(oldTable);
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или null
+     */
+    @Override
+    public V remove(Object key) {
+        checkOpen();
+        int keyLength = serializeLookupKey(key);
+        if (keyLength < 0) return null;
+        int hash = CustomHashMap.hash(key);
+        int bucket = hash & (tableCapacity - 1);
+        for (long address = head(bucket), previous = NULL; address != NULL; previous = address, address = next(address)) {
+            if (matches(address, hash, keyLength)) {
+                V oldValue = readValue(address);
+                unlink(bucket, previous, address);
+                return oldValue;
+            }
+        }
+        return null;
+    }
+
+    private void unlink(int bucket, long previous, long address) {
+        long next = next(address);
+        if (previous == NULL) setHead(bucket, next);
+        else setNext(previous, next);
+        garbageBytes += recordSize(address);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение и освобождает слябы. Размер хэш-таблицы сохраняется.
+     */
+    @Override
+    public void clear() {
+        checkOpen();
+        slabs.forEach(Buffers::free);
+        slabs.clear();
+        nextSlabSize = MIN_SLAB_SIZE;
+        allocatedBytes = 0;
+        garbageBytes = 0;
+        Buffers.free(table);
+        allocateTable(tableCapacity);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Возвращает объём памяти вне кучи, занятой хэш-таблицей и слябами, в байтах.
+     *
+     * @return объём памяти вне кучи
+     */
+    public long offHeapBytes() {
+        checkOpen();
+        long bytes = table.capacity();
+        for (ByteBuffer slab : slabs) bytes += slab.capacity();
+        return bytes;
+    }
+
+    /**
+     * Освобождает память вне кучи. Повторный вызов не имеет эффекта.
+     */
+    @Override
+    public void close() {
+        if (table == null) return;
+        slabs.forEach(Buffers::free);
+        slabs.clear();
+        Buffers.free(table);
+        table = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся представлением OffHeapHashMap. Каждая пара
+     * десериализуется при обходе, {@link Map.Entry#setValue(Object)} записывает значение в OffHeapHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return OffHeapHashMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                checkOpen();
+                return new EntryIterator();
+            }
+
+            @Override
+            public void clear() {
+                OffHeapHashMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Итератор по бакетам и цепочкам. Адрес следующей записи вычисляется заранее: удаление не перемещает записи,
+     * а перемещение записи при setValue помещает её в начало уже пройденной цепочки.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int bucket = -1;
+        private long next = NULL;
+        private K lastKey;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next == NULL && ++bucket < tableCapacity) next = head(bucket);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != NULL;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next == NULL) throw new NoSuchElementException();
+            long address = next;
+            next = OffHeapHashMap.this.next(address);
+            advance();
+            lastKey = readKey(address);
+            return new AbstractMap.SimpleEntry<>(lastKey, readValue(address)) {
+                @Override
+                public V setValue(V value) {
+                    if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                    put(getKey(), value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            OffHeapHashMap.this.remove(lastKey);
+            lastKey = null;
+            expectedModCount = modCount;
+        }
+    }
+}
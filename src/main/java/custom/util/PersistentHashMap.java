@@ -0,0 +1,675 @@
+package custom.util;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Неизменяемый (persistent) ассоциативный массив на основе хэш-префиксного дерева (HAMT, hash array mapped trie).
+ * Методы {@link #with(Object, Object)} и {@link #without(Object)} не изменяют экземпляр, а возвращают новый,
+ * копируя только путь от корня до изменённого узла - не более восьми узлов, так как каждый уровень дерева
+ * использует очередные 5 бит размытого {@link CustomHashMap#hash(Object)} хэш-кода. Остальные узлы разделяются
+ * между старой и новой версией, поэтому снимок для читателей - это просто ссылка на текущий экземпляр.
+ * <p>
+ * Узел хранит две битовые маски по 32 бита (пары ключ-значение и дочерние узлы) и компактный массив, в начале
+ * которого лежат пары ключ-значение, а в конце - дочерние узлы (схема CHAMP). Ключи с полностью совпадающими
+ * хэш-кодами хранятся в узле коллизий со списком пар.
+ * <p>
+ * Для массового заполнения предназначен {@link Transient}, полученный методом {@link #asTransient()}: он изменяет
+ * на месте узлы, созданные им самим, и не копирует путь на каждую операцию. Метод {@link Transient#persistent()}
+ * за O(1) превращает накопленное состояние в PersistentHashMap, которую можно передать другим потокам через
+ * любую безопасную публикацию (например, volatile-поле).
+ * <p>
+ * Семантика совпадает с {@link CustomHashMap}: допускается один ключ null, значения null не допускаются.
+ * Методы интерфейса Map, изменяющие ассоциативный массив, выбрасывают UnsupportedOperationException.
+ * Операции чтения потокобезопасны.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Количество бит хэш-кода, используемых на одном уровне дерева.
+     */
+    static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+    /**
+     * Максимальная глубина дерева: шесть уровней по 5 бит, седьмой по оставшимся 2 битам и узел коллизий.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(new BitmapNode(null, 0, 0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Возвращает пустой PersistentHashMap. Все пустые экземпляры разделяют один корневой узел.
+     *
+     * @return пустой ассоциативный массив
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Создаёт PersistentHashMap, содержащий все пары ключ-значение map. Заполнение выполняется через
+     * {@link Transient}, без копирования пути на каждую пару.
+     *
+     * @param map исходный ассоциативный массив, не содержащий значений null
+     * @return неизменяемый ассоциативный массив
+     * @throws NullPointerException если map содержит значение null
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) return (PersistentHashMap<K, V>) map;
+        Transient<K, V> builder = PersistentHashMap.<K, V>empty().asTransient();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) builder.put(entry.getKey(), entry.getValue());
+        return builder.persistent();
+    }
+
+    /**
+     * Возвращает PersistentHashMap, в котором ключ key связан со значением value. Текущий экземпляр не изменяется.
+     * Если ключ уже связан с тем же значением (==), возвращается текущий экземпляр.
+     *
+     * @param key   ключ, для key допустимо null
+     * @param value значение
+     * @return ассоциативный массив с добавленной или заменённой парой ключ-значение
+     * @throws NullPointerException если value равно null
+     */
+    public PersistentHashMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(value);
+        Change change = new Change();
+        Node newRoot = root.put(null, key, value, CustomHashMap.hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    /**
+     * Возвращает PersistentHashMap без ключа key. Текущий экземпляр не изменяется. Если ключ отсутствует,
+     * возвращается текущий экземпляр.
+     *
+     * @param key ключ, для key допустимо null
+     * @return ассоциативный массив без указанного ключа
+     */
+    public PersistentHashMap<K, V> without(Object key) {
+        Change change = new Change();
+        Node newRoot = root.remove(null, key, CustomHashMap.hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    /**
+     * Создаёт изменяемый Transient, начальное состояние которого совпадает с этим экземпляром.
+     * Текущий экземпляр при изменениях Transient не меняется. Выполняется за O(1).
+     *
+     * @return новый Transient
+     */
+    public Transient<K, V> asTransient() {
+        return new Transient<>(root, size);
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует. Для key допустимо null.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return (V) root.get(key, CustomHashMap.hash(key), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся неизменяемым представлением PersistentHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> entries = entrySet;
+        if (entries == null) entrySet = entries = new EntrySet<>(root, size);
+        return entries;
+    }
+
+    /**
+     * Изменяемый построитель PersistentHashMap. Узлы, скопированные или созданные построителем, помечаются его
+     * владельцем и при последующих операциях изменяются на месте, поэтому массовое заполнение не копирует путь
+     * от корня на каждую пару ключ-значение. Узлы исходного PersistentHashMap никогда не изменяются.
+     * <p>
+     * После вызова {@link #persistent()} построитель становится недействительным, и его методы выбрасывают
+     * IllegalStateException. Построитель не потокобезопасен.
+     *
+     * @param <K> тип ключа
+     * @param <V> тип, связанного с ключом значения
+     */
+    public static final class Transient<K, V> {
+
+        /**
+         * Метка узлов, которые построитель может изменять на месте, или null после вызова persistent().
+         */
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+
+        private Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        private Object checkOwner() {
+            Object current = owner;
+            if (current == null) throw new IllegalStateException("Transient уже преобразован в PersistentHashMap");
+            return current;
+        }
+
+        /**
+         * Связывает значение value с ключом key.
+         *
+         * @param key   ключ, для key допустимо null
+         * @param value значение
+         * @return предыдущее значение или null
+         * @throws NullPointerException если value равно null
+         */
+        @SuppressWarnings("unchecked")
+        public V put(K key, V value) {
+            Objects.requireNonNull(value);
+            Change change = new Change();
+            root = root.put(checkOwner(), key, value, CustomHashMap.hash(key), 0, change);
+            size += change.sizeDelta;
+            return (V) change.oldValue;
+        }
+
+        /**
+         * Удаляет пару ключ-значение с ключом key.
+         *
+         * @param key ключ, для key допустимо null
+         * @return удалённое значение или null
+         */
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            Change change = new Change();
+            root = root.remove(checkOwner(), key, CustomHashMap.hash(key), 0, change);
+            size += change.sizeDelta;
+            return (V) change.oldValue;
+        }
+
+        /**
+         * Возвращает значение, связанное с ключом key, или null.
+         *
+         * @param key ключ, для key допустимо null
+         * @return значение или null
+         */
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            checkOwner();
+            return (V) root.get(key, CustomHashMap.hash(key), 0);
+        }
+
+        /**
+         * Возвращает количество пар ключ-значение.
+         *
+         * @return количество пар ключ-значение
+         */
+        public int size() {
+            checkOwner();
+            return size;
+        }
+
+        /**
+         * Возвращает PersistentHashMap с накопленными парами ключ-значение за O(1) и делает построитель
+         * недействительным, чтобы разделяемые узлы больше не изменялись.
+         *
+         * @return неизменяемый ассоциативный массив
+         */
+        public PersistentHashMap<K, V> persistent() {
+            checkOwner();
+            owner = null;
+            return new PersistentHashMap<>(root, size);
+        }
+    }
+
+    /**
+     * Результат изменяющей операции над деревом: предыдущее значение и изменение количества пар.
+     */
+    private static final class Change {
+        Object oldValue;
+        int sizeDelta;
+    }
+
+    /**
+     * Узел дерева. Изменяющие операции возвращают this, если пара ключ-значение не изменилась. При owner, равном
+     * метке узла, узел изменяется на месте, иначе возвращается изменённая копия с меткой owner.
+     */
+    private abstract static class Node {
+
+        abstract Object get(Object key, int hash, int shift);
+
+        abstract Node put(Object owner, Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object owner, Object key, int hash, int shift, Change change);
+
+        abstract int dataArity();
+
+        abstract Object key(int index);
+
+        abstract Object value(int index);
+
+        abstract int nodeArity();
+
+        abstract Node node(int index);
+
+        final void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0, count = dataArity(); i < count; i++) action.accept(key(i), value(i));
+            for (int i = 0, count = nodeArity(); i < count; i++) node(i).forEach(action);
+        }
+    }
+
+    private static int mask(int hash, int shift) {
+        return (hash >>> shift) & LEVEL_MASK;
+    }
+
+    /**
+     * Узел, разветвляющийся по очередным 5 битам хэш-кода. Массив content содержит пары ключ-значение
+     * (key0, value0, key1, value1, ...) в порядке битов dataMap, а за ними дочерние узлы в обратном порядке
+     * битов nodeMap.
+     */
+    private static final class BitmapNode extends Node {
+        private final Object owner;
+        private int dataMap;
+        private int nodeMap;
+        private Object[] content;
+
+        BitmapNode(Object owner, int dataMap, int nodeMap, Object[] content) {
+            this.owner = owner;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeSlot(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private boolean editable(Object owner) {
+            return owner != null && this.owner == owner;
+        }
+
+        private BitmapNode update(Object owner, int dataMap, int nodeMap, Object[] content) {
+            if (!editable(owner)) return new BitmapNode(owner, dataMap, nodeMap, content);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+            return this;
+        }
+
+        private BitmapNode set(Object owner, int slot, Object object) {
+            if (editable(owner)) {
+                content[slot] = object;
+                return this;
+            }
+            Object[] copy = content.clone();
+            copy[slot] = object;
+            return new BitmapNode(owner, dataMap, nodeMap, copy);
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = 1 << mask(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return Objects.equals(content[2 * index], key) ? content[2 * index + 1] : null;
+            }
+            if ((nodeMap & bit) != 0) return ((Node) content[nodeSlot(bit)]).get(key, hash, shift + BITS_PER_LEVEL);
+            return null;
+        }
+
+        @Override
+        Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+            int bit = 1 << mask(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Object currentKey = content[2 * index];
+                if (Objects.equals(currentKey, key)) {
+                    Object currentValue = content[2 * index + 1];
+                    change.oldValue = currentValue;
+                    return currentValue == value ? this : set(owner, 2 * index + 1, value);
+                }
+                Node child = merge(owner, currentKey, content[2 * index + 1], CustomHashMap.hash(currentKey),
+                        key, value, hash, shift + BITS_PER_LEVEL);
+                change.sizeDelta = 1;
+                return dataToNode(owner, bit, index, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int slot = nodeSlot(bit);
+                Node child = (Node) content[slot];
+                Node newChild = child.put(owner, key, value, hash, shift + BITS_PER_LEVEL, change);
+                return newChild == child ? this : set(owner, slot, newChild);
+            }
+            int index = dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, 2 * index);
+            copy[2 * index] = key;
+            copy[2 * index + 1] = value;
+            System.arraycopy(content, 2 * index, copy, 2 * index + 2, content.length - 2 * index);
+            change.sizeDelta = 1;
+            return update(owner, dataMap | bit, nodeMap, copy);
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift, Change change) {
+            int bit = 1 << mask(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!Objects.equals(content[2 * index], key)) return this;
+                change.oldValue = content[2 * index + 1];
+                change.sizeDelta = -1;
+                Object[] copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, 2 * index);
+                System.arraycopy(content, 2 * index + 2, copy, 2 * index, content.length - 2 * index - 2);
+                return update(owner, dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                int slot = nodeSlot(bit);
+                Node child = (Node) content[slot];
+                Node newChild = child.remove(owner, key, hash, shift + BITS_PER_LEVEL, change);
+                if (newChild == child) return this;
+                if (newChild.nodeArity() == 0 && newChild.dataArity() == 1) {
+                    return nodeToData(owner, bit, slot, newChild.key(0), newChild.value(0));
+                }
+                return set(owner, slot, newChild);
+            }
+            return this;
+        }
+
+        /**
+         * Заменяет пару ключ-значение index дочерним узлом, содержащим её вместе с новой парой.
+         */
+        private Node dataToNode(Object owner, int bit, int index, Node child) {
+            Object[] copy = new Object[content.length - 1];
+            int oldSlot = 2 * index;
+            int newSlot = copy.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+            System.arraycopy(content, 0, copy, 0, oldSlot);
+            System.arraycopy(content, oldSlot + 2, copy, oldSlot, newSlot - oldSlot);
+            copy[newSlot] = child;
+            System.arraycopy(content, newSlot + 2, copy, newSlot + 1, copy.length - newSlot - 1);
+            return update(owner, dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        /**
+         * Заменяет дочерний узел, в котором осталась одна пара ключ-значение, самой этой парой.
+         */
+        private Node nodeToData(Object owner, int bit, int slot, Object key, Object value) {
+            Object[] copy = new Object[content.length + 1];
+            int newSlot = 2 * dataIndex(bit);
+            System.arraycopy(content, 0, copy, 0, newSlot);
+            copy[newSlot] = key;
+            copy[newSlot + 1] = value;
+            System.arraycopy(content, newSlot, copy, newSlot + 2, slot - newSlot);
+            System.arraycopy(content, slot + 1, copy, slot + 2, content.length - slot - 1);
+            return update(owner, dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        @Override
+        int dataArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object key(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object value(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node node(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+    }
+
+    /**
+     * Создаёт узел уровня shift, содержащий две пары ключ-значение с различными ключами.
+     */
+    private static Node merge(Object owner, Object key0, Object value0, int hash0,
+                              Object key1, Object value1, int hash1, int shift) {
+        if (hash0 == hash1) return new CollisionNode(owner, hash0, new Object[]{key0, value0, key1, value1});
+        int mask0 = mask(hash0, shift), mask1 = mask(hash1, shift);
+        if (mask0 != mask1) {
+            Object[] content = mask0 < mask1 ? new Object[]{key0, value0, key1, value1}
+                    : new Object[]{key1, value1, key0, value0};
+            return new BitmapNode(owner, 1 << mask0 | 1 << mask1, 0, content);
+        }
+        Node child = merge(owner, key0, value0, hash0, key1, value1, hash1, shift + BITS_PER_LEVEL);
+        return new BitmapNode(owner, 0, 1 << mask0, new Object[]{child});
+    }
+
+    /**
+     * Узел для ключей с полностью совпадающими хэш-кодами: пары ключ-значение просматриваются последовательно.
+     * Узел коллизий создаётся на том уровне, где встретились два таких ключа, и опускается глубже, только если
+     * на этот уровень приходит ключ с другим хэш-кодом.
+     */
+    private static final class CollisionNode extends Node {
+        private final Object owner;
+        private final int hash;
+        private Object[] content;
+
+        CollisionNode(Object owner, int hash, Object[] content) {
+            this.owner = owner;
+            this.hash = hash;
+            this.content = content;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (Objects.equals(content[i], key)) return i;
+            }
+            return -1;
+        }
+
+        private Node update(Object owner, Object[] content) {
+            if (owner == null || this.owner != owner) return new CollisionNode(owner, hash, content);
+            this.content = content;
+            return this;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            if (hash != this.hash) return null;
+            int index = find(key);
+            return index < 0 ? null : content[index + 1];
+        }
+
+        @Override
+        Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                change.sizeDelta = 1;
+                return split(owner, key, value, hash, shift);
+            }
+            int index = find(key);
+            if (index >= 0) {
+                change.oldValue = content[index + 1];
+                if (content[index + 1] == value) return this;
+                Object[] copy = content.clone();
+                copy[index + 1] = value;
+                return update(owner, copy);
+            }
+            Object[] copy = Arrays.copyOf(content, content.length + 2);
+            copy[content.length] = key;
+            copy[content.length + 1] = value;
+            change.sizeDelta = 1;
+            return update(owner, copy);
+        }
+
+        /**
+         * Создаёт узел уровня shift, содержащий этот узел коллизий и пару ключ-значение с другим хэш-кодом.
+         */
+        private Node split(Object owner, Object key, Object value, int hash, int shift) {
+            int collisionMask = mask(this.hash, shift), mask = mask(hash, shift);
+            if (collisionMask != mask) {
+                return new BitmapNode(owner, 1 << mask, 1 << collisionMask, new Object[]{key, value, this});
+            }
+            return new BitmapNode(owner, 0, 1 << mask,
+                    new Object[]{split(owner, key, value, hash, shift + BITS_PER_LEVEL)});
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift, Change change) {
+            if (hash != this.hash) return this;
+            int index = find(key);
+            if (index < 0) return this;
+            change.oldValue = content[index + 1];
+            change.sizeDelta = -1;
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, index);
+            System.arraycopy(content, index + 2, copy, index, content.length - index - 2);
+            return update(owner, copy);
+        }
+
+        @Override
+        int dataArity() {
+            return content.length / 2;
+        }
+
+        @Override
+        Object key(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object value(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Node node(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * Неизменяемое представление пар ключ-значение, обходящее дерево в глубину.
+     */
+    private static final class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
+        private final Node root;
+        private final int size;
+
+        EntrySet(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+            Object value = root.get(entry.getKey(), CustomHashMap.hash(entry.getKey()), 0);
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private final Node[] nodes = new Node[MAX_DEPTH];
+                private final int[] nextNode = new int[MAX_DEPTH];
+                private int depth;
+                private Node current = root;
+                private int nextData;
+
+                @Override
+                public boolean hasNext() {
+                    while (nextData == current.dataArity()) {
+                        if (nextNode[depth] < current.nodeArity()) {
+                            Node child = current.node(nextNode[depth]++);
+                            nodes[depth++] = current;
+                            nextNode[depth] = 0;
+                            current = child;
+                            nextData = 0;
+                        } else if (depth > 0) {
+                            current = nodes[--depth];
+                            nextData = current.dataArity();
+                        } else {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Map.Entry<K, V> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    int index = nextData++;
+                    return new AbstractMap.SimpleImmutableEntry<>((K) current.key(index), (V) current.value(index));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package custom.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Хэш-таблица с цепочками, узлы которой могут хранить ключи и значения через слабые или мягкие ссылки, чтобы
+ * таблица не удерживала их от сборки мусора: например, таблица, ключами которой являются загрузчики классов или
+ * объекты запросов. Сила ссылок ключей и значений ({@link Strength}) и способ сравнения ключей
+ * ({@link Equivalence}) задаются при создании.
+ * <p>
+ * Ссылки регистрируются в общей очереди {@link ReferenceQueue}. Когда сборщик мусора очищает ключ или значение,
+ * ссылка попадает в очередь и хранит хэш-код ключа, поэтому узел удаляется просмотром одного бакета, без обхода
+ * всей хэш-таблицы. Очередь разбирается порциями не более {@value #PURGE_BATCH} ссылок в начале put, get,
+ * containsKey и remove, а size, isEmpty, итераторы и {@link #purge()} разбирают её полностью. Узел, ключ или
+ * значение которого уже очищены, но ещё не удалён, не виден get и итераторам, а put заменяет его.
+ * <p>
+ * Ключ null хранится сильной ссылкой, значения null не допускаются (как в {@link CustomHashMap}). Итератор
+ * удерживает сильные ссылки на ключ и значение следующей пары, поэтому пара, которую итератор уже собирается
+ * вернуть, не исчезает между hasNext и next. Удаление узлов с очищенными ссылками, как и в {@link WeakHashMap},
+ * не считается структурным изменением: get и другие операции во время обхода не приводят
+ * к {@link ConcurrentModificationException}, а итератор, дойдя до удалённого узла, продолжает обход по его
+ * сохранившейся ссылке на следующий узел. Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class ReferenceHashMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Сила ссылки, через которую узел хранит ключ или значение.
+     */
+    public enum Strength {
+        /**
+         * Обычная ссылка: объект не собирается, пока находится в ReferenceHashMap.
+         */
+        STRONG,
+        /**
+         * {@link WeakReference}: пара удаляется после того, как объект перестал быть достижим по сильным ссылкам.
+         */
+        WEAK,
+        /**
+         * {@link SoftReference}: пара удаляется, когда сборщику мусора не хватает памяти.
+         */
+        SOFT
+    }
+
+    /**
+     * Способ сравнения ключей.
+     */
+    public enum Equivalence {
+        /**
+         * equals и hashCode ключа, как в {@link CustomHashMap} и {@link WeakHashMap}.
+         */
+        EQUALITY,
+        /**
+         * Сравнение ссылок (==) и {@link System#identityHashCode(Object)}, как в {@link IdentityHashMap}.
+         * Подходит для ключей, у которых переопределён equals, но которые должны различаться как объекты.
+         */
+        IDENTITY
+    }
+
+    /**
+     * Количество ссылок из очереди, разбираемых в начале одной операции.
+     */
+    static final int PURGE_BATCH = 64;
+
+    private static final int INIT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final Strength keyStrength;
+    private final Strength valueStrength;
+    private final Equivalence equivalence;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private Node[] table;
+    private int size;
+    private int modCount;
+
+    /**
+     * Отражает количество элементов, по достижению которого происходит перехэширование.
+     */
+    private int growBorder;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Конструктор, для создания ReferenceHashMap со слабыми ссылками на ключи, сильными ссылками на значения
+     * и сравнением ключей через equals, как у {@link WeakHashMap}.
+     */
+    public ReferenceHashMap() {
+        this(Strength.WEAK, Strength.STRONG, Equivalence.EQUALITY);
+    }
+
+    /**
+     * Конструктор, для создания ReferenceHashMap с указанной силой ссылок на ключи и значения и способом
+     * сравнения ключей.
+     *
+     * @param keyStrength   сила ссылок на ключи
+     * @param valueStrength сила ссылок на значения
+     * @param equivalence   способ сравнения ключей
+     */
+    public ReferenceHashMap(Strength keyStrength, Strength valueStrength, Equivalence equivalence) {
+        this.keyStrength = Objects.requireNonNull(keyStrength);
+        this.valueStrength = Objects.requireNonNull(valueStrength);
+        this.equivalence = Objects.requireNonNull(equivalence);
+        this.table = new Node[INIT_CAPACITY];
+        this.growBorder = (int) (INIT_CAPACITY * LOAD_FACTOR);
+    }
+
+    /**
+     * Узел цепочки. Поля key и value хранят сам объект при силе STRONG (и ключ null при любой силе),
+     * иначе - ссылку {@link EntryReference} на него.
+     */
+    private static final class Node {
+        final int hash;
+        final Object key;
+        Object value;
+        Node next;
+
+        Node(int hash, Object key, Object value, Node next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Ссылка на ключ или значение узла, хранящая хэш-код ключа для поиска бакета после очистки ссылки.
+     */
+    private interface EntryReference {
+        int hash();
+    }
+
+    private static final class WeakEntryReference<T> extends WeakReference<T> implements EntryReference {
+        private final int hash;
+
+        WeakEntryReference(T referent, int hash, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+    }
+
+    private static final class SoftEntryReference<T> extends SoftReference<T> implements EntryReference {
+        private final int hash;
+
+        SoftEntryReference(T referent, int hash, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+    }
+
+    private Object wrap(Object referent, Strength strength, int hash) {
+        return switch (strength) {
+            case STRONG -> referent;
+            case WEAK -> new WeakEntryReference<>(referent, hash, queue);
+            case SOFT -> new SoftEntryReference<>(referent, hash, queue);
+        };
+    }
+
+    private static Object unwrap(Object stored, Strength strength) {
+        return strength == Strength.STRONG || stored == null ? stored : ((Reference<?>) stored).get();
+    }
+
+    private static void clearReference(Object stored, Strength strength) {
+        if (strength != Strength.STRONG && stored != null) ((Reference<?>) stored).clear();
+    }
+
+    private int hash(Object key) {
+        if (equivalence == Equivalence.EQUALITY) return CustomHashMap.hash(key);
+        int h = System.identityHashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private boolean matches(Node node, int hash, Object key) {
+        if (node.hash != hash) return false;
+        if (key == null) return node.key == null;
+        Object nodeKey = unwrap(node.key, keyStrength);
+        return key == nodeKey || equivalence == Equivalence.EQUALITY && key.equals(nodeKey);
+    }
+
+    /**
+     * Удаляет узлы, ключи или значения которых очищены сборщиком мусора, разбирая не более limit ссылок очереди.
+     *
+     * @return количество удалённых узлов
+     */
+    private int purge(int limit) {
+        int removed = 0;
+        for (int i = 0; i < limit; i++) {
+            Reference<?> reference = queue.poll();
+            if (reference == null) break;
+            Node[] tab = table;
+            int index = ((EntryReference) reference).hash() & (tab.length - 1);
+            for (Node node = tab[index], previous = null; node != null; previous = node, node = node.next) {
+                if (node.key == reference || node.value == reference) {
+                    if (previous == null) tab[index] = node.next;
+                    else previous.next = node.next;
+                    size--;
+                    removed++;
+                    break;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение, ключи или значения которых очищены сборщиком мусора к моменту вызова.
+     *
+     * @return количество удалённых пар ключ-значение
+     */
+    public int purge() {
+        return purge(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение после удаления пар, очищенных сборщиком мусора.
+     * Результат может уменьшиться без изменения ReferenceHashMap, если сборка мусора произойдёт позже.
+     *
+     * @return количество пар ключ-значение
+     */
+    @Override
+    public int size() {
+        purge();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private Node getNode(Object key) {
+        int keyHash = hash(key);
+        Node[] tab = table;
+        for (Node node = tab[keyHash & (tab.length - 1)]; node != null; node = node.next) {
+            if (matches(node, keyHash, key)) return node;
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        purge(PURGE_BATCH);
+        Node node = getNode(key);
+        return node == null ? null : (V) unwrap(node.value, valueStrength);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) return false;
+        purge();
+        for (Node head : table) {
+            for (Node node = head; node != null; node = node.next) {
+                if (value.equals(unwrap(node.value, valueStrength))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Добавляет пару ключ-значение или заменяет значение существующего ключа.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return предыдущее значение или null, если ключ отсутствовал или его значение было очищено
+     * @throws NullPointerException если value равно null
+     */
+    @Override
+    public V put(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        purge(PURGE_BATCH);
+        return putValue(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V putValue(K key, V value) {
+        int keyHash = hash(key);
+        Node[] tab = table;
+        int index = keyHash & (tab.length - 1);
+        for (Node node = tab[index]; node != null; node = node.next) {
+            if (matches(node, keyHash, key)) {
+                V old = (V) unwrap(node.value, valueStrength);
+                clearReference(node.value, valueStrength);
+                node.value = wrap(value, valueStrength, keyHash);
+                return old;
+            }
+        }
+        Object storedKey = key == null ? null : wrap(key, keyStrength, keyHash);
+        tab[index] = new Node(keyHash, storedKey, wrap(value, valueStrength, keyHash), tab[index]);
+        modCount++;
+        if (++size > growBorder) resize();
+        return null;
+    }
+
+    /**
+     * Удваивает хэш-таблицу. Узлы с очищенными ключами или значениями при переносе отбрасываются.
+     */
+    private void resize() {
+        Node[] oldTable = table;
+        if (oldTable.length >= MAXIMUM_CAPACITY) {
+            growBorder = Integer.MAX_VALUE;
+            return;
+        }
+        Node[] newTable = new Node[oldTable.length << 1];
+        int mask = newTable.length - 1;
+        for (Node head : oldTable) {
+            for (Node node = head, next; node != null; node = next) {
+                next = node.next;
+                if (isCleared(node)) {
+                    size--;
+                    continue;
+                }
+                int index = node.hash & mask;
+                node.next = newTable[index];
+                newTable[index] = node;
+            }
+        }
+        table = newTable;
+        growBorder = newTable.length >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) (newTable.length * LOAD_FACTOR);
+    }
+
+    private boolean isCleared(Node node) {
+        return node.key != null && unwrap(node.key, keyStrength) == null || unwrap(node.value, valueStrength) == null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        purge(PURGE_BATCH);
+        return removeKey(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeKey(Object key) {
+        int keyHash = hash(key);
+        Node[] tab = table;
+        int index = keyHash & (tab.length - 1);
+        for (Node node = tab[index], previous = null; node != null; previous = node, node = node.next) {
+            if (matches(node, keyHash, key)) {
+                V old = (V) unwrap(node.value, valueStrength);
+                unlink(index, previous, node);
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Удаляет узел из бакета и очищает его ссылки, чтобы они не попали в очередь.
+     */
+    private void unlink(int index, Node previous, Node node) {
+        if (previous == null) table[index] = node.next;
+        else previous.next = node.next;
+        clearReference(node.key, keyStrength);
+        clearReference(node.value, valueStrength);
+        size--;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        while (queue.poll() != null) {
+            // ссылки узлов, удаляемых вместе с хэш-таблицей, не нужны
+        }
+        Arrays.fill(table, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> view = entrySet;
+        return view != null ? view : (entrySet = new EntrySet());
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ReferenceHashMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ReferenceHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором. Удерживает ключ и значение сильными ссылками,
+     * setValue записывает значение в ReferenceHashMap.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            putValue(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    /**
+     * Итератор, обходящий бакеты хэш-таблицы и пропускающий узлы с очищенными ключами или значениями.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int expectedModCount;
+        private int index;
+        private Node node;
+        private K nextKey;
+        private V nextValue;
+        private K lastKey;
+        private boolean canRemove;
+
+        EntryIterator() {
+            purge();
+            expectedModCount = modCount;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            Node[] tab = table;
+            Node current = node == null ? null : node.next;
+            while (true) {
+                while (current == null && index < tab.length) current = tab[index++];
+                if (current == null) {
+                    node = null;
+                    return;
+                }
+                K key = (K) unwrap(current.key, keyStrength);
+                V value = (V) unwrap(current.value, valueStrength);
+                if ((key != null || current.key == null) && value != null) {
+                    node = current;
+                    nextKey = key;
+                    nextValue = value;
+                    return;
+                }
+                current = current.next;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (node == null) throw new NoSuchElementException();
+            Entry entry = new Entry(nextKey, nextValue);
+            lastKey = nextKey;
+            canRemove = true;
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            removeKey(lastKey);
+            expectedModCount = modCount;
+            canRemove = false;
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package custom.util;
+
+import java.util.*;
+
+/**
+ * Реализация интерфейса Map с открытой адресацией по схеме Robin Hood. Данная реализация Map не потокобезопасна.
+ * Ключи, значения и хэш-коды ключей хранятся в трёх параллельных массивах без создания объекта-узла на каждую
+ * пару ключ-значение, а поиск выполняется линейным пробированием соседних ячеек.
+ * <p>
+ * При вставке пара ключ-значение, удалившаяся от своей исходной ячейки дальше текущей пары, занимает её место,
+ * а вытесненная пара продолжает пробирование. Поэтому расстояния пробирования выравниваются, а поиск отсутствующего
+ * ключа прекращается, как только встречается пара, расположенная ближе к своей исходной ячейке. Удаление выполняется
+ * обратным сдвигом последующих пар без надгробий (tombstones).
+ * <p>
+ * Семантика совпадает с {@link CustomHashMap}: допускается один ключ null, значения null не допускаются.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class RobinHoodHashMap<K, V> implements Map<K, V> {
+
+    /**
+     * Значение размера хэш-таблицы по умолчанию.
+     */
+    public static final int INIT_CAPACITY = 16;
+
+    /**
+     * Значение коэффициента заполнения хэш-таблицы по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Максимальный размер хэш-таблицы.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Хэш-коды ключей занятых ячеек. Используются для определения исходной ячейки при пробировании
+     * и сравниваются перед вызовом equals.
+     */
+    private int[] hashes;
+    private Object[] keys;
+
+    /**
+     * Значения занятых ячеек. Так как значения null не допускаются, null означает пустую ячейку.
+     */
+    private Object[] values;
+    private int size;
+    private int modCount;
+    private final float loadFactor;
+
+    /**
+     * Отражает количество элементов, по достижению которого происходит перехэширование.
+     */
+    private int growBorder;
+
+    /**
+     * Сдвиг, с помощью которого из умноженного на золотое сечение хэш-кода извлекается индекс исходной ячейки.
+     */
+    private int shift;
+
+    private Set<K> keySet;
+    private Collection<V> valuesView;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Конструктор, для создания объекта RobinHoodHashMap с возможностью указать изначальный размер хэш-таблиы,
+     * а также определить значение коэффициента заполнения. Размер хэш-таблицы округляется вверх до степени двойки.
+     *
+     * @param capacity размер хэш-таблицы
+     * @param load     коэффициент заполнения, от 0 (не включая) до 1 (не включая)
+     * @throws IllegalArgumentException если размер хэш-таблицы отрицателен или коэффициент заполнения вне диапазона
+     */
+    public RobinHoodHashMap(int capacity, float load) {
+        if (capacity < 0) throw new IllegalArgumentException("Недопустимый размер хэш-таблицы: " + capacity);
+        if (!(load > 0 && load < 1)) throw new IllegalArgumentException("Недопустимый коэффициент заполнения: " + load);
+        this.loadFactor = load;
+        allocate(Math.max(2, CustomHashMap.tableSizeFor(capacity)));
+    }
+
+    /**
+     * Конструктор, для создания объекта RobinHoodHashMap с возможностью указать изначальный размер хэш-таблиы.
+     *
+     * @param capacity размер хэш-таблицы
+     */
+    public RobinHoodHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Конструктор, для создания объекта RobinHoodHashMap по умолчанию.
+     */
+    public RobinHoodHashMap() {
+        this(INIT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+        growBorder = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * loadFactor);
+    }
+
+    /**
+     * Определяет исходную ячейку для хэш-кода (фибоначчиево хэширование: старшие биты произведения хэш-кода
+     * на 2^32 / золотое сечение).
+     */
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Возвращает расстояние ячейки slot от исходной ячейки хранящейся в ней пары ключ-значение.
+     */
+    private int probeDistance(int slot) {
+        return (slot - home(hashes[slot])) & (values.length - 1);
+    }
+
+    /**
+     * Выполняет поиск ячейки с указанным ключом.
+     *
+     * @param key ключ
+     * @return индекс ячейки или -1, если ключ отсутствует
+     */
+    private int findSlot(Object key) {
+        return findSlot(key, CustomHashMap.hash(key));
+    }
+
+    private int findSlot(Object key, int hash) {
+        Object[] vals = values;
+        int mask = vals.length - 1;
+        for (int slot = home(hash), distance = 0; ; slot = (slot + 1) & mask, distance++) {
+            if (vals[slot] == null || distance > probeDistance(slot)) return -1;
+            if (hashes[slot] == hash && Objects.equals(keys[slot], key)) return slot;
+        }
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если RobinHoodHashMap не содержит пар ключ-значение.
+     *
+     * @return true, если RobinHoodHashMap не содержит пар ключ-значение
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает true, если RobinHoodHashMap содержит пару ключ-значение с указанным ключом. Для key допустимо null.
+     *
+     * @param key ключ, наличие которого проверяется
+     * @return true - если ключ содержится в RobinHoodHashMap. В обратно случае false
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Возвращает true, если RobinHoodHashMap содержит пару ключ-значение с указанным значением.
+     * Выполняет последовательный просмотр массива значений.
+     *
+     * @param value значение, наличие которого проверяется
+     * @return true - если значение содержится в RobinHoodHashMap. В обратно случае false
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) return false;
+        for (Object current : values) {
+            if (current != null && current.equals(value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает значение, связанное с ключом key, или null, если ключ отсутствует.
+     *
+     * @param key ключ, значение которого должно быть возвращено
+     * @return значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Выполняет добавление пары ключ-значение или перезапись значения существующей пары.
+     *
+     * @param key   ключ, который должен быть ассоциирован с указанным значением
+     * @param value значение, которое должно быть ассоциировано с указанным ключом
+     * @return значение, которое ранее ассоциировалось с указанным ключом, или null
+     * @throws NullPointerException если value равно null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        int hash = CustomHashMap.hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            V old = (V) values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if (size >= growBorder) resize();
+        insert(hash, key, value);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Вставляет отсутствующую пару ключ-значение, вытесняя пары, расположенные ближе к своей исходной ячейке.
+     */
+    private void insert(int hash, Object key, Object value) {
+        int[] hs = hashes;
+        Object[] ks = keys, vs = values;
+        int mask = vs.length - 1;
+        for (int slot = home(hash), distance = 0; ; slot = (slot + 1) & mask, distance++) {
+            if (vs[slot] == null) {
+                hs[slot] = hash;
+                ks[slot] = key;
+                vs[slot] = value;
+                return;
+            }
+            int existingDistance = probeDistance(slot);
+            if (existingDistance < distance) {
+                int displacedHash = hs[slot];
+                Object displacedKey = ks[slot], displacedValue = vs[slot];
+                hs[slot] = hash;
+                ks[slot] = key;
+                vs[slot] = value;
+                hash = displacedHash;
+                key = displacedKey;
+                value = displacedValue;
+                distance = existingDistance;
+            }
+        }
+    }
+
+    /**
+     * Удваивает размер хэш-таблицы и заново размещает пары ключ-значение без повторного вычисления хэш-кодов.
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys, oldValues = values;
+        if (oldValues.length >= MAXIMUM_CAPACITY) throw new IllegalStateException("Превышен максимальный размер хэш-таблицы");
+        allocate(oldValues.length << 1);
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != null) insert(oldHashes[slot], oldKeys[slot], oldValues[slot]);
+        }
+    }
+
+    /**
+     * Выполняет удаление пары ключ-значение, если пара с указанным ключом присутствует.
+     *
+     * @param key ключ пары ключ-значение, которая должна быть удалена
+     * @return значение удалённой пары ключ-значение или null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        V old = (V) values[slot];
+        removeSlot(slot, null);
+        return old;
+    }
+
+    /**
+     * Освобождает ячейку, сдвигая на одну позицию назад последующие пары ключ-значение, которые находятся
+     * не в своей исходной ячейке.
+     *
+     * @param slot     освобождаемая ячейка
+     * @param iterator итератор, через который выполняется удаление, или null
+     */
+    private void removeSlot(int slot, SlotIterator iterator) {
+        int[] hs = hashes;
+        Object[] ks = keys, vs = values;
+        int mask = vs.length - 1;
+        for (int next = (slot + 1) & mask; vs[next] != null && probeDistance(next) > 0; next = (next + 1) & mask) {
+            if (iterator != null) iterator.onShift(next, slot);
+            hs[slot] = hs[next];
+            ks[slot] = ks[next];
+            vs[slot] = vs[next];
+            slot = next;
+        }
+        ks[slot] = null;
+        vs[slot] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Выполняет добавление всех пар ключ-значение указанного ассоциативного массива.
+     *
+     * @param map ассоциативный массив, пары ключ-значения которого долдны быть добавлены
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (map != null && map.size() > 0) {
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Удаляет все пары ключ-значение.
+     */
+    @Override
+    public void clear() {
+        if (size > 0) {
+            size = 0;
+            modCount++;
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Возвращает множество ключей, являющееся представлением RobinHoodHashMap.
+     *
+     * @return Set ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySet;
+        return view != null ? view : (keySet = new KeySet());
+    }
+
+    /**
+     * Возвращает коллекцию значений, являющуюся представлением RobinHoodHashMap.
+     *
+     * @return Collection значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        return view != null ? view : (valuesView = new Values());
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение, являющееся представлением RobinHoodHashMap.
+     * {@link Map.Entry#setValue(Object)} записывает значение в RobinHoodHashMap.
+     *
+     * @return Set пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> view = entrySet;
+        return view != null ? view : (entrySet = new EntrySet());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object == this) return true;
+        if (!(object instanceof Map<?, ?> other) || other.size() != size) return false;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null && !values[slot].equals(other.get(keys[slot]))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) hashCode += Objects.hashCode(keys[slot]) ^ values[slot].hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) joiner.add(keys[slot] + "=" + values[slot]);
+        }
+        return joiner.toString();
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            RobinHoodHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsKey(object);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            int slot = findSlot(key);
+            if (slot < 0) return false;
+            removeSlot(slot, null);
+            return true;
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            RobinHoodHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsValue(object);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            RobinHoodHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+            int slot = findSlot(entry.getKey());
+            return slot >= 0 && values[slot].equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!contains(object)) return false;
+            removeSlot(findSlot(((Map.Entry<?, ?>) object).getKey()), null);
+            return true;
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором entrySet(). Так как пары перемещаются между ячейками
+     * при удалении и перехэшировании, setValue находит ячейку по ключу.
+     */
+    private final class SlotEntry implements Map.Entry<K, V> {
+        private final K key;
+        private V value;
+
+        SlotEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            int slot = findSlot(key);
+            if (slot < 0) throw new IllegalStateException("Пара ключ-значение удалена");
+            V old = this.value;
+            values[slot] = this.value = value;
+            return old;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(key, entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Итератор, обходящий ячейки от последней к первой. При удалении через итератор обратный сдвиг
+     * перемещает пары только в уже пройденные ячейки, кроме переноса из ячейки 0 в последнюю ячейку
+     * при переходе через границу массива. Такие пары запоминаются и возвращаются после обхода массива.
+     */
+    private abstract class SlotIterator {
+        private int position = values.length;
+        private int remaining = size;
+        private int expectedModCount = modCount;
+        private int lastSlot = -1;
+        private ArrayList<Object> wrapped;
+        private int wrappedIndex;
+        K currentKey;
+        V currentValue;
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        final void advance() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            while (--position >= 0) {
+                if (values[position] != null) {
+                    lastSlot = position;
+                    currentKey = (K) keys[position];
+                    currentValue = (V) values[position];
+                    return;
+                }
+            }
+            position = -1;
+            lastSlot = -1;
+            currentKey = (K) wrapped.get(wrappedIndex++);
+            currentValue = (V) wrapped.get(wrappedIndex++);
+        }
+
+        void onShift(int from, int to) {
+            if (from < position && to >= position) {
+                if (wrapped == null) wrapped = new ArrayList<>(2);
+                wrapped.add(keys[from]);
+                wrapped.add(values[from]);
+            }
+        }
+
+        public final void remove() {
+            if (currentValue == null) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (lastSlot >= 0) removeSlot(lastSlot, this);
+            else RobinHoodHashMap.this.remove(currentKey);
+            currentValue = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class KeyIterator extends SlotIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            advance();
+            return currentKey;
+        }
+    }
+
+    private final class ValueIterator extends SlotIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            advance();
+            return currentValue;
+        }
+    }
+
+    private final class EntryIterator extends SlotIterator implements Iterator<Map.Entry<K, V>> {
+        @Override
+        public Map.Entry<K, V> next() {
+            advance();
+            return new SlotEntry(currentKey, currentValue);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package custom.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Хэш-функция с зерном в духе wyhash для стратегий {@link HashingStrategy#seededByteArray(long)} и
+ * {@link HashingStrategy#seededCharSequence(long)}. Данные читаются блоками по 16 байт (8 символов), каждый блок
+ * смешивается с состоянием умножением 64x64 -> 128 бит со сложением половин результата по модулю 2 (mum). Результат
+ * зависит от зерна, поэтому без его знания нельзя заранее подобрать множество ключей с одинаковыми хэш-кодами.
+ * <p>
+ * Оба множителя каждого блока смешиваются с секретами, которые выводятся из зерна (как make_secret в wyhash), а не
+ * с общеизвестными константами: иначе блок, первое слово которого равно константе, обнуляет произведение и сбрасывает
+ * состояние независимо от зерна, что позволяет построить сколько угодно ключей с одинаковым хэш-кодом.
+ * <p>
+ * Хэш-код массива символов совпадает с хэш-кодом последовательности символов с тем же содержимым, но не с хэш-кодом
+ * массива байт.
+ *
+ * @author Владислав Кильчевский
+ */
+final class SeededHash {
+
+    private static final long P0 = 0xa0761d6478bd642fL;
+    private static final long P1 = 0xe7037ed1a0b428dbL;
+    private static final long P2 = 0x8ebc6af09c88c6e3L;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Начальное состояние и секреты, смешиваемые с первым и вторым словом каждого блока.
+     */
+    private final long initialState;
+    private final long secret1;
+    private final long secret2;
+
+    /**
+     * Создаёт хэш-функцию с указанным зерном.
+     *
+     * @param seed зерно
+     */
+    SeededHash(long seed) {
+        this.initialState = mix(seed + P0);
+        this.secret1 = mix(seed + P1);
+        this.secret2 = mix(seed + P2);
+    }
+
+    /**
+     * Вычисляет хэш-код участка массива байт.
+     */
+    int hash(byte[] array, int offset, int length) {
+        long state = initialState;
+        int index = offset;
+        int end = offset + length;
+        for (; index <= end - 16; index += 16) {
+            state = mum((long) LONGS.get(array, index) ^ secret1, (long) LONGS.get(array, index + 8) ^ secret2 ^ state);
+        }
+        long first;
+        long second = 0;
+        if (end - index >= 8) {
+            first = (long) LONGS.get(array, index);
+            second = bytes(array, index + 8, end);
+        } else {
+            first = bytes(array, index, end);
+        }
+        return finish(state, first, second, length);
+    }
+
+    /**
+     * Вычисляет хэш-код участка массива символов.
+     */
+    int hash(char[] array, int offset, int length) {
+        long state = initialState;
+        int index = offset;
+        int end = offset + length;
+        for (; index <= end - 8; index += 8) {
+            state = mum(chars(array, index, 4) ^ secret1, chars(array, index + 4, 4) ^ secret2 ^ state);
+        }
+        int remaining = end - index;
+        long first = chars(array, index, Math.min(remaining, 4));
+        long second = remaining > 4 ? chars(array, index + 4, remaining - 4) : 0;
+        return finish(state, first, second, 2 * length);
+    }
+
+    /**
+     * Вычисляет хэш-код последовательности символов. Совпадает с хэш-кодом массива символов с тем же содержимым.
+     */
+    int hash(CharSequence sequence) {
+        long state = initialState;
+        int index = 0;
+        int end = sequence.length();
+        for (; index <= end - 8; index += 8) {
+            state = mum(chars(sequence, index, 4) ^ secret1, chars(sequence, index + 4, 4) ^ secret2 ^ state);
+        }
+        int remaining = end - index;
+        long first = chars(sequence, index, Math.min(remaining, 4));
+        long second = remaining > 4 ? chars(sequence, index + 4, remaining - 4) : 0;
+        return finish(state, first, second, 2 * end);
+    }
+
+    private int finish(long state, long first, long second, long length) {
+        long hash = mum(P2 ^ length, mum(first ^ secret1, second ^ secret2 ^ state));
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Перемешивает биты значения (финализатор splitmix64). Отображение взаимно однозначно, поэтому разные зёрна
+     * дают разные секреты.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long mum(long first, long second) {
+        return first * second ^ Math.multiplyHigh(first, second);
+    }
+
+    private static long bytes(byte[] array, int from, int to) {
+        long value = 0;
+        for (int index = from; index < to; index++) value |= (array[index] & 0xFFL) << ((index - from) << 3);
+        return value;
+    }
+
+    private static long chars(char[] array, int index, int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) value |= (long) array[index + i] << (i << 4);
+        return value;
+    }
+
+    private static long chars(CharSequence sequence, int index, int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) value |= (long) sequence.charAt(index + i) << (i << 4);
+        return value;
+    }
+}
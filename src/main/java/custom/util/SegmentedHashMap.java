@@ -0,0 +1,303 @@
+package custom.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Ассоциативный массив из независимых сегментов - экземпляров {@link CustomHashMap}, размер которого не ограничен
+ * размером одного массива (2^30 бакетов) и типом int. Сегмент ключа выбирается старшими битами его хэш-кода,
+ * перемешанного умножением на 0x9E3779B9 (хэширование Фибоначчи): от них зависят все биты хэш-кода, поэтому
+ * последовательные ключи распределяются по всем сегментам. Бакет внутри сегмента определяется младшими битами
+ * хэш-кода, как в CustomHashMap.
+ * <p>
+ * Каждый сегмент увеличивается отдельно при достижении своего порога, поэтому одно перехэширование переносит
+ * около 1/segmentCount пар, а самый большой выделяемый массив в segmentCount раз меньше хэш-таблицы CustomHashMap
+ * того же размера (что важно для сборщика G1, размещающего большие массивы в отдельных областях). Сегменты могут
+ * дополнительно использовать постепенное перехэширование.
+ * <p>
+ * Количество пар возвращает {@link #sizeLong()}; {@link #size()} ограничен {@link Integer#MAX_VALUE}, как того
+ * требует {@link Map}. Хэш-код ключа 32-битный, поэтому при количестве пар, сравнимом с 2^32, длина цепочек растёт
+ * независимо от количества сегментов. Допускается ключ null; значения не могут быть null. Порядок обхода - по
+ * сегментам. Данная реализация не потокобезопасна.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип, связанного с ключом значения
+ * @author Владислав Кильчевский
+ */
+public class SegmentedHashMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Количество сегментов по умолчанию.
+     */
+    public static final int DEFAULT_SEGMENT_COUNT = 64;
+
+    /**
+     * Максимальное количество сегментов.
+     */
+    public static final int MAXIMUM_SEGMENT_COUNT = 1 << 16;
+
+    private static final int FIBONACCI_MULTIPLIER = 0x9E3779B9;
+
+    private final CustomHashMap<K, V>[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Конструктор, для создания объекта SegmentedHashMap с возможностью указать количество сегментов,
+     * изначальный размер хэш-таблицы каждого сегмента, коэффициент заполнения и режим постепенного перехэширования
+     * сегментов (см. {@link CustomHashMap#CustomHashMap(int, float, boolean)}). Количество сегментов округляется
+     * вверх до степени двойки.
+     *
+     * @param segmentCount      количество сегментов, от 1 до {@value #MAXIMUM_SEGMENT_COUNT}
+     * @param segmentCapacity   изначальный размер хэш-таблицы сегмента
+     * @param load              коэффициент заполнения
+     * @param incrementalResize true - для включения режима постепенного перехэширования сегментов
+     * @throws IllegalArgumentException если количество сегментов вне допустимого диапазона, размер хэш-таблицы
+     *                                  отрицателен или коэффициент заполнения не положителен
+     */
+    public SegmentedHashMap(int segmentCount, int segmentCapacity, float load, boolean incrementalResize) {
+        if (segmentCount < 1 || segmentCount > MAXIMUM_SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Недопустимое количество сегментов: " + segmentCount);
+        }
+        segmentCount = CustomHashMap.tableSizeFor(segmentCount);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CustomHashMap<K, V>[] segments = (CustomHashMap<K, V>[]) new CustomHashMap[segmentCount];
+        this.segments = segments;
+        for (int index = 0; index < segmentCount; index++) {
+            segments[index] = new CustomHashMap<>(segmentCapacity, load, incrementalResize);
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Конструктор, для создания объекта SegmentedHashMap с возможностью указать количество сегментов.
+     * Сегменты создаются с размером хэш-таблицы и коэффициентом заполнения по умолчанию.
+     *
+     * @param segmentCount количество сегментов, от 1 до {@value #MAXIMUM_SEGMENT_COUNT}
+     */
+    public SegmentedHashMap(int segmentCount) {
+        this(segmentCount, CustomHashMap.INIT_BUCKET_ARRAY_CAPACITY, 0.75f, false);
+    }
+
+    /**
+     * Конструктор, для создания объекта SegmentedHashMap по умолчанию из {@value #DEFAULT_SEGMENT_COUNT} сегментов.
+     */
+    public SegmentedHashMap() {
+        this(DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     *
+     * @return количество пар ключ-значение
+     */
+    public long sizeLong() {
+        long size = 0;
+        for (CustomHashMap<K, V> segment : segments) size += segment.size();
+        return size;
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение или {@link Integer#MAX_VALUE}, если их больше
+     * (см. {@link #sizeLong()}).
+     *
+     * @return количество пар ключ-значение, но не больше Integer.MAX_VALUE
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(sizeLong(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (CustomHashMap<K, V> segment : segments) {
+            if (!segment.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает количество сегментов.
+     *
+     * @return количество сегментов
+     */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Возвращает статистику сегмента с указанным номером (см. {@link CustomHashMap#statistics()}).
+     *
+     * @param segment номер сегмента, от 0 до segmentCount() - 1
+     * @return статистика сегмента
+     * @throws IndexOutOfBoundsException если номер сегмента вне допустимого диапазона
+     */
+    public MapStatistics segmentStatistics(int segment) {
+        return segments[segment].statistics();
+    }
+
+    /**
+     * Возвращает номер сегмента ключа.
+     */
+    int segmentIndex(Object key) {
+        return (CustomHashMap.hash(key) * FIBONACCI_MULTIPLIER >>> segmentShift) & segmentMask;
+    }
+
+    private CustomHashMap<K, V> segmentFor(Object key) {
+        return segments[segmentIndex(key)];
+    }
+
+    @Override
+    public V get(Object key) {
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return segmentFor(key).getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return segmentFor(key).containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (CustomHashMap<K, V> segment : segments) {
+            if (segment.containsValue(value)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return segmentFor(key).put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return segmentFor(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return segmentFor(key).remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return segmentFor(key).remove(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return segmentFor(key).replace(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return segmentFor(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return segmentFor(key).computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return segmentFor(key).computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return segmentFor(key).compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return segmentFor(key).merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void clear() {
+        for (CustomHashMap<K, V> segment : segments) segment.clear();
+    }
+
+    /**
+     * Возвращает множество пар ключ-значение. Множество является представлением SegmentedHashMap: итератор
+     * обходит сегменты по порядку и поддерживает удаление, {@link Map.Entry#setValue(Object)} записывает значение
+     * в SegmentedHashMap.
+     *
+     * @return множество пар ключ-значение
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> view = entrySet;
+        if (view == null) entrySet = view = new EntrySet();
+        return view;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return SegmentedHashMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            SegmentedHashMap.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return object instanceof Map.Entry<?, ?> entry && segmentFor(entry.getKey()).entrySet().contains(entry);
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return object instanceof Map.Entry<?, ?> entry && segmentFor(entry.getKey()).entrySet().remove(entry);
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private int segment;
+                private Iterator<Map.Entry<K, V>> current = segments[0].entrySet().iterator();
+                private Iterator<Map.Entry<K, V>> lastReturned;
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext()) {
+                        if (segment + 1 == segments.length) return false;
+                        current = segments[++segment].entrySet().iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    lastReturned = current;
+                    return current.next();
+                }
+
+                @Override
+                public void remove() {
+                    if (lastReturned == null) throw new IllegalStateException();
+                    lastReturned.remove();
+                    lastReturned = null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package custom.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Преобразование объектов в последовательность байт и обратно для ассоциативных массивов, хранящих пары
+ * ключ-значение вне кучи Java ({@link OffHeapHashMap}).
+ * <p>
+ * Сериализованное представление ключа должно быть каноническим: ключи равны по equals тогда и только тогда,
+ * когда равны их последовательности байт, так как поиск сравнивает байты без десериализации.
+ *
+ * @param <T> тип сериализуемых объектов
+ * @author Владислав Кильчевский
+ */
+public interface Serializer<T> {
+
+    /**
+     * Записывает объект в буфер, начиная с его текущей позиции, и сдвигает позицию на количество записанных байт.
+     * Если места в буфере недостаточно, должен быть выброшен {@link java.nio.BufferOverflowException}:
+     * вызывающий код увеличит буфер и повторит запись.
+     *
+     * @param value  сериализуемый объект, не null
+     * @param target буфер для записи
+     */
+    void write(T value, ByteBuffer target);
+
+    /**
+     * Восстанавливает объект из буфера, содержащего ровно одно сериализованное представление
+     * (от текущей позиции до границы буфера).
+     *
+     * @param source буфер для чтения
+     * @return восстановленный объект
+     */
+    T read(ByteBuffer source);
+
+    /**
+     * Сериализатор Integer: 4 байта.
+     */
+    Serializer<Integer> INTEGER = new Serializer<>() {
+        @Override
+        public void write(Integer value, ByteBuffer target) {
+            target.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer source) {
+            return source.getInt();
+        }
+    };
+
+    /**
+     * Сериализатор Long: 8 байт.
+     */
+    Serializer<Long> LONG = new Serializer<>() {
+        @Override
+        public void write(Long value, ByteBuffer target) {
+            target.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer source) {
+            return source.getLong();
+        }
+    };
+
+    /**
+     * Сериализатор String в кодировке UTF-8 без указания длины (длину хранит ассоциативный массив).
+     */
+    Serializer<String> STRING = new Serializer<>() {
+        @Override
+        public void write(String value, ByteBuffer target) {
+            target.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer source) {
+            byte[] bytes = new byte[source.remaining()];
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
@@ -0,0 +1,153 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalHashMapTest {
+
+    private final int MAP_SIZE = 10_000;
+    private final Integer NOT_NULL_KEY = 1;
+
+    /**
+     * Строит обратный индекс полным обходом.
+     */
+    private static <K, V> Map<V, Set<K>> invert(Map<K, V> map) {
+        Map<V, Set<K>> inverse = new HashMap<>();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            inverse.computeIfAbsent(entry.getValue(), value -> new HashSet<>()).add(entry.getKey());
+        }
+        return inverse;
+    }
+
+    @Test
+    void indexFollowsRandomOperationsTest() {
+        BidirectionalHashMap<Integer, Integer> map = new BidirectionalHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int operation = 0; operation < 200_000; operation++) {
+            Integer key = random.nextInt(MAP_SIZE);
+            Integer value = random.nextInt(MAP_SIZE / 4);
+            switch (random.nextInt(5)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.merge(key, value, Integer::sum), map.merge(key, value, Integer::sum));
+                case 2 -> assertEquals(expected.replace(key, value), map.replace(key, value));
+                case 3 -> assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+                default -> assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        Map<Integer, Set<Integer>> inverse = invert(expected);
+        for (int value = -1; value < MAP_SIZE; value++) {
+            assertEquals(inverse.containsKey(value), map.containsValue(value));
+            assertEquals(inverse.getOrDefault(value, Set.of()), map.getKeysForValue(value));
+        }
+        assertEquals(expected, map);
+    }
+
+    @Test
+    void entrySetViewsKeepIndexConsistentTest() {
+        BidirectionalHashMap<Integer, String> map = new BidirectionalHashMap<>();
+        for (int i = 0; i < MAP_SIZE; i++) map.put(i, "val" + i % 100);
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 3 == 0) iterator.remove();
+            else if (entry.getKey() % 3 == 1) entry.setValue("changed");
+        }
+        map.values().removeIf("val2"::equals);
+        map.replaceAll((key, value) -> key < 100 ? "small" : value);
+        assertAll(
+                () -> assertEquals(invert(new HashMap<>(map)), map.inverse()),
+                () -> assertEquals(Set.of(101, 401, 701), map.getKeysForValue("val1").stream()
+                        .filter(key -> key < 1_000).collect(Collectors.toSet())),
+                () -> assertFalse(map.containsValue("val2")),
+                () -> assertTrue(map.containsValue("small")),
+                () -> assertTrue(map.getKeysForValue("changed").contains(MAP_SIZE - 3))
+        );
+    }
+
+    @Test
+    void nullKeyAndSharedValuesTest() {
+        BidirectionalHashMap<Integer, String> map = new BidirectionalHashMap<>();
+        map.put(null, "shared");
+        map.put(NOT_NULL_KEY, "shared");
+        map.put(2, "own");
+        Set<Integer> sharedBeforeRemove = map.getKeysForValue("shared");
+        map.remove(NOT_NULL_KEY);
+        Set<Integer> sharedAfterRemove = map.getKeysForValue("shared");
+        map.put(null, "own");
+        assertAll(
+                () -> assertEquals(new HashSet<>(Arrays.asList(null, NOT_NULL_KEY)), sharedBeforeRemove),
+                () -> assertEquals(Collections.singleton(null), sharedAfterRemove),
+                () -> assertFalse(map.containsValue("shared")),
+                () -> assertEquals(new HashSet<>(Arrays.asList(null, 2)), map.getKeysForValue("own")),
+                () -> assertThrows(UnsupportedOperationException.class,
+                        () -> map.getKeysForValue("own").add(3))
+        );
+    }
+
+    @Test
+    void inverseViewAndClearTest() {
+        BidirectionalHashMap<String, Integer> map = new BidirectionalHashMap<>();
+        Map<Integer, Set<String>> inverse = map.inverse();
+        for (int i = 0; i < 1_000; i++) map.put("key" + i, i % 10);
+        int distinctValues = inverse.size();
+        Set<String> zeroKeys = inverse.get(0);
+        map.put("key0", 42);
+        assertAll(
+                () -> assertEquals(10, distinctValues),
+                () -> assertEquals(100, zeroKeys.size()),
+                () -> assertEquals(11, inverse.size()),
+                () -> assertEquals(Set.of("key0"), inverse.get(42)),
+                () -> assertNull(inverse.get(-1)),
+                () -> assertEquals(invert(new HashMap<>(map)), inverse),
+                () -> assertThrows(UnsupportedOperationException.class, () -> inverse.remove(42)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> inverse.put(1, Set.of()))
+        );
+        map.clear();
+        assertAll(
+                () -> assertTrue(inverse.isEmpty()),
+                () -> assertFalse(map.containsValue(1)),
+                () -> assertEquals(Set.of(), map.getKeysForValue(1))
+        );
+    }
+
+    @Test
+    void treeBucketsKeepIndexConsistentTest() {
+        BidirectionalHashMap<CollidingKey, Integer> map = new BidirectionalHashMap<>();
+        for (int i = 0; i < 1_000; i++) map.put(new CollidingKey(i), i % 7);
+        for (Map.Entry<CollidingKey, Integer> entry : map.entrySet()) {
+            if (entry.getKey().id() % 2 == 0) entry.setValue(100);
+        }
+        for (int i = 1; i < 1_000; i += 4) map.remove(new CollidingKey(i));
+        assertAll(
+                () -> assertTrue(map.treeBucketCount() > 0),
+                () -> assertEquals(500, map.getKeysForValue(100).size()),
+                () -> assertEquals(invert(new HashMap<>(map)), map.inverse()),
+                () -> assertFalse(map.getKeysForValue(1).contains(new CollidingKey(1)))
+        );
+    }
+
+    private record CollidingKey(int id) implements Comparable<CollidingKey> {
+        static final int GROUP_SIZE = 64;
+
+        @Override
+        public int hashCode() {
+            return id / GROUP_SIZE;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactHashMapTest {
+
+    private final int MAP_SIZE = 100_000;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NULL_KEY = "valueMappedToNullKey";
+
+    @Test
+    void insertionOrderSurvivesRebuildsTest() {
+        CompactHashMap<Integer, String> map = new CompactHashMap<>();
+        Random random = new Random(3);
+        List<Integer> expectedKeys = new ArrayList<>();
+        while (map.size() < MAP_SIZE) {
+            Integer key = random.nextInt();
+            if (map.put(key, "val" + key) == null) expectedKeys.add(key);
+        }
+        map.put(expectedKeys.get(0), "overwritten");
+        List<Integer> keys = new ArrayList<>(map.keySet());
+        List<Integer> forEachKeys = new ArrayList<>();
+        map.forEach((key, value) -> forEachKeys.add(key));
+        assertAll(
+                () -> assertEquals(expectedKeys, keys),
+                () -> assertEquals(expectedKeys, forEachKeys),
+                () -> assertEquals("overwritten", map.values().iterator().next()),
+                () -> assertEquals("val" + expectedKeys.get(MAP_SIZE - 1), map.get(expectedKeys.get(MAP_SIZE - 1))),
+                () -> assertTrue(map.capacity() < 2 * MAP_SIZE)
+        );
+    }
+
+    @Test
+    void holesAreCompactedOnRebuildTest() {
+        CompactHashMap<Integer, String> map = new CompactHashMap<>(MAP_SIZE);
+        int capacity = map.capacity();
+        for (int key = 0; key < MAP_SIZE; key++) map.put(key, "val" + key);
+        for (int key = 0; key < MAP_SIZE; key++) {
+            if (key % 4 != 0) map.remove(key);
+        }
+        for (int key = MAP_SIZE; key < 2 * MAP_SIZE; key++) map.put(key, "val" + key);
+        for (int key = 1; key < MAP_SIZE; key += 4) map.put(key, "val" + key);
+        List<Integer> expectedKeys = new ArrayList<>();
+        for (int key = 0; key < MAP_SIZE; key += 4) expectedKeys.add(key);
+        for (int key = MAP_SIZE; key < 2 * MAP_SIZE; key++) expectedKeys.add(key);
+        for (int key = 1; key < MAP_SIZE; key += 4) expectedKeys.add(key);
+        assertAll(
+                () -> assertEquals(expectedKeys, new ArrayList<>(map.keySet())),
+                () -> assertEquals(expectedKeys.size(), map.size()),
+                () -> assertFalse(map.containsKey(2)),
+                () -> assertEquals("val5", map.get(5)),
+                () -> assertTrue(map.capacity() >= capacity),
+                () -> assertTrue(map.capacity() < 4 * map.size())
+        );
+    }
+
+    @Test
+    void behavesLikeLinkedHashMapTest() {
+        Map<Integer, String> map = new CompactHashMap<>();
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        Random random = new Random(17);
+        for (int operation = 0; operation < MAP_SIZE; operation++) {
+            Integer key = random.nextInt(10_000) - 10;
+            String value = "val" + random.nextInt(100);
+            switch (random.nextInt(5)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.merge(key, value, String::concat), map.merge(key, value, String::concat));
+                case 2 -> assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value));
+                case 3 -> assertEquals(expected.compute(key, (k, v) -> v == null ? value : null),
+                        map.compute(key, (k, v) -> v == null ? value : null));
+                default -> assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertAll(
+                () -> assertEquals(expected, map),
+                () -> assertEquals(map, expected),
+                () -> assertEquals(expected.hashCode(), map.hashCode()),
+                () -> assertEquals(expected.toString(), map.toString()),
+                () -> assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values())),
+                () -> assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()))
+        );
+    }
+
+    @Test
+    void iteratorRemoveSetValueAndFailFastTest() {
+        Map<Integer, String> map = new CompactHashMap<>();
+        for (int key = 0; key < MAP_SIZE; key++) map.put(key, "val" + key);
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) iterator.remove();
+            else entry.setValue("odd" + entry.getKey());
+        }
+        Map.Entry<Integer, String> first = map.entrySet().iterator().next();
+        for (int key = MAP_SIZE; key < 2 * MAP_SIZE; key++) map.put(key, "val" + key);
+        first.setValue("afterRebuild");
+        Iterator<Integer> keyIterator = map.keySet().iterator();
+        keyIterator.next();
+        map.put(-1, "new");
+        assertAll(
+                () -> assertEquals(MAP_SIZE / 2 + MAP_SIZE + 1, map.size()),
+                () -> assertNull(map.get(0)),
+                () -> assertEquals("afterRebuild", map.get(1)),
+                () -> assertEquals("odd3", map.get(3)),
+                () -> assertEquals(1, map.keySet().iterator().next()),
+                () -> assertThrows(ConcurrentModificationException.class, keyIterator::next),
+                () -> assertThrows(IllegalStateException.class, () -> map.keySet().iterator().remove()),
+                () -> assertThrows(NullPointerException.class, () -> first.setValue(null))
+        );
+    }
+
+    @Test
+    void nullKeyClearAndValidationTest() {
+        CompactHashMap<Integer, String> map = new CompactHashMap<>();
+        map.put(NOT_NULL_KEY, "val" + NOT_NULL_KEY);
+        map.put(null, VALUE_FOR_NULL_KEY);
+        boolean containedNullKey = map.containsKey(null);
+        String removedValueForNullKey = map.remove(null);
+        map.put(null, VALUE_FOR_NULL_KEY);
+        List<Integer> keys = new ArrayList<>(map.keySet());
+        int capacity = map.capacity();
+        map.clear();
+        assertAll(
+                () -> assertTrue(containedNullKey),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, removedValueForNullKey),
+                () -> assertEquals(List.of(NOT_NULL_KEY), keys.subList(0, 1)),
+                () -> assertNull(keys.get(1)),
+                () -> assertTrue(map.isEmpty()),
+                () -> assertFalse(map.containsKey(null)),
+                () -> assertFalse(map.entrySet().iterator().hasNext()),
+                () -> assertEquals(capacity, map.capacity()),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CompactHashMap<>(-1))
+        );
+    }
+}
@@ -0,0 +1,161 @@
+package custom.util;
+
+import custom.util.CustomCache.EvictionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomCacheTest {
+
+    private final int MAXIMUM_SIZE = 100;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @Test
+    void lruEvictsLeastRecentlyUsedTest() {
+        List<Integer> evicted = new ArrayList<>();
+        CustomCache<Integer, String> cache = new CustomCache<>(3, EvictionPolicy.LRU, null,
+                (key, value) -> evicted.add(key));
+        cache.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        cache.put(2, "val2");
+        cache.put(3, "val3");
+        cache.get(NOT_NULL_KEY);
+        cache.containsKey(2);
+        cache.put(4, "val4");
+        cache.put(3, "val3");
+        cache.put(5, "val5");
+        assertAll(
+                () -> assertEquals(List.of(2, NOT_NULL_KEY), evicted),
+                () -> assertEquals(2, cache.evictionCount()),
+                () -> assertEquals(3, cache.size()),
+                () -> assertEquals(3, cache.weightedSize()),
+                () -> assertNull(cache.get(NOT_NULL_KEY)),
+                () -> assertEquals("val4", cache.get(4)),
+                () -> assertTrue(cache.checkQueues())
+        );
+    }
+
+    @Test
+    void maximumWeightAndReweighOnPutTest() {
+        List<String> evicted = new ArrayList<>();
+        CustomCache<Integer, String> cache = new CustomCache<>(10, EvictionPolicy.LRU,
+                (key, value) -> value.length(), (key, value) -> evicted.add(value));
+        cache.put(NOT_NULL_KEY, "aaaa");
+        cache.put(2, "bbbb");
+        cache.put(3, "cc");
+        cache.put(2, "bbbbbb");
+        cache.put(4, "x".repeat(11));
+        assertAll(
+                () -> assertEquals(List.of("aaaa", "x".repeat(11)), evicted),
+                () -> assertEquals(8, cache.weightedSize()),
+                () -> assertEquals("bbbbbb", cache.get(2)),
+                () -> assertEquals("cc", cache.get(3)),
+                () -> assertTrue(cache.checkQueues()),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CustomCache<>(-1)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> new CustomCache<Integer, String>(10, EvictionPolicy.LRU, (key, value) -> -1, null)
+                                .put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY))
+        );
+    }
+
+    @Test
+    void wTinyLfuKeepsFrequentKeysDuringScanTest() {
+        CustomCache<Integer, String> lru = new CustomCache<>(MAXIMUM_SIZE, EvictionPolicy.LRU);
+        CustomCache<Integer, String> tinyLfu = new CustomCache<>(MAXIMUM_SIZE, EvictionPolicy.W_TINY_LFU);
+        for (CustomCache<Integer, String> cache : List.of(lru, tinyLfu)) {
+            for (int round = 0; round < 10; round++) {
+                for (int key = 0; key < MAXIMUM_SIZE / 2; key++) {
+                    if (cache.get(key) == null) cache.put(key, "val" + key);
+                }
+            }
+            for (int key = MAXIMUM_SIZE; key < 100 * MAXIMUM_SIZE; key++) {
+                if (cache.get(key) == null) cache.put(key, "val" + key);
+            }
+        }
+        int lruHot = 0, tinyLfuHot = 0;
+        for (int key = 0; key < MAXIMUM_SIZE / 2; key++) {
+            if (lru.containsKey(key)) lruHot++;
+            if (tinyLfu.containsKey(key)) tinyLfuHot++;
+        }
+        int lruHotKeys = lruHot, tinyLfuHotKeys = tinyLfuHot;
+        assertAll(
+                () -> assertEquals(0, lruHotKeys),
+                () -> assertTrue(tinyLfuHotKeys >= MAXIMUM_SIZE / 2 - 5),
+                () -> assertEquals(MAXIMUM_SIZE, tinyLfu.size()),
+                () -> assertTrue(tinyLfu.checkQueues())
+        );
+    }
+
+    @Test
+    void queuesStayConsistentUnderRandomOperationsTest() {
+        Random random = new Random(7);
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            Map<CollidingKey, Integer> expected = new HashMap<>();
+            CustomCache<CollidingKey, Integer> cache = new CustomCache<>(500, policy,
+                    (key, value) -> 1 + value % 3, (key, value) -> assertEquals(expected.remove(key), value));
+            for (int operation = 0; operation < 200_000; operation++) {
+                CollidingKey key = new CollidingKey(random.nextInt(2_000));
+                int value = random.nextInt(100);
+                switch (random.nextInt(7)) {
+                    case 0 -> assertEquals(expected.remove(key), cache.remove(key));
+                    case 1 -> assertEquals(expected.get(key), cache.get(key));
+                    case 2 -> assertEquals(expected.merge(key, value, Integer::sum),
+                            cache.merge(key, value, Integer::sum));
+                    case 3 -> assertEquals(expected.computeIfAbsent(key, k -> value),
+                            cache.computeIfAbsent(key, k -> value));
+                    case 4 -> assertEquals(expected.computeIfPresent(key, (k, v) -> v % 2 == 0 ? null : v + 1),
+                            cache.computeIfPresent(key, (k, v) -> v % 2 == 0 ? null : v + 1));
+                    default -> assertEquals(expected.put(key, value), cache.put(key, value));
+                }
+                assertTrue(cache.weightedSize() <= 500);
+            }
+            assertAll(
+                    () -> assertEquals(expected, new HashMap<>(cache)),
+                    () -> assertTrue(cache.checkQueues()),
+                    () -> assertTrue(cache.checkTreeBuckets()),
+                    () -> assertTrue(cache.treeBucketCount() > 0)
+            );
+        }
+    }
+
+    @Test
+    void clearAndZeroMaximumTest() {
+        CustomCache<Integer, String> cache = new CustomCache<>(MAXIMUM_SIZE, EvictionPolicy.W_TINY_LFU);
+        for (int key = 0; key < MAXIMUM_SIZE; key++) {
+            cache.put(key, "val" + key);
+        }
+        cache.clear();
+        cache.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        CustomCache<Integer, String> empty = new CustomCache<>(0, EvictionPolicy.W_TINY_LFU);
+        assertAll(
+                () -> assertEquals(1, cache.size()),
+                () -> assertEquals(1, cache.weightedSize()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, cache.get(NOT_NULL_KEY)),
+                () -> assertTrue(cache.checkQueues()),
+                () -> assertNull(empty.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY)),
+                () -> assertTrue(empty.isEmpty()),
+                () -> assertEquals(1, empty.evictionCount())
+        );
+    }
+
+    /**
+     * Ключ с малым количеством различных хэш-кодов, приводящий к преобразованию бакетов в деревья.
+     */
+    private record CollidingKey(int id) implements Comparable<CollidingKey> {
+        @Override
+        public int hashCode() {
+            return id % 16;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
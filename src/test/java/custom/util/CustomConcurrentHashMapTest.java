@@ -0,0 +1,215 @@
+package custom.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomConcurrentHashMapTest {
+
+    private ConcurrentMap<Integer, String> map;
+    private final int MAP_SIZE = 100_000;
+    private final int THREADS = 8;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @BeforeEach
+    void prepare() {
+        map = new CustomConcurrentHashMap<>();
+        for (int i = 1; i <= MAP_SIZE; i++) {
+            map.put(i, "val" + i);
+        }
+    }
+
+    @Test
+    void basicOperationsTest() {
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertTrue(new CustomConcurrentHashMap<>().isEmpty()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsValue(VALUE_FOR_NOT_NULL_KEY)),
+                () -> assertNull(map.get(MAP_SIZE + 1)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.putIfAbsent(NOT_NULL_KEY, "other")),
+                () -> assertFalse(map.remove(NOT_NULL_KEY, "other")),
+                () -> assertTrue(map.replace(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY, "replaced")),
+                () -> assertEquals("replaced", map.remove(NOT_NULL_KEY)),
+                () -> assertEquals(MAP_SIZE - 1, map.size()),
+                () -> assertThrows(NullPointerException.class, () -> map.put(null, "val")),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CustomConcurrentHashMap<>(-1))
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(7);
+        Map<Integer, Integer> concurrent = new CustomConcurrentHashMap<>(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        BiFunction<Integer, Integer, Integer> remapping = (k, v) -> {
+            if (v == null) return 0;
+            return v % 3 == 0 ? null : v + 1;
+        };
+        for (int operation = 0; operation < 300_000; operation++) {
+            Integer key = random.nextInt(5_000);
+            switch (random.nextInt(6)) {
+                case 0 -> assertEquals(expected.put(key, operation), concurrent.put(key, operation));
+                case 1 -> assertEquals(expected.remove(key), concurrent.remove(key));
+                case 2 -> assertEquals(expected.merge(key, 1, Integer::sum), concurrent.merge(key, 1, Integer::sum));
+                case 3 -> assertEquals(expected.compute(key, remapping), concurrent.compute(key, remapping));
+                case 4 -> assertEquals(expected.computeIfAbsent(key, k -> -k), concurrent.computeIfAbsent(key, k -> -k));
+                default -> assertEquals(expected.get(key), concurrent.get(key));
+            }
+        }
+        assertAll(
+                () -> assertEquals(expected.size(), concurrent.size()),
+                () -> assertEquals(expected, concurrent),
+                () -> assertEquals(concurrent, expected),
+                () -> assertEquals(expected.hashCode(), concurrent.hashCode())
+        );
+    }
+
+    @Test
+    void concurrentPutsAndRemovesOfDisjointKeysTest() throws Exception {
+        ConcurrentMap<Integer, Integer> concurrent = new CustomConcurrentHashMap<>(2);
+        int keysPerThread = 50_000;
+        runConcurrently(thread -> {
+            int from = thread * keysPerThread;
+            for (int key = from; key < from + keysPerThread; key++) {
+                concurrent.put(key, key);
+            }
+            for (int key = from; key < from + keysPerThread; key += 2) {
+                assertEquals(key, concurrent.remove(key));
+            }
+        });
+        Set<Integer> expectedKeys = new HashSet<>();
+        for (int key = 1; key < THREADS * keysPerThread; key += 2) expectedKeys.add(key);
+        assertAll(
+                () -> assertEquals(expectedKeys.size(), concurrent.size()),
+                () -> assertEquals(expectedKeys, concurrent.keySet()),
+                () -> concurrent.forEach((key, value) -> assertEquals(key, value))
+        );
+    }
+
+    @Test
+    void atomicOperationsAreNotLostUnderContentionTest() throws Exception {
+        ConcurrentMap<Integer, Integer> counters = new CustomConcurrentHashMap<>(2);
+        ConcurrentMap<Integer, Integer> owners = new CustomConcurrentHashMap<>(2);
+        ConcurrentMap<Integer, Integer> created = new CustomConcurrentHashMap<>(2);
+        AtomicInteger computations = new AtomicInteger();
+        int keys = 10_000;
+        runConcurrently(thread -> {
+            for (int key = 0; key < keys; key++) {
+                counters.merge(key, 1, Integer::sum);
+                counters.compute(-key - 1, (k, v) -> v == null ? 1 : v + 1);
+                owners.putIfAbsent(key, thread);
+                created.computeIfAbsent(key, k -> {
+                    computations.incrementAndGet();
+                    return k;
+                });
+            }
+        });
+        assertAll(
+                () -> assertEquals(2 * keys, counters.size()),
+                () -> counters.values().forEach(count -> assertEquals(THREADS, count)),
+                () -> assertEquals(keys, owners.size()),
+                () -> assertEquals(keys, created.size()),
+                () -> assertEquals(keys, computations.get())
+        );
+    }
+
+    @Test
+    void readersSeeEveryStableMappingDuringConcurrentResizeTest() throws Exception {
+        ConcurrentMap<Integer, Integer> concurrent = new CustomConcurrentHashMap<>(2);
+        int stableKeys = 1_000;
+        for (int key = 0; key < stableKeys; key++) concurrent.put(key, key);
+        AtomicInteger misses = new AtomicInteger();
+        runConcurrently(thread -> {
+            if (thread % 2 == 0) {
+                for (int key = stableKeys + thread * 100_000; key < stableKeys + (thread + 1) * 100_000; key++) {
+                    concurrent.put(key, key);
+                }
+            } else {
+                for (int round = 0; round < 200; round++) {
+                    for (int key = 0; key < stableKeys; key++) {
+                        if (!Integer.valueOf(key).equals(concurrent.get(key))) misses.incrementAndGet();
+                    }
+                    int visited = 0;
+                    for (Iterator<Integer> iterator = concurrent.keySet().iterator(); iterator.hasNext(); ) {
+                        if (iterator.next() < stableKeys) visited++;
+                    }
+                    if (visited != stableKeys) misses.incrementAndGet();
+                }
+            }
+        });
+        assertAll(
+                () -> assertEquals(0, misses.get()),
+                () -> assertEquals(stableKeys + THREADS / 2 * 100_000, concurrent.size())
+        );
+    }
+
+    @Test
+    void iteratorRemoveAndEntrySetValueWriteThroughTest() {
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) iterator.remove();
+            else entry.setValue("updated");
+        }
+        assertAll(
+                () -> assertEquals(MAP_SIZE / 2, map.size()),
+                () -> assertNull(map.get(2)),
+                () -> assertEquals("updated", map.get(NOT_NULL_KEY)),
+                () -> assertEquals(MAP_SIZE / 2, map.values().size())
+        );
+    }
+
+    @Test
+    void clearTest() {
+        map.clear();
+        assertAll(
+                () -> assertEquals(0, map.size()),
+                () -> assertNull(map.get(NOT_NULL_KEY)),
+                () -> assertFalse(map.keySet().iterator().hasNext())
+        );
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(number);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,11 +1,32 @@
 package custom.util;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -203,4 +224,602 @@ class CustomHashMapTest {
                 () -> assertEquals(map.size(), mapEntries.size())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void viewsReflectChangesOfMapTest() {
+        Set<Integer> keySet = emptyMap.keySet();
+        Collection<String> values = emptyMap.values();
+        Set<Map.Entry<Integer, String>> entries = emptyMap.entrySet();
+        emptyMap.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        emptyMap.put(null, VALUE_FOR_NULL_KEY);
+        assertAll(
+                () -> assertSame(keySet, emptyMap.keySet()),
+                () -> assertEquals(2, keySet.size()),
+                () -> assertTrue(keySet.contains(null)),
+                () -> assertTrue(values.contains(VALUE_FOR_NOT_NULL_KEY)),
+                () -> assertTrue(entries.contains(Map.entry(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY))),
+                () -> assertEquals(Map.entry(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY).hashCode()
+                        + VALUE_FOR_NULL_KEY.hashCode(), entries.hashCode())
+        );
+    }
+
+    @Test
+    void iteratorVisitsEveryMappingTest() {
+        int visited = 0;
+        long keySum = 0;
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            visited++;
+            if (entry.getKey() != null) keySum += entry.getKey();
+        }
+        long expectedKeySum = (long) (MAP_SIZE - 1) * MAP_SIZE / 2;
+        assertEquals(MAP_SIZE, visited);
+        assertEquals(expectedKeySum, keySum);
+    }
+
+    @Test
+    void iteratorRemoveAndSetValueWriteThroughTest() {
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() == null) entry.setValue("updated");
+            else if (entry.getKey() % 2 == 0) iterator.remove();
+        }
+        map.values().removeIf(value -> value.equals(VALUE_FOR_NOT_NULL_KEY));
+        map.keySet().remove(3);
+        assertAll(
+                () -> assertEquals(MAP_SIZE / 2 - 1, map.size()),
+                () -> assertEquals("updated", map.get(null)),
+                () -> assertNull(map.get(2)),
+                () -> assertFalse(map.containsKey(NOT_NULL_KEY)),
+                () -> assertFalse(map.containsKey(3)),
+                () -> assertEquals("val5", map.get(5))
+        );
+    }
+
+    @Test
+    void iteratorFailsFastOnConcurrentModificationTest() {
+        Iterator<Integer> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put(MAP_SIZE + 1, "val");
+        Iterator<Integer> removingIterator = map.keySet().iterator();
+        assertAll(
+                () -> assertThrows(ConcurrentModificationException.class, iterator::next),
+                () -> assertThrows(IllegalStateException.class, removingIterator::remove)
+        );
+    }
+
+    @Test
+    void resizeKeepsMappingsOfKeysWithHighBitAndNegativeHashCodesTest() {
+        Map<Integer, String> resized = new CustomHashMap<>(3);
+        for (int i = 0; i < MAP_SIZE; i++) {
+            resized.put(Integer.reverse(i), "val" + i);
+        }
+        assertAll(
+                () -> assertEquals(MAP_SIZE, resized.size()),
+                () -> assertEquals("val0", resized.get(0)),
+                () -> assertEquals("val12345", resized.get(Integer.reverse(12345))),
+                () -> assertEquals("val" + (MAP_SIZE - 2), resized.remove(Integer.reverse(MAP_SIZE - 2))),
+                () -> assertEquals(MAP_SIZE - 1, resized.size())
+        );
+    }
+
+    @Test
+    void constructorRejectsIllegalArgumentsTest() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> new CustomHashMap<>(-1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CustomHashMap<>(16, 0f)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CustomHashMap<>(16, Float.NaN)),
+                () -> assertTrue(new CustomHashMap<>(0).isEmpty())
+        );
+    }
+
+    @Test
+    void incrementalResizeKeepsMappingsDuringMigrationTest() {
+        CustomHashMap<Integer, String> incremental = new CustomHashMap<>(16, 0.75f, true);
+        for (int i = 0; i < MAP_SIZE; i++) {
+            incremental.put(i, "val" + i);
+        }
+        boolean resizeInProgress = incremental.isResizeInProgress();
+        String overwritten = incremental.put(7, "new_value");
+        String removed = incremental.remove(8);
+        int found = 0;
+        for (int i = 0; i < MAP_SIZE; i++) {
+            if (incremental.get(i) != null) found++;
+        }
+        int finalFound = found;
+        assertAll(
+                () -> assertTrue(resizeInProgress),
+                () -> assertEquals("val7", overwritten),
+                () -> assertEquals("val8", removed),
+                () -> assertEquals(MAP_SIZE - 1, incremental.size()),
+                () -> assertEquals(MAP_SIZE - 1, finalFound),
+                () -> assertTrue(incremental.containsValue("val" + (MAP_SIZE - 1))),
+                () -> assertEquals("new_value", incremental.get(7)),
+                () -> assertFalse(incremental.isResizeInProgress())
+        );
+    }
+
+    @Test
+    void incrementalResizeCompletesBeforeIterationTest() {
+        CustomHashMap<Integer, String> incremental = new CustomHashMap<>(16, 0.75f, true);
+        for (int i = 0; i < MAP_SIZE; i++) {
+            incremental.put(i, "val" + i);
+        }
+        boolean resizeInProgress = incremental.isResizeInProgress();
+        int visited = 0;
+        for (Integer ignored : incremental.keySet()) {
+            visited++;
+        }
+        int finalVisited = visited;
+        assertAll(
+                () -> assertTrue(resizeInProgress),
+                () -> assertEquals(MAP_SIZE, finalVisited),
+                () -> assertFalse(incremental.isResizeInProgress())
+        );
+    }
+
+    @Test
+    void collidingComparableKeysAreStoredInTreeBucketsTest() {
+        CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            colliding.put(new ComparableCollidingKey(i), "val" + i);
+        }
+        int treeBucketsAfterFill = colliding.treeBucketCount();
+        String removed = colliding.remove(new ComparableCollidingKey(5000));
+        assertAll(
+                () -> assertTrue(treeBucketsAfterFill > 0),
+                () -> assertTrue(colliding.checkTreeBuckets()),
+                () -> assertEquals("val0", colliding.get(new ComparableCollidingKey(0))),
+                () -> assertEquals("val9999", colliding.get(new ComparableCollidingKey(9999))),
+                () -> assertEquals("val5000", removed),
+                () -> assertNull(colliding.get(new ComparableCollidingKey(5000))),
+                () -> assertNull(colliding.get(new ComparableCollidingKey(10_000))),
+                () -> assertEquals(9999, colliding.size())
+        );
+    }
+
+    @Test
+    void collidingKeysBehaveLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(42);
+        CustomHashMap<CollidingKey, Integer> colliding = new CustomHashMap<>(16, 0.75f, true);
+        Map<CollidingKey, Integer> expected = new HashMap<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            int id = random.nextInt(2_000);
+            CollidingKey key = random.nextBoolean() ? new CollidingKey(id) : new ComparableCollidingKey(id);
+            int action = random.nextInt(3);
+            if (action == 0) assertEquals(expected.put(key, operation), colliding.put(key, operation));
+            else if (action == 1) assertEquals(expected.remove(key), colliding.remove(key));
+            else assertEquals(expected.get(key), colliding.get(key));
+        }
+        int visited = 0;
+        for (Map.Entry<CollidingKey, Integer> entry : colliding.entrySet()) {
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+            visited++;
+        }
+        int finalVisited = visited;
+        assertAll(
+                () -> assertEquals(expected.size(), colliding.size()),
+                () -> assertEquals(expected.size(), finalVisited),
+                () -> assertTrue(colliding.checkTreeBuckets())
+        );
+    }
+
+    @Test
+    void treeBucketsShrinkBackToChainsTest() {
+        CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>(64);
+        for (int i = 0; i < CollidingKey.GROUP_SIZE; i++) {
+            colliding.put(new CollidingKey(i), "val" + i);
+        }
+        int treeBucketsAfterFill = colliding.treeBucketCount();
+        for (int i = 0; i < CollidingKey.GROUP_SIZE - 2; i++) {
+            colliding.remove(new CollidingKey(i));
+        }
+        assertAll(
+                () -> assertEquals(1, treeBucketsAfterFill),
+                () -> assertEquals(0, colliding.treeBucketCount()),
+                () -> assertEquals(2, colliding.size()),
+                () -> assertEquals("val" + (CollidingKey.GROUP_SIZE - 1),
+                        colliding.get(new CollidingKey(CollidingKey.GROUP_SIZE - 1)))
+        );
+    }
+
+    @Test
+    void iteratorRemoveAndSetValueInTreeBucketTest() {
+        for (int keyCount = 9; keyCount < 48; keyCount++) {
+            CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>(64);
+            for (int i = 0; i < keyCount; i++) {
+                colliding.put(new CollidingKey(i), "val" + i);
+            }
+            int treeBucketsAfterFill = colliding.treeBucketCount();
+            List<Map.Entry<CollidingKey, String>> kept = new ArrayList<>();
+            int visited = 0;
+            for (Iterator<Map.Entry<CollidingKey, String>> iterator = colliding.entrySet().iterator();
+                 iterator.hasNext(); visited++) {
+                Map.Entry<CollidingKey, String> entry = iterator.next();
+                if (entry.getKey().id % 2 == 0) iterator.remove();
+                else kept.add(entry);
+            }
+            for (Map.Entry<CollidingKey, String> entry : kept) entry.setValue("updated" + entry.getKey().id);
+            int keys = keyCount, finalVisited = visited, lastOdd = keyCount % 2 == 0 ? keyCount - 1 : keyCount - 2;
+            assertAll(
+                    () -> assertEquals(1, treeBucketsAfterFill),
+                    () -> assertEquals(keys, finalVisited, "keyCount = " + keys),
+                    () -> assertEquals(keys / 2, colliding.size()),
+                    () -> assertTrue(colliding.checkTreeBuckets()),
+                    () -> assertNull(colliding.get(new CollidingKey(0))),
+                    () -> assertEquals("updated1", colliding.get(new CollidingKey(1))),
+                    () -> assertEquals("updated" + lastOdd, colliding.get(new CollidingKey(lastOdd)))
+            );
+        }
+    }
+
+    @Test
+    void statisticsSnapshotTest() {
+        CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>(16);
+        MapStatistics disabled = colliding.statistics();
+        colliding.setStatisticsEnabled(true);
+        for (int i = 0; i < 4 * CollidingKey.GROUP_SIZE; i++) {
+            colliding.put(new CollidingKey(i), "val" + i);
+        }
+        colliding.get(new CollidingKey(0));
+        colliding.get(new CollidingKey(-1));
+        MapStatistics statistics = colliding.statistics();
+        long[] histogram = statistics.chainLengthHistogram();
+        assertAll(
+                () -> assertFalse(disabled.statisticsEnabled()),
+                () -> assertEquals(16, disabled.chainLengthHistogram()[0]),
+                () -> assertEquals(0, disabled.estimatedBytesPerEntry()),
+                () -> assertTrue(statistics.statisticsEnabled()),
+                () -> assertEquals(4 * CollidingKey.GROUP_SIZE, statistics.size()),
+                () -> assertEquals(4, statistics.treeBucketCount()),
+                () -> assertEquals(CollidingKey.GROUP_SIZE, statistics.maxChainLength()),
+                () -> assertEquals(4, histogram[MapStatistics.HISTOGRAM_LENGTH - 1]),
+                () -> assertEquals(statistics.capacity(), Arrays.stream(histogram).sum()),
+                () -> assertEquals(1, statistics.hitCount()),
+                () -> assertEquals(1, statistics.missCount()),
+                () -> assertEquals(0.5, statistics.hitRatio()),
+                () -> assertTrue(statistics.resizeCount() > 0),
+                () -> assertTrue(statistics.totalResizeNanos() > 0),
+                () -> assertTrue(statistics.estimatedBytesPerEntry() > 64),
+                () -> assertEquals((double) statistics.size() / statistics.capacity(), statistics.currentLoad())
+        );
+        colliding.resetStatistics();
+        colliding.get(new CollidingKey(0));
+        colliding.setStatisticsEnabled(false);
+        colliding.get(new CollidingKey(0));
+        MapStatistics afterReset = colliding.statistics();
+        colliding.setStatisticsEnabled(true);
+        assertAll(
+                () -> assertEquals(0, afterReset.hitCount()),
+                () -> assertEquals(0, colliding.statistics().hitCount())
+        );
+    }
+
+    @Test
+    void maxProbeLengthAndMXBeanTest() throws Exception {
+        CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>(32, 100f);
+        for (int i = 0; i < 6; i++) {
+            colliding.put(new CollidingKey(i), "val" + i);
+        }
+        colliding.setStatisticsEnabled(true);
+        colliding.get(new CollidingKey(5));
+        ObjectName name = colliding.registerMXBean("probe-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertAll(
+                    () -> assertEquals(6, colliding.statistics().maxProbeLength()),
+                    () -> assertEquals(6, server.getAttribute(name, "MaxProbeLength")),
+                    () -> assertEquals(6, server.getAttribute(name, "Size")),
+                    () -> assertEquals(1L, server.getAttribute(name, "HitCount")),
+                    () -> assertEquals(true, server.getAttribute(name, "StatisticsEnabled")),
+                    () -> assertThrows(JMException.class, () -> colliding.registerMXBean("probe-test"))
+            );
+            Object capacity = server.getAttribute(name, "Capacity");
+            colliding.get(new CollidingKey(0));
+            colliding.get(new CollidingKey(100));
+            assertAll(
+                    () -> assertEquals(32, capacity),
+                    () -> assertEquals(2L, server.getAttribute(name, "HitCount")),
+                    () -> assertEquals(1L, server.getAttribute(name, "MissCount")),
+                    () -> assertEquals(6, server.getAttribute(name, "MaxChainLength"))
+            );
+            server.setAttribute(name, new Attribute("StatisticsEnabled", false));
+            assertFalse(colliding.isStatisticsEnabled());
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void jfrEventsForResizeAndLongChainsTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("custom.util.MapResize");
+            recording.enable("custom.util.LongChainScan");
+            recording.start();
+            CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>(64);
+            colliding.setStatisticsEnabled(true);
+            for (int i = 0; i < CollidingKey.GROUP_SIZE; i++) {
+                colliding.put(new CollidingKey(CollidingKey.GROUP_SIZE + i), "val" + i);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> resizes = events.stream()
+                .filter(event -> event.getEventType().getName().equals("custom.util.MapResize")).toList();
+        List<RecordedEvent> scans = events.stream()
+                .filter(event -> event.getEventType().getName().equals("custom.util.LongChainScan")).toList();
+        assertAll(
+                () -> assertEquals(1, resizes.size()),
+                () -> assertEquals(128, resizes.get(0).getInt("newCapacity")),
+                () -> assertEquals(1, scans.size()),
+                () -> assertEquals(CollidingKey.class.getName(), scans.get(0).getString("keyClass")),
+                () -> assertEquals("put", scans.get(0).getString("operation")),
+                () -> assertEquals(CustomHashMap.TREEIFY_THRESHOLD, scans.get(0).getInt("scannedNodes"))
+        );
+    }
+
+    @Test
+    void computeMergeAndPutIfAbsentBehaveLikeHashMapTest() {
+        Random random = new Random(7);
+        for (boolean incremental : new boolean[]{false, true}) {
+            Map<CollidingKey, Integer> expected = new HashMap<>();
+            CustomHashMap<CollidingKey, Integer> colliding = new CustomHashMap<>(16, 0.75f, incremental);
+            BiFunction<CollidingKey, Integer, Integer> remapping = (key, value) -> {
+                if (value == null) return key.id;
+                return value % 5 == 0 ? null : value + 1;
+            };
+            BiFunction<Integer, Integer, Integer> merging = (value, other) -> {
+                if (value % 7 == 0) return null;
+                return value + other;
+            };
+            for (int operation = 0; operation < 200_000; operation++) {
+                CollidingKey key = new CollidingKey(random.nextInt(5_000));
+                int value = random.nextInt(100);
+                switch (random.nextInt(7)) {
+                    case 0 -> assertEquals(expected.putIfAbsent(key, value), colliding.putIfAbsent(key, value));
+                    case 1 -> assertEquals(expected.computeIfAbsent(key, k -> k.id % 3 == 0 ? null : value),
+                            colliding.computeIfAbsent(key, k -> k.id % 3 == 0 ? null : value));
+                    case 2 -> assertEquals(expected.computeIfPresent(key, remapping),
+                            colliding.computeIfPresent(key, remapping));
+                    case 3 -> assertEquals(expected.compute(key, remapping), colliding.compute(key, remapping));
+                    case 4 -> assertEquals(expected.merge(key, value, merging), colliding.merge(key, value, merging));
+                    case 5 -> assertEquals(expected.getOrDefault(key, -1), colliding.getOrDefault(key, -1));
+                    default -> assertEquals(expected.remove(key), colliding.remove(key));
+                }
+            }
+            assertAll(
+                    () -> assertEquals(expected, new HashMap<>(colliding)),
+                    () -> assertEquals(expected.size(), colliding.size()),
+                    () -> assertTrue(colliding.treeBucketCount() > 0),
+                    () -> assertTrue(colliding.checkTreeBuckets())
+            );
+        }
+    }
+
+    @Test
+    void computeRejectsStructuralModificationByFunctionTest() {
+        assertAll(
+                () -> assertThrows(ConcurrentModificationException.class,
+                        () -> map.computeIfAbsent(-1, key -> map.put(-2, "val") == null ? "new" : "old")),
+                () -> assertThrows(ConcurrentModificationException.class,
+                        () -> map.compute(NOT_NULL_KEY, (key, value) -> map.remove(2))),
+                () -> assertThrows(ConcurrentModificationException.class,
+                        () -> map.merge(NOT_NULL_KEY, "val", (value, other) -> map.remove(3))),
+                () -> assertThrows(NullPointerException.class, () -> map.putIfAbsent(-3, null)),
+                () -> assertThrows(NullPointerException.class, () -> map.merge(-3, null, (value, other) -> value)),
+                () -> assertEquals("new", map.computeIfAbsent(-4, key -> map.get(NOT_NULL_KEY) + "new").substring(4)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.putIfAbsent(NOT_NULL_KEY, "other")),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, map.getOrDefault(null, "default")),
+                () -> assertEquals("default", emptyMap.getOrDefault(NOT_NULL_KEY, "default"))
+        );
+    }
+
+    @Test
+    void putAllPresizesTableOnceAndBatchOperationsTest() {
+        CustomHashMap<Integer, String> target = new CustomHashMap<>();
+        target.setStatisticsEnabled(true);
+        target.putAll(map);
+        MapStatistics afterPutAll = target.statistics();
+        Integer[] keys = {-1, -2, NOT_NULL_KEY};
+        String[] values = {"val-1", "val-2", "other"};
+        target.putAll(keys, values);
+        Map<Integer, String> found = target.getAll(List.of(-1, NOT_NULL_KEY, -3));
+        assertAll(
+                () -> assertEquals("val2", target.get(2)),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, target.get(null)),
+                () -> assertEquals(0, afterPutAll.resizeCount()),
+                () -> assertEquals(MAP_SIZE, afterPutAll.size()),
+                () -> assertEquals(0, target.statistics().resizeCount()),
+                () -> assertEquals(MAP_SIZE + 2, target.size()),
+                () -> assertEquals("other", target.get(NOT_NULL_KEY)),
+                () -> assertEquals(Map.of(-1, "val-1", NOT_NULL_KEY, "other"), new HashMap<>(found)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> target.putAll(new Integer[]{1}, new String[0])),
+                () -> assertThrows(NullPointerException.class,
+                        () -> target.putAll(new Integer[]{-5}, new String[]{null})),
+                () -> assertNull(target.get(-5))
+        );
+    }
+
+    @Test
+    void spliteratorSplitsByBucketRangesTest() {
+        Spliterator<Map.Entry<Integer, String>> whole = map.entrySet().spliterator();
+        Spliterator<Map.Entry<Integer, String>> prefix = whole.trySplit();
+        long[] count = new long[1];
+        whole.forEachRemaining(entry -> count[0]++);
+        prefix.forEachRemaining(entry -> count[0]++);
+        Spliterator<Integer> keys = map.keySet().spliterator();
+        int characteristics = map.keySet().spliterator().characteristics();
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.entrySet().spliterator().getExactSizeIfKnown()),
+                () -> assertTrue((characteristics & Spliterator.SIZED) != 0),
+                () -> assertTrue((characteristics & Spliterator.DISTINCT) != 0),
+                () -> assertEquals(0, prefix.characteristics() & Spliterator.SIZED),
+                () -> assertEquals(MAP_SIZE, count[0]),
+                () -> assertEquals(map.keySet().stream().filter(key -> key != null).mapToLong(Integer::longValue).sum(),
+                        map.keySet().parallelStream().filter(key -> key != null).mapToLong(Integer::longValue).sum()),
+                () -> assertEquals(MAP_SIZE, map.values().parallelStream().count()),
+                () -> assertEquals(0, emptyMap.entrySet().parallelStream().count()),
+                () -> assertThrows(ConcurrentModificationException.class, () -> keys.forEachRemaining(key -> {
+                    if (key != null && key == NOT_NULL_KEY) map.remove(MAP_SIZE - 1);
+                }))
+        );
+    }
+
+    @Test
+    void bulkOperationsSequentialAndParallelTest() {
+        CustomHashMap<Integer, String> target = (CustomHashMap<Integer, String>) map;
+        long expectedLength = map.values().stream().mapToLong(String::length).sum();
+        String expectedMaximum = map.values().stream().max(String::compareTo).orElseThrow();
+        for (long threshold : new long[]{1, Long.MAX_VALUE}) {
+            AtomicLong visited = new AtomicLong();
+            target.forEach(threshold, (key, value) -> visited.incrementAndGet());
+            assertAll(
+                    () -> assertEquals(MAP_SIZE, visited.get()),
+                    () -> assertEquals(expectedLength,
+                            target.reduce(threshold, (key, value) -> (long) value.length(), Long::sum)),
+                    () -> assertEquals(expectedMaximum,
+                            target.reduceValues(threshold, (left, right) -> left.compareTo(right) >= 0 ? left : right)),
+                    () -> assertEquals("val" + (MAP_SIZE / 2),
+                            target.search(threshold, (key, value) -> key != null && key == MAP_SIZE / 2 ? value : null)),
+                    () -> assertNull(target.search(threshold, (key, value) -> null)),
+                    () -> assertNull(((CustomHashMap<Integer, String>) emptyMap).reduceValues(threshold, (a, b) -> a)),
+                    () -> assertThrows(ConcurrentModificationException.class,
+                            () -> target.forEach(threshold, (key, value) -> {
+                                if (key != null && key == NOT_NULL_KEY) {
+                                    target.put(-1, "new");
+                                    target.remove(-1);
+                                }
+                            }))
+            );
+        }
+    }
+
+    @Test
+    void shrinkPolicyReclaimsTableAfterRemovalsTest() {
+        CustomHashMap<Integer, String> target = (CustomHashMap<Integer, String>) map;
+        int fullCapacity = target.statistics().capacity();
+        target.setShrinkLoadFactor(0.75f / 8);
+        for (int i = 1; i < MAP_SIZE - 100; i++) target.remove(i);
+        CustomHashMap<CollidingKey, String> colliding = new CustomHashMap<>();
+        colliding.setShrinkLoadFactor(0.05f);
+        for (int i = 0; i < CollidingKey.GROUP_SIZE * 256; i++) colliding.put(new CollidingKey(i), "val" + i);
+        for (int i = CollidingKey.GROUP_SIZE * 4; i < CollidingKey.GROUP_SIZE * 256; i++) {
+            colliding.remove(new CollidingKey(i));
+        }
+        assertAll(
+                () -> assertEquals(101, target.size()),
+                () -> assertTrue(target.statistics().currentLoad() >= 0.75f / 8),
+                () -> assertEquals("val" + (MAP_SIZE - 1), target.get(MAP_SIZE - 1)),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, target.get(null)),
+                () -> assertNull(target.get(1)),
+                () -> assertEquals(0.75f / 8, target.getShrinkLoadFactor()),
+                () -> assertTrue(fullCapacity > target.statistics().capacity()),
+                () -> assertEquals(CollidingKey.GROUP_SIZE * 4, colliding.size()),
+                () -> assertTrue(colliding.statistics().currentLoad() >= 0.05f),
+                () -> assertTrue(colliding.checkTreeBuckets()),
+                () -> assertEquals("val0", colliding.get(new CollidingKey(0))),
+                () -> assertEquals("val255", colliding.get(new CollidingKey(255))),
+                () -> assertThrows(IllegalArgumentException.class, () -> target.setShrinkLoadFactor(0.5f)),
+                () -> assertThrows(IllegalArgumentException.class, () -> target.setShrinkLoadFactor(-0.1f))
+        );
+    }
+
+    @Test
+    void iteratorRemovalDoesNotShrinkTableTest() {
+        CustomHashMap<Integer, String> target = (CustomHashMap<Integer, String>) map;
+        target.setShrinkLoadFactor(0.1f);
+        int capacity = target.statistics().capacity();
+        target.keySet().removeIf(key -> key != null && key > 10);
+        assertAll(
+                () -> assertEquals(11, target.size()),
+                () -> assertEquals(capacity, target.statistics().capacity()),
+                () -> assertTrue(target.keySet().remove(10)),
+                () -> assertTrue(target.statistics().capacity() < capacity),
+                () -> assertEquals("val9", target.get(9))
+        );
+    }
+
+    @Test
+    void trimToSizeAndEnsureCapacityTest() {
+        CustomHashMap<Integer, String> target = (CustomHashMap<Integer, String>) emptyMap;
+        target.setStatisticsEnabled(true);
+        target.ensureCapacity(MAP_SIZE);
+        int reserved = target.statistics().capacity();
+        for (int i = 0; i < MAP_SIZE; i++) target.put(i, "val" + i);
+        MapStatistics filled = target.statistics();
+        for (int i = 10; i < MAP_SIZE; i++) target.remove(i);
+        target.trimToSize();
+        assertAll(
+                () -> assertEquals(0, filled.resizeCount()),
+                () -> assertEquals(reserved, filled.capacity()),
+                () -> assertEquals(16, target.statistics().capacity()),
+                () -> assertEquals(1, target.statistics().resizeCount()),
+                () -> assertEquals(10, target.size()),
+                () -> assertEquals("val9", target.get(9)),
+                () -> assertThrows(IllegalArgumentException.class, () -> target.ensureCapacity(-1))
+        );
+    }
+
+    @Test
+    void clearReplacesSparseTableTest() {
+        CustomHashMap<Integer, String> target = (CustomHashMap<Integer, String>) map;
+        CustomHashMap<Integer, String> sparse = new CustomHashMap<>();
+        for (int i = 0; i < MAP_SIZE; i++) sparse.put(i, "val" + i);
+        for (int i = 10; i < MAP_SIZE; i++) sparse.remove(i);
+        CustomHashMap<Integer, String> presized = new CustomHashMap<>(1 << 16);
+        for (int i = 0; i < 10; i++) presized.put(i, "val" + i);
+        int fullCapacity = target.statistics().capacity();
+        target.clear();
+        sparse.clear();
+        presized.clear();
+        sparse.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        assertAll(
+                () -> assertTrue(presized.isEmpty()),
+                () -> assertNull(presized.get(NOT_NULL_KEY)),
+                () -> assertEquals(1 << 16, presized.statistics().capacity()),
+                () -> assertTrue(target.isEmpty()),
+                () -> assertEquals(fullCapacity, target.statistics().capacity()),
+                () -> assertEquals(CustomHashMap.INIT_BUCKET_ARRAY_CAPACITY, sparse.statistics().capacity()),
+                () -> assertEquals(1, sparse.size()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, sparse.get(NOT_NULL_KEY))
+        );
+    }
+
+    /**
+     * Ключ, группы из GROUP_SIZE последовательных значений которого имеют одинаковый хэш-код.
+     * Не реализует Comparable, поэтому порядок в бакете-дереве определяется только хэш-кодом.
+     */
+    private static class CollidingKey {
+        static final int GROUP_SIZE = 64;
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id / GROUP_SIZE;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof CollidingKey other && other.getClass() == getClass() && other.id == id;
+        }
+    }
+
+    private static final class ComparableCollidingKey extends CollidingKey
+            implements Comparable<ComparableCollidingKey> {
+
+        ComparableCollidingKey(int id) {
+            super(id);
+        }
+
+        @Override
+        public int compareTo(ComparableCollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
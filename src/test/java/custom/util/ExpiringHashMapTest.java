@@ -0,0 +1,188 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringHashMapTest {
+
+    private final Duration TTL = Duration.ofMinutes(5);
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    /**
+     * Управляемый источник времени в наносекундах.
+     */
+    private long now = 1_000;
+    private final List<Object> removed = new ArrayList<>();
+
+    private <K, V> ExpiringHashMap<K, V> create(Duration defaultTtl) {
+        return new ExpiringHashMap<>(defaultTtl, (key, value) -> removed.add(key), () -> now);
+    }
+
+    @Test
+    void getExpiresEntryExactlyAtDeadlineTest() {
+        ExpiringHashMap<Integer, String> map = create(TTL);
+        map.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        map.put(null, "valueMappedToNullKey", Duration.ofSeconds(1));
+        now += Duration.ofSeconds(1).toNanos() - 1;
+        String beforeDeadline = map.get(null);
+        now += 1;
+        String atDeadline = map.get(null);
+        now += TTL.toNanos();
+        boolean containsAfterTtl = map.containsKey(NOT_NULL_KEY);
+        assertAll(
+                () -> assertEquals("valueMappedToNullKey", beforeDeadline),
+                () -> assertNull(atDeadline),
+                () -> assertFalse(containsAfterTtl),
+                () -> assertEquals(0, map.size()),
+                () -> assertEquals(2, map.expiredCount()),
+                () -> assertEquals(Arrays.asList(null, NOT_NULL_KEY), removed),
+                () -> assertTrue(map.checkWheel()),
+                () -> assertThrows(IllegalArgumentException.class, () -> map.put(2, "val2", Duration.ZERO)),
+                () -> assertThrows(IllegalArgumentException.class, () -> create(Duration.ofSeconds(-1)))
+        );
+    }
+
+    @Test
+    void writesRenewDeadlineAndExpiredKeysAreAbsentTest() {
+        ExpiringHashMap<Integer, String> map = create(TTL);
+        map.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY, Duration.ofSeconds(10));
+        map.put(2, "val2", Duration.ofSeconds(10));
+        map.put(3, "val3", Duration.ofSeconds(10));
+        now += Duration.ofSeconds(9).toNanos();
+        map.put(NOT_NULL_KEY, "renewed");
+        map.merge(2, "!", String::concat);
+        now += Duration.ofSeconds(1).toNanos();
+        String absent = map.putIfAbsent(3, "inserted");
+        String computed = map.computeIfAbsent(4, key -> "val" + key);
+        Map<Integer, String> all = map.getAll(List.of(NOT_NULL_KEY, 2, 3, 4));
+        assertAll(
+                () -> assertNull(absent),
+                () -> assertEquals("val4", computed),
+                () -> assertEquals(Map.of(NOT_NULL_KEY, "renewed", 2, "val2!", 3, "inserted", 4, "val4"), all),
+                () -> assertEquals(List.of(3), removed),
+                () -> assertEquals(4, map.size()),
+                () -> assertTrue(map.checkWheel())
+        );
+    }
+
+    @Test
+    void getAllExpiresRepeatedKeyOnceTest() {
+        ExpiringHashMap<Integer, String> map = create(TTL);
+        map.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY, Duration.ofNanos(100));
+        map.put(2, "val2");
+        // Срок истекает внутри текущего интервала колеса, поэтому пару удаляет getAll, а не колесо.
+        now += 200;
+        Map<Integer, String> all = map.getAll(List.of(NOT_NULL_KEY, 2, NOT_NULL_KEY));
+        assertAll(
+                () -> assertEquals(Map.of(2, "val2"), all),
+                () -> assertEquals(1, map.expiredCount()),
+                () -> assertEquals(List.of(NOT_NULL_KEY), removed),
+                () -> assertEquals(1, map.size()),
+                () -> assertTrue(map.checkWheel())
+        );
+    }
+
+    @Test
+    void wheelRemovesExpiredEntriesWithoutLookupsTest() {
+        ExpiringHashMap<Integer, Integer> map = create(ChronoUnit.FOREVER.getDuration());
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Random random = new Random(3);
+        long[] ranges = {Duration.ofMillis(50).toNanos(), Duration.ofSeconds(30).toNanos(),
+                Duration.ofHours(3).toNanos(), Duration.ofDays(20).toNanos()};
+        for (int key = 0; key < 50_000; key++) {
+            long ttl = 1 + (long) (random.nextDouble() * ranges[key % ranges.length]);
+            map.put(key, key, Duration.ofNanos(ttl));
+            deadlines.put(key, now + ttl);
+        }
+        map.put(-1, -1);
+        long tick = 1L << 20;
+        while (deadlines.size() > 0) {
+            now += (long) (random.nextDouble() * ranges[random.nextInt(ranges.length)] / 50);
+            map.cleanUp();
+            deadlines.entrySet().removeIf(entry -> entry.getValue() <= now - tick);
+            for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() > now && !map.containsKey(entry.getKey())) fail("Удалена пара " + entry);
+            }
+            assertTrue(map.size() >= deadlines.size() + 1);
+            for (Integer key : map.keySet()) {
+                if (key != -1 && !deadlines.containsKey(key)) fail("Не удалена пара " + key);
+            }
+        }
+        assertAll(
+                () -> assertEquals(1, map.size()),
+                () -> assertEquals(-1, map.get(-1)),
+                () -> assertEquals(50_000, removed.size()),
+                () -> assertTrue(map.checkWheel())
+        );
+    }
+
+    @Test
+    void treeBucketsKeepWheelLinksTest() {
+        ExpiringHashMap<CollidingKey, Integer> map = create(TTL);
+        for (int i = 0; i < 1_000; i++) {
+            map.put(new CollidingKey(i), i, Duration.ofSeconds(1 + i % 2));
+        }
+        boolean consistentAfterTreeify = map.checkWheel();
+        now += Duration.ofSeconds(1).toNanos();
+        map.cleanUp();
+        boolean consistentAfterExpiry = map.checkWheel();
+        int sizeAfterFirstSecond = map.size();
+        now += Duration.ofSeconds(1).toNanos() + (1L << 20);
+        map.cleanUp();
+        assertAll(
+                () -> assertTrue(consistentAfterTreeify),
+                () -> assertTrue(consistentAfterExpiry),
+                () -> assertEquals(500, sizeAfterFirstSecond),
+                () -> assertNull(map.get(new CollidingKey(1))),
+                () -> assertTrue(map.isEmpty()),
+                () -> assertEquals(1_000, map.expiredCount())
+        );
+    }
+
+    @Test
+    void clearAndRemoveDoNotNotifyListenerTest() {
+        ExpiringHashMap<Integer, String> map = create(TTL);
+        for (int i = 0; i < 100; i++) map.put(i, "val" + i);
+        map.remove(NOT_NULL_KEY);
+        map.keySet().removeIf(key -> key % 2 == 0);
+        boolean consistent = map.checkWheel();
+        map.clear();
+        map.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        now += TTL.toNanos();
+        map.cleanUp();
+        assertAll(
+                () -> assertTrue(consistent),
+                () -> assertTrue(map.isEmpty()),
+                () -> assertEquals(List.of(NOT_NULL_KEY), removed),
+                () -> assertTrue(map.checkWheel())
+        );
+    }
+
+    /**
+     * Ключ, группы из GROUP_SIZE последовательных значений которого имеют одинаковый хэш-код.
+     */
+    private record CollidingKey(int id) implements Comparable<CollidingKey> {
+        static final int GROUP_SIZE = 64;
+
+        @Override
+        public int hashCode() {
+            return id / GROUP_SIZE;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
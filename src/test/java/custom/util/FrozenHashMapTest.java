@@ -0,0 +1,118 @@
+package custom.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenHashMapTest {
+
+    private CustomHashMap<Integer, String> source;
+    private FrozenHashMap<Integer, String> map;
+    private final int MAP_SIZE = 100_000;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NULL_KEY = "valueMappedToNullKey";
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @BeforeEach
+    void prepare() {
+        source = new CustomHashMap<>();
+        for (int i = 1; i < MAP_SIZE; i++) {
+            source.put(i, "val" + i);
+        }
+        source.put(null, VALUE_FOR_NULL_KEY);
+        map = source.freeze();
+    }
+
+    @Test
+    void lookupsMatchSourceTest() {
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, map.get(null)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsKey(null)),
+                () -> assertTrue(map.containsValue("val" + (MAP_SIZE - 1))),
+                () -> assertNull(map.get(MAP_SIZE)),
+                () -> assertNull(map.get(-1)),
+                () -> assertFalse(map.containsKey("val")),
+                () -> assertEquals(map, new HashMap<>(source))
+        );
+    }
+
+    @Test
+    void randomKeysWithMissesTest() {
+        Random random = new Random(3);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) expected.put(random.nextInt(), i);
+        FrozenHashMap<Integer, Integer> frozen = FrozenHashMap.copyOf(expected);
+        for (int i = 0; i < 100_000; i++) {
+            Integer key = random.nextInt();
+            assertEquals(expected.get(key), frozen.get(key));
+        }
+        assertAll(
+                () -> assertEquals(expected, frozen),
+                () -> assertEquals(expected.hashCode(), frozen.hashCode()),
+                () -> assertTrue(frozen.estimatedBytesPerEntry() < 16)
+        );
+    }
+
+    @Test
+    void keysWithEqualHashCodesTest() {
+        Map<CollidingKey, Integer> colliding = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) colliding.put(new CollidingKey(i), i);
+        FrozenHashMap<CollidingKey, Integer> frozen = FrozenHashMap.copyOf(colliding);
+        assertAll(
+                () -> assertEquals(colliding.size(), frozen.size()),
+                () -> assertEquals(colliding, frozen),
+                () -> assertEquals(5_000, frozen.get(new CollidingKey(5_000))),
+                () -> assertNull(frozen.get(new CollidingKey(10_001)))
+        );
+    }
+
+    @Test
+    void emptyAndSingleEntryTest() {
+        FrozenHashMap<Integer, String> empty = new CustomHashMap<Integer, String>().freeze();
+        FrozenHashMap<Integer, String> single = FrozenHashMap.copyOf(Map.of(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY));
+        assertAll(
+                () -> assertTrue(empty.isEmpty()),
+                () -> assertNull(empty.get(NOT_NULL_KEY)),
+                () -> assertFalse(empty.entrySet().iterator().hasNext()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, single.get(NOT_NULL_KEY)),
+                () -> assertNull(single.get(null))
+        );
+    }
+
+    @Test
+    void isImmutableAndIndependentOfSourceTest() {
+        source.put(NOT_NULL_KEY, "changed");
+        source.remove(2);
+        Map<Integer, String> withNullValue = new HashMap<>();
+        withNullValue.put(NOT_NULL_KEY, null);
+        assertAll(
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertEquals("val2", map.get(2)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.put(NOT_NULL_KEY, "new")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.remove(NOT_NULL_KEY)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.clear()),
+                () -> assertThrows(UnsupportedOperationException.class,
+                        () -> map.entrySet().iterator().next().setValue("new")),
+                () -> assertThrows(NullPointerException.class, () -> FrozenHashMap.copyOf(withNullValue))
+        );
+    }
+
+    /**
+     * Ключ, группы из GROUP_SIZE последовательных значений которого имеют одинаковый хэш-код.
+     */
+    private record CollidingKey(int id) {
+        static final int GROUP_SIZE = 64;
+
+        @Override
+        public int hashCode() {
+            return id / GROUP_SIZE;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashingStrategyTest {
+
+    private final int MAP_SIZE = 10_000;
+
+    @Test
+    void byteArrayKeysAndSliceLookupTest() {
+        CustomHashMap<byte[], Integer> map = new CustomHashMap<>(HashingStrategy.BYTE_ARRAY);
+        for (int i = 0; i < MAP_SIZE; i++) map.put(("key" + i).getBytes(StandardCharsets.US_ASCII), i);
+        byte[] line = "GET key42 key9999 key10000".getBytes(StandardCharsets.US_ASCII);
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(7, map.get("key7".getBytes(StandardCharsets.US_ASCII))),
+                () -> assertEquals(7, map.put("key7".getBytes(StandardCharsets.US_ASCII), -7)),
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(42, map.get(line, 4, 5)),
+                () -> assertEquals(9999, map.get(line, 10, 7)),
+                () -> assertNull(map.get(line, 18, 8)),
+                () -> assertEquals(4, map.get(line, 4, 4)),
+                () -> assertEquals(-7, map.remove("key7".getBytes(StandardCharsets.US_ASCII))),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> map.get(line, 20, 10))
+        );
+    }
+
+    @Test
+    void charSequenceKeysAndSliceLookupTest() {
+        CustomHashMap<CharSequence, Integer> map = new CustomHashMap<>(HashingStrategy.CHAR_SEQUENCE);
+        map.put("alpha", 1);
+        map.put(new StringBuilder("beta"), 2);
+        map.put(CharBuffer.wrap("gamma"), 3);
+        char[] text = "alpha,beta,gamma,delta".toCharArray();
+        assertAll(
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals(1, map.get(new StringBuilder("alpha"))),
+                () -> assertEquals(2, map.get("beta")),
+                () -> assertEquals(3, map.get(CharBuffer.wrap(text, 11, 5))),
+                () -> assertEquals(1, map.get(text, 0, 5)),
+                () -> assertEquals(2, map.get(text, 6, 4)),
+                () -> assertNull(map.get(text, 17, 5)),
+                () -> assertEquals(2, map.put("beta", 20)),
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals("alpha".hashCode(), HashingStrategy.CHAR_SEQUENCE.hashCode(text, 0, 5))
+        );
+    }
+
+    @Test
+    void identityStrategyTest() {
+        CustomHashMap<String, Integer> map = new CustomHashMap<>(HashingStrategy.IDENTITY);
+        String first = new String("key");
+        String second = new String("key");
+        map.put(first, 1);
+        map.put(second, 2);
+        map.put(null, 0);
+        assertAll(
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals(1, map.get(first)),
+                () -> assertEquals(2, map.get(second)),
+                () -> assertNull(map.get("key")),
+                () -> assertEquals(0, map.get(null)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.get(new byte[1], 0, 1)),
+                () -> assertThrows(UnsupportedOperationException.class,
+                        () -> new CustomHashMap<String, Integer>().get(new char[1], 0, 1))
+        );
+    }
+
+    @Test
+    void seededStrategiesAreConsistentTest() {
+        HashingStrategy<byte[]> bytes = HashingStrategy.seededByteArray(42);
+        HashingStrategy<CharSequence> chars = HashingStrategy.seededCharSequence(42);
+        HashingStrategy<byte[]> otherSeed = HashingStrategy.seededByteArray(43);
+        Random random = new Random(5);
+        Set<Integer> hashes = new HashSet<>();
+        int differentSeedHashes = 0;
+        for (int length = 0; length < 64; length++) {
+            byte[] key = new byte[length];
+            random.nextBytes(key);
+            byte[] padded = new byte[length + 7];
+            System.arraycopy(key, 0, padded, 3, length);
+            assertEquals(bytes.hashCode(key), bytes.hashCode(padded, 3, length));
+            assertTrue(bytes.equals(key, padded, 3, length));
+            if (bytes.hashCode(key) != otherSeed.hashCode(key)) differentSeedHashes++;
+            hashes.add(bytes.hashCode(key));
+
+            String text = new String(key, StandardCharsets.ISO_8859_1);
+            char[] textChars = ("#" + text + "#").toCharArray();
+            assertEquals(chars.hashCode(text), chars.hashCode(new StringBuilder(text)));
+            assertEquals(chars.hashCode(text), chars.hashCode(textChars, 1, length));
+            assertTrue(chars.equals(text, textChars, 1, length));
+        }
+        assertEquals(64, hashes.size());
+        assertEquals(64, differentSeedHashes);
+    }
+
+    @Test
+    void blocksStartingWithPublicConstantDoNotCollideTest() {
+        long constant = 0xe7037ed1a0b428dbL;
+        Random random = new Random(7);
+        for (long seed : new long[]{0, 42, random.nextLong()}) {
+            HashingStrategy<byte[]> bytes = HashingStrategy.seededByteArray(seed);
+            HashingStrategy<CharSequence> chars = HashingStrategy.seededCharSequence(seed);
+            Set<Integer> byteHashes = new HashSet<>();
+            Set<Integer> charHashes = new HashSet<>();
+            for (int key = 0; key < 1000; key++) {
+                byte[] array = new byte[32];
+                char[] text = new char[16];
+                for (int block = 0; block < 2; block++) {
+                    long second = random.nextLong();
+                    for (int index = 0; index < 8; index++) {
+                        array[16 * block + index] = (byte) (constant >>> (index << 3));
+                        array[16 * block + 8 + index] = (byte) (second >>> (index << 3));
+                    }
+                    for (int index = 0; index < 4; index++) {
+                        text[8 * block + index] = (char) (constant >>> (index << 4));
+                        text[8 * block + 4 + index] = (char) (second >>> (index << 4));
+                    }
+                }
+                byteHashes.add(bytes.hashCode(array));
+                charHashes.add(chars.hashCode(new String(text)));
+            }
+            assertTrue(byteHashes.size() > 990, "seed = " + seed);
+            assertTrue(charHashes.size() > 990, "seed = " + seed);
+        }
+    }
+
+    @Test
+    void collidingKeysStayInChainsTest() {
+        HashingStrategy<Object> constant = new HashingStrategy<>() {
+            @Override
+            public int hashCode(Object key) {
+                return 7;
+            }
+
+            @Override
+            public boolean equals(Object first, Object second) {
+                return first.equals(second);
+            }
+        };
+        CustomHashMap<Integer, Integer> map = new CustomHashMap<>(constant);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            map.put(i, i);
+            expected.put(i, i);
+        }
+        for (int i = 0; i < 200; i += 3) assertEquals(expected.remove(i), map.remove(i));
+        CustomHashMap<Integer, Integer> copy = new CustomHashMap<>();
+        copy.putAll(map);
+        assertAll(
+                () -> assertEquals(expected, map),
+                () -> assertEquals(0, map.treeBucketCount()),
+                () -> assertEquals(expected, copy),
+                () -> assertEquals(5, map.getAll(List.of(5, 6, 300)).get(5)),
+                () -> assertThrows(UnsupportedOperationException.class, map::freeze)
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package custom.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    private IntObjectHashMap<String> map;
+    private final int MAP_SIZE = 100_000;
+
+    @BeforeEach
+    void prepare() {
+        map = new IntObjectHashMap<>();
+        for (int i = 0; i < MAP_SIZE; i++) {
+            map.put(i, "val" + i);
+        }
+    }
+
+    @Test
+    void getPutRemoveWithZeroAndNegativeKeysTest() {
+        String oldValueForZeroKey = map.put(0, "zero");
+        String removedValue = map.remove(1);
+        map.put(-5, "minus five");
+        assertAll(
+                () -> assertEquals("val0", oldValueForZeroKey),
+                () -> assertEquals("zero", map.get(0)),
+                () -> assertEquals("val1", removedValue),
+                () -> assertNull(map.get(1)),
+                () -> assertFalse(map.containsKey(1)),
+                () -> assertTrue(map.containsKey(0)),
+                () -> assertEquals("minus five", map.get(-5)),
+                () -> assertEquals("default", map.getOrDefault(MAP_SIZE, "default")),
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertThrows(NullPointerException.class, () -> map.put(7, null))
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(3);
+        IntObjectHashMap<Integer> primitive = new IntObjectHashMap<>(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int operation = 0; operation < 300_000; operation++) {
+            int key = random.nextInt(4_000) - 2_000;
+            int action = random.nextInt(3);
+            if (action == 0) assertEquals(expected.put(key, operation), primitive.put(key, operation));
+            else if (action == 1) assertEquals(expected.remove(key), primitive.remove(key));
+            else assertEquals(expected.get(key), primitive.get(key));
+        }
+        assertEquals(expected, primitive.asMap());
+    }
+
+    @Test
+    void asMapViewWritesThroughTest() {
+        Map<Integer, String> view = map.asMap();
+        for (Iterator<Map.Entry<Integer, String>> iterator = view.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) iterator.remove();
+            else if (entry.getKey() == 1) entry.setValue("one");
+        }
+        view.put(MAP_SIZE, "last");
+        assertAll(
+                () -> assertEquals(MAP_SIZE / 2 + 1, map.size()),
+                () -> assertEquals("one", map.get(1)),
+                () -> assertNull(map.get(0)),
+                () -> assertNull(view.get(2)),
+                () -> assertEquals("last", map.get(MAP_SIZE)),
+                () -> assertEquals(map.size(), view.keySet().size())
+        );
+    }
+
+    @Test
+    void clearTest() {
+        map.clear();
+        assertAll(
+                () -> assertTrue(map.isEmpty()),
+                () -> assertNull(map.get(0)),
+                () -> assertNull(map.get(1)),
+                () -> assertTrue(map.asMap().isEmpty())
+        );
+    }
+}
@@ -0,0 +1,222 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledHashMapTest {
+
+    @TempDir
+    Path directory;
+
+    private JournaledHashMap<Integer, String> open(JournaledHashMap.SyncPolicy policy) throws IOException {
+        return JournaledHashMap.open(directory, Serializer.INTEGER, Serializer.STRING, policy);
+    }
+
+    private Path onlyFile(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).reduce((first, second) -> {
+                throw new AssertionError("Больше одного файла " + suffix);
+            }).orElseThrow();
+        }
+    }
+
+    @Test
+    void everyOperationSurvivesCrashTest() throws IOException {
+        Map<Integer, String> expected = new HashMap<>();
+        JournaledHashMap<Integer, String> map = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        Random random = new Random(7);
+        for (int operation = 0; operation < 20_000; operation++) {
+            Integer key = random.nextInt(2_000);
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.merge(key, "m", String::concat), map.merge(key, "m", String::concat));
+                default -> assertEquals(expected.put(key, "val" + operation), map.put(key, "val" + operation));
+            }
+        }
+        map.put(null, "valueMappedToNullKey");
+        expected.put(null, "valueMappedToNullKey");
+        map.keySet().removeIf(key -> key != null && key % 10 == 0);
+        expected.keySet().removeIf(key -> key != null && key % 10 == 0);
+        map.halt();
+
+        JournaledHashMap<Integer, String> recovered = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        Map<Integer, String> recoveredCopy = new HashMap<>(recovered);
+        recovered.clear();
+        recovered.put(1, "afterClear");
+        recovered.halt();
+        JournaledHashMap<Integer, String> cleared = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        cleared.close();
+        assertAll(
+                () -> assertEquals(expected, recoveredCopy),
+                () -> assertEquals(Map.of(1, "afterClear"), new HashMap<>(cleared)),
+                () -> assertThrows(IllegalStateException.class, () -> cleared.put(2, "closed"))
+        );
+    }
+
+    @Test
+    void setValueAndReplaceAllSurviveReopenTest() throws IOException {
+        JournaledHashMap<Integer, String> map = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        for (int i = 0; i < 100; i++) map.put(i, "old" + i);
+        map.put(null, "old");
+        map.replaceAll((key, value) -> key != null && key % 2 == 0 ? "replaced" + key : value);
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            if (entry.getKey() == null || entry.getKey() % 3 == 0) entry.setValue("set" + entry.getKey());
+        }
+        Map<Integer, String> expected = new HashMap<>(map);
+        map.close();
+
+        JournaledHashMap<Integer, String> reopened = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        Map<Integer, String> reopenedCopy = new HashMap<>(reopened);
+        reopened.halt();
+        assertAll(
+                () -> assertEquals(expected, reopenedCopy),
+                () -> assertEquals("replaced2", reopenedCopy.get(2)),
+                () -> assertEquals("set3", reopenedCopy.get(3)),
+                () -> assertEquals("set6", reopenedCopy.get(6)),
+                () -> assertEquals("old1", reopenedCopy.get(1)),
+                () -> assertEquals("setnull", reopenedCopy.get(null))
+        );
+    }
+
+    @Test
+    void closedMapRejectsRemovalAndOverwriteTest() throws IOException {
+        JournaledHashMap<Integer, String> map = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        for (int i = 0; i < 100; i++) map.put(i, "val" + i);
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        Map.Entry<Integer, String> entry = iterator.next();
+        Map<Integer, String> expected = new HashMap<>(map);
+        map.close();
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, () -> map.remove(1)),
+                () -> assertThrows(IllegalStateException.class, () -> map.remove(2, "val2")),
+                () -> assertThrows(IllegalStateException.class, () -> map.put(3, "overwritten")),
+                () -> assertThrows(IllegalStateException.class, () -> map.replace(4, "replaced")),
+                () -> assertThrows(IllegalStateException.class, () -> map.compute(5, (key, value) -> null)),
+                () -> assertThrows(IllegalStateException.class, () -> map.merge(6, "m", String::concat)),
+                () -> assertThrows(IllegalStateException.class, () -> entry.setValue("set")),
+                () -> assertThrows(IllegalStateException.class, iterator::remove),
+                () -> assertThrows(IllegalStateException.class, () -> map.keySet().remove(7))
+        );
+        Map<Integer, String> afterClose = new HashMap<>(map);
+        JournaledHashMap<Integer, String> reopened = open(JournaledHashMap.SyncPolicy.EVERY_OPERATION);
+        Map<Integer, String> reopenedCopy = new HashMap<>(reopened);
+        reopened.halt();
+        assertAll(
+                () -> assertEquals(expected, afterClose),
+                () -> assertEquals(expected, reopenedCopy)
+        );
+    }
+
+    @Test
+    void tornTailIsDiscardedAndTruncatedTest() throws IOException {
+        JournaledHashMap<Integer, String> map = open(JournaledHashMap.SyncPolicy.OS);
+        for (int i = 0; i < 1_000; i++) map.put(i, "val" + i);
+        map.halt();
+        Path journal = onlyFile(".log");
+        long fullSize = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(fullSize - 3);
+        }
+
+        JournaledHashMap<Integer, String> recovered = open(JournaledHashMap.SyncPolicy.OS);
+        long truncatedSize = Files.size(journal);
+        recovered.close();
+        assertAll(
+                () -> assertEquals(999, recovered.size()),
+                () -> assertEquals("val998", recovered.get(998)),
+                () -> assertFalse(recovered.containsKey(999)),
+                () -> assertTrue(truncatedSize < fullSize - 3)
+        );
+    }
+
+    @Test
+    void corruptedRecordStopsReplayTest() throws IOException {
+        JournaledHashMap<Integer, String> map = open(JournaledHashMap.SyncPolicy.OS);
+        for (int i = 0; i < 100; i++) map.put(i, "val" + i);
+        map.halt();
+        Path journal = onlyFile(".log");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), channel.size() / 2);
+        }
+
+        JournaledHashMap<Integer, String> recovered = open(JournaledHashMap.SyncPolicy.OS);
+        recovered.close();
+        assertAll(
+                () -> assertTrue(recovered.size() < 100),
+                () -> assertTrue(recovered.size() > 0),
+                () -> assertEquals("val0", recovered.get(0)),
+                () -> assertFalse(recovered.containsKey(99))
+        );
+    }
+
+    @Test
+    void intervalPolicyRecoversStateOfLastFlushTest() throws IOException {
+        JournaledHashMap<Integer, String> map = JournaledHashMap.open(directory, Serializer.INTEGER, Serializer.STRING,
+                JournaledHashMap.SyncPolicy.INTERVAL, 60_000, JournaledHashMap.DEFAULT_COMPACTION_THRESHOLD);
+        Map<Integer, String> source = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) source.put(i, "val" + i);
+        map.putAll(source);
+        map.flush();
+        for (int i = 0; i < 10_000; i++) map.put(i, "lost" + i);
+        map.halt();
+
+        JournaledHashMap<Integer, String> recovered = open(JournaledHashMap.SyncPolicy.INTERVAL);
+        recovered.close();
+        assertEquals(source, new HashMap<>(recovered));
+    }
+
+    @Test
+    void compactionReplacesOldGenerationsTest() throws IOException {
+        JournaledHashMap<Integer, String> map = JournaledHashMap.open(directory, Serializer.INTEGER, Serializer.STRING,
+                JournaledHashMap.SyncPolicy.OS, JournaledHashMap.DEFAULT_SYNC_INTERVAL_MILLIS, 64 << 10);
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int operation = 0; operation < 100_000; operation++) {
+            Integer key = random.nextInt(5_000);
+            if (random.nextInt(5) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, "val" + operation);
+                expected.put(key, "val" + operation);
+            }
+        }
+        long generation = map.generation();
+        map.compact();
+        map.put(-1, "afterCompaction");
+        expected.put(-1, "afterCompaction");
+        map.close();
+        Files.writeString(directory.resolve("snapshot-" + (generation + 5) + ".bin.tmp"), "torn snapshot");
+
+        long files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> !file.toString().endsWith(".tmp")).count();
+        }
+        JournaledHashMap<Integer, String> reopened = open(JournaledHashMap.SyncPolicy.OS);
+        reopened.close();
+        long filesAfterOpen;
+        try (Stream<Path> list = Files.list(directory)) {
+            filesAfterOpen = list.count();
+        }
+        assertAll(
+                () -> assertTrue(generation > 2),
+                () -> assertEquals(2, files),
+                () -> assertEquals(3, filesAfterOpen),
+                () -> assertEquals(expected, new HashMap<>(reopened))
+        );
+    }
+}
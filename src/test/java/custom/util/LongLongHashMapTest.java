@@ -0,0 +1,86 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void getPutRemoveWithZeroKeyTest() {
+        LongLongHashMap map = new LongLongHashMap();
+        long firstPut = map.put(0, 10);
+        long secondPut = map.put(0, 20);
+        map.put(Long.MIN_VALUE, 1);
+        map.put(Long.MAX_VALUE, 2);
+        assertAll(
+                () -> assertEquals(0, firstPut),
+                () -> assertEquals(10, secondPut),
+                () -> assertEquals(20, map.get(0)),
+                () -> assertEquals(1, map.get(Long.MIN_VALUE)),
+                () -> assertEquals(-1, map.getOrDefault(42, -1)),
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals(2, map.remove(Long.MAX_VALUE)),
+                () -> assertFalse(map.containsKey(Long.MAX_VALUE)),
+                () -> assertEquals(20, map.remove(0)),
+                () -> assertEquals(1, map.size())
+        );
+    }
+
+    @Test
+    void addToCountsOccurrencesTest() {
+        LongLongHashMap counts = new LongLongHashMap();
+        for (long i = 0; i < 100_000; i++) {
+            counts.addTo(i % 1_000, 1);
+        }
+        assertAll(
+                () -> assertEquals(1_000, counts.size()),
+                () -> assertEquals(100, counts.get(0)),
+                () -> assertEquals(100, counts.get(999))
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(5);
+        LongLongHashMap primitive = new LongLongHashMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int operation = 0; operation < 300_000; operation++) {
+            long key = (random.nextInt(4_000) - 2_000) * 0x1_0000_0000L;
+            int action = random.nextInt(3);
+            if (action == 0) {
+                Long old = expected.put(key, (long) operation);
+                assertEquals(old == null ? 0 : old, primitive.put(key, operation));
+            } else if (action == 1) {
+                Long old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, primitive.remove(key));
+            } else {
+                assertEquals(expected.getOrDefault(key, -1L), primitive.getOrDefault(key, -1));
+            }
+        }
+        assertEquals(expected, primitive.asMap());
+    }
+
+    @Test
+    void asMapIteratorRemoveTest() {
+        LongLongHashMap map = new LongLongHashMap();
+        for (long i = 0; i < 10_000; i++) {
+            map.put(i, i * 2);
+        }
+        for (Iterator<Map.Entry<Long, Long>> iterator = map.asMap().entrySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getKey() % 3 != 0) iterator.remove();
+        }
+        assertAll(
+                () -> assertEquals(3_334, map.size()),
+                () -> assertEquals(0, map.get(0)),
+                () -> assertTrue(map.containsKey(0)),
+                () -> assertEquals(18, map.get(9)),
+                () -> assertNull(map.asMap().get(10L))
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package custom.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedHashMapTest {
+
+    @TempDir
+    Path directory;
+
+    private Map<String, String> source;
+    private MappedHashMap<String, String> map;
+    private final int MAP_SIZE = 100_000;
+    private final String NOT_NULL_KEY = "key1";
+    private final String VALUE_FOR_NOT_NULL_KEY = "val1";
+
+    @BeforeEach
+    void prepare() throws IOException {
+        source = new CustomHashMap<>();
+        for (int i = 1; i <= MAP_SIZE; i++) {
+            source.put("key" + i, "val" + i);
+        }
+        Path file = directory.resolve("snapshot.bin");
+        MappedHashMap.save(source, file, Serializer.STRING, Serializer.STRING);
+        map = MappedHashMap.open(file, Serializer.STRING, Serializer.STRING);
+    }
+
+    @AfterEach
+    void release() {
+        map.close();
+    }
+
+    @Test
+    void lookupsAreServedFromSnapshotTest() {
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsKey(NOT_NULL_KEY)),
+                () -> assertFalse(map.containsKey("key0")),
+                () -> assertNull(map.get(null)),
+                () -> assertNull(map.get(1)),
+                () -> assertEquals(new HashMap<>(source), map),
+                () -> assertEquals(map, new HashMap<>(source)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.put(NOT_NULL_KEY, "other"))
+        );
+    }
+
+    @Test
+    void toCustomHashMapRebuildsEqualMapTest() {
+        CustomHashMap<String, String> rebuilt = map.toCustomHashMap();
+        rebuilt.put("key0", "val0");
+        assertAll(
+                () -> assertEquals(MAP_SIZE + 1, rebuilt.size()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, rebuilt.get(NOT_NULL_KEY)),
+                () -> assertEquals("val0", rebuilt.get("key0")),
+                () -> assertEquals(MAP_SIZE, map.size())
+        );
+    }
+
+    @Test
+    void snapshotOfRandomMapWithVariableLengthValuesTest() throws IOException {
+        Random random = new Random(7);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            expected.put(random.nextInt(), "v".repeat(random.nextInt(600)));
+        }
+        Path file = directory.resolve("random.bin");
+        MappedHashMap.save(expected, file, Serializer.INTEGER, Serializer.STRING);
+        try (MappedHashMap<Integer, String> mapped = MappedHashMap.open(file, Serializer.INTEGER, Serializer.STRING)) {
+            assertAll(
+                    () -> assertEquals(expected, mapped),
+                    () -> expected.forEach((key, value) -> assertEquals(value, mapped.get(key))),
+                    () -> assertEquals(expected, new HashMap<>(mapped.toCustomHashMap()))
+            );
+        }
+    }
+
+    @Test
+    void emptyMapAndInvalidFileTest() throws IOException {
+        Path empty = directory.resolve("empty.bin");
+        MappedHashMap.save(new CustomHashMap<String, String>(), empty, Serializer.STRING, Serializer.STRING);
+        Path invalid = Files.write(directory.resolve("invalid.bin"), new byte[64]);
+        try (MappedHashMap<String, String> mapped = MappedHashMap.open(empty, Serializer.STRING, Serializer.STRING)) {
+            assertAll(
+                    () -> assertTrue(mapped.isEmpty()),
+                    () -> assertNull(mapped.get(NOT_NULL_KEY)),
+                    () -> assertTrue(mapped.toCustomHashMap().isEmpty()),
+                    () -> assertThrows(IllegalArgumentException.class,
+                            () -> MappedHashMap.open(invalid, Serializer.STRING, Serializer.STRING))
+            );
+        }
+    }
+
+    @Test
+    void closeTest() {
+        map.close();
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, () -> map.get(NOT_NULL_KEY)),
+                () -> assertThrows(IllegalStateException.class, () -> map.size()),
+                () -> assertDoesNotThrow(() -> map.close())
+        );
+    }
+}
@@ -0,0 +1,85 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectIntHashMapTest {
+
+    @Test
+    void getPutRemoveWithNullKeyTest() {
+        ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+        int firstPut = map.put(null, 10);
+        map.put("one", 1);
+        map.put("two", 2);
+        assertAll(
+                () -> assertEquals(0, firstPut),
+                () -> assertEquals(10, map.getInt(null)),
+                () -> assertEquals(1, map.getInt("one")),
+                () -> assertEquals(-1, map.getOrDefault("three", -1)),
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals(10, map.removeInt(null)),
+                () -> assertFalse(map.containsKey(null)),
+                () -> assertEquals(2, map.removeInt("two")),
+                () -> assertEquals(1, map.size())
+        );
+    }
+
+    @Test
+    void addToCountsWordsTest() {
+        ObjectIntHashMap<String> counts = new ObjectIntHashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.addTo("word" + i % 500, 1);
+        }
+        assertAll(
+                () -> assertEquals(500, counts.size()),
+                () -> assertEquals(200, counts.getInt("word0")),
+                () -> assertEquals(200, counts.getInt("word499"))
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(9);
+        ObjectIntHashMap<String> primitive = new ObjectIntHashMap<>(2);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int operation = 0; operation < 300_000; operation++) {
+            String key = random.nextInt(50) == 0 ? null : "key" + random.nextInt(3_000);
+            int action = random.nextInt(3);
+            if (action == 0) {
+                Integer old = expected.put(key, operation);
+                assertEquals(old == null ? 0 : old, primitive.put(key, operation));
+            } else if (action == 1) {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, primitive.removeInt(key));
+            } else {
+                assertEquals(expected.getOrDefault(key, -1), primitive.getOrDefault(key, -1));
+            }
+        }
+        assertEquals(expected, primitive.asMap());
+    }
+
+    @Test
+    void asMapIteratorRemoveTest() {
+        ObjectIntHashMap<Integer> map = new ObjectIntHashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, i * 2);
+        }
+        map.put(null, -1);
+        for (Iterator<Map.Entry<Integer, Integer>> iterator = map.asMap().entrySet().iterator(); iterator.hasNext(); ) {
+            Integer key = iterator.next().getKey();
+            if (key != null && key % 2 != 0) iterator.remove();
+        }
+        assertAll(
+                () -> assertEquals(5_001, map.size()),
+                () -> assertEquals(-1, map.getInt(null)),
+                () -> assertEquals(4, map.getInt(2)),
+                () -> assertNull(map.asMap().get(3))
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package custom.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapHashMapTest {
+
+    private OffHeapHashMap<Integer, String> map;
+    private final int MAP_SIZE = 100_000;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @BeforeEach
+    void prepare() {
+        map = new OffHeapHashMap<>(Serializer.INTEGER, Serializer.STRING);
+        for (int i = 1; i <= MAP_SIZE; i++) {
+            map.put(i, "val" + i);
+        }
+    }
+
+    @AfterEach
+    void release() {
+        map.close();
+    }
+
+    @Test
+    void basicOperationsTest() {
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsKey(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsValue(VALUE_FOR_NOT_NULL_KEY)),
+                () -> assertNull(map.get(MAP_SIZE + 1)),
+                () -> assertNull(map.get("not an integer")),
+                () -> assertNull(map.get(null)),
+                () -> assertThrows(NullPointerException.class, () -> map.put(null, "val")),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> new OffHeapHashMap<>(Serializer.INTEGER, Serializer.STRING, -1))
+        );
+    }
+
+    @Test
+    void updateAndRemoveTest() {
+        String longValue = "x".repeat(1_000);
+        String oldValue = map.put(NOT_NULL_KEY, longValue);
+        String shortened = map.put(NOT_NULL_KEY, "short");
+        String removed = map.remove(2);
+        assertAll(
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, oldValue),
+                () -> assertEquals(longValue, shortened),
+                () -> assertEquals("short", map.get(NOT_NULL_KEY)),
+                () -> assertEquals("val2", removed),
+                () -> assertNull(map.remove(2)),
+                () -> assertEquals(MAP_SIZE - 1, map.size())
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(7);
+        Map<String, String> expected = new HashMap<>();
+        try (OffHeapHashMap<String, String> offHeap = new OffHeapHashMap<>(Serializer.STRING, Serializer.STRING, 2)) {
+            for (int operation = 0; operation < 300_000; operation++) {
+                String key = "key" + random.nextInt(5_000);
+                int action = random.nextInt(3);
+                if (action == 0) {
+                    String value = "v".repeat(random.nextInt(40)) + operation;
+                    assertEquals(expected.put(key, value), offHeap.put(key, value));
+                } else if (action == 1) assertEquals(expected.remove(key), offHeap.remove(key));
+                else assertEquals(expected.get(key), offHeap.get(key));
+            }
+            assertAll(
+                    () -> assertEquals(expected.size(), offHeap.size()),
+                    () -> assertEquals(expected, offHeap),
+                    () -> assertEquals(offHeap, expected),
+                    () -> assertEquals(expected.hashCode(), offHeap.hashCode())
+            );
+        }
+    }
+
+    @Test
+    void iteratorRemoveAndSetValueWriteThroughTest() {
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) iterator.remove();
+            else if (entry.getKey() % 3 == 0) entry.setValue("much longer value " + entry.getKey());
+        }
+        Iterator<Integer> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put(-1, "val");
+        assertAll(
+                () -> assertEquals(MAP_SIZE / 2 + 1, map.size()),
+                () -> assertNull(map.get(2)),
+                () -> assertEquals("much longer value 3", map.get(3)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertThrows(ConcurrentModificationException.class, iterator::next)
+        );
+    }
+
+    @Test
+    void clearAndCloseTest() {
+        map.clear();
+        assertAll(
+                () -> assertEquals(0, map.size()),
+                () -> assertNull(map.get(NOT_NULL_KEY)),
+                () -> assertFalse(map.keySet().iterator().hasNext())
+        );
+        map.put(NOT_NULL_KEY, VALUE_FOR_NOT_NULL_KEY);
+        map.close();
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, () -> map.get(NOT_NULL_KEY)),
+                () -> assertThrows(IllegalStateException.class, () -> map.size()),
+                () -> assertDoesNotThrow(() -> map.close())
+        );
+    }
+
+    @Test
+    void maximumCapacityTableTest() {
+        OffHeapHashMap<Integer, String> large = new OffHeapHashMap<>(Serializer.INTEGER, Serializer.STRING, Integer.MAX_VALUE);
+        try {
+            for (int i = 1; i <= MAP_SIZE; i++) {
+                large.put(i, "val" + i);
+            }
+            long offHeapBytes = large.offHeapBytes();
+            String removed = large.remove(NOT_NULL_KEY);
+            assertAll(
+                    () -> assertEquals(MAP_SIZE - 1, large.size()),
+                    () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, removed),
+                    () -> assertEquals("val" + MAP_SIZE, large.get(MAP_SIZE)),
+                    () -> assertTrue(offHeapBytes >= (1L << 30), "хэш-таблица максимального размера занимает 1 ГиБ")
+            );
+        } finally {
+            large.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package custom.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest {
+
+    private PersistentHashMap<Integer, String> map;
+    private final int MAP_SIZE = 100_000;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NULL_KEY = "valueMappedToNullKey";
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @BeforeEach
+    void prepare() {
+        PersistentHashMap.Transient<Integer, String> builder = PersistentHashMap.<Integer, String>empty().asTransient();
+        for (int i = 1; i < MAP_SIZE; i++) {
+            builder.put(i, "val" + i);
+        }
+        builder.put(null, VALUE_FOR_NULL_KEY);
+        map = builder.persistent();
+    }
+
+    @Test
+    void basicOperationsWithNullAndNotNullKeyTest() {
+        PersistentHashMap<Integer, String> updated = map.with(NOT_NULL_KEY, "updated").without(null);
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, map.get(null)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsKey(null)),
+                () -> assertNull(map.get(MAP_SIZE)),
+                () -> assertEquals(MAP_SIZE - 1, updated.size()),
+                () -> assertEquals("updated", updated.get(NOT_NULL_KEY)),
+                () -> assertFalse(updated.containsKey(null)),
+                () -> assertSame(map, map.with(NOT_NULL_KEY, map.get(NOT_NULL_KEY))),
+                () -> assertSame(map, map.without(MAP_SIZE)),
+                () -> assertThrows(NullPointerException.class, () -> map.with(NOT_NULL_KEY, null)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.put(NOT_NULL_KEY, "new")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> map.remove(NOT_NULL_KEY))
+        );
+    }
+
+    @Test
+    void snapshotsStayUnchangedUnderRandomOperationsTest() {
+        Random random = new Random(5);
+        PersistentHashMap<Integer, Integer> current = PersistentHashMap.empty();
+        Map<Integer, Integer> expected = new HashMap<>();
+        List<PersistentHashMap<Integer, Integer>> snapshots = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedSnapshots = new ArrayList<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            Integer key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                current = current.without(key);
+            } else {
+                expected.put(key, operation);
+                current = current.with(key, operation);
+            }
+            if (operation % 20_000 == 0) {
+                snapshots.add(current);
+                expectedSnapshots.add(new HashMap<>(expected));
+            }
+        }
+        PersistentHashMap<Integer, Integer> last = current;
+        assertAll(
+                () -> assertEquals(expected, last),
+                () -> assertEquals(expected.hashCode(), last.hashCode()),
+                () -> assertEquals(expectedSnapshots, snapshots)
+        );
+    }
+
+    @Test
+    void keysWithEqualHashCodesTest() {
+        PersistentHashMap<CollidingKey, Integer> colliding = PersistentHashMap.empty();
+        Map<CollidingKey, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            colliding = colliding.with(new CollidingKey(i), i);
+            expected.put(new CollidingKey(i), i);
+        }
+        PersistentHashMap<CollidingKey, Integer> full = colliding;
+        for (int i = 0; i < 2_000; i += 2) {
+            colliding = colliding.without(new CollidingKey(i));
+            expected.remove(new CollidingKey(i));
+        }
+        PersistentHashMap<CollidingKey, Integer> half = colliding;
+        Set<CollidingKey> visited = new HashSet<>();
+        half.forEach((key, value) -> assertTrue(visited.add(key)));
+        assertAll(
+                () -> assertEquals(2_000, full.size()),
+                () -> assertEquals(0, full.get(new CollidingKey(0))),
+                () -> assertEquals(expected, half),
+                () -> assertEquals(expected.keySet(), visited),
+                () -> assertNull(half.get(new CollidingKey(0)))
+        );
+    }
+
+    @Test
+    void transientDoesNotChangeSourceAndExpiresTest() {
+        PersistentHashMap.Transient<Integer, String> builder = map.asTransient();
+        for (int i = 1; i < MAP_SIZE; i += 2) builder.remove(i);
+        String previous = builder.put(2, "changed");
+        PersistentHashMap<Integer, String> changed = builder.persistent();
+        assertAll(
+                () -> assertEquals("val2", previous),
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertEquals("val2", map.get(2)),
+                () -> assertEquals(MAP_SIZE / 2, changed.size()),
+                () -> assertEquals("changed", changed.get(2)),
+                () -> assertNull(changed.get(NOT_NULL_KEY)),
+                () -> assertThrows(IllegalStateException.class, () -> builder.put(3, "val")),
+                () -> assertThrows(IllegalStateException.class, builder::persistent)
+        );
+    }
+
+    @Test
+    void copyOfAndIterationTest() {
+        Map<Integer, String> source = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) source.put(i * 31, "val" + i);
+        PersistentHashMap<Integer, String> copy = PersistentHashMap.copyOf(source);
+        Set<Integer> keys = new HashSet<>();
+        for (Map.Entry<Integer, String> entry : copy.entrySet()) assertTrue(keys.add(entry.getKey()));
+        assertAll(
+                () -> assertEquals(source, copy),
+                () -> assertEquals(source.keySet(), keys),
+                () -> assertTrue(PersistentHashMap.empty().isEmpty()),
+                () -> assertFalse(PersistentHashMap.empty().entrySet().iterator().hasNext())
+        );
+    }
+
+    /**
+     * Ключ, группы из GROUP_SIZE последовательных значений которого имеют одинаковый хэш-код.
+     */
+    private record CollidingKey(int id) {
+        static final int GROUP_SIZE = 64;
+
+        @Override
+        public int hashCode() {
+            return id / GROUP_SIZE;
+        }
+    }
+}
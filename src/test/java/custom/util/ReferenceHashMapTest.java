@@ -0,0 +1,174 @@
+package custom.util;
+
+import custom.util.ReferenceHashMap.Equivalence;
+import custom.util.ReferenceHashMap.Strength;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceHashMapTest {
+
+    private final int MAP_SIZE = 10_000;
+    private final Integer NOT_NULL_KEY = 1;
+
+    /**
+     * Вызывает сборку мусора, пока условие не выполнится, и возвращает результат проверки условия.
+     */
+    private static boolean collectUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            if (condition.getAsBoolean()) return true;
+            System.gc();
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    @Test
+    void weakKeysAreRemovedAfterCollectionTest() throws InterruptedException {
+        ReferenceHashMap<Object, Integer> map = new ReferenceHashMap<>();
+        List<Object> retained = new ArrayList<>();
+        for (int i = 0; i < MAP_SIZE; i++) {
+            Object key = new Object();
+            map.put(key, i);
+            if (i % 2 == 0) retained.add(key);
+        }
+        map.put(null, -1);
+        boolean collected = collectUntil(() -> map.size() == MAP_SIZE / 2 + 1);
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int i = 0; i < retained.size(); i++) expected.put(retained.get(i), 2 * i);
+        expected.put(null, -1);
+        assertAll(
+                () -> assertTrue(collected),
+                () -> assertEquals(expected, new HashMap<>(map)),
+                () -> assertEquals(0, map.get(retained.get(0))),
+                () -> assertEquals(-1, map.get(null))
+        );
+    }
+
+    @Test
+    void purgeDuringIterationIsNotConcurrentModificationTest() throws InterruptedException {
+        ReferenceHashMap<Object, Integer> map = new ReferenceHashMap<>();
+        List<Object> retained = new ArrayList<>();
+        List<Object> dropped = new ArrayList<>();
+        for (int i = 0; i < MAP_SIZE; i++) {
+            Object key = new Object();
+            map.put(key, i);
+            (i % 2 == 0 ? retained : dropped).add(key);
+        }
+        Iterator<Map.Entry<Object, Integer>> iterator = map.entrySet().iterator();
+        Map.Entry<Object, Integer> first = iterator.next();
+        WeakReference<Object> canary = new WeakReference<>(dropped.get(0));
+        dropped.clear();
+        boolean collected = collectUntil(() -> canary.get() == null);
+        Integer firstValue = map.get(first.getKey());
+        boolean containsRetained = map.containsKey(retained.get(0));
+        int visitedRetained = first.getValue() % 2 == 0 ? 1 : 0;
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() % 2 == 0) visitedRetained++;
+        }
+        int finalVisitedRetained = visitedRetained;
+        assertAll(
+                () -> assertTrue(collected),
+                () -> assertEquals(first.getValue(), firstValue),
+                () -> assertTrue(containsRetained),
+                () -> assertEquals(retained.size(), finalVisitedRetained),
+                () -> assertTrue(retained.stream().allMatch(map::containsKey))
+        );
+    }
+
+    @Test
+    void weakValuesAreRemovedAfterCollectionTest() throws InterruptedException {
+        ReferenceHashMap<Integer, Object> map = new ReferenceHashMap<>(Strength.STRONG, Strength.WEAK,
+                Equivalence.EQUALITY);
+        List<Object> retained = new ArrayList<>();
+        for (int i = 0; i < MAP_SIZE; i++) {
+            Object value = new Object();
+            map.put(i, value);
+            if (i % 4 == 0) retained.add(value);
+        }
+        boolean collected = collectUntil(() -> map.size() == MAP_SIZE / 4);
+        assertAll(
+                () -> assertTrue(collected),
+                () -> assertSame(retained.get(1), map.get(4)),
+                () -> assertNull(map.get(NOT_NULL_KEY)),
+                () -> assertFalse(map.containsKey(NOT_NULL_KEY)),
+                () -> assertTrue(map.containsValue(retained.get(2)))
+        );
+    }
+
+    @Test
+    void identityAndEqualitySemanticsTest() {
+        String first = new String("key");
+        String second = new String("key");
+        ReferenceHashMap<String, String> equality = new ReferenceHashMap<>(Strength.WEAK, Strength.STRONG,
+                Equivalence.EQUALITY);
+        ReferenceHashMap<String, String> identity = new ReferenceHashMap<>(Strength.WEAK, Strength.STRONG,
+                Equivalence.IDENTITY);
+        for (ReferenceHashMap<String, String> map : List.of(equality, identity)) {
+            map.put(first, "first");
+            map.put(second, "second");
+        }
+        assertAll(
+                () -> assertEquals(1, equality.size()),
+                () -> assertEquals("second", equality.get(first)),
+                () -> assertEquals(2, identity.size()),
+                () -> assertEquals("first", identity.get(first)),
+                () -> assertEquals("second", identity.get(second)),
+                () -> assertNull(identity.get("key"))
+        );
+    }
+
+    @Test
+    void strongReferencesBehaveLikeHashMapTest() {
+        ReferenceHashMap<Integer, String> map = new ReferenceHashMap<>(Strength.STRONG, Strength.SOFT,
+                Equivalence.EQUALITY);
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(9);
+        for (int operation = 0; operation < 100_000; operation++) {
+            Integer key = random.nextInt(MAP_SIZE) - 10;
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(key), map.remove(key));
+            else assertEquals(expected.put(key, "val" + operation), map.put(key, "val" + operation));
+        }
+        map.put(null, "valueMappedToNullKey");
+        expected.put(null, "valueMappedToNullKey");
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() != null && entry.getKey() % 2 == 0) iterator.remove();
+            else if (entry.getKey() != null) entry.setValue("changed");
+        }
+        expected.keySet().removeIf(key -> key != null && key % 2 == 0);
+        expected.replaceAll((key, value) -> key == null ? value : "changed");
+        assertAll(
+                () -> assertEquals(expected, map),
+                () -> assertEquals(expected.size(), map.size()),
+                () -> assertEquals(expected.get(NOT_NULL_KEY), map.get(NOT_NULL_KEY)),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null))
+        );
+    }
+
+    @Test
+    void purgeDoesNotRemoveReachableEntriesTest() throws InterruptedException {
+        ReferenceHashMap<Object, Object> map = new ReferenceHashMap<>(Strength.WEAK, Strength.SOFT,
+                Equivalence.IDENTITY);
+        List<Object> keys = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < MAP_SIZE; i++) {
+            keys.add(new Object());
+            values.add(new Object());
+            map.put(keys.get(i), values.get(i));
+        }
+        for (int i = 0; i < MAP_SIZE; i++) map.put(new Object(), new Object());
+        boolean collected = collectUntil(() -> map.size() == MAP_SIZE);
+        for (int i = 0; i < MAP_SIZE; i++) assertSame(values.get(i), map.get(keys.get(i)));
+        assertTrue(collected);
+    }
+}
@@ -0,0 +1,136 @@
+package custom.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobinHoodHashMapTest {
+
+    private Map<Integer, String> map;
+    private Map<Integer, String> emptyMap;
+    private final int MAP_SIZE = 100_000;
+    private final Integer NOT_NULL_KEY = 1;
+    private final String VALUE_FOR_NULL_KEY = "valueMappedToNullKey";
+    private final String VALUE_FOR_NOT_NULL_KEY = "val" + NOT_NULL_KEY;
+
+    @BeforeEach
+    void prepare() {
+        emptyMap = new RobinHoodHashMap<>();
+        map = new RobinHoodHashMap<>();
+        for (int i = 1; i < MAP_SIZE; i++) {
+            map.put(i, "val" + i);
+        }
+        map.put(null, VALUE_FOR_NULL_KEY);
+    }
+
+    @Test
+    void basicOperationsWithNullAndNotNullKeyTest() {
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.size()),
+                () -> assertTrue(emptyMap.isEmpty()),
+                () -> assertTrue(map.containsKey(null)),
+                () -> assertFalse(emptyMap.containsKey(null)),
+                () -> assertTrue(map.containsValue(VALUE_FOR_NOT_NULL_KEY)),
+                () -> assertEquals(VALUE_FOR_NULL_KEY, map.get(null)),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, map.get(NOT_NULL_KEY)),
+                () -> assertNull(map.get(MAP_SIZE)),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null))
+        );
+    }
+
+    @Test
+    void updateAndRemoveByNullAndNotNullKeyTest() {
+        String oldValueForNullKey = map.put(null, "new_value_for_null_key");
+        String removedValue = map.remove(NOT_NULL_KEY);
+        String removedValueForNullKey = map.remove(null);
+        assertAll(
+                () -> assertEquals(VALUE_FOR_NULL_KEY, oldValueForNullKey),
+                () -> assertEquals(VALUE_FOR_NOT_NULL_KEY, removedValue),
+                () -> assertEquals("new_value_for_null_key", removedValueForNullKey),
+                () -> assertNull(map.remove(NOT_NULL_KEY)),
+                () -> assertNull(emptyMap.remove(null)),
+                () -> assertEquals(MAP_SIZE - 2, map.size())
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperationsTest() {
+        Random random = new Random(7);
+        Map<Integer, Integer> robinHood = new RobinHoodHashMap<>(2, 0.9f);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int operation = 0; operation < 300_000; operation++) {
+            Integer key = random.nextInt(5_000) - 100;
+            int action = random.nextInt(3);
+            if (action == 0) assertEquals(expected.put(key, operation), robinHood.put(key, operation));
+            else if (action == 1) assertEquals(expected.remove(key), robinHood.remove(key));
+            else assertEquals(expected.get(key), robinHood.get(key));
+        }
+        assertAll(
+                () -> assertEquals(expected.size(), robinHood.size()),
+                () -> assertEquals(expected, robinHood),
+                () -> assertEquals(robinHood, expected),
+                () -> assertEquals(expected.hashCode(), robinHood.hashCode())
+        );
+    }
+
+    @Test
+    void iteratorRemoveVisitsEveryMappingOnceTest() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            Map<Integer, String> robinHood = new RobinHoodHashMap<>(64, 0.9f);
+            Set<Integer> expectedKeys = new HashSet<>();
+            for (int i = 0; i < 57; i++) {
+                int key = random.nextInt();
+                robinHood.put(key, "val" + key);
+                expectedKeys.add(key);
+            }
+            int initialSize = robinHood.size();
+            Set<Integer> visited = new HashSet<>();
+            for (Iterator<Integer> iterator = robinHood.keySet().iterator(); iterator.hasNext(); ) {
+                Integer key = iterator.next();
+                assertTrue(visited.add(key));
+                if (random.nextBoolean()) {
+                    iterator.remove();
+                    expectedKeys.remove(key);
+                }
+            }
+            assertEquals(initialSize, visited.size());
+            assertEquals(expectedKeys, robinHood.keySet());
+            assertEquals(expectedKeys.size(), robinHood.size());
+        }
+    }
+
+    @Test
+    void entrySetValueWritesThroughAndIteratorFailsFastTest() {
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            if (entry.getKey() == null) entry.setValue("updated");
+        }
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.put(-1, "val");
+        assertAll(
+                () -> assertEquals("updated", map.get(null)),
+                () -> assertThrows(ConcurrentModificationException.class, iterator::next),
+                () -> assertEquals(map.size(), map.values().size())
+        );
+    }
+
+    @Test
+    void clearTest() {
+        map.clear();
+        assertAll(
+                () -> assertEquals(0, map.size()),
+                () -> assertNull(map.get(NOT_NULL_KEY)),
+                () -> assertFalse(map.keySet().iterator().hasNext())
+        );
+    }
+}
@@ -0,0 +1,127 @@
+package custom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedHashMapTest {
+
+    /**
+     * Размер больших тестов. Значения всех пар - один объект VALUE, поэтому память занимают только ключи и узлы.
+     */
+    private final int LARGE_SIZE = 1 << 22;
+    private final Boolean VALUE = Boolean.TRUE;
+    private final int MAP_SIZE = 10_000;
+    private final Integer NOT_NULL_KEY = 1;
+
+    @Test
+    void largeMapSizeAndLookupsTest() {
+        SegmentedHashMap<Integer, Boolean> map = new SegmentedHashMap<>();
+        for (int key = 0; key < LARGE_SIZE; key++) assertNull(map.put(key, VALUE));
+        long sizeAfterFill = map.sizeLong();
+        for (int key = 0; key < LARGE_SIZE; key += 2) map.remove(key);
+        int mismatches = 0;
+        for (int key = 0; key < LARGE_SIZE; key++) {
+            if (map.containsKey(key) != (key % 2 == 1)) mismatches++;
+        }
+        int mismatchCount = mismatches;
+        assertAll(
+                () -> assertEquals(LARGE_SIZE, sizeAfterFill),
+                () -> assertEquals(LARGE_SIZE / 2, map.sizeLong()),
+                () -> assertEquals(LARGE_SIZE / 2, map.size()),
+                () -> assertEquals(0, mismatchCount),
+                () -> assertEquals(VALUE, map.get(LARGE_SIZE - 1)),
+                () -> assertNull(map.get(LARGE_SIZE))
+        );
+    }
+
+    @Test
+    void sequentialKeysAreSpreadAcrossSegmentsTest() {
+        SegmentedHashMap<Integer, Boolean> map = new SegmentedHashMap<>();
+        for (int key = 0; key < LARGE_SIZE; key++) map.put(key, VALUE);
+        int average = LARGE_SIZE / map.segmentCount();
+        for (int segment = 0; segment < map.segmentCount(); segment++) {
+            MapStatistics statistics = map.segmentStatistics(segment);
+            assertTrue(Math.abs(statistics.size() - average) < average / 10, "Сегмент " + segment);
+            assertTrue(statistics.maxChainLength() <= 16, "Сегмент " + segment);
+        }
+    }
+
+    @Test
+    void segmentsResizeIndependentlyTest() {
+        SegmentedHashMap<Integer, Boolean> map = new SegmentedHashMap<>(16, 16, 0.75f, false);
+        int inserted = 0;
+        for (int key = 0; inserted < MAP_SIZE; key++) {
+            if (map.segmentIndex(key) != 0) continue;
+            map.put(key, VALUE);
+            inserted++;
+        }
+        assertAll(
+                () -> assertEquals(MAP_SIZE, map.sizeLong()),
+                () -> assertEquals(16_384, map.segmentStatistics(0).capacity()),
+                () -> assertEquals(MAP_SIZE, map.segmentStatistics(0).size()),
+                () -> assertEquals(16, map.segmentStatistics(1).capacity()),
+                () -> assertEquals(16, map.segmentStatistics(15).capacity()),
+                () -> assertEquals(0, map.segmentStatistics(15).size())
+        );
+    }
+
+    @Test
+    void behavesLikeHashMapTest() {
+        SegmentedHashMap<Integer, String> map = new SegmentedHashMap<>(8);
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int operation = 0; operation < 100_000; operation++) {
+            Integer key = random.nextInt(MAP_SIZE) - 10;
+            String value = "val" + random.nextInt(100);
+            switch (random.nextInt(5)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.merge(key, value, String::concat), map.merge(key, value, String::concat));
+                case 2 -> assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value));
+                case 3 -> assertEquals(expected.compute(key, (k, v) -> v == null ? value : null),
+                        map.compute(key, (k, v) -> v == null ? value : null));
+                default -> assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        map.put(null, "valueMappedToNullKey");
+        expected.put(null, "valueMappedToNullKey");
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() != null && entry.getKey() % 2 == 0) iterator.remove();
+        }
+        expected.keySet().removeIf(key -> key != null && key % 2 == 0);
+        assertAll(
+                () -> assertEquals(expected, map),
+                () -> assertEquals(map, expected),
+                () -> assertEquals(expected.hashCode(), map.hashCode()),
+                () -> assertEquals(expected.size(), map.sizeLong()),
+                () -> assertEquals("valueMappedToNullKey", map.get(null)),
+                () -> assertEquals(expected.get(NOT_NULL_KEY), map.get(NOT_NULL_KEY)),
+                () -> assertThrows(NullPointerException.class, () -> map.put(NOT_NULL_KEY, null))
+        );
+    }
+
+    @Test
+    void singleSegmentClearAndValidationTest() {
+        SegmentedHashMap<Integer, Boolean> single = new SegmentedHashMap<>(1);
+        for (int key = 0; key < MAP_SIZE; key++) single.put(key, VALUE);
+        boolean containedLastKey = single.containsKey(MAP_SIZE - 1);
+        single.clear();
+        assertAll(
+                () -> assertEquals(1, single.segmentCount()),
+                () -> assertTrue(containedLastKey),
+                () -> assertTrue(single.isEmpty()),
+                () -> assertEquals(0, single.sizeLong()),
+                () -> assertFalse(single.entrySet().iterator().hasNext()),
+                () -> assertEquals(64, new SegmentedHashMap<>(33).segmentCount()),
+                () -> assertThrows(IllegalArgumentException.class, () -> new SegmentedHashMap<>(0)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> new SegmentedHashMap<>(SegmentedHashMap.MAXIMUM_SEGMENT_COUNT + 1))
+        );
+    }
+}